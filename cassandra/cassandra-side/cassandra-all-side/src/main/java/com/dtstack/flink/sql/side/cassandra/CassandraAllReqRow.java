@@ -33,6 +33,7 @@ import com.dtstack.flink.sql.side.BaseAllReqRow;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.cassandra.table.CassandraSideTableInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -73,15 +74,26 @@ public class CassandraAllReqRow extends BaseAllReqRow {
     private transient Cluster cluster;
     private transient Session session = null;
 
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
 
     public CassandraAllReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(new com.dtstack.flink.sql.side.cassandra.CassandraAllSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         loadData(newCache);
     }
@@ -89,7 +101,7 @@ public class CassandraAllReqRow extends BaseAllReqRow {
     @Override
     protected void reloadCache() {
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         try {
             loadData(newCache);
         } catch (SQLException e) {
@@ -118,7 +130,7 @@ public class CassandraAllReqRow extends BaseAllReqRow {
             inputParams.add(equalObj);
         }
 
-        String key = buildKey(inputParams);
+        SideCacheKey key = SideCacheKey.of(inputParams);
         List<Map<String, Object>> cacheList = cacheRef.get().get(key);
         if (CollectionUtils.isEmpty(cacheList)) {
             if (sideInfo.getJoinType() == JoinType.LEFT) {
@@ -138,24 +150,6 @@ public class CassandraAllReqRow extends BaseAllReqRow {
 
     }
 
-    private String buildKey(List<Object> equalValList) {
-        StringBuilder sb = new StringBuilder("");
-        for (Object equalVal : equalValList) {
-            sb.append(equalVal).append("_");
-        }
-
-        return sb.toString();
-    }
-
-    private String buildKey(Map<String, Object> val, List<String> equalFieldList) {
-        StringBuilder sb = new StringBuilder("");
-        for (String equalField : equalFieldList) {
-            sb.append(val.get(equalField)).append("_");
-        }
-
-        return sb.toString();
-    }
-
     private Session getConn(CassandraSideTableInfo tableInfo) {
         try {
             if (session == null) {
@@ -224,7 +218,7 @@ public class CassandraAllReqRow extends BaseAllReqRow {
     }
 
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) throws SQLException {
+    private void loadData(Map<SideCacheKey, List<Map<String, Object>>> tmpCache) throws SQLException {
         CassandraSideTableInfo tableInfo = (CassandraSideTableInfo) sideInfo.getSideTableInfo();
         Session session = null;
 
@@ -258,7 +252,11 @@ public class CassandraAllReqRow extends BaseAllReqRow {
                 for (String fieldName : sideFieldNames) {
                     oneRow.put(fieldName.trim(), row.getObject(fieldName.trim()));
                 }
-                String cacheKey = buildKey(oneRow, sideInfo.getEqualFieldList());
+                if (!isKeyInPartition(oneRow)) {
+                    continue;
+                }
+
+                SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
                 List<Map<String, Object>> list = tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList());
                 list.add(oneRow);
             }
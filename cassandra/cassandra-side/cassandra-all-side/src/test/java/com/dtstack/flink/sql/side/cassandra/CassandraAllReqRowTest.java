@@ -22,6 +22,7 @@ import com.dtstack.flink.sql.side.BaseAllReqRow;
 import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.cassandra.table.CassandraSideTableInfo;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -71,7 +72,7 @@ public class CassandraAllReqRowTest {
     private List<FieldInfo> outFieldInfoList = new ArrayList<>();
     private CassandraSideTableInfo sideTableInfo;
     private BaseSideInfo sideInfo;
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
 
     @Before
     public void setUp() {
@@ -79,7 +80,7 @@ public class CassandraAllReqRowTest {
         sideTableInfo = mock(CassandraSideTableInfo.class);
         sideInfo = PowerMockito.mock(CassandraAllSideInfo.class);
 
-        Map<String, List<Map<String, Object>>> map = Maps.newHashMap();
+        Map<SideCacheKey, List<Map<String, Object>>> map = Maps.newHashMap();
         cacheRef.set(map);
 
         suppress(constructor(CassandraAllSideInfo.class));
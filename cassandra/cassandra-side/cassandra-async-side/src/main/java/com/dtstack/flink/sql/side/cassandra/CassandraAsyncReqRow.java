@@ -36,6 +36,7 @@ import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.cassandra.table.CassandraSideTableInfo;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.base.Function;
@@ -162,7 +163,7 @@ public class CassandraAsyncReqRow extends BaseAsyncReqRow {
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
 
-        String key = buildCacheKey(inputParams);
+        SideCacheKey key = buildCacheKey(inputParams);
         //connect Cassandra
         connCassandraDB(cassandraSideTableInfo);
 
@@ -199,15 +200,15 @@ public class CassandraAsyncReqRow extends BaseAsyncReqRow {
                         }
                         rowList.add(row);
                     }
-                    RowDataComplete.completeBaseRow(resultFuture, rowList);
                     if (openCache()) {
                         putCache(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, cacheContent));
                     }
+                    RowDataComplete.completeBaseRow(resultFuture, rowList);
                 } else {
-                    dealMissKey(input, resultFuture);
                     if (openCache()) {
                         putCache(key, CacheMissVal.getMissKeyObj());
                     }
+                    dealMissKey(input, resultFuture);
                     resultFuture.complete(Collections.EMPTY_LIST);
                 }
             }
@@ -222,14 +223,6 @@ public class CassandraAsyncReqRow extends BaseAsyncReqRow {
         });
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
-        StringBuilder sb = new StringBuilder();
-        for (Object ele : inputParams.values()) {
-            sb.append(ele.toString()).append("_");
-        }
-        return sb.toString();
-    }
 
     private String buildWhereCondition(Map<String, Object> inputParams){
         StringBuilder sb = new StringBuilder(" where ");
@@ -38,7 +38,15 @@ public enum ECacheType {
     /**
      * all
      */
-    ALL;
+    ALL,
+    /**
+     * w-tinylfu, frequency aware admission with refresh after write
+     */
+    TINYLFU,
+    /**
+     * hot rows loaded periodically, the others looked up on demand and cached by lru
+     */
+    HYBRID;
 
     public static boolean isValid(String type){
         for(ECacheType tmpType : ECacheType.values()){
@@ -49,6 +49,57 @@ public class MetricConstant {
 
     public static final String DT_NUM_SIDE_PARSE_ERROR_RECORDS = "dtNumSideParseErrorRecords";
 
+    /**estimated heap bytes of side cache, only when cacheMaxBytes is set*/
+    public static final String DT_SIDE_CACHE_WEIGHTED_SIZE_GAUGE = "dtSideCacheWeightedSize";
+
+    public static final String DT_SIDE_CACHE_EVICTION_GAUGE = "dtSideCacheEvictionCount";
+
+    /**side lookups attached to an in-flight query of the same key*/
+    public static final String DT_NUM_SIDE_COALESCED_RECORDS = "dtNumSideCoalescedRecords";
+
+    /**side queries issued in advance by the first operator of an enrichment chain*/
+    public static final String DT_NUM_SIDE_PREFETCH_RECORDS = "dtNumSidePrefetchRecords";
+
+    /**side lookups served by a cached row*/
+    public static final String DT_NUM_SIDE_CACHE_HITS = "dtNumSideCacheHits";
+
+    /**side lookups not found in cache*/
+    public static final String DT_NUM_SIDE_CACHE_MISSES = "dtNumSideCacheMisses";
+
+    /**side lookups served by a cached miss of the key*/
+    public static final String DT_NUM_SIDE_CACHE_NEGATIVE_HITS = "dtNumSideCacheNegativeHits";
+
+    /**side lookups answered as missing by the key filter without querying side table*/
+    public static final String DT_NUM_SIDE_KEY_FILTER_MISSES = "dtNumSideKeyFilterMisses";
+
+    /**side lookups served by the hot set of hybrid cache*/
+    public static final String DT_NUM_SIDE_HOT_SET_HITS = "dtNumSideHotSetHits";
+
+    /**number of keys in the hot set of hybrid cache*/
+    public static final String DT_SIDE_HOT_SET_SIZE_GAUGE = "dtSideHotSetSize";
+
+    /**number of keys in side cache*/
+    public static final String DT_SIDE_CACHE_SIZE_GAUGE = "dtSideCacheSize";
+
+    /**latency of side table queries, in ms*/
+    public static final String DT_SIDE_LOOKUP_LATENCY_HISTOGRAM = "dtSideLookupLatency";
+
+    /**side table queries not completed yet*/
+    public static final String DT_SIDE_LOOKUPS_IN_FLIGHT_GAUGE = "dtSideLookupsInFlight";
+
+    /**concurrent side table queries allowed by adaptive concurrency*/
+    public static final String DT_SIDE_LOOKUP_CONCURRENCY_LIMIT_GAUGE = "dtSideLookupConcurrencyLimit";
+
+    /**duration of the last load of an ALL side cache, in ms*/
+    public static final String DT_SIDE_CACHE_LOAD_DURATION_GAUGE = "dtSideCacheLoadDuration";
+
+    public static final String DT_SIDE_CACHE_ROWS_GAUGE = "dtSideCacheRows";
+
+    /**ms since the last successful load of an ALL side cache*/
+    public static final String DT_SIDE_CACHE_STALENESS_GAUGE = "dtSideCacheStaleness";
+
+    public static final String DT_NUM_SIDE_CACHE_RELOAD_FAILURES = "dtNumSideCacheReloadFailures";
+
     public static final String DT_NUM_RECORDS_OUT_RATE = "dtNumRecordsOutRate";
 
     public static final String DT_EVENT_DELAY_GAUGE = "dtEventDelay";
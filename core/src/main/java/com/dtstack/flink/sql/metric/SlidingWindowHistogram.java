@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.metric;
+
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.HistogramStatistics;
+
+import java.util.Arrays;
+
+/**
+ * histogram over the latest samples, the statistics are computed when the reporter reads them
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public class SlidingWindowHistogram implements Histogram {
+
+    private final long[] samples;
+
+    private long count = 0;
+
+    public SlidingWindowHistogram(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    @Override
+    public synchronized void update(long value) {
+        samples[(int) (count % samples.length)] = value;
+        count++;
+    }
+
+    @Override
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public HistogramStatistics getStatistics() {
+        long[] values;
+        synchronized (this) {
+            values = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(values);
+        return new SortedStatistics(values);
+    }
+
+    private static class SortedStatistics extends HistogramStatistics {
+
+        private final long[] values;
+
+        SortedStatistics(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public double getQuantile(double quantile) {
+            if (values.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * values.length) - 1;
+            return values[Math.max(0, Math.min(values.length - 1, index))];
+        }
+
+        @Override
+        public long[] getValues() {
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public double getMean() {
+            return values.length == 0 ? 0 : (double) Arrays.stream(values).sum() / values.length;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (values.length == 0) {
+                return 0;
+            }
+            double mean = getMean();
+            double sum = 0;
+            for (long value : values) {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / values.length);
+        }
+
+        @Override
+        public long getMax() {
+            return values.length == 0 ? 0 : values[values.length - 1];
+        }
+
+        @Override
+        public long getMin() {
+            return values.length == 0 ? 0 : values[0];
+        }
+    }
+}
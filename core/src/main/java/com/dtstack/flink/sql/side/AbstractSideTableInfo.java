@@ -56,8 +56,30 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
 
     public static final String CACHE_TTLMS_KEY = "cacheTTLMs";
 
+    public static final String CACHE_REFRESH_MS_KEY = "cacheRefreshMs";
+
+    public static final String CACHE_MISS_TTL_MS_KEY = "cacheMissTTLMs";
+
+    public static final String CACHE_MISS_SIZE_KEY = "cacheMissSize";
+
+    public static final String KEY_FILTER_RELOAD_MS_KEY = "keyFilterReloadMs";
+
+    public static final String CACHE_SNAPSHOT_SIZE_KEY = "cacheSnapshotSize";
+
+    public static final String HOT_SET_CONDITION_KEY = "hotSetCondition";
+
+    public static final String HOT_SET_ORDER_BY_KEY = "hotSetOrderBy";
+
+    public static final String HOT_SET_SIZE_KEY = "hotSetSize";
+
+    public static final String HOT_SET_RELOAD_MS_KEY = "hotSetReloadMs";
+
+    public static final String CACHE_MAX_BYTES_KEY = "cacheMaxBytes";
+
     public static final String PARTITIONED_JOIN_KEY = "partitionedJoin";
 
+    public static final String CACHE_SHARED_KEY = "cacheShared";
+
     public static final String CACHE_MODE_KEY = "cacheMode";
 
     public static final String ASYNC_CAP_KEY = "asyncCapacity";
@@ -70,12 +92,65 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
 
     public static final String ASYNC_REQ_POOL_KEY = "asyncPoolSize";
 
+    public static final String ASYNC_ADAPTIVE_CONCURRENCY_KEY = "asyncAdaptiveConcurrency";
+
+    public static final String ASYNC_MIN_CONCURRENCY_KEY = "asyncMinConcurrency";
+
+    public static final String ASYNC_LATENCY_TARGET_MS_KEY = "asyncLatencyTargetMs";
+
     private String cacheType = "none";
 
     private int cacheSize = 10000;
 
     private long cacheTimeout = 60 * 1000L;
 
+    /**
+     * reload the cached key in background after write, <= 0 means not refresh
+     */
+    private long cacheRefreshTime = 0L;
+
+    /**
+     * keys not found in side table are cached apart from the rows with this ttl, <= 0 means cached as rows
+     */
+    private long cacheMissTTLMs = 0L;
+
+    /**
+     * max number of cached keys not found in side table, <= 0 means cacheSize / 10
+     */
+    private int cacheMissSize = 0;
+
+    /**
+     * rebuild the bloom filter of existing keys at this interval, <= 0 means no filter
+     */
+    private long keyFilterReloadMs = 0L;
+
+    /**
+     * max entries of the async side cache snapshotted into checkpoint per subtask, <= 0 means not snapshot
+     */
+    private int cacheSnapshotSize = 0;
+
+    /**
+     * hybrid cache: filter of the hot rows loaded into memory, such as "status = 1"
+     */
+    private String hotSetCondition;
+
+    /**
+     * hybrid cache: order of the hot rows when only the top hotSetSize rows are loaded, such as "pv DESC"
+     */
+    private String hotSetOrderBy;
+
+    /**
+     * hybrid cache: max rows of the hot set, <= 0 means no limit
+     */
+    private int hotSetSize = 0;
+
+    private long hotSetReloadMs = 60 * 60 * 1000L;
+
+    /**
+     * bound the lru cache by estimated heap bytes instead of cacheSize, <= 0 means bound by cacheSize
+     */
+    private long cacheMaxBytes = 0L;
+
     private int  asyncCapacity=100;
 
     private int  asyncTimeout=10000;
@@ -85,8 +160,25 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
      */
     private int asyncPoolSize = 0;
 
+    /**
+     * adjust the concurrent side table queries between asyncMinConcurrency and asyncCapacity by query latency
+     */
+    private boolean asyncAdaptiveConcurrency = false;
+
+    private int asyncMinConcurrency = 1;
+
+    /**
+     * queries slower than it reduce the concurrency, <= 0 means asyncTimeout / 10
+     */
+    private long asyncLatencyTargetMs = 0L;
+
     private boolean partitionedJoin = false;
 
+    /**
+     * ALL cache loaded once and shared by the subtasks in the same TaskManager
+     */
+    private boolean cacheShared = false;
+
     private String cacheMode="ordered";
 
     private Long asyncFailMaxNum;
@@ -155,6 +247,86 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
         this.cacheTimeout = cacheTimeout;
     }
 
+    public long getCacheMissTTLMs() {
+        return cacheMissTTLMs;
+    }
+
+    public void setCacheMissTTLMs(long cacheMissTTLMs) {
+        this.cacheMissTTLMs = cacheMissTTLMs;
+    }
+
+    public int getCacheMissSize() {
+        return cacheMissSize > 0 ? cacheMissSize : Math.max(1, cacheSize / 10);
+    }
+
+    public void setCacheMissSize(int cacheMissSize) {
+        this.cacheMissSize = cacheMissSize;
+    }
+
+    public long getKeyFilterReloadMs() {
+        return keyFilterReloadMs;
+    }
+
+    public void setKeyFilterReloadMs(long keyFilterReloadMs) {
+        this.keyFilterReloadMs = keyFilterReloadMs;
+    }
+
+    public int getCacheSnapshotSize() {
+        return cacheSnapshotSize;
+    }
+
+    public void setCacheSnapshotSize(int cacheSnapshotSize) {
+        this.cacheSnapshotSize = cacheSnapshotSize;
+    }
+
+    public String getHotSetCondition() {
+        return hotSetCondition;
+    }
+
+    public void setHotSetCondition(String hotSetCondition) {
+        this.hotSetCondition = hotSetCondition;
+    }
+
+    public String getHotSetOrderBy() {
+        return hotSetOrderBy;
+    }
+
+    public void setHotSetOrderBy(String hotSetOrderBy) {
+        this.hotSetOrderBy = hotSetOrderBy;
+    }
+
+    public int getHotSetSize() {
+        return hotSetSize;
+    }
+
+    public void setHotSetSize(int hotSetSize) {
+        this.hotSetSize = hotSetSize;
+    }
+
+    public long getHotSetReloadMs() {
+        return hotSetReloadMs;
+    }
+
+    public void setHotSetReloadMs(long hotSetReloadMs) {
+        this.hotSetReloadMs = hotSetReloadMs;
+    }
+
+    public long getCacheRefreshTime() {
+        return cacheRefreshTime;
+    }
+
+    public void setCacheRefreshTime(long cacheRefreshTime) {
+        this.cacheRefreshTime = cacheRefreshTime;
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    public void setCacheMaxBytes(long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
     public boolean isPartitionedJoin() {
         return partitionedJoin;
     }
@@ -163,6 +335,21 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
         this.partitionedJoin = partitionedJoin;
     }
 
+    public boolean isCacheShared() {
+        return cacheShared;
+    }
+
+    public void setCacheShared(boolean cacheShared) {
+        this.cacheShared = cacheShared;
+    }
+
+    /**
+     * 是否支持范围关联条件(含BETWEEN), 不支持的维表只能按等值条件关联
+     */
+    public boolean supportRangeJoin() {
+        return false;
+    }
+
     public String getCacheMode() {
         return cacheMode;
     }
@@ -207,6 +394,30 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
         this.fullPredicateInfoes.add(predicateInfo);
     }
 
+    public boolean isAsyncAdaptiveConcurrency() {
+        return asyncAdaptiveConcurrency;
+    }
+
+    public void setAsyncAdaptiveConcurrency(boolean asyncAdaptiveConcurrency) {
+        this.asyncAdaptiveConcurrency = asyncAdaptiveConcurrency;
+    }
+
+    public int getAsyncMinConcurrency() {
+        return asyncMinConcurrency;
+    }
+
+    public void setAsyncMinConcurrency(int asyncMinConcurrency) {
+        this.asyncMinConcurrency = asyncMinConcurrency;
+    }
+
+    public long getAsyncLatencyTargetMs() {
+        return asyncLatencyTargetMs > 0 ? asyncLatencyTargetMs : Math.max(1L, asyncTimeout / 10);
+    }
+
+    public void setAsyncLatencyTargetMs(long asyncLatencyTargetMs) {
+        this.asyncLatencyTargetMs = asyncLatencyTargetMs;
+    }
+
     public Long getAsyncFailMaxNum(Long defaultValue) {
         return Objects.isNull(asyncFailMaxNum) ? defaultValue : asyncFailMaxNum;
     }
@@ -247,11 +458,25 @@ public abstract class AbstractSideTableInfo extends AbstractTableInfo implements
                 "cacheType='" + cacheType + '\'' +
                 ", cacheSize=" + cacheSize +
                 ", cacheTimeout=" + cacheTimeout +
+                ", cacheRefreshTime=" + cacheRefreshTime +
+                ", cacheMissTTLMs=" + cacheMissTTLMs +
+                ", cacheMissSize=" + cacheMissSize +
+                ", keyFilterReloadMs=" + keyFilterReloadMs +
+                ", cacheSnapshotSize=" + cacheSnapshotSize +
+                ", hotSetCondition='" + hotSetCondition + '\'' +
+                ", hotSetOrderBy='" + hotSetOrderBy + '\'' +
+                ", hotSetSize=" + hotSetSize +
+                ", hotSetReloadMs=" + hotSetReloadMs +
+                ", cacheMaxBytes=" + cacheMaxBytes +
                 ", asyncCapacity=" + asyncCapacity +
                 ", asyncTimeout=" + asyncTimeout +
                 ", asyncPoolSize=" + asyncPoolSize +
+                ", asyncAdaptiveConcurrency=" + asyncAdaptiveConcurrency +
+                ", asyncMinConcurrency=" + asyncMinConcurrency +
+                ", asyncLatencyTargetMs=" + asyncLatencyTargetMs +
                 ", asyncFailMaxNum=" + asyncFailMaxNum +
                 ", partitionedJoin=" + partitionedJoin +
+                ", cacheShared=" + cacheShared +
                 ", fastCheck='" + fastCheck +
                 ", cacheMode='" + cacheMode + '\'' +
                 '}';
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按维表查询耗时自适应调整同时查询的请求数(AIMD):
+ * 查询耗时不超过latencyTarget时每一轮limit个请求返回后上限加1,
+ * 查询失败或者耗时超过latencyTarget时上限乘以BACKOFF_RATIO, 同一轮发出的请求只降一次.
+ * 超过上限的请求排队, 不阻塞调用线程, 由释放许可的线程按顺序发出.
+ * 排队的请求同步完成时会在运行它的线程上释放许可, 这时放出的请求加到该线程正在运行的队列中, 不递归运行
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.75D;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyTargetNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+    // 当前线程正在运行的排队请求
+    private final ThreadLocal<Queue<Runnable>> draining = new ThreadLocal<>();
+
+    private double limit;
+
+    private int inFlight = 0;
+
+    // 最近一次降低上限的时间, 在这之前发出的请求不再触发降低
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, long latencyTargetMs) {
+        Preconditions.checkArgument(minLimit > 0 && minLimit <= maxLimit, "concurrency limit need 0 < min <= max");
+        Preconditions.checkArgument(latencyTargetMs > 0, "latency target need > 0");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+        this.limit = Math.max(minLimit, maxLimit / 2);
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * run the request with a permit, at once on the calling thread if a permit is available,
+     * otherwise later on the thread releasing a permit. the request must call {@link #release(long, boolean)}
+     * with its start time when it finishes, or {@link #releaseUnused()} if it didn't query
+     */
+    public void acquire(Runnable request) {
+        boolean permitted;
+        lock.lock();
+        try {
+            permitted = inFlight < (int) limit;
+            if (permitted) {
+                inFlight++;
+            } else {
+                waiting.add(request);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (permitted) {
+            request.run();
+        }
+    }
+
+    /**
+     * @return true if the request was waiting and won't be run, false if it has got a permit
+     */
+    public boolean cancel(Runnable request) {
+        lock.lock();
+        try {
+            return waiting.remove(request);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long startNanos, boolean failed) {
+        long now = System.nanoTime();
+        List<Runnable> permitted = Lists.newArrayList();
+        lock.lock();
+        try {
+            inFlight--;
+            if (failed || now - startNanos > latencyTargetNanos) {
+                if (startNanos - lastDecreaseNanos > 0) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight + 1 >= limit / 2) {
+                // 只有上限被用到一半以上时才继续增加
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            pollPermitted(permitted);
+        } finally {
+            lock.unlock();
+        }
+        runPermitted(permitted);
+    }
+
+    /**
+     * return the permit of a request which didn't query (e.g. timed out while waiting), the limit is not adjusted
+     */
+    public void releaseUnused() {
+        List<Runnable> permitted = Lists.newArrayList();
+        lock.lock();
+        try {
+            inFlight--;
+            pollPermitted(permitted);
+        } finally {
+            lock.unlock();
+        }
+        runPermitted(permitted);
+    }
+
+    private void pollPermitted(List<Runnable> permitted) {
+        while (inFlight < (int) limit && !waiting.isEmpty()) {
+            inFlight++;
+            permitted.add(waiting.poll());
+        }
+    }
+
+    private void runPermitted(List<Runnable> permitted) {
+        Queue<Runnable> queue = draining.get();
+        if (queue != null) {
+            queue.addAll(permitted);
+            return;
+        }
+        if (permitted.isEmpty()) {
+            return;
+        }
+        queue = new ArrayDeque<>(permitted);
+        draining.set(queue);
+        try {
+            Runnable request;
+            while ((request = queue.poll()) != null) {
+                request.run();
+            }
+        } finally {
+            draining.remove();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
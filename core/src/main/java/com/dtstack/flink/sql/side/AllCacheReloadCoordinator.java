@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.dtstack.flink.sql.factory.DTThreadFactory;
+import org.apache.commons.collections.map.CaseInsensitiveMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskManager内所有ALL维表的定时刷新(以及异步维表key过滤器的重建)共用一个线程池, 线程数即同时刷新的最大个数.
+ * 每次刷新的间隔加入随机抖动, 避免所有subtask同一时刻查询维表;
+ * 刷新失败时继续使用上次加载的数据, 按指数退避重试, 退避时间不超过刷新周期
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class AllCacheReloadCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AllCacheReloadCoordinator.class);
+
+    public static final String MAX_CONCURRENCY_KEY = "all.side.reload.maxConcurrency";
+
+    public static final String JITTER_RATIO_KEY = "all.side.reload.jitterRatio";
+
+    public static final String MAX_BACKOFF_MS_KEY = "all.side.reload.maxBackoffMs";
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 2;
+
+    private static final double DEFAULT_JITTER_RATIO = 0.1D;
+
+    private static final long DEFAULT_MAX_BACKOFF_MS = 10 * 60 * 1000L;
+
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private static ScheduledThreadPoolExecutor executor;
+
+    private static int taskNum = 0;
+
+    private AllCacheReloadCoordinator() {
+    }
+
+    /**
+     * @param jobParameters global job parameters, the first registration decides the concurrency of the TaskManager
+     * @param runNow run the first reload at once instead of after a period
+     */
+    static synchronized ReloadTask schedule(Runnable reload, long periodMs, Map<String, String> jobParameters, boolean runNow) {
+        Map<String, String> parameters = new CaseInsensitiveMap();
+        parameters.putAll(jobParameters);
+        if (executor == null) {
+            int maxConcurrency = Integer.parseInt(parameters.getOrDefault(MAX_CONCURRENCY_KEY, String.valueOf(DEFAULT_MAX_CONCURRENCY)));
+            executor = new ScheduledThreadPoolExecutor(Math.max(1, maxConcurrency), new DTThreadFactory("cache-all-reload", true));
+            executor.setRemoveOnCancelPolicy(true);
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            LOG.info("start all side cache reload coordinator, max concurrency:{}", maxConcurrency);
+        }
+        taskNum++;
+
+        double jitterRatio = Double.parseDouble(parameters.getOrDefault(JITTER_RATIO_KEY, String.valueOf(DEFAULT_JITTER_RATIO)));
+        long maxBackoffMs = Long.parseLong(parameters.getOrDefault(MAX_BACKOFF_MS_KEY, String.valueOf(DEFAULT_MAX_BACKOFF_MS)));
+        ReloadTask task = new ReloadTask(reload, periodMs, jitterRatio, Math.min(maxBackoffMs, periodMs));
+        task.reschedule(runNow ? 0L : task.nextDelay());
+        return task;
+    }
+
+    private static synchronized void cancel(ReloadTask task) {
+        if (task.cancelled) {
+            return;
+        }
+        task.cancelled = true;
+        if (task.future != null) {
+            task.future.cancel(false);
+        }
+        if (--taskNum == 0) {
+            executor.shutdown();
+            executor = null;
+            LOG.info("stop all side cache reload coordinator");
+        }
+    }
+
+    static final class ReloadTask implements Runnable {
+
+        private final Runnable reload;
+
+        private final long periodMs;
+
+        private final double jitterRatio;
+
+        private final long maxBackoffMs;
+
+        private int failures = 0;
+
+        private ScheduledFuture<?> future;
+
+        private volatile boolean cancelled = false;
+
+        ReloadTask(Runnable reload, long periodMs, double jitterRatio, long maxBackoffMs) {
+            this.reload = reload;
+            this.periodMs = periodMs;
+            this.jitterRatio = jitterRatio;
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+
+            long delay;
+            try {
+                reload.run();
+                failures = 0;
+                delay = nextDelay();
+            } catch (Exception e) {
+                failures++;
+                delay = backoffDelay();
+                LOG.error("reload side cache fail {} times, keep serving the last loaded data and retry after {} ms",
+                        failures, delay, e);
+            }
+            reschedule(delay);
+        }
+
+        void cancel() {
+            AllCacheReloadCoordinator.cancel(this);
+        }
+
+        /**
+         * period with a random jitter in [-jitterRatio, jitterRatio]
+         */
+        long nextDelay() {
+            double jitter = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * jitterRatio;
+            return Math.max(1L, (long) (periodMs * (1 + jitter)));
+        }
+
+        long backoffDelay() {
+            long backoff = BaseAllReqRow.LOAD_DATA_ERROR_SLEEP_TIME << Math.min(failures - 1, MAX_BACKOFF_SHIFT);
+            return Math.min(backoff, maxBackoffMs);
+        }
+
+        private void reschedule(long delay) {
+            synchronized (AllCacheReloadCoordinator.class) {
+                if (!cancelled && executor != null) {
+                    future = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+}
@@ -19,12 +19,16 @@
 
 package com.dtstack.flink.sql.side;
 
-import com.dtstack.flink.sql.factory.DTThreadFactory;
+import com.dtstack.flink.sql.metric.MetricConstant;
 import com.dtstack.flink.sql.util.RowDataComplete;
+import com.google.common.collect.Lists;
 import org.apache.calcite.sql.JoinType;
 import org.apache.flink.api.common.functions.RichFlatMapFunction;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.table.dataformat.GenericRow;
 import org.apache.flink.table.typeutils.TimeIndicatorTypeInfo;
@@ -35,11 +39,11 @@ import org.slf4j.LoggerFactory;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Reason:
@@ -59,7 +63,17 @@ public abstract class BaseAllReqRow extends RichFlatMapFunction<BaseRow, BaseRow
 
     protected BaseSideInfo sideInfo;
 
-    private ScheduledExecutorService es;
+    private transient AllCacheReloadCoordinator.ReloadTask reloadTask;
+
+    private transient SharedAllCacheRegistry.SharedAllCache sharedCache;
+
+    private transient Counter reloadFailures;
+
+    private transient volatile long lastLoadTime;
+
+    private transient volatile long lastLoadDuration;
+
+    private transient volatile long cacheRows;
 
     public BaseAllReqRow(BaseSideInfo sideInfo) {
         this.sideInfo = sideInfo;
@@ -70,16 +84,135 @@ public abstract class BaseAllReqRow extends RichFlatMapFunction<BaseRow, BaseRow
 
     protected abstract void reloadCache();
 
+    /**
+     * reference of the loaded data, plugins returning it support cacheShared
+     */
+    protected AtomicReference<?> getCacheRef() {
+        return null;
+    }
+
+    /**
+     * replace the reference of the loaded data with the one shared by other subtasks
+     */
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " not support cacheShared");
+    }
+
+    /**
+     * rows of the loaded data, reported by metric after every load
+     */
+    protected long countCacheRows() {
+        AtomicReference<?> cacheRef = getCacheRef();
+        Object cache = cacheRef == null ? null : cacheRef.get();
+        if (!(cache instanceof Map)) {
+            return -1;
+        }
+
+        long rows = 0;
+        for (Object value : ((Map<?, ?>) cache).values()) {
+            rows += value instanceof Collection ? ((Collection<?>) value).size() : 1;
+        }
+        return rows;
+    }
+
     @Override
     public void open(Configuration parameters) throws Exception {
         super.open(parameters);
-        initCache();
+        initMetric();
+        if (isCacheShared()) {
+            openSharedCache();
+            return;
+        }
+
+        loadCache();
         LOG.info("----- all cacheRef init end-----");
+        startReloadCache();
+    }
 
-        //start reload cache thread
+    private void initMetric() {
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup();
+        reloadFailures = metricGroup.counter(MetricConstant.DT_NUM_SIDE_CACHE_RELOAD_FAILURES);
+        metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_LOAD_DURATION_GAUGE, (Gauge<Long>) () -> lastLoadDuration);
+        metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_ROWS_GAUGE, (Gauge<Long>) () -> cacheRows);
+        metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_STALENESS_GAUGE,
+                (Gauge<Long>) () -> lastLoadTime == 0 ? 0 : System.currentTimeMillis() - lastLoadTime);
+    }
+
+    private void loadCache() throws SQLException {
+        long startTime = System.currentTimeMillis();
+        initCache();
+        onCacheLoaded(startTime);
+    }
+
+    /**
+     * called by the reload coordinator, the failure is retried with backoff while the last loaded data is kept
+     */
+    void runReload() {
+        long startTime = System.currentTimeMillis();
+        try {
+            reloadCache();
+        } catch (RuntimeException e) {
+            reloadFailures.inc();
+            throw e;
+        }
+        onCacheLoaded(startTime);
+    }
+
+    private void onCacheLoaded(long startTime) {
+        lastLoadTime = System.currentTimeMillis();
+        lastLoadDuration = lastLoadTime - startTime;
+        cacheRows = countCacheRows();
+    }
+
+    void startReloadCache() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        Map<String, String> jobParameters = getRuntimeContext().getExecutionConfig().getGlobalJobParameters().toMap();
+        reloadTask = AllCacheReloadCoordinator.schedule(this::runReload, sideTableInfo.getCacheTimeout(), jobParameters, false);
+    }
+
+    private boolean isCacheShared() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        // 合并的维表关联查询语句相同, 不需要开启cacheShared也共用一份缓存
+        if (!sideTableInfo.isCacheShared() && !sideInfo.isFusedJoin()) {
+            return false;
+        }
+        if (getCacheRef() == null) {
+            LOG.warn("{} not support cacheShared, load cache by each subtask", getClass().getSimpleName());
+            return false;
+        }
+        // partitionedJoin 时每个subtask只加载自己分区的数据
+        return !sideTableInfo.isPartitionedJoin() || getRuntimeContext().getNumberOfParallelSubtasks() <= 1;
+    }
+
+    private void openSharedCache() throws Exception {
+        sharedCache = SharedAllCacheRegistry.acquire(getCacheIdentity(), this);
+        try {
+            setCacheRef(sharedCache.getCacheRef());
+            synchronized (sharedCache) {
+                if (!sharedCache.isLoaded()) {
+                    loadCache();
+                    SharedAllCacheRegistry.markLoaded(sharedCache, this);
+                    startReloadCache();
+                    LOG.info("----- shared all cacheRef init end-----");
+                }
+            }
+        } catch (Exception e) {
+            SharedAllCacheRegistry.release(sharedCache, this);
+            sharedCache = null;
+            throw e;
+        }
+    }
+
+    /**
+     * subtasks with the same identity share one loaded cache
+     */
+    protected String getCacheIdentity() {
         AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
-        es = new ScheduledThreadPoolExecutor(1, new DTThreadFactory("cache-all-reload"));
-        es.scheduleAtFixedRate(() -> reloadCache(), sideTableInfo.getCacheTimeout(), sideTableInfo.getCacheTimeout(), TimeUnit.MILLISECONDS);
+        return getClass().getName() + "|" + sideTableInfo.getName()
+                + "|" + sideInfo.getEqualFieldList()
+                + "|" + sideInfo.getSideSelectFields()
+                + "|" + sideInfo.getSqlCondition()
+                + "|" + sideTableInfo.getPredicateInfoes();
     }
 
     protected Object convertTimeIndictorTypeInfo(Integer index, Object obj) {
@@ -93,6 +226,40 @@ public abstract class BaseAllReqRow extends RichFlatMapFunction<BaseRow, BaseRow
         return obj;
     }
 
+    /**
+     * when partitionedJoin is on, the left stream is hash partitioned by join key before the side operator,
+     * so the rows belong to other subtasks needn't to be cached.
+     *
+     * @param oneRow one row load from dimension table, key: side field name
+     * @return whether the row should be cached by this subtask
+     */
+    protected boolean isKeyInPartition(Map<String, Object> oneRow) {
+        if (!sideInfo.getSideTableInfo().isPartitionedJoin()) {
+            return true;
+        }
+
+        List<Object> keyValues = Lists.newArrayListWithCapacity(sideInfo.getEqualFieldList().size());
+        for (String equalField : sideInfo.getEqualFieldList()) {
+            keyValues.add(oneRow.get(equalField));
+        }
+        return isKeyInPartition(keyValues);
+    }
+
+    /**
+     * @param keyValues values of the equal fields, in the order of equalFieldList
+     */
+    protected boolean isKeyInPartition(List<Object> keyValues) {
+        if (!sideInfo.getSideTableInfo().isPartitionedJoin()) {
+            return true;
+        }
+
+        int numPartitions = getRuntimeContext().getNumberOfParallelSubtasks();
+        if (numPartitions <= 1) {
+            return true;
+        }
+        return SideJoinKeyPartitioner.selectPartition(keyValues, numPartitions) == getRuntimeContext().getIndexOfThisSubtask();
+    }
+
     protected void sendOutputRow(BaseRow value, Object sideInput, Collector<BaseRow> out) {
         if (sideInput == null && sideInfo.getJoinType() != JoinType.LEFT) {
             return;
@@ -143,8 +310,13 @@ public abstract class BaseAllReqRow extends RichFlatMapFunction<BaseRow, BaseRow
 
     @Override
     public void close() throws Exception {
-        if (null != es && !es.isShutdown()) {
-            es.shutdown();
+        if (sharedCache != null) {
+            SharedAllCacheRegistry.release(sharedCache, this);
+            sharedCache = null;
+        }
+        if (reloadTask != null) {
+            reloadTask.cancel();
+            reloadTask = null;
         }
     }
 }
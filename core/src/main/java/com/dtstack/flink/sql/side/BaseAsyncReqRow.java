@@ -23,23 +23,41 @@ import com.dtstack.flink.sql.enums.ECacheContentType;
 import com.dtstack.flink.sql.enums.ECacheType;
 import com.dtstack.flink.sql.exception.ExceptionTrace;
 import com.dtstack.flink.sql.metric.MetricConstant;
+import com.dtstack.flink.sql.metric.SlidingWindowHistogram;
 import com.dtstack.flink.sql.side.cache.AbstractSideCache;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.KeyBloomFilter;
 import com.dtstack.flink.sql.side.cache.LRUSideCache;
+import com.dtstack.flink.sql.side.cache.MissKeySideCache;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.dtstack.flink.sql.side.cache.TinyLfuSideCache;
 import com.dtstack.flink.sql.util.ReflectionUtils;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
 import org.apache.calcite.sql.JoinType;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.collections.map.CaseInsensitiveMap;
 import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeHint;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.tuple.Tuple3;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.execution.SuppressRestartsException;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
 import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
+import org.apache.flink.streaming.api.operators.async.AsyncWaitOperator;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
 import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.table.dataformat.GenericRow;
@@ -51,11 +69,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * All interfaces inherit naming rules: type + "AsyncReqRow" such as == "MysqlAsyncReqRow
@@ -66,20 +88,62 @@ import java.util.concurrent.ScheduledFuture;
  * @author xuchao
  */
 
-public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow> implements ISideReqRow {
+public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow> implements ISideReqRow, CheckpointedFunction {
     private static final Logger LOG = LoggerFactory.getLogger(BaseAsyncReqRow.class);
     private static final long serialVersionUID = 2098635244857937717L;
     private RuntimeContext runtimeContext;
     private static int TIMEOUT_LOG_FLUSH_NUM = 10;
+    // 维表查询耗时统计的样本数
+    private static final int LOOKUP_LATENCY_WINDOW_SIZE = 1024;
+    // key过滤器首次构建时预估的key数量
+    private static final long DEFAULT_KEY_FILTER_EXPECTED_KEYS = 100000L;
     private int timeOutNum = 0;
     protected BaseSideInfo sideInfo;
     protected transient Counter parseErrorRecords;
+    protected transient Counter coalescedRecords;
+    protected transient Counter prefetchRecords;
+    protected transient Counter cacheHits;
+    protected transient Counter cacheMisses;
+    protected transient Counter cacheNegativeHits;
+    // 维表查询耗时(ms)
+    protected transient Histogram lookupLatency;
+    // 正在查询维表的请求数
+    private transient AtomicInteger inFlightLookupNum;
+    // 按查询耗时调整同时查询维表的请求数, 未开启时为null
+    private transient AdaptiveConcurrencyLimiter concurrencyLimiter;
+    // 等待结果的数据对应的维表查询, 超时时结束查询并释放许可
+    private transient Map<ResultFuture<BaseRow>, LookupMetricResultFuture> activeLookups;
+    // 维表中存在的key, 不在其中的key直接按未关联到处理, 未开启或者还没构建完成时为null
+    private transient volatile KeyBloomFilter keyFilter;
+    private transient AllCacheReloadCoordinator.ReloadTask keyFilterTask;
+    protected transient Counter keyFilterMisses;
+    // HYBRID缓存定时加载的热点数据, 只读, 重新加载时整体替换
+    private transient volatile Map<SideCacheKey, CacheObj> hotSet;
+    private transient AllCacheReloadCoordinator.ReloadTask hotSetTask;
+    protected transient Counter hotSetHits;
+    // checkpoint中保存的缓存数据, 恢复时在open中写回缓存
+    private transient ListState<Tuple2<SideCacheKey, CacheObj>> cacheSnapshotState;
+    private transient List<Tuple2<SideCacheKey, CacheObj>> restoredCacheEntries;
+    // 正在查询中的key, 相同key的请求只查询一次
+    private transient Map<SideCacheKey, InFlightLookup> inFlightLookups;
+    // 合并的维表关联共用缓存的标识, 没有共用缓存时为null
+    private transient String sharedCacheIdentity;
+
+    private transient String enrichmentIdentity;
+
+    private transient SideEnrichmentRegistry.EnrichmentChain enrichmentChain;
+    // 关联字段在输入行中的下标
+    private transient int[] equalValIndexes;
+    // ResultHandler.setTimeoutTimer, 只在open或者ResultFuture类型变化时解析
+    private transient volatile Method setTimeoutTimer;
     private static final TimeZone LOCAL_TZ = TimeZone.getDefault();
     // 异步维表连接是否共享
     protected boolean clientShare = false;
     // 异步维表共享连接池默认大小
     protected int poolSize = 5;
 
+    protected boolean enrichmentPrefetch = false;
+
     public BaseAsyncReqRow(BaseSideInfo sideInfo) {
         this.sideInfo = sideInfo;
     }
@@ -94,13 +158,25 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         sensitiveParameters.putAll(globalJobParameters);
         this.clientShare = Boolean.parseBoolean(sensitiveParameters.getOrDefault("async.side.clientShare", "false"));
         this.poolSize = Integer.parseInt(sensitiveParameters.getOrDefault("async.side.poolSize", "5"));
+        this.enrichmentPrefetch = Boolean.parseBoolean(sensitiveParameters.getOrDefault("async.side.enrichmentPrefetch", "false"));
     }
 
     @Override
     public void open(Configuration parameters) throws Exception {
         super.open(parameters);
         initCache();
+        restoreCache();
+        initConcurrencyLimiter();
         initMetric();
+        initKeyFilter();
+        initHotSet();
+        if (openCache()) {
+            inFlightLookups = Maps.newConcurrentMap();
+        }
+        activeLookups = Maps.newConcurrentMap();
+        equalValIndexes = Ints.toArray(sideInfo.getEqualValIndex());
+        initTimeoutTimerSetter();
+        initEnrichmentChain();
         LOG.info("async dim table config info: {} ", sideInfo.getSideTableInfo().toString());
     }
 
@@ -110,21 +186,262 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
             return;
         }
 
+        if (sideInfo.isFusedJoin()) {
+            // 合并的关联查询语句相同, 前面的算子查询到的数据后面的算子直接命中
+            sharedCacheIdentity = getCacheIdentity();
+            sideInfo.setSideCache(SharedSideCacheRegistry.acquire(sharedCacheIdentity, () -> buildSideCache(sideTableInfo)));
+            return;
+        }
+        sideInfo.setSideCache(buildSideCache(sideTableInfo));
+    }
+
+    private AbstractSideCache buildSideCache(AbstractSideTableInfo sideTableInfo) {
         AbstractSideCache sideCache;
-        if (ECacheType.LRU.name().equalsIgnoreCase(sideTableInfo.getCacheType())) {
+        if (ECacheType.LRU.name().equalsIgnoreCase(sideTableInfo.getCacheType())
+                || ECacheType.HYBRID.name().equalsIgnoreCase(sideTableInfo.getCacheType())) {
+            // HYBRID热点数据之外的key按LRU缓存
             sideCache = new LRUSideCache(sideTableInfo);
-            sideInfo.setSideCache(sideCache);
+        } else if (ECacheType.TINYLFU.name().equalsIgnoreCase(sideTableInfo.getCacheType())) {
+            sideCache = new TinyLfuSideCache(sideTableInfo);
         } else {
             throw new RuntimeException("not support side cache with type:" + sideTableInfo.getCacheType());
         }
+        if (sideTableInfo.getCacheMissTTLMs() > 0) {
+            sideCache = new MissKeySideCache(sideTableInfo, sideCache);
+        }
 
         sideCache.initCache();
+        return sideCache;
+    }
+
+    /**
+     * operators with the same identity in one subtask share the cache, the select fields of fused joins are the same
+     */
+    protected String getCacheIdentity() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        return getClass().getName() + "|" + sideTableInfo.getName()
+                + "|" + sideInfo.getEqualFieldList()
+                + "|" + sideInfo.getSideSelectFields()
+                + "|" + sideInfo.getSqlCondition()
+                + "|" + getRuntimeContext().getIndexOfThisSubtask();
+    }
+
+    /**
+     * 关联链中的算子都注册, 只有第一个算子发起预查询
+     */
+    private void initEnrichmentChain() {
+        JoinInfo joinInfo = sideInfo.getJoinInfo();
+        if (!enrichmentPrefetch || joinInfo == null || joinInfo.getEnrichmentGroup() == null) {
+            return;
+        }
+        enrichmentIdentity = joinInfo.getEnrichmentGroup() + "|" + getRuntimeContext().getIndexOfThisSubtask();
+        SideEnrichmentRegistry.EnrichmentChain chain = SideEnrichmentRegistry.register(enrichmentIdentity, joinInfo.getEnrichmentIndex(), this);
+        if (joinInfo.getEnrichmentIndex() == 0) {
+            enrichmentChain = chain;
+        }
+    }
+
+    int[] getEqualValIndexes() {
+        return equalValIndexes;
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        if (sideInfo.getSideTableInfo().getCacheSnapshotSize() <= 0) {
+            return;
+        }
+        ListStateDescriptor<Tuple2<SideCacheKey, CacheObj>> descriptor = new ListStateDescriptor<>(
+                "side-cache-snapshot", TypeInformation.of(new TypeHint<Tuple2<SideCacheKey, CacheObj>>() {}));
+        cacheSnapshotState = context.getOperatorStateStore().getListState(descriptor);
+        if (context.isRestored()) {
+            restoredCacheEntries = Lists.newArrayList(cacheSnapshotState.get());
+        }
+    }
+
+    /**
+     * write the entries restored from checkpoint back to the cache before the first record,
+     * after rescale each subtask gets a part of the entries of all subtasks
+     */
+    private void restoreCache() {
+        if (restoredCacheEntries == null) {
+            return;
+        }
+        if (openCache()) {
+            for (Tuple2<SideCacheKey, CacheObj> entry : restoredCacheEntries) {
+                putCache(entry.f0, entry.f1);
+            }
+            LOG.info("restore {} entries of side cache {} from checkpoint", restoredCacheEntries.size(), sideInfo.getSideTableInfo().getName());
+        }
+        restoredCacheEntries = null;
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        if (cacheSnapshotState == null) {
+            return;
+        }
+        cacheSnapshotState.clear();
+        if (!openCache()) {
+            return;
+        }
+        List<Tuple2<SideCacheKey, CacheObj>> entries = Lists.newArrayList();
+        sideInfo.getSideCache().hottest(sideInfo.getSideTableInfo().getCacheSnapshotSize())
+                .forEach((key, value) -> entries.add(Tuple2.of(key, value)));
+        cacheSnapshotState.addAll(entries);
+    }
+
+    private void initConcurrencyLimiter() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        if (!sideTableInfo.isAsyncAdaptiveConcurrency()) {
+            return;
+        }
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                Math.min(sideTableInfo.getAsyncMinConcurrency(), sideTableInfo.getAsyncCapacity()),
+                sideTableInfo.getAsyncCapacity(),
+                sideTableInfo.getAsyncLatencyTargetMs());
+    }
+
+    private void initKeyFilter() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        if (sideTableInfo.getKeyFilterReloadMs() <= 0) {
+            return;
+        }
+        if (!supportKeyFilter()) {
+            LOG.warn("side table {} not support key filter, keyFilterReloadMs is ignored", sideTableInfo.getName());
+            return;
+        }
+        Map<String, String> jobParameters = getRuntimeContext().getExecutionConfig().getGlobalJobParameters().toMap();
+        keyFilterTask = AllCacheReloadCoordinator.schedule(this::rebuildKeyFilter, sideTableInfo.getKeyFilterReloadMs(), jobParameters, true);
+    }
+
+    /**
+     * scan the join keys of side table into a new bloom filter, sized by the last scan
+     */
+    private void rebuildKeyFilter() {
+        KeyBloomFilter lastFilter = keyFilter;
+        long expectedKeys = lastFilter == null ? DEFAULT_KEY_FILTER_EXPECTED_KEYS : Math.max(DEFAULT_KEY_FILTER_EXPECTED_KEYS, lastFilter.getKeyNum() * 3 / 2);
+        KeyBloomFilter filter = new KeyBloomFilter(expectedKeys);
+        long startTime = System.currentTimeMillis();
+        try {
+            scanSideKeys(filter::put);
+        } catch (Exception e) {
+            throw new RuntimeException("scan keys of side table " + sideInfo.getSideTableInfo().getName() + " failed", e);
+        }
+        keyFilter = filter;
+        LOG.info("rebuild key filter of side table {}, keys:{}, cost {} ms",
+                sideInfo.getSideTableInfo().getName(), filter.getKeyNum(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * whether {@link #scanSideKeys(Consumer)} is implemented and keys of the join can be matched by value
+     */
+    protected boolean supportKeyFilter() {
+        return false;
+    }
+
+    /**
+     * pass the join key values of every row in side table to the consumer, in the order of equal fields
+     */
+    protected void scanSideKeys(Consumer<Object[]> keyConsumer) throws Exception {
+        throw new UnsupportedOperationException("scan keys of side table not supported");
+    }
+
+    private void initHotSet() {
+        AbstractSideTableInfo sideTableInfo = sideInfo.getSideTableInfo();
+        if (!ECacheType.HYBRID.name().equalsIgnoreCase(sideTableInfo.getCacheType())) {
+            return;
+        }
+        if (!supportHotSet()) {
+            throw new RuntimeException("side table " + sideTableInfo.getName() + " not support cache type " + sideTableInfo.getCacheType());
+        }
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup();
+        hotSetHits = metricGroup.counter(MetricConstant.DT_NUM_SIDE_HOT_SET_HITS);
+        metricGroup.gauge(MetricConstant.DT_SIDE_HOT_SET_SIZE_GAUGE, (Gauge<Integer>) () -> {
+            Map<SideCacheKey, CacheObj> rows = hotSet;
+            return rows == null ? 0 : rows.size();
+        });
+        Map<String, String> jobParameters = getRuntimeContext().getExecutionConfig().getGlobalJobParameters().toMap();
+        hotSetTask = AllCacheReloadCoordinator.schedule(this::reloadHotSet, sideTableInfo.getHotSetReloadMs(), jobParameters, true);
+    }
+
+    private void reloadHotSet() {
+        long startTime = System.currentTimeMillis();
+        Map<SideCacheKey, CacheObj> rows;
+        try {
+            rows = loadHotSet();
+        } catch (Exception e) {
+            throw new RuntimeException("load hot set of side table " + sideInfo.getSideTableInfo().getName() + " failed", e);
+        }
+        hotSet = Collections.unmodifiableMap(rows);
+        LOG.info("reload hot set of side table {}, keys:{}, cost {} ms",
+                sideInfo.getSideTableInfo().getName(), rows.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * whether {@link #loadHotSet()} is implemented for the join
+     */
+    protected boolean supportHotSet() {
+        return false;
+    }
+
+    /**
+     * whether {@link #handleAsyncInvoke} can be called by other threads at the same time as the task thread,
+     * the prefetch of the enrichment chain queries this side table in the task thread of the first operator.
+     * lookups keeping per query state in fields must not return true
+     */
+    protected boolean supportConcurrentLookup() {
+        return false;
+    }
+
+    /**
+     * load the rows matching hotSetCondition (or the top hotSetSize rows by hotSetOrderBy),
+     * grouped by the key built like {@link #buildCacheKey(BaseRow)}, values in the form put to the side cache
+     */
+    protected Map<SideCacheKey, CacheObj> loadHotSet() throws Exception {
+        throw new UnsupportedOperationException("load hot set of side table not supported");
     }
 
     private void initMetric() {
-        parseErrorRecords = getRuntimeContext().getMetricGroup().counter(MetricConstant.DT_NUM_SIDE_PARSE_ERROR_RECORDS);
+        MetricGroup metricGroup = getRuntimeContext().getMetricGroup();
+        parseErrorRecords = metricGroup.counter(MetricConstant.DT_NUM_SIDE_PARSE_ERROR_RECORDS);
+        coalescedRecords = metricGroup.counter(MetricConstant.DT_NUM_SIDE_COALESCED_RECORDS);
+        prefetchRecords = metricGroup.counter(MetricConstant.DT_NUM_SIDE_PREFETCH_RECORDS);
+        keyFilterMisses = metricGroup.counter(MetricConstant.DT_NUM_SIDE_KEY_FILTER_MISSES);
+        lookupLatency = metricGroup.histogram(MetricConstant.DT_SIDE_LOOKUP_LATENCY_HISTOGRAM, new SlidingWindowHistogram(LOOKUP_LATENCY_WINDOW_SIZE));
+        inFlightLookupNum = new AtomicInteger();
+        metricGroup.gauge(MetricConstant.DT_SIDE_LOOKUPS_IN_FLIGHT_GAUGE, (Gauge<Integer>) inFlightLookupNum::get);
+        if (concurrencyLimiter != null) {
+            metricGroup.gauge(MetricConstant.DT_SIDE_LOOKUP_CONCURRENCY_LIMIT_GAUGE, (Gauge<Integer>) concurrencyLimiter::getLimit);
+        }
+        if (openCache()) {
+            AbstractSideCache sideCache = sideInfo.getSideCache();
+            cacheHits = metricGroup.counter(MetricConstant.DT_NUM_SIDE_CACHE_HITS);
+            cacheMisses = metricGroup.counter(MetricConstant.DT_NUM_SIDE_CACHE_MISSES);
+            cacheNegativeHits = metricGroup.counter(MetricConstant.DT_NUM_SIDE_CACHE_NEGATIVE_HITS);
+            metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_SIZE_GAUGE, (Gauge<Long>) sideCache::getSize);
+            metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_WEIGHTED_SIZE_GAUGE, (Gauge<Long>) sideCache::getWeightedSize);
+            metricGroup.gauge(MetricConstant.DT_SIDE_CACHE_EVICTION_GAUGE, (Gauge<Long>) sideCache::getEvictionCount);
+        }
+    }
+
+
+    private void initTimeoutTimerSetter() {
+        String resultHandlerClass = AsyncWaitOperator.class.getName() + "$ResultHandler";
+        try {
+            setTimeoutTimer = resolveTimeoutTimerSetter(Class.forName(resultHandlerClass, false, AsyncWaitOperator.class.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            LOG.warn("not found class {}, resolve setTimeoutTimer from the first record", resultHandlerClass);
+        }
     }
 
+    private Method resolveTimeoutTimerSetter(Class<?> resultFutureClass) {
+        Method method = ReflectionUtils.getDeclaredMethod(resultFutureClass, "setTimeoutTimer", ScheduledFuture.class);
+        if (method == null) {
+            throw new RuntimeException("not found method setTimeoutTimer in " + resultFutureClass.getName());
+        }
+        method.setAccessible(true);
+        return method;
+    }
 
     protected Object convertTimeIndictorTypeInfo(Integer index, Object obj) {
         boolean isTimeIndicatorTypeInfo = TimeIndicatorTypeInfo.class.isAssignableFrom(sideInfo.getRowTypeInfo().getTypeAt(index).getClass());
@@ -137,11 +454,11 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         return obj;
     }
 
-    protected CacheObj getFromCache(String key) {
+    protected CacheObj getFromCache(SideCacheKey key) {
         return sideInfo.getSideCache().getFromCache(key);
     }
 
-    protected void putCache(String key, CacheObj value) {
+    protected void putCache(SideCacheKey key, CacheObj value) {
         sideInfo.getSideCache().putCache(key, value);
     }
 
@@ -169,7 +486,7 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         }
     }
 
-    protected void dealCacheData(String key, CacheObj missKeyObj) {
+    protected void dealCacheData(SideCacheKey key, CacheObj missKeyObj) {
         if (openCache()) {
             putCache(key, missKeyObj);
         }
@@ -183,6 +500,7 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         }
         timeOutNum++;
 
+        LookupMetricResultFuture lookup = activeLookups.remove(resultFuture);
         if (timeOutNum > sideInfo.getSideTableInfo().getErrorLimit()) {
             resultFuture.completeExceptionally(
                 new SuppressRestartsException(
@@ -196,6 +514,9 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         } else {
             resultFuture.complete(Collections.EMPTY_LIST);
         }
+        if (lookup != null) {
+            lookup.cancel();
+        }
     }
 
     protected void preInvoke(BaseRow input, ResultFuture<BaseRow> resultFuture)
@@ -206,24 +527,102 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
     @Override
     public void asyncInvoke(BaseRow row, ResultFuture<BaseRow> resultFuture) throws Exception {
         preInvoke(row, resultFuture);
-        Map<String, Object> inputParams = parseInputParam(row);
-        if (MapUtils.isEmpty(inputParams)) {
+        if (enrichmentChain != null) {
+            enrichmentChain.prefetch((GenericRow) row);
+        }
+        if (equalValIndexes.length == 0) {
             dealMissKey(row, resultFuture);
             return;
         }
-        if (isUseCache(inputParams)) {
-            invokeWithCache(inputParams, row, resultFuture);
+        KeyBloomFilter filter = keyFilter;
+        if (filter != null && !filter.mightContain((GenericRow) row, equalValIndexes)) {
+            keyFilterMisses.inc();
+            dealMissKey(row, resultFuture);
+            return;
+        }
+        if (!openCache()) {
+            lookup(parseInputParam(row), row, resultFuture);
+            return;
+        }
+
+        // 命中缓存时只查一次缓存, 也不构造查询参数
+        SideCacheKey key = buildCacheKey(row);
+        Map<SideCacheKey, CacheObj> hotRows = hotSet;
+        CacheObj hotVal = hotRows == null ? null : hotRows.get(key);
+        if (hotVal != null) {
+            hotSetHits.inc();
+            invokeWithCache(hotVal, row, resultFuture);
+            return;
+        }
+        CacheObj val = getFromCache(key);
+        if (val != null) {
+            if (ECacheContentType.MissVal == val.getType()) {
+                cacheNegativeHits.inc();
+            } else {
+                cacheHits.inc();
+            }
+            invokeWithCache(val, row, resultFuture);
+            refreshCache(key, row);
             return;
         }
-        handleAsyncInvoke(inputParams, row, resultFuture);
+        cacheMisses.inc();
+        invokeWithSingleFlight(key, parseInputParam(row), row, resultFuture);
+    }
+
+    /**
+     * the first miss of a key queries the side table, later misses of the same key wait for it
+     * and then read the result from cache
+     */
+    private void invokeWithSingleFlight(SideCacheKey key, Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
+        InFlightLookup lookup = new InFlightLookup();
+        InFlightLookup inFlight = inFlightLookups.putIfAbsent(key, lookup);
+        if (inFlight != null) {
+            if (inFlight.attach(inputParams, input, resultFuture, sideInfo.getSideTableInfo().getAsyncTimeout())) {
+                coalescedRecords.inc();
+                return;
+            }
+            // 上一次查询已经结束或超时, 由当前请求重新发起
+            if (!inFlightLookups.replace(key, inFlight, lookup)) {
+                lookup(inputParams, input, resultFuture);
+                return;
+            }
+        }
+
+        try {
+            lookup(inputParams, input, new SingleFlightResultFuture(key, lookup, resultFuture));
+        } catch (Exception e) {
+            releaseInFlight(key, lookup);
+            throw e;
+        }
+    }
+
+    private void releaseInFlight(SideCacheKey key, InFlightLookup lookup) {
+        inFlightLookups.remove(key, lookup);
+        List<Tuple3<Map<String, Object>, BaseRow, ResultFuture<BaseRow>>> followers = lookup.finish();
+        if (followers.isEmpty()) {
+            return;
+        }
+
+        CacheObj val = getFromCache(key);
+        for (Tuple3<Map<String, Object>, BaseRow, ResultFuture<BaseRow>> follower : followers) {
+            try {
+                if (val != null) {
+                    invokeWithCache(val, follower.f1, follower.f2);
+                } else {
+                    // 查询失败或者结果没有写入缓存, 单独查询
+                    lookup(follower.f0, follower.f1, follower.f2);
+                }
+            } catch (Exception e) {
+                follower.f2.completeExceptionally(e);
+            }
+        }
     }
 
-    private Map<String, Object> parseInputParam(BaseRow input) {
+    protected Map<String, Object> parseInputParam(BaseRow input) {
         GenericRow genericRow = (GenericRow) input;
         Map<String, Object> inputParams = Maps.newLinkedHashMap();
-        for (int i = 0; i < sideInfo.getEqualValIndex().size(); i++) {
-            Integer conValIndex = sideInfo.getEqualValIndex().get(i);
-            Object equalObj = genericRow.getField(conValIndex);
+        for (int i = 0; i < equalValIndexes.length; i++) {
+            Object equalObj = genericRow.getField(equalValIndexes[i]);
             // comment by tiezhu
             // 假设SQL中有三个主键[a, b, c]，同时主键[b]的值为null，那么
             // inputParams中只会有主键[a]的值，主键[b, c]都不包含，导致
@@ -237,44 +636,110 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
         return inputParams;
     }
 
-    protected boolean isUseCache(Map<String, Object> inputParams) {
-        return openCache() && getFromCache(buildCacheKey(inputParams)) != null;
-    }
-
-    private void invokeWithCache(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) {
-        if (openCache()) {
-            CacheObj val = getFromCache(buildCacheKey(inputParams));
-            if (val != null) {
-                if (ECacheContentType.MissVal == val.getType()) {
-                    dealMissKey(input, resultFuture);
-                } else if (ECacheContentType.SingleLine == val.getType()) {
-                    try {
-                        BaseRow row = fillData(input, val.getContent());
-                        RowDataComplete.completeBaseRow(resultFuture, row);
-                    } catch (Exception e) {
-                        dealFillDataError(input, resultFuture, e);
-                    }
-                } else if (ECacheContentType.MultiLine == val.getType()) {
-                    try {
-                        List<BaseRow> rowList = Lists.newArrayList();
-                        for (Object one : (List) val.getContent()) {
-                            BaseRow row = fillData(input, one);
-                            rowList.add(row);
-                        }
-                        RowDataComplete.completeBaseRow(resultFuture,rowList);
-                    } catch (Exception e) {
-                        dealFillDataError(input, resultFuture, e);
-                    }
-                } else {
-                    resultFuture.completeExceptionally(new RuntimeException("not support cache obj type " + val.getType()));
+    private void invokeWithCache(CacheObj val, BaseRow input, ResultFuture<BaseRow> resultFuture) {
+        if (ECacheContentType.MissVal == val.getType()) {
+            dealMissKey(input, resultFuture);
+        } else if (ECacheContentType.SingleLine == val.getType()) {
+            try {
+                BaseRow row = fillData(input, val.getContent());
+                RowDataComplete.completeBaseRow(resultFuture, row);
+            } catch (Exception e) {
+                dealFillDataError(input, resultFuture, e);
+            }
+        } else if (ECacheContentType.MultiLine == val.getType()) {
+            try {
+                List<Object> content = (List<Object>) val.getContent();
+                List<BaseRow> rowList = Lists.newArrayListWithCapacity(content.size());
+                for (Object one : content) {
+                    BaseRow row = fillData(input, one);
+                    rowList.add(row);
                 }
+                RowDataComplete.completeBaseRow(resultFuture,rowList);
+            } catch (Exception e) {
+                dealFillDataError(input, resultFuture, e);
             }
+        } else {
+            resultFuture.completeExceptionally(new RuntimeException("not support cache obj type " + val.getType()));
+        }
+    }
+
+    /**
+     * reload the stale key in background, the query result is only used to update the cache
+     */
+    private void refreshCache(SideCacheKey key, BaseRow input) throws Exception {
+        if (!sideInfo.getSideCache().tryStartRefresh(key)) {
+            return;
+        }
+        lookup(parseInputParam(input), input, new CacheRefreshResultFuture());
+    }
+
+    /**
+     * called by the first operator of the enrichment chain when a stream row arrives, queries the key of this
+     * operator in advance and puts the result into cache, the row hits the cache or waits for the query
+     * when it reaches this operator. runs in the task thread of the first operator, so only operators
+     * supporting {@link #supportConcurrentLookup()} prefetch
+     */
+    void prefetch(GenericRow streamRow, int[] streamKeyIndexes) {
+        if (inFlightLookups == null) {
+            return;
+        }
+        GenericRow input = new GenericRow(sideInfo.getRowTypeInfo().getArity());
+        for (int i = 0; i < equalValIndexes.length; i++) {
+            input.setField(equalValIndexes[i], streamRow.getField(streamKeyIndexes[i]));
+        }
+        KeyBloomFilter filter = keyFilter;
+        if (filter != null && !filter.mightContain(input, equalValIndexes)) {
+            return;
+        }
+        SideCacheKey key = buildCacheKey(input);
+        Map<SideCacheKey, CacheObj> hotRows = hotSet;
+        if ((hotRows != null && hotRows.containsKey(key)) || getFromCache(key) != null) {
+            return;
+        }
+
+        InFlightLookup lookup = new InFlightLookup();
+        if (inFlightLookups.putIfAbsent(key, lookup) != null) {
+            return;
+        }
+        prefetchRecords.inc();
+        try {
+            lookup(parseInputParam(input), input, new SingleFlightResultFuture(key, lookup, new CacheRefreshResultFuture()));
+        } catch (Exception e) {
+            LOG.warn("prefetch side table {} failed", sideInfo.getSideTableInfo().getName(), e);
+            releaseInFlight(key, lookup);
+        }
+    }
+
+    /**
+     * query the side table, latency and in-flight number of the query are reported by metric.
+     * with adaptive concurrency a lookup over the limit never blocks the caller, it is queued and
+     * issued by the thread releasing a permit, or dropped when the data times out before that
+     */
+    private void lookup(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) {
+        LookupMetricResultFuture meteredFuture = new LookupMetricResultFuture(inputParams, input, resultFuture);
+        if (meteredFuture.handler != null) {
+            activeLookups.put(meteredFuture.handler, meteredFuture);
+        }
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.acquire(meteredFuture);
+        } else {
+            meteredFuture.run();
         }
     }
 
     public abstract void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception;
 
-    public abstract String buildCacheKey(Map<String, Object> inputParams);
+    public SideCacheKey buildCacheKey(Map<String, Object> inputParams) {
+        return SideCacheKey.of(inputParams.values());
+    }
+
+    /**
+     * same key as {@link #buildCacheKey(Map)} read from the row without the param map,
+     * plugins overriding {@link #buildCacheKey(Map)} must override it as well
+     */
+    protected SideCacheKey buildCacheKey(BaseRow input) {
+        return SideCacheKey.of((GenericRow) input, equalValIndexes);
+    }
 
     private ProcessingTimeService getProcessingTimeService() {
         return ((StreamingRuntimeContext) this.runtimeContext).getProcessingTimeService();
@@ -289,11 +754,20 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
 
     protected void registerTimerAndAddToHandler(BaseRow input, ResultFuture<BaseRow> resultFuture)
             throws InvocationTargetException, IllegalAccessException {
+        while (resultFuture instanceof DelegatingResultFuture) {
+            resultFuture = ((DelegatingResultFuture) resultFuture).delegate;
+        }
+        if (resultFuture instanceof CacheRefreshResultFuture) {
+            return;
+        }
         ScheduledFuture<?> timeFuture = registerTimer(input, resultFuture);
         // resultFuture 是ResultHandler 的实例
-        Method setTimeoutTimer = ReflectionUtils.getDeclaredMethod(resultFuture, "setTimeoutTimer", ScheduledFuture.class);
-        setTimeoutTimer.setAccessible(true);
-        setTimeoutTimer.invoke(resultFuture, timeFuture);
+        Method setter = setTimeoutTimer;
+        if (setter == null || !setter.getDeclaringClass().isInstance(resultFuture)) {
+            setter = resolveTimeoutTimerSetter(resultFuture.getClass());
+            setTimeoutTimer = setter;
+        }
+        setter.invoke(resultFuture, timeFuture);
     }
 
 
@@ -309,6 +783,192 @@ public abstract class BaseAsyncReqRow extends RichAsyncFunction<BaseRow, BaseRow
 
     @Override
     public void close() throws Exception {
+        if (keyFilterTask != null) {
+            keyFilterTask.cancel();
+            keyFilterTask = null;
+        }
+        if (hotSetTask != null) {
+            hotSetTask.cancel();
+            hotSetTask = null;
+        }
+        if (sharedCacheIdentity != null) {
+            SharedSideCacheRegistry.release(sharedCacheIdentity);
+            sharedCacheIdentity = null;
+        }
+        if (enrichmentIdentity != null) {
+            SideEnrichmentRegistry.unregister(enrichmentIdentity, sideInfo.getJoinInfo().getEnrichmentIndex(), this);
+            enrichmentIdentity = null;
+            enrichmentChain = null;
+        }
         super.close();
     }
+
+    /**
+     * result of background cache refresh and prefetch, rows are dropped and failure keeps the stale value
+     */
+    private static class CacheRefreshResultFuture implements ResultFuture<BaseRow> {
+
+        @Override
+        public void complete(Collection<BaseRow> result) {
+        }
+
+        @Override
+        public void completeExceptionally(Throwable error) {
+            LOG.warn("refresh side cache failed", error);
+        }
+    }
+
+    /**
+     * wraps the ResultFuture passed to asyncInvoke, the timeout timer is registered on the innermost one
+     */
+    private abstract static class DelegatingResultFuture implements ResultFuture<BaseRow> {
+
+        protected final ResultFuture<BaseRow> delegate;
+
+        DelegatingResultFuture(ResultFuture<BaseRow> delegate) {
+            this.delegate = delegate;
+        }
+    }
+
+    /**
+     * a side table query, run when it gets a concurrency permit. records the latency of the query
+     * and releases the permit when it completes or the data times out
+     */
+    private class LookupMetricResultFuture extends DelegatingResultFuture implements Runnable {
+
+        private static final int WAITING = 0;
+
+        private static final int STARTED = 1;
+
+        private static final int FINISHED = 2;
+
+        private final Map<String, Object> inputParams;
+
+        private final BaseRow input;
+
+        // the ResultFuture passed to asyncInvoke, null for background refresh and prefetch
+        private final ResultFuture<BaseRow> handler;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private volatile long startNanos;
+
+        LookupMetricResultFuture(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> delegate) {
+            super(delegate);
+            this.inputParams = inputParams;
+            this.input = input;
+            while (delegate instanceof DelegatingResultFuture) {
+                delegate = ((DelegatingResultFuture) delegate).delegate;
+            }
+            this.handler = delegate instanceof CacheRefreshResultFuture ? null : delegate;
+        }
+
+        @Override
+        public void run() {
+            startNanos = System.nanoTime();
+            if (!state.compareAndSet(WAITING, STARTED)) {
+                // 排队期间数据已超时, 不再查询, 没有查询耗时, 不参与调整上限
+                concurrencyLimiter.releaseUnused();
+                return;
+            }
+            inFlightLookupNum.incrementAndGet();
+            try {
+                handleAsyncInvoke(inputParams, input, this);
+            } catch (Exception e) {
+                completeExceptionally(e);
+            }
+        }
+
+        /**
+         * called after the data timed out, the result of a started query only fills the cache
+         */
+        void cancel() {
+            if (state.compareAndSet(WAITING, FINISHED)) {
+                if (concurrencyLimiter != null) {
+                    concurrencyLimiter.cancel(this);
+                }
+                // 排队中的查询不再发起, 等待同一个key的请求各自重新查询
+                delegate.completeExceptionally(new TimeoutException("side table lookup timed out waiting for a permit"));
+            } else {
+                finish(true);
+            }
+        }
+
+        void finish(boolean failed) {
+            if (handler != null) {
+                activeLookups.remove(handler, this);
+            }
+            if (state.compareAndSet(STARTED, FINISHED)) {
+                inFlightLookupNum.decrementAndGet();
+                lookupLatency.update((System.nanoTime() - startNanos) / 1000000L);
+                if (concurrencyLimiter != null) {
+                    concurrencyLimiter.release(startNanos, failed);
+                }
+            }
+        }
+
+        @Override
+        public void complete(Collection<BaseRow> result) {
+            finish(false);
+            delegate.complete(result);
+        }
+
+        @Override
+        public void completeExceptionally(Throwable error) {
+            finish(true);
+            delegate.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * result of the query which other lookups of the same key are waiting for
+     */
+    private class SingleFlightResultFuture extends DelegatingResultFuture {
+
+        private final SideCacheKey key;
+
+        private final InFlightLookup lookup;
+
+        SingleFlightResultFuture(SideCacheKey key, InFlightLookup lookup, ResultFuture<BaseRow> delegate) {
+            super(delegate);
+            this.key = key;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public void complete(Collection<BaseRow> result) {
+            delegate.complete(result);
+            releaseInFlight(key, lookup);
+        }
+
+        @Override
+        public void completeExceptionally(Throwable error) {
+            delegate.completeExceptionally(error);
+            releaseInFlight(key, lookup);
+        }
+    }
+
+    private static class InFlightLookup {
+
+        private final long startTime = System.currentTimeMillis();
+
+        private final List<Tuple3<Map<String, Object>, BaseRow, ResultFuture<BaseRow>>> followers = Lists.newArrayList();
+
+        private boolean finished = false;
+
+        synchronized boolean attach(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture, long timeout) {
+            if (finished || System.currentTimeMillis() - startTime > timeout) {
+                return false;
+            }
+            followers.add(Tuple3.of(inputParams, input, resultFuture));
+            return true;
+        }
+
+        synchronized List<Tuple3<Map<String, Object>, BaseRow, ResultFuture<BaseRow>>> finish() {
+            finished = true;
+            List<Tuple3<Map<String, Object>, BaseRow, ResultFuture<BaseRow>>> waiting = Lists.newArrayList(followers);
+            followers.clear();
+            return waiting;
+        }
+    }
 }
@@ -31,6 +31,7 @@ import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlLiteral;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.util.NlsString;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
 import org.apache.flink.table.runtime.typeutils.BaseRowTypeInfo;
 
@@ -58,6 +59,9 @@ public abstract class BaseSideInfo implements Serializable{
 
     protected List<Integer> equalValIndex = Lists.newArrayList();
 
+    //维表字段和流表字段的范围关联条件, 只有支持范围关联的维表才会解析
+    protected List<RangeJoinCondition> rangeConditionList = Lists.newArrayList();
+
     protected String sqlCondition = "";
 
     protected String sideSelectFields = "";
@@ -98,10 +102,24 @@ public abstract class BaseSideInfo implements Serializable{
         List<String> fields = Lists.newArrayList();
         int sideTableFieldIndex = 0;
 
+        // 合并的关联查询合并后的全部字段, 本次关联用到的字段按其在合并字段中的位置取值
+        boolean fused = isFusedJoin();
+        if (fused) {
+            for (String fusedField : joinInfo.getFusedSideFields()) {
+                fields.add(sideTableInfo.getPhysicalFields().getOrDefault(fusedField, fusedField));
+                sideSelectFieldsType.put(sideTableFieldIndex++, getTargetFieldType(fusedField));
+            }
+        }
+
         for( int i=0; i<outFieldInfoList.size(); i++){
             FieldInfo fieldInfo = outFieldInfoList.get(i);
             if(fieldInfo.getTable().equalsIgnoreCase(sideTableName)){
                 String sideFieldName = sideTableInfo.getPhysicalFields().getOrDefault(fieldInfo.getFieldName(), fieldInfo.getFieldName());
+                if (fused) {
+                    sideFieldIndex.put(i, getFusedFieldIndex(fieldInfo.getFieldName()));
+                    sideFieldNameIndex.put(i, sideFieldName);
+                    continue;
+                }
                 fields.add(sideFieldName);
                 sideSelectFieldsType.put(sideTableFieldIndex, getTargetFieldType(fieldInfo.getFieldName()));
                 sideFieldIndex.put(i, sideTableFieldIndex);
@@ -122,6 +140,20 @@ public abstract class BaseSideInfo implements Serializable{
         sideSelectFields = String.join(",", fields);
     }
 
+    /**
+     * 是否和同一查询中其他相同维表、相同关联条件的关联合并了查询字段, 见 {@link SideJoinFuser}
+     */
+    public boolean isFusedJoin() {
+        return joinInfo != null && CollectionUtils.isNotEmpty(joinInfo.getFusedSideFields());
+    }
+
+    protected int getFusedFieldIndex(String fieldName) {
+        int index = joinInfo.getFusedSideFields().indexOf(fieldName);
+        Preconditions.checkState(index != -1, "field %s of side table %s not in fused select fields %s",
+                fieldName, sideTableInfo.getName(), joinInfo.getFusedSideFields());
+        return index;
+    }
+
     public String getTargetFieldType(String fieldName){
         int fieldIndex = sideTableInfo.getFieldList().indexOf(fieldName);
         if(fieldIndex == -1){
@@ -157,6 +189,44 @@ public abstract class BaseSideInfo implements Serializable{
         }
     }
 
+    /**
+     * deal range condition between side field and stream field, etc. s.start_ip <= a.ip
+     * @return false if it is not a range condition of two fields
+     */
+    public boolean dealOneRangeCon(SqlNode sqlNode, String sideTableName) {
+        if (!(sqlNode instanceof SqlBasicCall) || ((SqlBasicCall) sqlNode).getOperands().length != 2) {
+            return false;
+        }
+        SqlNode leftNode = ((SqlBasicCall) sqlNode).getOperands()[0];
+        SqlNode rightNode = ((SqlBasicCall) sqlNode).getOperands()[1];
+        if (!(leftNode instanceof SqlIdentifier) || !(rightNode instanceof SqlIdentifier)) {
+            return false;
+        }
+
+        SqlIdentifier left = (SqlIdentifier) leftNode;
+        SqlIdentifier right = (SqlIdentifier) rightNode;
+        boolean sideFirst = left.getComponent(0).getSimple().equalsIgnoreCase(sideTableName);
+        SqlIdentifier sideNode = sideFirst ? left : right;
+        SqlIdentifier streamNode = sideFirst ? right : left;
+        String streamField = streamNode.getComponent(1).getSimple();
+        int streamIndex = -1;
+        for (int i = 0; i < rowTypeInfo.getFieldNames().length; i++) {
+            if (rowTypeInfo.getFieldNames()[i].equalsIgnoreCase(streamField)) {
+                streamIndex = i;
+            }
+        }
+        RangeJoinCondition rangeCondition = RangeJoinCondition.of(sqlNode.getKind(), sideFirst, sideNode.getComponent(1).getSimple(), streamIndex);
+        if (rangeCondition == null) {
+            return false;
+        }
+        if (!sideNode.getComponent(0).getSimple().equalsIgnoreCase(sideTableName)) {
+            throw new RuntimeException("resolve range condition error:" + sqlNode.toString());
+        }
+        Preconditions.checkState(streamIndex != -1, "can't deal range field: " + sqlNode);
+        rangeConditionList.add(rangeCondition);
+        return true;
+    }
+
     /**
      * deal normal equation etc. foo.id = bar.id
      * @param left
@@ -295,6 +365,14 @@ public abstract class BaseSideInfo implements Serializable{
         this.joinType = joinType;
     }
 
+    public JoinInfo getJoinInfo() {
+        return joinInfo;
+    }
+
+    public List<RangeJoinCondition> getRangeConditionList() {
+        return rangeConditionList;
+    }
+
     public Map<Integer, Integer> getInFieldIndex() {
         return inFieldIndex;
     }
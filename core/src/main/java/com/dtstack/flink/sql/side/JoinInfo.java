@@ -22,12 +22,14 @@ package com.dtstack.flink.sql.side;
 
 import com.dtstack.flink.sql.util.TableUtils;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.calcite.sql.JoinType;
 import org.apache.calcite.sql.SqlNode;
 import com.google.common.base.Strings;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -81,6 +83,26 @@ public class JoinInfo implements Serializable {
      */
     private Map<String, String> rightSelectFieldInfo = Maps.newHashMap();
 
+    /**
+     * 和其他关联合并查询时需要查询的维表字段(按维表字段顺序), 为空表示没有合并, 见 {@link SideJoinFuser}
+     */
+    private List<String> fusedSideFields = Lists.newArrayList();
+
+    /**
+     * 连续的异步维表关联组成的关联链标识, 为空表示不在关联链中, 见 {@link SideEnrichmentRegistry}
+     */
+    private String enrichmentGroup;
+
+    /**
+     * 在关联链中的位置, 0表示直接关联流表的第一个关联
+     */
+    private int enrichmentIndex = 0;
+
+    /**
+     * 左表事件时间字段的位置, 传给维表算子的类型中时间属性已转换为Timestamp, 需要在转换前记录, -1表示没有事件时间
+     */
+    private int leftRowtimeIndex = -1;
+
     public String getSideTableName(){
         if(leftIsSideTable){
             return leftTableAlias;
@@ -226,6 +248,38 @@ public class JoinInfo implements Serializable {
         this.rightSelectFieldInfo = rightSelectFieldInfo;
     }
 
+    public List<String> getFusedSideFields() {
+        return fusedSideFields;
+    }
+
+    public void setFusedSideFields(List<String> fusedSideFields) {
+        this.fusedSideFields = fusedSideFields;
+    }
+
+    public String getEnrichmentGroup() {
+        return enrichmentGroup;
+    }
+
+    public void setEnrichmentGroup(String enrichmentGroup) {
+        this.enrichmentGroup = enrichmentGroup;
+    }
+
+    public int getEnrichmentIndex() {
+        return enrichmentIndex;
+    }
+
+    public void setEnrichmentIndex(int enrichmentIndex) {
+        this.enrichmentIndex = enrichmentIndex;
+    }
+
+    public int getLeftRowtimeIndex() {
+        return leftRowtimeIndex;
+    }
+
+    public void setLeftRowtimeIndex(int leftRowtimeIndex) {
+        this.leftRowtimeIndex = leftRowtimeIndex;
+    }
+
     public HashBasedTable<String, String, String> getTableFieldRef(){
         HashBasedTable<String, String, String> mappingTable = HashBasedTable.create();
         getLeftSelectFieldInfo().forEach((key, value) -> {
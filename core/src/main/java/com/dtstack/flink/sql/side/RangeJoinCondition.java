@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import org.apache.calcite.sql.SqlKind;
+
+import java.io.Serializable;
+
+/**
+ * 维表字段和流表字段的范围关联条件, 统一为维表字段是流表字段的下界或上界,
+ * 如 a.ip BETWEEN s.start_ip AND s.end_ip 为 start_ip 是 ip 的下界、end_ip 是 ip 的上界
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class RangeJoinCondition implements Serializable {
+
+    private static final long serialVersionUID = 3279462160376921856L;
+
+    private final String sideField;
+
+    private final int streamIndex;
+
+    // true: 维表字段 <(=) 流表字段, false: 维表字段 >(=) 流表字段
+    private final boolean lowerBound;
+
+    private final boolean inclusive;
+
+    public RangeJoinCondition(String sideField, int streamIndex, boolean lowerBound, boolean inclusive) {
+        this.sideField = sideField;
+        this.streamIndex = streamIndex;
+        this.lowerBound = lowerBound;
+        this.inclusive = inclusive;
+    }
+
+    /**
+     * @param kind 比较运算符
+     * @param sideFirst 维表字段是否在运算符左边
+     * @return null if the operator is not a range comparison
+     */
+    public static RangeJoinCondition of(SqlKind kind, boolean sideFirst, String sideField, int streamIndex) {
+        boolean sideLess;
+        switch (kind) {
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+                sideLess = sideFirst;
+                break;
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                sideLess = !sideFirst;
+                break;
+            default:
+                return null;
+        }
+        boolean inclusive = kind == SqlKind.LESS_THAN_OR_EQUAL || kind == SqlKind.GREATER_THAN_OR_EQUAL;
+        return new RangeJoinCondition(sideField, streamIndex, sideLess, inclusive);
+    }
+
+    public String getSideField() {
+        return sideField;
+    }
+
+    public int getStreamIndex() {
+        return streamIndex;
+    }
+
+    public boolean isLowerBound() {
+        return lowerBound;
+    }
+
+    public boolean isInclusive() {
+        return inclusive;
+    }
+
+    @Override
+    public String toString() {
+        return sideField + (lowerBound ? " <" : " >") + (inclusive ? "= " : " ") + "$" + streamIndex;
+    }
+}
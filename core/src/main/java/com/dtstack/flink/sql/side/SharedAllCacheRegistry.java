@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ALL维表缓存在TaskManager内的共享: 相同维表的subtask共用一份数据, 只由其中一个subtask加载和定时刷新,
+ * 加载的subtask关闭后由剩下的subtask接管刷新, 最后一个subtask关闭后释放缓存
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class SharedAllCacheRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedAllCacheRegistry.class);
+
+    private static final Map<String, SharedAllCache> CACHES = Maps.newHashMap();
+
+    private SharedAllCacheRegistry() {
+    }
+
+    static synchronized SharedAllCache acquire(String identity, BaseAllReqRow subtask) {
+        SharedAllCache cache = CACHES.computeIfAbsent(identity, key -> new SharedAllCache(key, subtask.getCacheRef()));
+        cache.subtasks.add(subtask);
+        LOG.info("acquire shared all cache {}, subtask num:{}", identity, cache.subtasks.size());
+        return cache;
+    }
+
+    static synchronized void markLoaded(SharedAllCache cache, BaseAllReqRow loader) {
+        cache.loader = loader;
+        cache.loaded = true;
+    }
+
+    static synchronized void release(SharedAllCache cache, BaseAllReqRow subtask) {
+        cache.subtasks.remove(subtask);
+        if (cache.subtasks.isEmpty()) {
+            CACHES.remove(cache.identity, cache);
+            LOG.info("release shared all cache {}", cache.identity);
+            return;
+        }
+
+        if (cache.loader == subtask) {
+            // 在锁内启动, 保证接管的subtask关闭时能看到并停止刷新线程
+            cache.loader = cache.subtasks.get(0);
+            cache.loader.startReloadCache();
+            LOG.info("shared all cache {} reload is taken over by another subtask", cache.identity);
+        }
+    }
+
+    static class SharedAllCache {
+
+        private final String identity;
+
+        private final AtomicReference<?> cacheRef;
+
+        private final List<BaseAllReqRow> subtasks = Lists.newArrayList();
+
+        private BaseAllReqRow loader;
+
+        private volatile boolean loaded = false;
+
+        SharedAllCache(String identity, AtomicReference<?> cacheRef) {
+            this.identity = identity;
+            this.cacheRef = cacheRef;
+        }
+
+        AtomicReference<?> getCacheRef() {
+            return cacheRef;
+        }
+
+        boolean isLoaded() {
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.dtstack.flink.sql.side.cache.AbstractSideCache;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 合并的异步维表关联(见 {@link SideJoinFuser})在TaskManager内共用的缓存, 同一个subtask的几个算子共用一份,
+ * 最后一个算子关闭后释放
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class SharedSideCacheRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedSideCacheRegistry.class);
+
+    private static final Map<String, SharedSideCache> CACHES = Maps.newHashMap();
+
+    private SharedSideCacheRegistry() {
+    }
+
+    static synchronized AbstractSideCache acquire(String identity, Supplier<AbstractSideCache> cacheSupplier) {
+        SharedSideCache cache = CACHES.computeIfAbsent(identity, key -> new SharedSideCache(cacheSupplier.get()));
+        cache.refCount++;
+        LOG.info("acquire shared side cache {}, operator num:{}", identity, cache.refCount);
+        return cache.sideCache;
+    }
+
+    static synchronized void release(String identity) {
+        SharedSideCache cache = CACHES.get(identity);
+        if (cache == null) {
+            return;
+        }
+        cache.refCount--;
+        if (cache.refCount <= 0) {
+            CACHES.remove(identity);
+            LOG.info("release shared side cache {}", identity);
+        }
+    }
+
+    private static class SharedSideCache {
+
+        private final AbstractSideCache sideCache;
+
+        private int refCount = 0;
+
+        SharedSideCache(AbstractSideCache sideCache) {
+            this.sideCache = sideCache;
+        }
+    }
+}
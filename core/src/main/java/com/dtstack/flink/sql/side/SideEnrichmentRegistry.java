@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 连续的异步维表关联(关联链)在TaskManager内的注册信息, 同一个subtask的关联链算子注册到一起.
+ * 第一个算子收到流表数据时, 同时发起后面关联键只来自流表的维表查询, 结果写入各自的缓存,
+ * 数据经过整条关联链的耗时从各次查询耗时之和变为其中的最大值
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class SideEnrichmentRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SideEnrichmentRegistry.class);
+
+    private static final Map<String, EnrichmentChain> CHAINS = Maps.newHashMap();
+
+    private SideEnrichmentRegistry() {
+    }
+
+    static synchronized EnrichmentChain register(String identity, int index, BaseAsyncReqRow member) {
+        EnrichmentChain chain = CHAINS.computeIfAbsent(identity, key -> new EnrichmentChain());
+        chain.members.put(index, member);
+        chain.rebuild(identity);
+        return chain;
+    }
+
+    static synchronized void unregister(String identity, int index, BaseAsyncReqRow member) {
+        EnrichmentChain chain = CHAINS.get(identity);
+        if (chain == null || !chain.members.remove(index, member)) {
+            return;
+        }
+        if (chain.members.isEmpty()) {
+            CHAINS.remove(identity);
+            return;
+        }
+        chain.rebuild(identity);
+    }
+
+    /**
+     * 把关联键在第index个关联输入中的位置逐级换算为在流表数据中的位置,
+     * 关联键来自前面关联查询到的维表字段时返回null
+     *
+     * @param upstreamInFieldIndexes 前面每个关联的输出字段位置到输入字段位置的映射, 按关联顺序
+     * @param equalValIndexes 关联键在当前关联输入中的位置
+     */
+    static int[] resolveStreamKeyIndexes(List<Map<Integer, Integer>> upstreamInFieldIndexes, int[] equalValIndexes) {
+        int[] streamKeyIndexes = new int[equalValIndexes.length];
+        for (int i = 0; i < equalValIndexes.length; i++) {
+            Integer index = equalValIndexes[i];
+            for (int j = upstreamInFieldIndexes.size() - 1; j >= 0 && index != null; j--) {
+                index = upstreamInFieldIndexes.get(j).get(index);
+            }
+            if (index == null) {
+                return null;
+            }
+            streamKeyIndexes[i] = index;
+        }
+        return streamKeyIndexes;
+    }
+
+    static class EnrichmentChain {
+
+        private final TreeMap<Integer, BaseAsyncReqRow> members = new TreeMap<>();
+
+        private volatile List<Tuple2<BaseAsyncReqRow, int[]>> prefetchers = Collections.emptyList();
+
+        /**
+         * 只有前面的算子都已注册时才能换算关联键的位置, 预查询在第一个算子的线程中调用, 只有支持并发查询的算子预查询
+         */
+        private void rebuild(String identity) {
+            List<Tuple2<BaseAsyncReqRow, int[]>> newPrefetchers = Lists.newArrayList();
+            List<Map<Integer, Integer>> upstreamInFieldIndexes = Lists.newArrayList();
+            for (int index = 0; members.containsKey(index); index++) {
+                BaseAsyncReqRow member = members.get(index);
+                if (index > 0 && member.supportConcurrentLookup()) {
+                    int[] streamKeyIndexes = resolveStreamKeyIndexes(upstreamInFieldIndexes, member.getEqualValIndexes());
+                    if (streamKeyIndexes != null) {
+                        newPrefetchers.add(Tuple2.of(member, streamKeyIndexes));
+                    }
+                }
+                upstreamInFieldIndexes.add(member.sideInfo.getInFieldIndex());
+            }
+            prefetchers = newPrefetchers;
+            LOG.info("side enrichment chain {}, operator num:{}, prefetch side table num:{}", identity, members.size(), newPrefetchers.size());
+        }
+
+        void prefetch(GenericRow streamRow) {
+            for (Tuple2<BaseAsyncReqRow, int[]> prefetcher : prefetchers) {
+                prefetcher.f0.prefetch(streamRow, prefetcher.f1);
+            }
+        }
+    }
+}
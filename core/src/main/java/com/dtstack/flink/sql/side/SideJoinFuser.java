@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.dtstack.flink.sql.enums.ECacheType;
+import com.dtstack.flink.sql.util.ParseUtils;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.calcite.sql.SqlBasicCall;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 同一个查询中按相同的关联条件多次关联同一张维表时(如同一个id分别取维表的不同字段), 合并这几次关联:
+ * 每次关联都查询这几次关联用到的全部维表字段, 查询语句和缓存内容相同, 同一个subtask中的这几个算子共用一份缓存,
+ * 后面的算子直接命中前面算子查询的结果
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class SideJoinFuser {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SideJoinFuser.class);
+
+    private SideJoinFuser() {
+    }
+
+    public static void fuse(Collection<Object> exeQueue, Map<String, AbstractSideTableInfo> sideTableMap) {
+        Map<String, List<JoinInfo>> joinsByLookup = Maps.newLinkedHashMap();
+        for (Object obj : exeQueue) {
+            if (!(obj instanceof JoinInfo)) {
+                continue;
+            }
+            JoinInfo joinInfo = (JoinInfo) obj;
+            AbstractSideTableInfo sideTableInfo = getSideTableInfo(joinInfo, sideTableMap);
+            if (sideTableInfo == null || joinInfo.isLeftIsSideTable() || !isCached(sideTableInfo)) {
+                continue;
+            }
+            joinsByLookup.computeIfAbsent(buildLookupIdentity(joinInfo, sideTableInfo), key -> Lists.newArrayList())
+                    .add(joinInfo);
+        }
+
+        joinsByLookup.forEach((identity, joins) -> {
+            if (joins.size() < 2) {
+                return;
+            }
+            AbstractSideTableInfo sideTableInfo = getSideTableInfo(joins.get(0), sideTableMap);
+            Set<String> neededFields = Sets.newHashSet();
+            joins.forEach(joinInfo -> neededFields.addAll(joinInfo.getRightSelectFieldInfo().keySet()));
+            if (!sideTableInfo.getFieldList().containsAll(neededFields)) {
+                LOG.info("side table {} joins {} not fused, select fields {} not all declared", sideTableInfo.getName(), identity, neededFields);
+                return;
+            }
+
+            List<String> fusedFields = sideTableInfo.getFieldList().stream()
+                    .filter(neededFields::contains)
+                    .collect(Collectors.toList());
+            joins.forEach(joinInfo -> joinInfo.setFusedSideFields(Lists.newArrayList(fusedFields)));
+            LOG.info("fuse {} joins of side table {} on {}, select fields {}", joins.size(), sideTableInfo.getName(), identity, fusedFields);
+        });
+    }
+
+    private static AbstractSideTableInfo getSideTableInfo(JoinInfo joinInfo, Map<String, AbstractSideTableInfo> sideTableMap) {
+        AbstractSideTableInfo sideTableInfo = sideTableMap.get(joinInfo.getRightTableName());
+        if (sideTableInfo == null) {
+            sideTableInfo = sideTableMap.get(joinInfo.getRightTableAlias());
+        }
+        return sideTableInfo;
+    }
+
+    /**
+     * 不缓存时合并查询也不能减少查询次数
+     */
+    private static boolean isCached(AbstractSideTableInfo sideTableInfo) {
+        return sideTableInfo.getCacheType() != null && !ECacheType.NONE.name().equalsIgnoreCase(sideTableInfo.getCacheType());
+    }
+
+    /**
+     * 同一个key查询到的维表数据只由维表、维表一侧的关联字段和维表的过滤条件决定, 和流表一侧的表达式无关
+     */
+    static String buildLookupIdentity(JoinInfo joinInfo, AbstractSideTableInfo sideTableInfo) {
+        String sideAlias = joinInfo.getRightTableAlias();
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        ParseUtils.parseAnd(joinInfo.getCondition(), sqlNodeList);
+
+        List<String> conditions = Lists.newArrayList();
+        for (SqlNode sqlNode : sqlNodeList) {
+            if (!(sqlNode instanceof SqlBasicCall)) {
+                conditions.add(sqlNode.toString());
+                continue;
+            }
+            List<String> operands = Lists.newArrayList();
+            for (SqlNode operand : ((SqlBasicCall) sqlNode).getOperands()) {
+                if (operand instanceof SqlIdentifier && ((SqlIdentifier) operand).names.size() == 2) {
+                    SqlIdentifier identifier = (SqlIdentifier) operand;
+                    if (identifier.getComponent(0).getSimple().equalsIgnoreCase(sideAlias)) {
+                        String fieldName = identifier.getComponent(1).getSimple();
+                        operands.add("side." + sideTableInfo.getPhysicalFields().getOrDefault(fieldName, fieldName));
+                    } else {
+                        operands.add("?");
+                    }
+                } else {
+                    operands.add(operand.toString());
+                }
+            }
+            conditions.add(sqlNode.getKind() + operands.toString());
+        }
+
+        List<String> predicates = sideTableInfo.getFullPredicateInfoes().stream()
+                .filter(predicate -> sideAlias.equals(predicate.getOwnerTable()))
+                .map(predicate -> predicate.getFieldName() + " " + predicate.getOperatorName() + " " + predicate.getCondition())
+                .sorted()
+                .collect(Collectors.toList());
+
+        return sideTableInfo.getName() + "|" + conditions + "|" + predicates;
+    }
+}
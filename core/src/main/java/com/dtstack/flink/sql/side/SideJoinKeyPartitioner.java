@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side;
+
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.google.common.collect.Lists;
+import org.apache.flink.api.common.functions.Partitioner;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.apache.flink.util.MathUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hash partition the left stream by the equi-join fields, so every subtask of side operator
+ * only has to cache 1/N of the dimension keys.
+ * The hash is computed on the {@link SideCacheKey} of the key values, which is also how the all cache
+ * matches the stream with the loaded rows, so the loader can filter out keys of other subtasks.
+ * Only string and exact numeric join fields are supported, see SideSqlExec.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+public class SideJoinKeyPartitioner implements Partitioner<BaseRow> {
+
+    private static final long serialVersionUID = 5203847163526915837L;
+
+    @Override
+    public int partition(BaseRow key, int numPartitions) {
+        GenericRow genericRow = (GenericRow) key;
+        List<Object> keyValues = Lists.newArrayListWithCapacity(genericRow.getArity());
+        for (int i = 0; i < genericRow.getArity(); i++) {
+            keyValues.add(genericRow.getField(i));
+        }
+        return selectPartition(keyValues, numPartitions);
+    }
+
+    /**
+     * select the partition of key values load from dimension table,
+     * must keep the same with {@link #partition(BaseRow, int)}
+     * @param keyValues values of equal fields in order of equalFieldList
+     * @param numPartitions parallelism of side operator
+     * @return partition index
+     */
+    public static int selectPartition(Collection<?> keyValues, int numPartitions) {
+        return MathUtils.murmurHash(SideCacheKey.of(keyValues).hashCode()) % numPartitions;
+    }
+}
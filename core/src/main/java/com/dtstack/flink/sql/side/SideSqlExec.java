@@ -60,6 +60,7 @@ import org.apache.flink.table.runtime.typeutils.LegacyLocalDateTimeTypeInfo;
 import org.apache.flink.table.types.logical.DecimalType;
 import org.apache.flink.table.types.logical.LegacyTypeInformationType;
 import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
 import org.apache.flink.table.types.logical.TimestampType;
 import org.apache.flink.table.typeutils.TimeIndicatorTypeInfo;
 import org.slf4j.Logger;
@@ -105,6 +106,9 @@ public class SideSqlExec {
 
     private Map<String, Table> localTableCache = Maps.newHashMap();
 
+    //异步维表关联输出的表, 以它为左表的异步关联加入同一条关联链
+    private Map<String, JoinInfo> enrichmentTables = Maps.newHashMap();
+
     //维表重新注册之后的名字缓存
     private static Map<String, Table> dimTableNewTable = Maps.newHashMap();
 
@@ -134,6 +138,7 @@ public class SideSqlExec {
         SideSQLParser sideSQLParser = new SideSQLParser();
         sideSQLParser.setLocalTableCache(localTableCache);
         Queue<Object> exeQueue = sideSQLParser.getExeQueue(sql, sideTableMap.keySet(), scope);
+        SideJoinFuser.fuse(exeQueue, sideTableMap);
         Object pollObj = null;
         // create view中是否包含维表
         boolean includeDimTable = false;
@@ -334,8 +339,7 @@ public class SideSqlExec {
      * @param joinScope
      */
     public void checkConditionFieldsInTable(SqlNode conditionNode, JoinScope joinScope, AbstractSideTableInfo sideTableInfo) {
-        List<SqlNode> sqlNodeList = Lists.newArrayList();
-        ParseUtils.parseAnd(conditionNode, sqlNodeList);
+        List<SqlNode> sqlNodeList = parseConditions(conditionNode, sideTableInfo);
         for (SqlNode sqlNode : sqlNodeList) {
             if (!SqlKind.COMPARISON.contains(sqlNode.getKind())) {
                 throw new RuntimeException("It is not comparison operator.");
@@ -355,6 +359,19 @@ public class SideSqlExec {
         }
     }
 
+    /**
+     * BETWEEN is split into two comparisons only for side tables supporting range join
+     */
+    private List<SqlNode> parseConditions(SqlNode conditionNode, AbstractSideTableInfo sideTableInfo) {
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        if (sideTableInfo != null && sideTableInfo.supportRangeJoin()) {
+            ParseUtils.parseAndExpandBetween(conditionNode, sqlNodeList);
+        } else {
+            ParseUtils.parseAnd(conditionNode, sqlNodeList);
+        }
+        return sqlNodeList;
+    }
+
     /**
      * check whether table exists and whether field is in table.
      * @param sqlNode
@@ -400,8 +417,7 @@ public class SideSqlExec {
     }
 
     public List<String> getConditionFields(SqlNode conditionNode, String specifyTableName, AbstractSideTableInfo sideTableInfo) {
-        List<SqlNode> sqlNodeList = Lists.newArrayList();
-        ParseUtils.parseAnd(conditionNode, sqlNodeList);
+        List<SqlNode> sqlNodeList = parseConditions(conditionNode, sideTableInfo);
         List<String> conditionFields = Lists.newArrayList();
         for (SqlNode sqlNode : sqlNodeList) {
             if (!SqlKind.COMPARISON.contains(sqlNode.getKind())) {
@@ -535,7 +551,13 @@ public class SideSqlExec {
         }
 
         TypeInformation<?>[] fieldDataTypes = targetTable.getSchema().getFieldTypes();
+        joinInfo.setLeftRowtimeIndex(-1);
         for (int i = 0; i < fieldDataTypes.length; i++) {
+            if (fieldDataTypes[i] instanceof TimeIndicatorTypeInfo && ((TimeIndicatorTypeInfo) fieldDataTypes[i]).isEventTime()
+                    && joinInfo.getLeftRowtimeIndex() < 0) {
+                joinInfo.setLeftRowtimeIndex(i);
+            }
+
             if (fieldDataTypes[i].getClass().equals(BigDecimalTypeInfo.class)) {
                 fieldDataTypes[i] = BasicTypeInfo.BIG_DEC_TYPE_INFO;
             }
@@ -556,14 +578,29 @@ public class SideSqlExec {
 
         //join side table before keyby ===> Reducing the size of each dimension table cache of async
         if (sideTableInfo.isPartitionedJoin()) {
-            // TODO need change
-            // adaptStream = adaptStream.keyBy(new TupleKeySelector(leftBaseTypeInfo));
+            String[] leftFieldNames = leftTable.getSchema().getFieldNames();
+            int[] keyFieldIndexes = getJoinKeyIndexes(joinInfo, leftFieldNames);
+            LogicalType[] keyTypes = new LogicalType[keyFieldIndexes.length];
+            String[] keyNames = new String[keyFieldIndexes.length];
+            for (int i = 0; i < keyFieldIndexes.length; i++) {
+                keyTypes[i] = logicalTypes[keyFieldIndexes[i]];
+                keyNames[i] = leftFieldNames[keyFieldIndexes[i]];
+                // 流上和维表加载的时间类型的值形式不同(SqlTimestamp 和 Timestamp), 算出的分区不一致
+                Set<LogicalTypeFamily> families = keyTypes[i].getTypeRoot().getFamilies();
+                if (!families.contains(LogicalTypeFamily.CHARACTER_STRING) && !families.contains(LogicalTypeFamily.EXACT_NUMERIC)) {
+                    throw new RuntimeException("partitionedJoin only support string and exact numeric join fields, but field "
+                            + keyNames[i] + " is " + keyTypes[i]);
+                }
+            }
+            adaptStream = adaptStream.partitionCustom(new SideJoinKeyPartitioner(),
+                    new TupleKeySelector(keyFieldIndexes, new BaseRowTypeInfo(keyTypes, keyNames)));
         }
 
         DataStream<BaseRow> dsOut = null;
         if(ECacheType.ALL.name().equalsIgnoreCase(sideTableInfo.getCacheType())){
             dsOut = SideWithAllCacheOperator.getSideJoinDataStream(adaptStream, sideTableInfo.getType(), localSqlPluginPath, typeInfo, joinInfo, sideJoinFieldInfo, sideTableInfo, pluginLoadMode);
         }else{
+            markEnrichmentChain(joinInfo, sideTableInfo, adaptStream.getParallelism());
             dsOut = SideAsyncOperator.getSideJoinDataStream(adaptStream, sideTableInfo.getType(), localSqlPluginPath, typeInfo, joinInfo, sideJoinFieldInfo, sideTableInfo, pluginLoadMode);
         }
 
@@ -592,9 +629,77 @@ public class SideSqlExec {
             tableEnv.createTemporaryView(targetTableName, joinTable);
             localTableCache.put(joinInfo.getNewTableName(), joinTable);
             dimTableNewTable.put(joinInfo.getNewTableName(), joinTable);
+            if (joinInfo.getEnrichmentGroup() != null) {
+                enrichmentTables.put(joinInfo.getNewTableName(), joinInfo);
+            }
+        }
+    }
+
+    /**
+     * 左表是上一个异步关联输出的异步关联加入上一个关联所在的关联链, 否则作为新关联链的第一个关联.
+     * 重新分区或者并行度和输入不同时同一个subtask的关联链算子处理的不是同一批数据, 不加入关联链
+     */
+    private void markEnrichmentChain(JoinInfo joinInfo, AbstractSideTableInfo sideTableInfo, int inputParallelism) {
+        if (sideTableInfo.isPartitionedJoin()
+                || (sideTableInfo.getParallelism() > 0 && sideTableInfo.getParallelism() != inputParallelism)) {
+            return;
+        }
+
+        JoinInfo upstream = enrichmentTables.get(joinInfo.getLeftTableAlias());
+        if (upstream == null) {
+            upstream = enrichmentTables.get(joinInfo.getLeftTableName());
+        }
+        if (upstream != null) {
+            joinInfo.setEnrichmentGroup(upstream.getEnrichmentGroup());
+            joinInfo.setEnrichmentIndex(upstream.getEnrichmentIndex() + 1);
+        } else {
+            joinInfo.setEnrichmentGroup(joinInfo.getNewTableName());
+            joinInfo.setEnrichmentIndex(0);
         }
     }
 
+    /**
+     * find the index of equi-join fields in left table, keep the same order with BaseSideInfo.equalFieldList
+     * @param joinInfo 维表join信息
+     * @param leftFieldNames 左表字段
+     * @return
+     */
+    public int[] getJoinKeyIndexes(JoinInfo joinInfo, String[] leftFieldNames) {
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        ParseUtils.parseAnd(joinInfo.getCondition(), sqlNodeList);
+        List<Integer> keyIndexes = Lists.newArrayList();
+        for (SqlNode sqlNode : sqlNodeList) {
+            SqlNode leftNode = ((SqlBasicCall) sqlNode).getOperands()[0];
+            SqlNode rightNode = ((SqlBasicCall) sqlNode).getOperands()[1];
+            if (leftNode.getKind() == SqlKind.LITERAL || rightNode.getKind() == SqlKind.LITERAL) {
+                continue;
+            }
+
+            if (sqlNode.getKind() != SqlKind.EQUALS) {
+                throw new RuntimeException("partitionedJoin only support equal join condition, error condition: " + sqlNode);
+            }
+
+            SqlIdentifier left = (SqlIdentifier) leftNode;
+            SqlIdentifier right = (SqlIdentifier) rightNode;
+            String leftTableName = left.getComponent(0).getSimple();
+            String sourceField = leftTableName.equalsIgnoreCase(joinInfo.getSideTableName()) ?
+                    right.getComponent(1).getSimple() : left.getComponent(1).getSimple();
+
+            int fieldIndex = -1;
+            for (int i = 0; i < leftFieldNames.length; i++) {
+                if (leftFieldNames[i].equalsIgnoreCase(sourceField)) {
+                    fieldIndex = i;
+                    break;
+                }
+            }
+            Preconditions.checkState(fieldIndex != -1, "can't find join field %s in table %s", sourceField, joinInfo.getNonSideTable());
+            keyIndexes.add(fieldIndex);
+        }
+
+        Preconditions.checkState(!keyIndexes.isEmpty(), "partitionedJoin need at least one equal join condition: %s", joinInfo.getCondition());
+        return keyIndexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /**
      * 抽取维表本次真正使用的谓词集合
      * @param joinInfo 维表join信息
@@ -25,21 +25,32 @@ import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.table.dataformat.GenericRow;
 
 /**
+ * extract the equi-join fields of the left stream as the partition key of side join
  * Date: 2020/3/25
  * Company: www.dtstack.com
  * @author maqi
  */
 public class TupleKeySelector implements ResultTypeQueryable<BaseRow>, KeySelector<BaseRow, BaseRow> {
 
+    private static final long serialVersionUID = -4353203402713218652L;
+
+    private int[] keyFieldIndexes;
+
     private TypeInformation<BaseRow> returnType;
 
-    public TupleKeySelector(TypeInformation<BaseRow> returnType) {
+    public TupleKeySelector(int[] keyFieldIndexes, TypeInformation<BaseRow> returnType) {
+        this.keyFieldIndexes = keyFieldIndexes;
         this.returnType = returnType;
     }
 
     @Override
     public BaseRow getKey(BaseRow value) throws Exception {
-        return GenericRow.copyReference((GenericRow)value);
+        GenericRow genericRow = (GenericRow) value;
+        GenericRow key = new GenericRow(keyFieldIndexes.length);
+        for (int i = 0; i < keyFieldIndexes.length; i++) {
+            key.setField(i, genericRow.getField(keyFieldIndexes[i]));
+        }
+        return key;
     }
 
     @Override
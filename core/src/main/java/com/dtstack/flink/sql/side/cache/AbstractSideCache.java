@@ -22,6 +22,9 @@ package com.dtstack.flink.sql.side.cache;
 
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Reason:
  * Date: 2018/9/10
@@ -40,7 +43,54 @@ public abstract class AbstractSideCache {
 
     public abstract void initCache();
 
-    public abstract CacheObj getFromCache(String key);
+    public abstract CacheObj getFromCache(SideCacheKey key);
+
+    public abstract void putCache(SideCacheKey key, CacheObj value);
+
+    public void invalidate(SideCacheKey key) {
+    }
 
-    public abstract void putCache(String key, CacheObj value);
+    /**
+     * at most limit cached entries, the most likely to be hit first when the cache keeps an order.
+     * used to snapshot the cache into checkpoint
+     * @param limit
+     * @return
+     */
+    public Map<SideCacheKey, CacheObj> hottest(int limit) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * check whether the cached value of key should be reloaded in background.
+     * the caller who gets true is responsible for reloading the key and putting the new value
+     * @param key
+     * @return
+     */
+    public boolean tryStartRefresh(SideCacheKey key) {
+        return false;
+    }
+
+    /**
+     * estimated heap bytes of all entries, only tracked when the cache is bounded by cacheMaxBytes
+     * @return -1 if not tracked
+     */
+    public long getWeightedSize() {
+        return -1L;
+    }
+
+    /**
+     * number of entries evicted by size or expiration
+     * @return
+     */
+    public long getEvictionCount() {
+        return 0L;
+    }
+
+    /**
+     * approximate number of cached entries
+     * @return
+     */
+    public long getSize() {
+        return 0L;
+    }
 }
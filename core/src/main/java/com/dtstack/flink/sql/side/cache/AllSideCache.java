@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of the rows loaded by an ALL side table, built once per (re)load and swapped atomically.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public interface AllSideCache extends Closeable {
+
+    /**
+     * @return rows of the key, empty if the key is not loaded,
+     * null if the cache has been closed by a reload and the current cache should be read again
+     */
+    List<Map<String, Object>> getRows(SideCacheKey key);
+
+    /**
+     * replace all rows of the key, used by increment reload
+     */
+    void replaceRows(SideCacheKey key, List<Map<String, Object>> rows);
+
+    long getRowCount();
+
+    /**
+     * release the resource of the cache, the rows can't be read any more
+     */
+    @Override
+    void close();
+
+    interface Builder {
+
+        /**
+         * @param values row values in the order of the column names
+         */
+        Builder addRow(SideCacheKey key, Object[] values);
+
+        AllSideCache build();
+
+        /**
+         * release the resource of a cache which fails to load
+         */
+        default void abort() {
+        }
+    }
+}
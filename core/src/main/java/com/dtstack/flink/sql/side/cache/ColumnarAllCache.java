@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable column oriented storage of the rows loaded by an ALL side table.
+ * Numeric and boolean columns are kept in primitive arrays, string columns are dictionary encoded,
+ * rows of the same key are chained by row ordinal and the keys are kept in an open addressing index,
+ * so a loaded row costs a few bytes per column instead of a HashMap.
+ * Keys changed by an increment reload are kept as plain rows beside the columns and win over them.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public final class ColumnarAllCache implements AllSideCache {
+
+    private static final int NO_ROW = -1;
+
+    private final String[] columnNames;
+
+    private final Column[] columns;
+
+    private final int rowCount;
+
+    /**
+     * next row of the same key, NO_ROW at the end of the chain
+     */
+    private final int[] nextRows;
+
+    private final SideCacheKey[] slotKeys;
+
+    private final int[] slotHeads;
+
+    private final int keyCount;
+
+    private final Map<SideCacheKey, List<Map<String, Object>>> changedRows = Maps.newConcurrentMap();
+
+    private ColumnarAllCache(String[] columnNames, Column[] columns, int rowCount, int[] nextRows,
+                             SideCacheKey[] slotKeys, int[] slotHeads, int keyCount) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.nextRows = nextRows;
+        this.slotKeys = slotKeys;
+        this.slotHeads = slotHeads;
+        this.keyCount = keyCount;
+    }
+
+    public static Builder builder(String[] columnNames) {
+        return new Builder(columnNames);
+    }
+
+    public int getColumnIndex(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return ordinal of the first row of the key, -1 if the key is not loaded
+     */
+    public int firstRow(SideCacheKey key) {
+        int mask = slotKeys.length - 1;
+        for (int slot = spread(key.hashCode()) & mask; slotKeys[slot] != null; slot = (slot + 1) & mask) {
+            if (slotKeys[slot].equals(key)) {
+                return slotHeads[slot];
+            }
+        }
+        return NO_ROW;
+    }
+
+    /**
+     * @return ordinal of the next row with the same key as the given row, -1 if it is the last one
+     */
+    public int nextRow(int row) {
+        return nextRows[row];
+    }
+
+    public Object get(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    public Map<String, Object> getRow(int row) {
+        Map<String, Object> oneRow = Maps.newHashMapWithExpectedSize(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            oneRow.put(columnNames[i], columns[i].get(row));
+        }
+        return oneRow;
+    }
+
+    /**
+     * @return rows of the key replaced by an increment reload, null if the key is not changed
+     */
+    public List<Map<String, Object>> getChangedRows(SideCacheKey key) {
+        return changedRows.isEmpty() ? null : changedRows.get(key);
+    }
+
+    @Override
+    public void replaceRows(SideCacheKey key, List<Map<String, Object>> rows) {
+        changedRows.put(key, rows);
+    }
+
+    /**
+     * @return current rows of the key, changed rows first, empty if the key is not loaded
+     */
+    @Override
+    public List<Map<String, Object>> getRows(SideCacheKey key) {
+        List<Map<String, Object>> rows = getChangedRows(key);
+        if (rows != null) {
+            return rows;
+        }
+
+        int row = firstRow(key);
+        if (row == NO_ROW) {
+            return Collections.emptyList();
+        }
+        rows = Lists.newArrayList();
+        for (; row != NO_ROW; row = nextRows[row]) {
+            rows.add(getRow(row));
+        }
+        return rows;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    public static final class Builder implements AllSideCache.Builder {
+
+        private final String[] columnNames;
+
+        private final ColumnBuilder[] columnBuilders;
+
+        private int rowCount = 0;
+
+        private int[] nextRows = new int[16];
+
+        // key -> {head, tail}
+        private final Map<SideCacheKey, int[]> chains = Maps.newHashMap();
+
+        private Builder(String[] columnNames) {
+            this.columnNames = columnNames;
+            this.columnBuilders = new ColumnBuilder[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                columnBuilders[i] = new UntypedColumnBuilder();
+            }
+        }
+
+        @Override
+        public Builder addRow(SideCacheKey key, Object[] values) {
+            Preconditions.checkArgument(values.length == columnNames.length, "row size not match column size");
+            int row = rowCount++;
+            for (int i = 0; i < values.length; i++) {
+                columnBuilders[i] = columnBuilders[i].add(row, values[i]);
+            }
+
+            if (row == nextRows.length) {
+                nextRows = Arrays.copyOf(nextRows, row * 2);
+            }
+            nextRows[row] = NO_ROW;
+            int[] chain = chains.get(key);
+            if (chain == null) {
+                chains.put(key, new int[]{row, row});
+            } else {
+                nextRows[chain[1]] = row;
+                chain[1] = row;
+            }
+            return this;
+        }
+
+        @Override
+        public ColumnarAllCache build() {
+            Column[] columns = new Column[columnBuilders.length];
+            for (int i = 0; i < columnBuilders.length; i++) {
+                columns[i] = columnBuilders[i].build(rowCount);
+            }
+
+            int capacity = Integer.highestOneBit(Math.max(chains.size(), 1) * 2 - 1) << 1;
+            int mask = capacity - 1;
+            SideCacheKey[] slotKeys = new SideCacheKey[capacity];
+            int[] slotHeads = new int[capacity];
+            for (Map.Entry<SideCacheKey, int[]> entry : chains.entrySet()) {
+                int slot = spread(entry.getKey().hashCode()) & mask;
+                while (slotKeys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slotKeys[slot] = entry.getKey();
+                slotHeads[slot] = entry.getValue()[0];
+            }
+            return new ColumnarAllCache(columnNames, columns, rowCount, Arrays.copyOf(nextRows, rowCount),
+                    slotKeys, slotHeads, chains.size());
+        }
+    }
+
+    private interface Column {
+
+        Object get(int row);
+    }
+
+    /**
+     * column builders pick the storage from the type of the first non null value,
+     * a value of another type turns the column into a plain object column
+     */
+    private abstract static class ColumnBuilder {
+
+        abstract ColumnBuilder add(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract Column build(int rowCount);
+
+        ColumnBuilder toObjectColumn(int rowCount) {
+            ObjectColumnBuilder builder = new ObjectColumnBuilder();
+            for (int i = 0; i < rowCount; i++) {
+                builder.add(i, get(i));
+            }
+            return builder;
+        }
+    }
+
+    private static final class UntypedColumnBuilder extends ColumnBuilder {
+
+        private int nullCount = 0;
+
+        @Override
+        ColumnBuilder add(int row, Object value) {
+            if (value == null) {
+                nullCount++;
+                return this;
+            }
+
+            ColumnBuilder builder;
+            if (value instanceof Integer) {
+                builder = new IntColumnBuilder();
+            } else if (value instanceof Long) {
+                builder = new LongColumnBuilder();
+            } else if (value instanceof Double) {
+                builder = new DoubleColumnBuilder();
+            } else if (value instanceof Boolean) {
+                builder = new BooleanColumnBuilder();
+            } else if (value instanceof String) {
+                builder = new StringColumnBuilder();
+            } else {
+                builder = new ObjectColumnBuilder();
+            }
+            for (int i = 0; i < nullCount; i++) {
+                builder = builder.add(i, null);
+            }
+            return builder.add(row, value);
+        }
+
+        @Override
+        Object get(int row) {
+            return null;
+        }
+
+        @Override
+        Column build(int rowCount) {
+            return row -> null;
+        }
+    }
+
+    private abstract static class PrimitiveColumnBuilder extends ColumnBuilder {
+
+        final BitSet nulls = new BitSet();
+
+        int size = 0;
+
+        abstract boolean accept(Object value);
+
+        abstract void set(int row, Object value);
+
+        @Override
+        ColumnBuilder add(int row, Object value) {
+            if (value != null && !accept(value)) {
+                return toObjectColumn(size).add(row, value);
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                set(row, value);
+            }
+            size = row + 1;
+            return this;
+        }
+
+        static int grow(int length, int index) {
+            return Math.max(index + 1, length * 2);
+        }
+    }
+
+    private static final class IntColumnBuilder extends PrimitiveColumnBuilder {
+
+        private int[] values = new int[16];
+
+        @Override
+        boolean accept(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, PrimitiveColumnBuilder.grow(values.length, row));
+            }
+            values[row] = (Integer) value;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Column build(int rowCount) {
+            int[] data = Arrays.copyOf(values, rowCount);
+            return row -> nulls.get(row) ? null : data[row];
+        }
+    }
+
+    private static final class LongColumnBuilder extends PrimitiveColumnBuilder {
+
+        private long[] values = new long[16];
+
+        @Override
+        boolean accept(Object value) {
+            return value instanceof Long;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, PrimitiveColumnBuilder.grow(values.length, row));
+            }
+            values[row] = (Long) value;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Column build(int rowCount) {
+            long[] data = Arrays.copyOf(values, rowCount);
+            return row -> nulls.get(row) ? null : data[row];
+        }
+    }
+
+    private static final class DoubleColumnBuilder extends PrimitiveColumnBuilder {
+
+        private double[] values = new double[16];
+
+        @Override
+        boolean accept(Object value) {
+            return value instanceof Double;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, PrimitiveColumnBuilder.grow(values.length, row));
+            }
+            values[row] = (Double) value;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        Column build(int rowCount) {
+            double[] data = Arrays.copyOf(values, rowCount);
+            return row -> nulls.get(row) ? null : data[row];
+        }
+    }
+
+    private static final class BooleanColumnBuilder extends PrimitiveColumnBuilder {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        boolean accept(Object value) {
+            return value instanceof Boolean;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values.set(row, (Boolean) value);
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        Column build(int rowCount) {
+            return this::get;
+        }
+    }
+
+    private static final class StringColumnBuilder extends PrimitiveColumnBuilder {
+
+        private final Map<String, Integer> codes = Maps.newHashMap();
+
+        private String[] dictionary = new String[16];
+
+        private int[] values = new int[16];
+
+        @Override
+        boolean accept(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                codes.put((String) value, code);
+                if (code >= dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, PrimitiveColumnBuilder.grow(dictionary.length, code));
+                }
+                dictionary[code] = (String) value;
+            }
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, PrimitiveColumnBuilder.grow(values.length, row));
+            }
+            values[row] = code;
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : dictionary[values[row]];
+        }
+
+        @Override
+        Column build(int rowCount) {
+            String[] dict = Arrays.copyOf(dictionary, codes.size());
+            int[] data = Arrays.copyOf(values, rowCount);
+            return row -> nulls.get(row) ? null : dict[data[row]];
+        }
+    }
+
+    private static final class ObjectColumnBuilder extends ColumnBuilder {
+
+        private Object[] values = new Object[16];
+
+        @Override
+        ColumnBuilder add(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, PrimitiveColumnBuilder.grow(values.length, row));
+            }
+            values[row] = value;
+            return this;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        Column build(int rowCount) {
+            Object[] data = Arrays.copyOf(values, rowCount);
+            return row -> data[row];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.flink.table.dataformat.GenericRow;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * bloom filter of the join keys existing in side table, a key it does not contain is a definite miss.
+ * values are compared loosely (numbers by value, strings ignoring case and surrounding spaces)
+ * so that a type or collation difference between stream and database only adds false positives
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public class KeyBloomFilter {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01D;
+
+    private static final char VALUE_SEPARATOR = '\u0001';
+
+    private final BloomFilter<CharSequence> filter;
+
+    private long keyNum = 0;
+
+    public KeyBloomFilter(long expectedKeys) {
+        this.filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(1L, expectedKeys), FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * not thread safe, the filter is built by one thread before being published
+     */
+    public void put(Object[] keyValues) {
+        String filterKey = toFilterKey(keyValues);
+        if (filterKey != null) {
+            filter.put(filterKey);
+            keyNum++;
+        }
+    }
+
+    public boolean mightContain(GenericRow row, int[] keyIndexes) {
+        Object[] keyValues = new Object[keyIndexes.length];
+        for (int i = 0; i < keyIndexes.length; i++) {
+            keyValues[i] = row.getField(keyIndexes[i]);
+        }
+        String filterKey = toFilterKey(keyValues);
+        // null不会等值匹配到任何数据
+        return filterKey != null && filter.mightContain(filterKey);
+    }
+
+    public long getKeyNum() {
+        return keyNum;
+    }
+
+    /**
+     * @return null if any value is null
+     */
+    static String toFilterKey(Object[] keyValues) {
+        StringBuilder filterKey = new StringBuilder();
+        for (int i = 0; i < keyValues.length; i++) {
+            Object value = keyValues[i];
+            if (value == null) {
+                return null;
+            }
+            if (i > 0) {
+                filterKey.append(VALUE_SEPARATOR);
+            }
+            filterKey.append(normalize(value));
+        }
+        return filterKey.toString();
+    }
+
+    private static String normalize(Object value) {
+        String str = StringUtils.strip(value.toString(), " ");
+        if (!str.isEmpty() && (Character.isDigit(str.charAt(0)) || str.charAt(0) == '-' || str.charAt(0) == '.')) {
+            // 数值类型和数值字符串按值比较
+            try {
+                return new BigDecimal(str).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                // not a number
+            }
+        }
+        return str.toLowerCase(Locale.ROOT);
+    }
+}
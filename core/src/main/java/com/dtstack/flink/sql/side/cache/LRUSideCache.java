@@ -23,8 +23,12 @@ package com.dtstack.flink.sql.side.cache;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.collect.Maps;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Reason:
@@ -35,7 +39,9 @@ import java.util.concurrent.TimeUnit;
 
 public class LRUSideCache extends AbstractSideCache {
 
-    protected transient Cache<String, CacheObj> cache;
+    protected transient Cache<SideCacheKey, CacheObj> cache;
+
+    private transient AtomicLong weightedSize;
 
     public LRUSideCache(AbstractSideTableInfo sideTableInfo) {
         super(sideTableInfo);
@@ -44,14 +50,27 @@ public class LRUSideCache extends AbstractSideCache {
     @Override
     public void initCache() {
         //当前只有LRU
-        cache = CacheBuilder.newBuilder()
-                .maximumSize(sideTableInfo.getCacheSize())
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
                 .expireAfterWrite(sideTableInfo.getCacheTimeout(), TimeUnit.MILLISECONDS)
-                .build();
+                .recordStats();
+
+        if (sideTableInfo.getCacheMaxBytes() > 0) {
+            weightedSize = new AtomicLong(0);
+            cache = cacheBuilder
+                    .maximumWeight(sideTableInfo.getCacheMaxBytes())
+                    .weigher(SideCacheWeigher::weigh)
+                    .removalListener((RemovalListener<SideCacheKey, CacheObj>) notification ->
+                            weightedSize.addAndGet(-SideCacheWeigher.weigh(notification.getKey(), notification.getValue())))
+                    .build();
+        } else {
+            cache = cacheBuilder
+                    .maximumSize(sideTableInfo.getCacheSize())
+                    .build();
+        }
     }
 
     @Override
-    public CacheObj getFromCache(String key) {
+    public CacheObj getFromCache(SideCacheKey key) {
         if(cache == null){
             return null;
         }
@@ -60,11 +79,54 @@ public class LRUSideCache extends AbstractSideCache {
     }
 
     @Override
-    public void putCache(String key, CacheObj value) {
+    public void putCache(SideCacheKey key, CacheObj value) {
         if(cache == null){
             return;
         }
 
+        if (weightedSize != null) {
+            weightedSize.addAndGet(SideCacheWeigher.weigh(key, value));
+        }
         cache.put(key, value);
     }
+
+    @Override
+    public void invalidate(SideCacheKey key) {
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * guava cache does not expose the access order, any limit entries are taken
+     */
+    @Override
+    public Map<SideCacheKey, CacheObj> hottest(int limit) {
+        Map<SideCacheKey, CacheObj> entries = Maps.newLinkedHashMap();
+        if (cache == null) {
+            return entries;
+        }
+        for (Map.Entry<SideCacheKey, CacheObj> entry : cache.asMap().entrySet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        return entries;
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return weightedSize == null ? -1L : weightedSize.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache == null ? 0L : cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize() {
+        return cache == null ? 0L : cache.size();
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.enums.ECacheContentType;
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keeps the keys not found in side table apart from the cached rows, with their own ttl and size,
+ * so that a stream with many unknown keys does not evict the cached rows
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public class MissKeySideCache extends AbstractSideCache {
+
+    private final AbstractSideCache rowCache;
+
+    private transient Cache<SideCacheKey, CacheObj> missCache;
+
+    public MissKeySideCache(AbstractSideTableInfo sideTableInfo, AbstractSideCache rowCache) {
+        super(sideTableInfo);
+        this.rowCache = rowCache;
+    }
+
+    @Override
+    public void initCache() {
+        rowCache.initCache();
+        missCache = Caffeine.newBuilder()
+                .expireAfterWrite(sideTableInfo.getCacheMissTTLMs(), TimeUnit.MILLISECONDS)
+                .maximumSize(sideTableInfo.getCacheMissSize())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public CacheObj getFromCache(SideCacheKey key) {
+        CacheObj value = rowCache.getFromCache(key);
+        if (value != null || missCache == null) {
+            return value;
+        }
+        return missCache.getIfPresent(key);
+    }
+
+    @Override
+    public void putCache(SideCacheKey key, CacheObj value) {
+        if (missCache == null) {
+            return;
+        }
+
+        if (value.getType() == ECacheContentType.MissVal) {
+            // 刷新时发现key已经被删除
+            rowCache.invalidate(key);
+            missCache.put(key, value);
+        } else {
+            missCache.invalidate(key);
+            rowCache.putCache(key, value);
+        }
+    }
+
+    @Override
+    public void invalidate(SideCacheKey key) {
+        rowCache.invalidate(key);
+        if (missCache != null) {
+            missCache.invalidate(key);
+        }
+    }
+
+    /**
+     * only the cached rows, the missing keys are cheap to look up again
+     */
+    @Override
+    public Map<SideCacheKey, CacheObj> hottest(int limit) {
+        return rowCache.hottest(limit);
+    }
+
+    @Override
+    public boolean tryStartRefresh(SideCacheKey key) {
+        return rowCache.tryStartRefresh(key);
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return rowCache.getWeightedSize();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return rowCache.getEvictionCount() + (missCache == null ? 0L : missCache.stats().evictionCount());
+    }
+
+    @Override
+    public long getSize() {
+        return rowCache.getSize() + (missCache == null ? 0L : missCache.estimatedSize());
+    }
+
+    public long getMissKeySize() {
+        return missCache == null ? 0L : missCache.estimatedSize();
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.side.RangeJoinCondition;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.table.dataformat.GenericRow;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ALL side cache for range joins like a.ip BETWEEN s.start_ip AND s.end_ip.
+ * The rows of an equal key are indexed on the bounds of the first stream field having range conditions:
+ * rows are sorted by the lower bound and the prefix max of the upper bound is kept, so the rows covering a value
+ * are found by a binary search and a backward scan which stops once no earlier range can reach the value.
+ * Non-overlapping ranges are found in O(log n). Other range conditions are checked on the found rows.
+ * A null bound is unbounded.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public final class RangeAllSideCache implements AllSideCache {
+
+    private static final int NO_CONDITION = -1;
+
+    private final String[] columnNames;
+
+    private final RangeJoinCondition[] conditions;
+
+    private final int[] conditionColumns;
+
+    private final int lowerCondition;
+
+    private final int upperCondition;
+
+    private final int[] residualConditions;
+
+    private final Map<SideCacheKey, RangeIndex> indexByKey;
+
+    private volatile long rowCount;
+
+    private RangeAllSideCache(Builder builder, Map<SideCacheKey, RangeIndex> indexByKey, long rowCount) {
+        this.columnNames = builder.columnNames;
+        this.conditions = builder.conditions;
+        this.conditionColumns = builder.conditionColumns;
+        this.lowerCondition = builder.lowerCondition;
+        this.upperCondition = builder.upperCondition;
+        this.residualConditions = builder.residualConditions;
+        this.indexByKey = indexByKey;
+        this.rowCount = rowCount;
+    }
+
+    public static Builder builder(String[] columnNames, List<RangeJoinCondition> conditions) {
+        return new Builder(columnNames, conditions);
+    }
+
+    /**
+     * @param input stream row, the range conditions read its fields
+     * @return rows of the key matching all range conditions
+     */
+    public List<Map<String, Object>> getRows(SideCacheKey key, GenericRow input) {
+        RangeIndex index = indexByKey.get(key);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        int primary = lowerCondition != NO_CONDITION ? lowerCondition : upperCondition;
+        Comparable<?> value = normalize(input.getField(conditions[primary].getStreamIndex()));
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        List<Map<String, Object>> rows = Lists.newArrayList();
+        if (lowerCondition == NO_CONDITION) {
+            for (int i = index.firstCovering(value, conditions[upperCondition]); i < index.rows.length; i++) {
+                addIfMatch(index.rows[i], input, rows);
+            }
+            return rows;
+        }
+
+        RangeJoinCondition upper = upperCondition == NO_CONDITION ? null : conditions[upperCondition];
+        for (int i = index.lastCovering(value, conditions[lowerCondition]); i >= 0; i--) {
+            if (upper != null) {
+                if (!satisfy(index.maxUppers[i], value, upper)) {
+                    break;
+                }
+                if (!satisfy(index.uppers[i], value, upper)) {
+                    continue;
+                }
+            }
+            addIfMatch(index.rows[i], input, rows);
+        }
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    private void addIfMatch(Object[] row, GenericRow input, List<Map<String, Object>> rows) {
+        for (int condition : residualConditions) {
+            Comparable<?> value = normalize(input.getField(conditions[condition].getStreamIndex()));
+            if (value == null || !satisfy(normalize(row[conditionColumns[condition]]), value, conditions[condition])) {
+                return;
+            }
+        }
+        rows.add(toMap(row));
+    }
+
+    /**
+     * @return all rows of the key
+     */
+    @Override
+    public List<Map<String, Object>> getRows(SideCacheKey key) {
+        RangeIndex index = indexByKey.get(key);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        List<Map<String, Object>> rows = Lists.newArrayListWithCapacity(index.rows.length);
+        for (Object[] row : index.rows) {
+            rows.add(toMap(row));
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized void replaceRows(SideCacheKey key, List<Map<String, Object>> rows) {
+        List<Object[]> values = Lists.newArrayListWithCapacity(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object[] oneRow = new Object[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                oneRow[i] = row.get(columnNames[i]);
+            }
+            values.add(oneRow);
+        }
+
+        RangeIndex newIndex = values.isEmpty() ? null : buildIndex(values);
+        RangeIndex oldIndex = newIndex == null ? indexByKey.remove(key) : indexByKey.put(key, newIndex);
+        rowCount += (newIndex == null ? 0 : newIndex.rows.length) - (oldIndex == null ? 0 : oldIndex.rows.length);
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> oneRow = Maps.newHashMapWithExpectedSize(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            oneRow.put(columnNames[i], row[i]);
+        }
+        return oneRow;
+    }
+
+    private RangeIndex buildIndex(List<Object[]> rows) {
+        return buildIndex(rows, lowerCondition == NO_CONDITION ? NO_CONDITION : conditionColumns[lowerCondition],
+                upperCondition == NO_CONDITION ? NO_CONDITION : conditionColumns[upperCondition]);
+    }
+
+    private static RangeIndex buildIndex(List<Object[]> rows, int lowerColumn, int upperColumn) {
+        int size = rows.size();
+        Comparable<?>[] rowLowers = new Comparable<?>[size];
+        Comparable<?>[] rowUppers = new Comparable<?>[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            rowLowers[i] = lowerColumn == NO_CONDITION ? null : normalize(rows.get(i)[lowerColumn]);
+            rowUppers[i] = upperColumn == NO_CONDITION ? null : normalize(rows.get(i)[upperColumn]);
+            order[i] = i;
+        }
+        // 有下界时按下界排序, null在前; 只有上界时按上界排序, null在后
+        if (lowerColumn != NO_CONDITION) {
+            Arrays.sort(order, Comparator.comparing((Integer i) -> rowLowers[i], Comparator.<Comparable<?>>nullsFirst(RangeAllSideCache::compare)));
+        } else {
+            Arrays.sort(order, Comparator.comparing((Integer i) -> rowUppers[i], Comparator.<Comparable<?>>nullsLast(RangeAllSideCache::compare)));
+        }
+
+        Object[][] sortedRows = new Object[size][];
+        Comparable<?>[] lowers = new Comparable<?>[size];
+        Comparable<?>[] uppers = new Comparable<?>[size];
+        Comparable<?>[] maxUppers = new Comparable<?>[size];
+        for (int i = 0; i < size; i++) {
+            sortedRows[i] = rows.get(order[i]);
+            lowers[i] = rowLowers[order[i]];
+            uppers[i] = rowUppers[order[i]];
+            if (i == 0) {
+                maxUppers[i] = uppers[i];
+            } else {
+                // null上界表示无上界, 前缀最大值也无上界
+                boolean unbounded = maxUppers[i - 1] == null || uppers[i] == null;
+                maxUppers[i] = unbounded ? null : (compare(uppers[i], maxUppers[i - 1]) > 0 ? uppers[i] : maxUppers[i - 1]);
+            }
+        }
+        return new RangeIndex(sortedRows, lowers, uppers, maxUppers);
+    }
+
+    /**
+     * @return whether the bound of the side row satisfies the condition with the stream value, null bound is unbounded
+     */
+    private static boolean satisfy(Comparable<?> bound, Comparable<?> value, RangeJoinCondition condition) {
+        if (bound == null) {
+            return true;
+        }
+        int result = compare(bound, value);
+        if (condition.isLowerBound()) {
+            return condition.isInclusive() ? result <= 0 : result < 0;
+        }
+        return condition.isInclusive() ? result >= 0 : result > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Comparable<?> left, Comparable<?> right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    /**
+     * numbers and times of different types are compared as decimals, times by epoch millis
+     */
+    static Comparable<?> normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        if (value instanceof Date || value instanceof LocalDateTime || value instanceof LocalDate) {
+            return BigDecimal.valueOf(TemporalAllSideCache.toMillis(value));
+        }
+        Preconditions.checkArgument(value instanceof Comparable, "range join value is not comparable: %s", value.getClass().getName());
+        return (Comparable<?>) value;
+    }
+
+    private static final class RangeIndex {
+
+        private final Object[][] rows;
+
+        private final Comparable<?>[] lowers;
+
+        private final Comparable<?>[] uppers;
+
+        private final Comparable<?>[] maxUppers;
+
+        private RangeIndex(Object[][] rows, Comparable<?>[] lowers, Comparable<?>[] uppers, Comparable<?>[] maxUppers) {
+            this.rows = rows;
+            this.lowers = lowers;
+            this.uppers = uppers;
+            this.maxUppers = maxUppers;
+        }
+
+        /**
+         * @return index of the last row whose lower bound covers the value, -1 if none
+         */
+        private int lastCovering(Comparable<?> value, RangeJoinCondition lower) {
+            int low = 0;
+            int high = lowers.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (satisfy(lowers[mid], value, lower)) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * @return index of the first row whose upper bound covers the value, rows.length if none
+         */
+        private int firstCovering(Comparable<?> value, RangeJoinCondition upper) {
+            int low = 0;
+            int high = uppers.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (satisfy(uppers[mid], value, upper)) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    public static final class Builder implements AllSideCache.Builder {
+
+        private final String[] columnNames;
+
+        private final RangeJoinCondition[] conditions;
+
+        private final int[] conditionColumns;
+
+        private int lowerCondition = NO_CONDITION;
+
+        private int upperCondition = NO_CONDITION;
+
+        private final int[] residualConditions;
+
+        private final Map<SideCacheKey, List<Object[]>> rowsByKey = Maps.newHashMap();
+
+        private Builder(String[] columnNames, List<RangeJoinCondition> conditions) {
+            Preconditions.checkArgument(!conditions.isEmpty(), "range join need at least one range condition");
+            List<String> names = Arrays.asList(columnNames);
+            this.columnNames = columnNames;
+            this.conditions = conditions.toArray(new RangeJoinCondition[0]);
+            this.conditionColumns = new int[conditions.size()];
+            for (int i = 0; i < conditions.size(); i++) {
+                conditionColumns[i] = names.indexOf(conditions.get(i).getSideField());
+                Preconditions.checkArgument(conditionColumns[i] >= 0, "range column %s is not loaded", conditions.get(i).getSideField());
+            }
+
+            // 按第一个范围条件的流表字段建索引, 取该字段的第一个下界和第一个上界
+            int streamIndex = conditions.get(0).getStreamIndex();
+            List<Integer> residual = Lists.newArrayList();
+            for (int i = 0; i < conditions.size(); i++) {
+                RangeJoinCondition condition = conditions.get(i);
+                if (condition.getStreamIndex() == streamIndex && condition.isLowerBound() && lowerCondition == NO_CONDITION) {
+                    lowerCondition = i;
+                } else if (condition.getStreamIndex() == streamIndex && !condition.isLowerBound() && upperCondition == NO_CONDITION) {
+                    upperCondition = i;
+                } else {
+                    residual.add(i);
+                }
+            }
+            this.residualConditions = residual.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public Builder addRow(SideCacheKey key, Object[] values) {
+            Preconditions.checkArgument(values.length == columnNames.length, "row size not match column size");
+            rowsByKey.computeIfAbsent(key, k -> Lists.newArrayListWithCapacity(1)).add(values);
+            return this;
+        }
+
+        @Override
+        public RangeAllSideCache build() {
+            int lowerColumn = lowerCondition == NO_CONDITION ? NO_CONDITION : conditionColumns[lowerCondition];
+            int upperColumn = upperCondition == NO_CONDITION ? NO_CONDITION : conditionColumns[upperCondition];
+            Map<SideCacheKey, RangeIndex> indexByKey = Maps.newConcurrentMap();
+            long rowCount = 0;
+            for (Map.Entry<SideCacheKey, List<Object[]>> entry : rowsByKey.entrySet()) {
+                RangeIndex index = buildIndex(entry.getValue(), lowerColumn, upperColumn);
+                indexByKey.put(entry.getKey(), index);
+                rowCount += index.rows.length;
+            }
+            rowsByKey.clear();
+            return new RangeAllSideCache(this, indexByKey, rowCount);
+        }
+    }
+}
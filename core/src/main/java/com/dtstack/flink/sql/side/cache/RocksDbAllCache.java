@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.util.FileUtils;
+import org.apache.flink.util.InstantiationUtil;
+import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ALL side cache kept in a local rocksdb instance on the TaskManager disk, for dimension tables larger than the heap.
+ * Every row is stored under the binary join key followed by a load sequence, so the rows of a key are
+ * read by one prefix seek. The instance is written without WAL while loading, compacted once, and
+ * deleted when the cache is closed after a reload swapped in a new one.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public final class RocksDbAllCache implements AllSideCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RocksDbAllCache.class);
+
+    private static final int WRITE_BATCH_ROWS = 1000;
+
+    private static final long WRITE_BUFFER_SIZE = 64 * 1024 * 1024L;
+
+    private static final int SEQUENCE_BYTES = Long.BYTES;
+
+    private static final int NULL_TYPE = 0;
+    private static final int INT_TYPE = 1;
+    private static final int LONG_TYPE = 2;
+    private static final int STRING_TYPE = 3;
+    private static final int DOUBLE_TYPE = 4;
+    private static final int FLOAT_TYPE = 5;
+    private static final int BOOLEAN_TYPE = 6;
+    private static final int DECIMAL_TYPE = 7;
+    private static final int TIMESTAMP_TYPE = 8;
+    private static final int DATE_TYPE = 9;
+    private static final int TIME_TYPE = 10;
+    private static final int SHORT_TYPE = 11;
+    private static final int BYTE_TYPE = 12;
+    private static final int BYTES_TYPE = 13;
+    private static final int SERIALIZED_TYPE = 14;
+
+    private final String[] columnNames;
+
+    private final File dbPath;
+
+    private final Options options;
+
+    private final RocksDB db;
+
+    private final ReadOptions readOptions = new ReadOptions();
+
+    private final WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+
+    // 读写锁只用来保证关闭后不再访问rocksdb, 读写rocksdb本身是线程安全的
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile long rowCount;
+
+    private long nextSequence;
+
+    private boolean closed = false;
+
+    private RocksDbAllCache(String[] columnNames, File dbPath, Options options, RocksDB db, long rowCount) {
+        this.columnNames = columnNames;
+        this.dbPath = dbPath;
+        this.options = options;
+        this.db = db;
+        this.rowCount = rowCount;
+        this.nextSequence = rowCount;
+    }
+
+    /**
+     * @param localDir parent directory of the rocksdb instance, a sub directory is created for every load
+     */
+    public static Builder builder(String[] columnNames, String localDir) {
+        return new Builder(columnNames, localDir);
+    }
+
+    @Override
+    public List<Map<String, Object>> getRows(SideCacheKey key) {
+        byte[] prefix = key.toBytes();
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+
+            List<Map<String, Object>> rows = Lists.newArrayList();
+            try (RocksIterator iterator = db.newIterator(readOptions)) {
+                for (iterator.seek(prefix); iterator.isValid() && isRowOf(prefix, iterator.key()); iterator.next()) {
+                    rows.add(decodeRow(columnNames, iterator.value()));
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void replaceRows(SideCacheKey key, List<Map<String, Object>> rows) {
+        byte[] prefix = key.toBytes();
+        lock.readLock().lock();
+        try (WriteBatch batch = new WriteBatch()) {
+            if (closed) {
+                return;
+            }
+
+            long removed = 0;
+            try (RocksIterator iterator = db.newIterator(readOptions)) {
+                for (iterator.seek(prefix); iterator.isValid() && isRowOf(prefix, iterator.key()); iterator.next()) {
+                    batch.delete(iterator.key());
+                    removed++;
+                }
+            }
+            for (Map<String, Object> row : rows) {
+                Object[] values = new Object[columnNames.length];
+                for (int i = 0; i < columnNames.length; i++) {
+                    values[i] = row.get(columnNames[i]);
+                }
+                batch.put(rowKey(prefix, nextSequence++), encodeRow(values));
+            }
+            db.write(writeOptions, batch);
+            rowCount += rows.size() - removed;
+        } catch (RocksDBException e) {
+            throw new RuntimeException("replace rows of key " + key + " in " + dbPath + " fail", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            readOptions.close();
+            writeOptions.close();
+            db.close();
+            options.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        FileUtils.deleteDirectoryQuietly(dbPath);
+        LOG.info("rocksdb side cache {} closed", dbPath);
+    }
+
+    private static boolean isRowOf(byte[] prefix, byte[] rowKey) {
+        if (rowKey.length != prefix.length + SEQUENCE_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] != rowKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] rowKey(byte[] prefix, long sequence) {
+        return ByteBuffer.allocate(prefix.length + SEQUENCE_BYTES)
+                .put(prefix)
+                .putLong(sequence)
+                .array();
+    }
+
+    private static Options createOptions() {
+        return new Options()
+                .setCreateIfMissing(true)
+                .setWriteBufferSize(WRITE_BUFFER_SIZE)
+                .setMaxOpenFiles(-1);
+    }
+
+    public static final class Builder implements AllSideCache.Builder {
+
+        private final String[] columnNames;
+
+        private final File dbPath;
+
+        private final Options options;
+
+        private final RocksDB db;
+
+        private final WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+
+        private WriteBatch batch = new WriteBatch();
+
+        private long rowCount = 0;
+
+        private Builder(String[] columnNames, String localDir) {
+            RocksDB.loadLibrary();
+            this.columnNames = columnNames;
+            this.dbPath = new File(localDir, "side-all-cache-" + UUID.randomUUID());
+            this.options = createOptions();
+            try {
+                this.db = RocksDB.open(options, dbPath.getAbsolutePath());
+            } catch (RocksDBException e) {
+                writeOptions.close();
+                batch.close();
+                options.close();
+                throw new RuntimeException("open rocksdb side cache in " + dbPath + " fail", e);
+            }
+        }
+
+        @Override
+        public Builder addRow(SideCacheKey key, Object[] values) {
+            batch.put(rowKey(key.toBytes(), rowCount++), encodeRow(values));
+            if (rowCount % WRITE_BATCH_ROWS == 0) {
+                flush();
+            }
+            return this;
+        }
+
+        @Override
+        public RocksDbAllCache build() {
+            flush();
+            try {
+                // 加载期间只写不读, 结束后整理成有序的sst文件再提供查询
+                db.compactRange();
+            } catch (RocksDBException e) {
+                abort();
+                throw new RuntimeException("compact rocksdb side cache in " + dbPath + " fail", e);
+            }
+            batch.close();
+            writeOptions.close();
+            LOG.info("rocksdb side cache {} loaded, rows:{}", dbPath, rowCount);
+            return new RocksDbAllCache(columnNames, dbPath, options, db, rowCount);
+        }
+
+        @Override
+        public void abort() {
+            batch.close();
+            writeOptions.close();
+            db.close();
+            options.close();
+            FileUtils.deleteDirectoryQuietly(dbPath);
+        }
+
+        private void flush() {
+            try {
+                db.write(writeOptions, batch);
+            } catch (RocksDBException e) {
+                throw new RuntimeException("write rocksdb side cache in " + dbPath + " fail", e);
+            }
+            batch.close();
+            batch = new WriteBatch();
+        }
+    }
+
+    /**
+     * values are written by position with a one byte type tag, the column names are kept by the cache
+     */
+    static byte[] encodeRow(Object[] values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(values.length * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<String, Object> decodeRow(String[] columnNames, byte[] bytes) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        Map<String, Object> row = Maps.newHashMapWithExpectedSize(columnNames.length);
+        try {
+            for (String columnName : columnNames) {
+                row.put(columnName, readValue(in));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return row;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_TYPE);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT_TYPE);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG_TYPE);
+            out.writeLong((Long) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING_TYPE);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE_TYPE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT_TYPE);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN_TYPE);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(DECIMAL_TYPE);
+            out.writeInt(((BigDecimal) value).scale());
+            writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP_TYPE);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE_TYPE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME_TYPE);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT_TYPE);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE_TYPE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES_TYPE);
+            writeBytes(out, (byte[]) value);
+        } else {
+            out.writeByte(SERIALIZED_TYPE);
+            writeBytes(out, InstantiationUtil.serializeObject(value));
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        int type = in.readByte();
+        switch (type) {
+            case NULL_TYPE:
+                return null;
+            case INT_TYPE:
+                return in.readInt();
+            case LONG_TYPE:
+                return in.readLong();
+            case STRING_TYPE:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case DOUBLE_TYPE:
+                return in.readDouble();
+            case FLOAT_TYPE:
+                return in.readFloat();
+            case BOOLEAN_TYPE:
+                return in.readBoolean();
+            case DECIMAL_TYPE:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case TIMESTAMP_TYPE:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case DATE_TYPE:
+                return new Date(in.readLong());
+            case TIME_TYPE:
+                return new Time(in.readLong());
+            case SHORT_TYPE:
+                return in.readShort();
+            case BYTE_TYPE:
+                return in.readByte();
+            case BYTES_TYPE:
+                return readBytes(in);
+            case SERIALIZED_TYPE:
+                return InstantiationUtil.deserializeObject(readBytes(in), Thread.currentThread().getContextClassLoader());
+            default:
+                throw new IOException("unknown value type " + type + " in rocksdb side cache");
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import org.apache.flink.table.dataformat.Decimal;
+import org.apache.flink.table.dataformat.GenericRow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Immutable key of side caches, replaces the join of key values with "_" which collides
+ * when a value contains "_" (("a_b", "c") and ("a", "b_c")).
+ * Integral values of any width are compared as long, so that an int join field matches a bigint side column,
+ * other values are compared by their string form as before. Integral decimals (oracle NUMBER, bigint unsigned)
+ * and strings in the form of a long ("5" but not "05") are also compared as long, so values of different types
+ * match whenever their string forms did.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public abstract class SideCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int NULL_TAG = 0;
+    private static final int LONG_TAG = 1;
+    private static final int STRING_TAG = 2;
+    private static final int COMPOSITE_TAG = 3;
+    private static final int MAX_LONG_DIGITS = 19;
+
+    public static SideCacheKey of(Object value) {
+        Object normalized = normalize(value);
+        if (normalized instanceof Long) {
+            return new LongKey((Long) normalized);
+        }
+        return new ObjectKey(normalized);
+    }
+
+    public static SideCacheKey of(Collection<?> values) {
+        if (values.size() == 1) {
+            return of(values.iterator().next());
+        }
+
+        Object[] normalized = new Object[values.size()];
+        Iterator<?> iterator = values.iterator();
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = normalize(iterator.next());
+        }
+        return new CompositeKey(normalized);
+    }
+
+    public static SideCacheKey of(Map<String, Object> row, List<String> fields) {
+        if (fields.size() == 1) {
+            return of(row.get(fields.get(0)));
+        }
+
+        Object[] normalized = new Object[fields.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = normalize(row.get(fields.get(i)));
+        }
+        return new CompositeKey(normalized);
+    }
+
+    /**
+     * key of the given fields of a stream row, equal to {@link #of(Collection)} of the same values
+     */
+    public static SideCacheKey of(GenericRow row, int[] fieldIndexes) {
+        if (fieldIndexes.length == 1) {
+            return of(row.getField(fieldIndexes[0]));
+        }
+
+        Object[] normalized = new Object[fieldIndexes.length];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = normalize(row.getField(fieldIndexes[i]));
+        }
+        return new CompositeKey(normalized);
+    }
+
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof Long) {
+            return value;
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Decimal) {
+            return normalizeDecimal(((Decimal) value).toBigDecimal());
+        } else if (value instanceof BigDecimal) {
+            return normalizeDecimal((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            return integer.bitLength() < Long.SIZE ? (Object) integer.longValue() : integer.toString();
+        }
+        return normalizeString(String.valueOf(value));
+    }
+
+    private static Object normalizeDecimal(BigDecimal decimal) {
+        if (decimal.signum() == 0) {
+            return 0L;
+        }
+        BigDecimal stripped = decimal.stripTrailingZeros();
+        if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= MAX_LONG_DIGITS) {
+            try {
+                return stripped.longValueExact();
+            } catch (ArithmeticException e) {
+                // 超出long范围
+            }
+        }
+        return decimal.toString();
+    }
+
+    /**
+     * a string which is the string form of a long is taken as the long
+     */
+    private static Object normalizeString(String value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > MAX_LONG_DIGITS) {
+            return value;
+        }
+        if (value.charAt(start) == '0' && (length - start > 1 || start == 1)) {
+            return value;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return value;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * rough heap bytes of the key
+     */
+    public abstract long estimatedSize();
+
+    /**
+     * self delimiting binary form of the key, used by off heap caches. No key is a prefix of another one
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try {
+            write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    abstract void write(DataOutput out) throws IOException;
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_TAG);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG_TAG);
+            out.writeLong((Long) value);
+        } else {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING_TAG);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static final class LongKey extends SideCacheKey {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long value;
+
+        LongKey(long value) {
+            this.value = value;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        @Override
+        public long estimatedSize() {
+            return 24;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            writeValue(out, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof LongKey && ((LongKey) o).value == value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static final class ObjectKey extends SideCacheKey {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object value;
+
+        private final int hash;
+
+        ObjectKey(Object value) {
+            this.value = value;
+            this.hash = Objects.hashCode(value);
+        }
+
+        @Override
+        public long estimatedSize() {
+            return 24 + SideCacheWeigher.sizeOf(value);
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            writeValue(out, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ObjectKey)) {
+                return false;
+            }
+            ObjectKey that = (ObjectKey) o;
+            return hash == that.hash && Objects.equals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static final class CompositeKey extends SideCacheKey {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] values;
+
+        private final int hash;
+
+        CompositeKey(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public long estimatedSize() {
+            return 24 + SideCacheWeigher.sizeOf(values);
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(COMPOSITE_TAG);
+            out.writeInt(values.length);
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CompositeKey)) {
+                return false;
+            }
+            CompositeKey that = (CompositeKey) o;
+            return hash == that.hash && Arrays.equals(values, that.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "(", ")");
+            for (Object value : values) {
+                joiner.add(String.valueOf(value));
+            }
+            return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flink.sql.side.cache;
+
+import org.apache.flink.table.dataformat.BinaryString;
+import org.apache.flink.table.dataformat.GenericRow;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Estimate the heap bytes of a side cache entry, used to bound the cache by memory instead of entry count.
+ * The numbers are rough sizes on a 64 bit jvm with compressed oops, good enough to keep a cache under budget.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public class SideCacheWeigher {
+
+    private static final int OBJECT_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    private static final int CACHE_ENTRY_OVERHEAD = 64;
+
+    private static final int DEFAULT_OBJECT_SIZE = 32;
+
+    public static int weigh(SideCacheKey key, CacheObj value) {
+        long size = CACHE_ENTRY_OVERHEAD + (key == null ? 0 : key.estimatedSize());
+        if (value != null) {
+            size += OBJECT_HEADER + 2 * REFERENCE + sizeOf(value.getContent());
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    public static long sizeOf(Object obj) {
+        if (obj == null) {
+            return 0;
+        } else if (obj instanceof String) {
+            return 24 + OBJECT_HEADER + 2L * ((String) obj).length();
+        } else if (obj instanceof BinaryString) {
+            return 48 + ((BinaryString) obj).getSizeInBytes();
+        } else if (obj instanceof Long || obj instanceof Double) {
+            return 24;
+        } else if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) {
+            if (obj instanceof BigDecimal || obj instanceof BigInteger) {
+                return 64;
+            }
+            return 16;
+        } else if (obj instanceof byte[]) {
+            return OBJECT_HEADER + ((byte[]) obj).length;
+        } else if (obj instanceof Object[]) {
+            long size = OBJECT_HEADER;
+            for (Object one : (Object[]) obj) {
+                size += REFERENCE + sizeOf(one);
+            }
+            return size;
+        } else if (obj instanceof GenericRow) {
+            GenericRow row = (GenericRow) obj;
+            long size = 2 * OBJECT_HEADER;
+            for (int i = 0; i < row.getArity(); i++) {
+                size += REFERENCE + sizeOf(row.getField(i));
+            }
+            return size;
+        } else if (obj instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                size += sizeOf(entry);
+            }
+            return size;
+        } else if (obj instanceof Map.Entry) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            return 32 + sizeOf(entry.getKey()) + sizeOf(entry.getValue());
+        } else if (obj instanceof Iterable) {
+            // rdb rows are vertx JsonArray, which is an Iterable over the column values
+            long size = 40;
+            for (Object one : (Iterable<?>) obj) {
+                size += REFERENCE + sizeOf(one);
+            }
+            return size;
+        }
+
+        return DEFAULT_OBJECT_SIZE;
+    }
+}
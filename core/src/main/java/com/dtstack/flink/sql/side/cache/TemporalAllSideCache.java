@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.table.dataformat.SqlTimestamp;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ALL side cache keeping the versions of every key for event time temporal joins.
+ * The versions of a key are sorted by the valid-from column, so the version valid at a time is found
+ * by a binary search. Without a valid-to column a version is valid until the next one starts,
+ * a null valid-from means valid since ever. Only the latest maxVersions versions of a key are kept.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public final class TemporalAllSideCache implements AllSideCache {
+
+    private static final int NO_COLUMN = -1;
+
+    private final String[] columnNames;
+
+    private final int startColumn;
+
+    private final int endColumn;
+
+    private final int maxVersions;
+
+    private final Map<SideCacheKey, Versions> versionsByKey;
+
+    private volatile long rowCount;
+
+    private TemporalAllSideCache(Builder builder, Map<SideCacheKey, Versions> versionsByKey, long rowCount) {
+        this.columnNames = builder.columnNames;
+        this.startColumn = builder.startColumn;
+        this.endColumn = builder.endColumn;
+        this.maxVersions = builder.maxVersions;
+        this.versionsByKey = versionsByKey;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @param endColumnName valid-to column, null if a version is valid until the next one
+     */
+    public static Builder builder(String[] columnNames, String startColumnName, String endColumnName, int maxVersions) {
+        return new Builder(columnNames, startColumnName, endColumnName, maxVersions);
+    }
+
+    /**
+     * @return the version of the key valid at the time, null if there is none
+     */
+    public Map<String, Object> getVersion(SideCacheKey key, long time) {
+        Versions versions = versionsByKey.get(key);
+        if (versions == null) {
+            return null;
+        }
+
+        int index = versions.indexAt(time);
+        return index < 0 ? null : toMap(versions.rows[index]);
+    }
+
+    /**
+     * @return all kept versions of the key ordered by valid-from
+     */
+    @Override
+    public List<Map<String, Object>> getRows(SideCacheKey key) {
+        Versions versions = versionsByKey.get(key);
+        if (versions == null) {
+            return Collections.emptyList();
+        }
+
+        List<Map<String, Object>> rows = Lists.newArrayListWithCapacity(versions.rows.length);
+        for (Object[] row : versions.rows) {
+            rows.add(toMap(row));
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized void replaceRows(SideCacheKey key, List<Map<String, Object>> rows) {
+        List<Object[]> values = Lists.newArrayListWithCapacity(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object[] oneRow = new Object[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                oneRow[i] = row.get(columnNames[i]);
+            }
+            values.add(oneRow);
+        }
+
+        Versions newVersions = values.isEmpty() ? null : buildVersions(values, startColumn, endColumn, maxVersions);
+        Versions oldVersions = newVersions == null ? versionsByKey.remove(key) : versionsByKey.put(key, newVersions);
+        rowCount += (newVersions == null ? 0 : newVersions.rows.length) - (oldVersions == null ? 0 : oldVersions.rows.length);
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> oneRow = Maps.newHashMapWithExpectedSize(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            oneRow.put(columnNames[i], row[i]);
+        }
+        return oneRow;
+    }
+
+    private static Versions buildVersions(List<Object[]> rows, int startColumn, int endColumn, int maxVersions) {
+        long[] rowStarts = new long[rows.size()];
+        Integer[] order = new Integer[rows.size()];
+        for (int i = 0; i < rowStarts.length; i++) {
+            Long start = toMillis(rows.get(i)[startColumn]);
+            rowStarts[i] = start == null ? Long.MIN_VALUE : start;
+            order[i] = i;
+        }
+        // 稳定排序, valid-from相同时后加载的版本在后面, 查询时生效
+        Arrays.sort(order, Comparator.comparingLong(i -> rowStarts[i]));
+
+        int size = Math.min(order.length, maxVersions);
+        int offset = order.length - size;
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        Object[][] versionRows = new Object[size][];
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(order[offset + i]);
+            starts[i] = rowStarts[order[offset + i]];
+            Long end = endColumn == NO_COLUMN ? null : toMillis(row[endColumn]);
+            ends[i] = end == null ? Long.MAX_VALUE : end;
+            versionRows[i] = row;
+        }
+        return new Versions(starts, ends, versionRows);
+    }
+
+    /**
+     * @return epoch millis of a time value, null for null
+     */
+    public static Long toMillis(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof SqlTimestamp) {
+            // 流表数据中的时间字段
+            return ((SqlTimestamp) value).toTimestamp().getTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value).getTime();
+        }
+        if (value instanceof LocalDate) {
+            return java.sql.Date.valueOf((LocalDate) value).getTime();
+        }
+        if (value instanceof String) {
+            return Timestamp.valueOf((String) value).getTime();
+        }
+        throw new IllegalArgumentException("not a time value: " + value.getClass().getName());
+    }
+
+    private static final class Versions {
+
+        private final long[] starts;
+
+        private final long[] ends;
+
+        private final Object[][] rows;
+
+        private Versions(long[] starts, long[] ends, Object[][] rows) {
+            this.starts = starts;
+            this.ends = ends;
+            this.rows = rows;
+        }
+
+        /**
+         * @return index of the last version started not after the time, -1 if it is not valid at the time
+         */
+        private int indexAt(long time) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high >= 0 && time < ends[high] ? high : -1;
+        }
+    }
+
+    public static final class Builder implements AllSideCache.Builder {
+
+        private final String[] columnNames;
+
+        private final int startColumn;
+
+        private final int endColumn;
+
+        private final int maxVersions;
+
+        private final Map<SideCacheKey, List<Object[]>> rowsByKey = Maps.newHashMap();
+
+        private Builder(String[] columnNames, String startColumnName, String endColumnName, int maxVersions) {
+            List<String> names = Arrays.asList(columnNames);
+            Preconditions.checkArgument(names.contains(startColumnName), "valid-from column %s is not loaded", startColumnName);
+            Preconditions.checkArgument(endColumnName == null || names.contains(endColumnName), "valid-to column %s is not loaded", endColumnName);
+            Preconditions.checkArgument(maxVersions > 0, "maxVersions need > 0");
+            this.columnNames = columnNames;
+            this.startColumn = names.indexOf(startColumnName);
+            this.endColumn = endColumnName == null ? NO_COLUMN : names.indexOf(endColumnName);
+            this.maxVersions = maxVersions;
+        }
+
+        @Override
+        public Builder addRow(SideCacheKey key, Object[] values) {
+            Preconditions.checkArgument(values.length == columnNames.length, "row size not match column size");
+            rowsByKey.computeIfAbsent(key, k -> Lists.newArrayListWithCapacity(1)).add(values);
+            return this;
+        }
+
+        @Override
+        public TemporalAllSideCache build() {
+            Map<SideCacheKey, Versions> versionsByKey = Maps.newConcurrentMap();
+            long rowCount = 0;
+            for (Map.Entry<SideCacheKey, List<Object[]>> entry : rowsByKey.entrySet()) {
+                Versions versions = buildVersions(entry.getValue(), startColumn, endColumn, maxVersions);
+                versionsByKey.put(entry.getKey(), versions);
+                rowCount += versions.rows.length;
+            }
+            rowsByKey.clear();
+            return new TemporalAllSideCache(this, versionsByKey, rowCount);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * side cache with w-tinylfu admission policy, keeps more hot keys than lru under skewed traffic.
+ * when cacheRefreshMs is set, a key older than it is reloaded in background while the stale value is still served.
+ * Company: www.dtstack.com
+ * @author xuchao
+ */
+
+public class TinyLfuSideCache extends AbstractSideCache {
+
+    protected transient Cache<SideCacheKey, CacheObj> cache;
+
+    private transient Policy.Expiration<SideCacheKey, CacheObj> expiration;
+
+    /**
+     * keys which are reloading, expire after refresh time so that a failed refresh can retry
+     */
+    private transient Cache<SideCacheKey, Boolean> refreshingKeys;
+
+    public TinyLfuSideCache(AbstractSideTableInfo sideTableInfo) {
+        super(sideTableInfo);
+    }
+
+    @Override
+    public void initCache() {
+        Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
+                .expireAfterWrite(sideTableInfo.getCacheTimeout(), TimeUnit.MILLISECONDS)
+                .recordStats();
+        if (sideTableInfo.getCacheMaxBytes() > 0) {
+            cache = cacheBuilder
+                    .maximumWeight(sideTableInfo.getCacheMaxBytes())
+                    .weigher(SideCacheWeigher::weigh)
+                    .build();
+        } else {
+            cache = cacheBuilder
+                    .maximumSize(sideTableInfo.getCacheSize())
+                    .build();
+        }
+        expiration = cache.policy().expireAfterWrite().orElse(null);
+
+        if (sideTableInfo.getCacheRefreshTime() > 0) {
+            refreshingKeys = Caffeine.newBuilder()
+                    .maximumSize(sideTableInfo.getCacheSize())
+                    .expireAfterWrite(sideTableInfo.getCacheRefreshTime(), TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    @Override
+    public CacheObj getFromCache(SideCacheKey key) {
+        if (cache == null) {
+            return null;
+        }
+
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void putCache(SideCacheKey key, CacheObj value) {
+        if (cache == null) {
+            return;
+        }
+
+        cache.put(key, value);
+        if (refreshingKeys != null) {
+            refreshingKeys.invalidate(key);
+        }
+    }
+
+    @Override
+    public void invalidate(SideCacheKey key) {
+        if (cache == null) {
+            return;
+        }
+
+        cache.invalidate(key);
+        if (refreshingKeys != null) {
+            refreshingKeys.invalidate(key);
+        }
+    }
+
+    @Override
+    public Map<SideCacheKey, CacheObj> hottest(int limit) {
+        if (cache == null) {
+            return Collections.emptyMap();
+        }
+
+        return cache.policy().eviction()
+                .map(eviction -> eviction.hottest(limit))
+                .orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public long getWeightedSize() {
+        if (cache == null || sideTableInfo.getCacheMaxBytes() <= 0) {
+            return -1L;
+        }
+
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(-1L))
+                .orElse(-1L);
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache == null ? 0L : cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize() {
+        return cache == null ? 0L : cache.estimatedSize();
+    }
+
+    @Override
+    public boolean tryStartRefresh(SideCacheKey key) {
+        if (refreshingKeys == null || expiration == null) {
+            return false;
+        }
+
+        long age = expiration.ageOf(key, TimeUnit.MILLISECONDS).orElse(0L);
+        if (age < sideTableInfo.getCacheRefreshTime()) {
+            return false;
+        }
+
+        return refreshingKeys.asMap().putIfAbsent(key, Boolean.TRUE) == null;
+    }
+}
@@ -23,6 +23,7 @@ package com.dtstack.flink.sql.table;
 import com.dtstack.flink.sql.enums.ECacheType;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.dtstack.flink.sql.util.MathUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.util.Preconditions;
 
 import java.util.Map;
@@ -79,6 +80,72 @@ public abstract class AbstractSideTableParser extends AbstractTableParser {
                 sideTableInfo.setCacheTimeout(cacheTTLMS);
             }
 
+            if(props.containsKey(AbstractSideTableInfo.CACHE_MAX_BYTES_KEY.toLowerCase())){
+                Long cacheMaxBytes = MathUtil.getLongVal(props.get(AbstractSideTableInfo.CACHE_MAX_BYTES_KEY.toLowerCase()));
+                if(cacheMaxBytes < 0){
+                    throw new RuntimeException("cache max bytes need > 0.");
+                }
+                sideTableInfo.setCacheMaxBytes(cacheMaxBytes);
+            }
+
+            if(props.containsKey(AbstractSideTableInfo.CACHE_REFRESH_MS_KEY.toLowerCase())){
+                Long cacheRefreshMs = MathUtil.getLongVal(props.get(AbstractSideTableInfo.CACHE_REFRESH_MS_KEY.toLowerCase()));
+                if(cacheRefreshMs < 0){
+                    throw new RuntimeException("cache refresh time need > 0 ms.");
+                }
+                sideTableInfo.setCacheRefreshTime(cacheRefreshMs);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.CACHE_MISS_TTL_MS_KEY.toLowerCase())) {
+                Long cacheMissTTLMs = MathUtil.getLongVal(props.get(AbstractSideTableInfo.CACHE_MISS_TTL_MS_KEY.toLowerCase()));
+                Preconditions.checkArgument(cacheMissTTLMs >= 0, "cacheMissTTLMs need >= 0");
+                sideTableInfo.setCacheMissTTLMs(cacheMissTTLMs);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.CACHE_MISS_SIZE_KEY.toLowerCase())) {
+                Integer cacheMissSize = MathUtil.getIntegerVal(props.get(AbstractSideTableInfo.CACHE_MISS_SIZE_KEY.toLowerCase()));
+                Preconditions.checkArgument(cacheMissSize > 0, "cacheMissSize need > 0");
+                sideTableInfo.setCacheMissSize(cacheMissSize);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.KEY_FILTER_RELOAD_MS_KEY.toLowerCase())) {
+                Long keyFilterReloadMs = MathUtil.getLongVal(props.get(AbstractSideTableInfo.KEY_FILTER_RELOAD_MS_KEY.toLowerCase()));
+                Preconditions.checkArgument(keyFilterReloadMs >= 0, "keyFilterReloadMs need >= 0");
+                sideTableInfo.setKeyFilterReloadMs(keyFilterReloadMs);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.CACHE_SNAPSHOT_SIZE_KEY.toLowerCase())) {
+                Integer cacheSnapshotSize = MathUtil.getIntegerVal(props.get(AbstractSideTableInfo.CACHE_SNAPSHOT_SIZE_KEY.toLowerCase()));
+                Preconditions.checkArgument(cacheSnapshotSize >= 0, "cacheSnapshotSize need >= 0");
+                sideTableInfo.setCacheSnapshotSize(cacheSnapshotSize);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.HOT_SET_CONDITION_KEY.toLowerCase())) {
+                sideTableInfo.setHotSetCondition(MathUtil.getString(props.get(AbstractSideTableInfo.HOT_SET_CONDITION_KEY.toLowerCase())));
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.HOT_SET_ORDER_BY_KEY.toLowerCase())) {
+                sideTableInfo.setHotSetOrderBy(MathUtil.getString(props.get(AbstractSideTableInfo.HOT_SET_ORDER_BY_KEY.toLowerCase())));
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.HOT_SET_SIZE_KEY.toLowerCase())) {
+                Integer hotSetSize = MathUtil.getIntegerVal(props.get(AbstractSideTableInfo.HOT_SET_SIZE_KEY.toLowerCase()));
+                Preconditions.checkArgument(hotSetSize > 0, "hotSetSize need > 0");
+                sideTableInfo.setHotSetSize(hotSetSize);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.HOT_SET_RELOAD_MS_KEY.toLowerCase())) {
+                Long hotSetReloadMs = MathUtil.getLongVal(props.get(AbstractSideTableInfo.HOT_SET_RELOAD_MS_KEY.toLowerCase()));
+                Preconditions.checkArgument(hotSetReloadMs >= 1000, "hotSetReloadMs need >= 1000 ms");
+                sideTableInfo.setHotSetReloadMs(hotSetReloadMs);
+            }
+
+            if (ECacheType.HYBRID.name().equalsIgnoreCase(cacheType)) {
+                Preconditions.checkArgument(StringUtils.isNotBlank(sideTableInfo.getHotSetCondition())
+                                || (StringUtils.isNotBlank(sideTableInfo.getHotSetOrderBy()) && sideTableInfo.getHotSetSize() > 0),
+                        "hybrid cache need hotSetCondition or hotSetOrderBy with hotSetSize");
+            }
+
             if(props.containsKey(AbstractSideTableInfo.PARTITIONED_JOIN_KEY.toLowerCase())){
                 Boolean partitionedJoinKey = MathUtil.getBoolean(props.get(AbstractSideTableInfo.PARTITIONED_JOIN_KEY.toLowerCase()));
                 if(partitionedJoinKey){
@@ -86,6 +153,13 @@ public abstract class AbstractSideTableParser extends AbstractTableParser {
                 }
             }
 
+            if(props.containsKey(AbstractSideTableInfo.CACHE_SHARED_KEY.toLowerCase())){
+                Boolean cacheShared = MathUtil.getBoolean(props.get(AbstractSideTableInfo.CACHE_SHARED_KEY.toLowerCase()));
+                if(cacheShared){
+                    sideTableInfo.setCacheShared(true);
+                }
+            }
+
             if(props.containsKey(AbstractSideTableInfo.CACHE_MODE_KEY.toLowerCase())){
                 String cachemode = MathUtil.getString(props.get(AbstractSideTableInfo.CACHE_MODE_KEY.toLowerCase()));
 
@@ -131,6 +205,24 @@ public abstract class AbstractSideTableParser extends AbstractTableParser {
                 Preconditions.checkArgument(asyncPoolSize > 0 && asyncPoolSize <= 20, "asyncPoolSize size limit (0,20]");
                 sideTableInfo.setAsyncPoolSize(asyncPoolSize);
             }
+
+            if (props.containsKey(AbstractSideTableInfo.ASYNC_ADAPTIVE_CONCURRENCY_KEY.toLowerCase())) {
+                Boolean adaptive = MathUtil.getBoolean(props.get(AbstractSideTableInfo.ASYNC_ADAPTIVE_CONCURRENCY_KEY.toLowerCase()));
+                sideTableInfo.setAsyncAdaptiveConcurrency(adaptive);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.ASYNC_MIN_CONCURRENCY_KEY.toLowerCase())) {
+                Integer minConcurrency = MathUtil.getIntegerVal(props.get(AbstractSideTableInfo.ASYNC_MIN_CONCURRENCY_KEY.toLowerCase()));
+                Preconditions.checkArgument(minConcurrency > 0 && minConcurrency <= sideTableInfo.getAsyncCapacity(),
+                        "asyncMinConcurrency limit (0,asyncCapacity]");
+                sideTableInfo.setAsyncMinConcurrency(minConcurrency);
+            }
+
+            if (props.containsKey(AbstractSideTableInfo.ASYNC_LATENCY_TARGET_MS_KEY.toLowerCase())) {
+                Long latencyTargetMs = MathUtil.getLongVal(props.get(AbstractSideTableInfo.ASYNC_LATENCY_TARGET_MS_KEY.toLowerCase()));
+                Preconditions.checkArgument(latencyTargetMs > 0, "asyncLatencyTargetMs need > 0");
+                sideTableInfo.setAsyncLatencyTargetMs(latencyTargetMs);
+            }
         }
     }
 }
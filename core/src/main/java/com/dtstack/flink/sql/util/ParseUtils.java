@@ -39,7 +39,11 @@ package com.dtstack.flink.sql.util;
 import com.google.common.collect.HashBasedTable;
 
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.Lists;
 import org.apache.calcite.sql.SqlBasicCall;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.fun.SqlBetweenOperator;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlJoin;
 import org.apache.calcite.sql.SqlKind;
@@ -72,6 +76,48 @@ public class ParseUtils {
         }
     }
 
+    /**
+     * same as parseAnd, and a BETWEEN lo AND hi is split into two comparisons.
+     * only for side tables joining on ranges, others take BETWEEN as an unsupported condition
+     */
+    public static void parseAndExpandBetween(SqlNode conditionNode, List<SqlNode> sqlNodeList) {
+        List<SqlNode> conditions = Lists.newArrayList();
+        parseAnd(conditionNode, conditions);
+        for (SqlNode condition : conditions) {
+            if (isRangeBetween(condition)) {
+                sqlNodeList.addAll(expandBetween((SqlBasicCall) condition));
+            } else {
+                sqlNodeList.add(condition);
+            }
+        }
+    }
+
+    /**
+     * a BETWEEN lo AND hi, NOT BETWEEN and SYMMETRIC are not range conditions
+     */
+    public static boolean isRangeBetween(SqlNode conditionNode) {
+        if (conditionNode.getKind() != SqlKind.BETWEEN || !(conditionNode instanceof SqlBasicCall)) {
+            return false;
+        }
+        SqlOperator operator = ((SqlBasicCall) conditionNode).getOperator();
+        return operator instanceof SqlBetweenOperator
+                && !((SqlBetweenOperator) operator).isNegated()
+                && ((SqlBetweenOperator) operator).flag == SqlBetweenOperator.Flag.ASYMMETRIC;
+    }
+
+    /**
+     * a BETWEEN lo AND hi ==> lo <= a AND hi >= a, the bounds are on the left side like other join conditions
+     * written as side field first
+     */
+    public static List<SqlNode> expandBetween(SqlBasicCall betweenNode) {
+        SqlNode value = betweenNode.getOperands()[0];
+        SqlNode lower = betweenNode.getOperands()[1];
+        SqlNode upper = betweenNode.getOperands()[2];
+        return Arrays.asList(
+                SqlStdOperatorTable.LESS_THAN_OR_EQUAL.createCall(betweenNode.getParserPosition(), lower, value),
+                SqlStdOperatorTable.GREATER_THAN_OR_EQUAL.createCall(betweenNode.getParserPosition(), upper, value));
+    }
+
     public static void parseJoinCompareOperate(SqlNode condition, List<String> sqlJoinCompareOperate) {
         SqlBasicCall joinCondition = (SqlBasicCall) condition;
 
@@ -38,9 +38,20 @@ public class ReflectionUtils {
      * @return
      */
     public static Method getDeclaredMethod(Object object, String methodName, Class<?> ... parameterTypes){
+        return getDeclaredMethod(object.getClass(), methodName, parameterTypes);
+    }
+
+    /**
+     * get declaredMethod of the class or its super class
+     * @param targetClass
+     * @param methodName
+     * @param parameterTypes
+     * @return
+     */
+    public static Method getDeclaredMethod(Class<?> targetClass, String methodName, Class<?> ... parameterTypes){
         Method method = null ;
 
-        for(Class<?> clazz = object.getClass() ; clazz != Object.class ; clazz = clazz.getSuperclass()) {
+        for(Class<?> clazz = targetClass ; clazz != null && clazz != Object.class ; clazz = clazz.getSuperclass()) {
             try {
                 method = clazz.getDeclaredMethod(methodName, parameterTypes) ;
                 return method ;
@@ -0,0 +1,26 @@
+package com.dtstack.flink.sql.metric;
+
+import org.apache.flink.metrics.HistogramStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlidingWindowHistogramTest {
+
+    @Test
+    public void statisticsOfLatestSamples() {
+        SlidingWindowHistogram histogram = new SlidingWindowHistogram(4);
+        Assert.assertEquals(0, histogram.getStatistics().size());
+
+        for (long i = 1; i <= 6; i++) {
+            histogram.update(i);
+        }
+        HistogramStatistics statistics = histogram.getStatistics();
+        Assert.assertEquals(6L, histogram.getCount());
+        Assert.assertArrayEquals(new long[]{3L, 4L, 5L, 6L}, statistics.getValues());
+        Assert.assertEquals(3L, statistics.getMin());
+        Assert.assertEquals(6L, statistics.getMax());
+        Assert.assertEquals(4.5D, statistics.getMean(), 0.0001D);
+        Assert.assertEquals(4D, statistics.getQuantile(0.5D), 0.0001D);
+        Assert.assertEquals(6D, statistics.getQuantile(0.99D), 0.0001D);
+    }
+}
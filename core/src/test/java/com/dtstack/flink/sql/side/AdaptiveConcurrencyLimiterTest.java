@@ -0,0 +1,114 @@
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void increaseWhenFastAndDecreaseOncePerRound() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 8, 10000L);
+        Assert.assertEquals(4, limiter.getLimit());
+
+        for (int round = 0; round < 100; round++) {
+            long[] starts = new long[limiter.getLimit()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = acquire(limiter);
+            }
+            for (long start : starts) {
+                limiter.release(start, false);
+            }
+        }
+        Assert.assertEquals(8, limiter.getLimit());
+        Assert.assertEquals(0, limiter.getInFlight());
+
+        long first = acquire(limiter);
+        long second = acquire(limiter);
+        limiter.release(first, true);
+        limiter.release(second, true);
+        Assert.assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    public void queueOverLimitAndRunOnRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10000L);
+        long start = acquire(limiter);
+
+        AtomicInteger runs = new AtomicInteger();
+        limiter.acquire(runs::incrementAndGet);
+        Assert.assertEquals(0, runs.get());
+        Assert.assertEquals(1, limiter.getWaiting());
+        Assert.assertEquals(1, limiter.getInFlight());
+
+        limiter.release(start, false);
+        Assert.assertEquals(1, runs.get());
+        Assert.assertEquals(0, limiter.getWaiting());
+        Assert.assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    public void cancelWaitingRequest() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10000L);
+        long start = acquire(limiter);
+
+        AtomicInteger runs = new AtomicInteger();
+        Runnable request = runs::incrementAndGet;
+        limiter.acquire(request);
+        Assert.assertTrue(limiter.cancel(request));
+        Assert.assertFalse(limiter.cancel(request));
+
+        limiter.release(start, false);
+        Assert.assertEquals(0, runs.get());
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void releaseUnusedKeepsLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 8, 1L);
+        long start = acquire(limiter);
+
+        // 超过latencyTarget后才释放, release会降低上限, releaseUnused不会
+        Thread.sleep(5L);
+        limiter.releaseUnused();
+        Assert.assertEquals(4, limiter.getLimit());
+        Assert.assertEquals(0, limiter.getInFlight());
+
+        start = acquire(limiter);
+        Thread.sleep(5L);
+        limiter.release(start, false);
+        Assert.assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void drainQueueWithoutRecursion() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 10000L);
+        long start = acquire(limiter);
+
+        // 排队的请求同步完成, 在运行它的线程上释放许可
+        List<Integer> depths = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(() -> {
+                depths.add(Thread.currentThread().getStackTrace().length);
+                limiter.releaseUnused();
+            });
+        }
+        Assert.assertEquals(100, limiter.getWaiting());
+
+        limiter.release(start, false);
+        Assert.assertEquals(100, depths.size());
+        Assert.assertEquals(1, depths.stream().distinct().count());
+        Assert.assertEquals(0, limiter.getWaiting());
+        Assert.assertEquals(0, limiter.getInFlight());
+    }
+
+    private static long acquire(AdaptiveConcurrencyLimiter limiter) {
+        long[] start = {Long.MIN_VALUE};
+        limiter.acquire(() -> start[0] = System.nanoTime());
+        Assert.assertNotEquals(Long.MIN_VALUE, start[0]);
+        return start[0];
+    }
+}
@@ -1,13 +1,19 @@
 package com.dtstack.flink.sql.side;
 
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.RuntimeContext;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
 import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.Collector;
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class BaseAllReqRowTest {
 
@@ -36,6 +42,7 @@ public class BaseAllReqRowTest {
         };
 
         Configuration configuration = Mockito.mock(Configuration.class);
+        baseAllReqRow.setRuntimeContext(mockRuntimeContext());
         baseAllReqRow.open(configuration);
         BaseRow value = Mockito.mock(BaseRow.class);
         Collector<BaseRow> out = Mockito.mock(Collector.class);
@@ -43,4 +50,111 @@ public class BaseAllReqRowTest {
         baseAllReqRow.close();
     }
 
+    @Test
+    public void testSharedCache() throws Exception {
+        BaseSideInfo sideInfo = Mockito.mock(BaseSideInfo.class);
+        AbstractSideTableInfo sideTableInfo = Mockito.mock(AbstractSideTableInfo.class);
+        Mockito.when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
+        Mockito.when(sideTableInfo.getCacheTimeout()).thenReturn(60_000L);
+        Mockito.when(sideTableInfo.isCacheShared()).thenReturn(true);
+        Mockito.when(sideTableInfo.getName()).thenReturn("sharedSideTable");
+
+        AtomicInteger loadCount = new AtomicInteger();
+        SharedReqRow first = new SharedReqRow(sideInfo, loadCount);
+        SharedReqRow second = new SharedReqRow(sideInfo, loadCount);
+        Configuration configuration = Mockito.mock(Configuration.class);
+        first.setRuntimeContext(mockRuntimeContext());
+        second.setRuntimeContext(mockRuntimeContext());
+        first.open(configuration);
+        second.open(configuration);
+
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertSame(first.getCacheRef(), second.getCacheRef());
+        Assert.assertEquals("loaded", second.getCacheRef().get());
+
+        first.close();
+        second.close();
+
+        SharedReqRow third = new SharedReqRow(sideInfo, loadCount);
+        third.setRuntimeContext(mockRuntimeContext());
+        third.open(configuration);
+        Assert.assertEquals(2, loadCount.get());
+        third.close();
+    }
+
+    @Test
+    public void testReloadBackoff() throws Exception {
+        BaseSideInfo sideInfo = Mockito.mock(BaseSideInfo.class);
+        AbstractSideTableInfo sideTableInfo = Mockito.mock(AbstractSideTableInfo.class);
+        Mockito.when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
+        Mockito.when(sideTableInfo.getCacheTimeout()).thenReturn(60_000L);
+
+        AtomicInteger loadCount = new AtomicInteger();
+        SharedReqRow reqRow = new SharedReqRow(sideInfo, loadCount);
+        reqRow.setRuntimeContext(mockRuntimeContext());
+        reqRow.open(Mockito.mock(Configuration.class));
+
+        AllCacheReloadCoordinator.ReloadTask task = new AllCacheReloadCoordinator.ReloadTask(reqRow::runReload, 60_000L, 0.1D, 20_000L);
+        long delay = task.nextDelay();
+        Assert.assertTrue(delay >= 54_000L && delay <= 66_000L);
+
+        reqRow.failReload = true;
+        task.run();
+        Assert.assertEquals(5_000L, task.backoffDelay());
+        task.run();
+        task.run();
+        Assert.assertEquals(20_000L, task.backoffDelay());
+        Assert.assertEquals("loaded", reqRow.getCacheRef().get());
+        reqRow.close();
+    }
+
+    private static RuntimeContext mockRuntimeContext() {
+        RuntimeContext runtimeContext = Mockito.mock(RuntimeContext.class);
+        Mockito.when(runtimeContext.getMetricGroup()).thenReturn(new UnregisteredMetricsGroup());
+        Mockito.when(runtimeContext.getExecutionConfig()).thenReturn(new ExecutionConfig());
+        return runtimeContext;
+    }
+
+    private static class SharedReqRow extends BaseAllReqRow {
+
+        private final AtomicInteger loadCount;
+
+        private AtomicReference<String> cacheRef = new AtomicReference<>();
+
+        private boolean failReload = false;
+
+        SharedReqRow(BaseSideInfo sideInfo, AtomicInteger loadCount) {
+            super(sideInfo);
+            this.loadCount = loadCount;
+        }
+
+        @Override
+        protected AtomicReference<?> getCacheRef() {
+            return cacheRef;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void setCacheRef(AtomicReference<?> cacheRef) {
+            this.cacheRef = (AtomicReference<String>) cacheRef;
+        }
+
+        @Override
+        protected void initCache() {
+            loadCount.incrementAndGet();
+            cacheRef.set("loaded");
+        }
+
+        @Override
+        protected void reloadCache() {
+            if (failReload) {
+                throw new RuntimeException("reload fail");
+            }
+        }
+
+        @Override
+        public void flatMap(BaseRow value, Collector<BaseRow> out) {
+        }
+    }
+
 }
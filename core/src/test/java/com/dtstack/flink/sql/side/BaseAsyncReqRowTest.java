@@ -4,9 +4,13 @@ import com.dtstack.flink.sql.enums.ECacheContentType;
 import com.dtstack.flink.sql.metric.MetricConstant;
 import com.dtstack.flink.sql.side.cache.AbstractSideCache;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.flink.configuration.Configuration;
+import org.apache.calcite.sql.JoinType;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
 import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
@@ -14,14 +18,23 @@ import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
 import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.table.dataformat.GenericRow;
 import org.apache.flink.types.Row;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BaseAsyncReqRowTest {
@@ -33,7 +46,7 @@ public class BaseAsyncReqRowTest {
         BaseSideInfo sideInfo = mock(BaseSideInfo.class);
         AbstractSideCache sideCache = mock(AbstractSideCache.class);
         when(sideInfo.getSideCache()).thenReturn(sideCache);
-        when(sideCache.getFromCache(anyString())).thenReturn(CacheObj.buildCacheObj(ECacheContentType.SingleLine, "1"));
+        when(sideCache.getFromCache(any(SideCacheKey.class))).thenReturn(CacheObj.buildCacheObj(ECacheContentType.SingleLine, "1"));
         AbstractSideTableInfo sideTableInfo = mock(AbstractSideTableInfo.class);
         when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
         when(sideTableInfo.getCacheType()).thenReturn("lru");
@@ -53,8 +66,13 @@ public class BaseAsyncReqRowTest {
             }
 
             @Override
-            public String buildCacheKey(Map<String, Object> inputParams) {
-                return "key";
+            public SideCacheKey buildCacheKey(Map<String, Object> inputParams) {
+                return SideCacheKey.of("key");
+            }
+
+            @Override
+            protected SideCacheKey buildCacheKey(BaseRow input) {
+                return SideCacheKey.of("key");
             }
         };
 
@@ -82,8 +100,8 @@ public class BaseAsyncReqRowTest {
         ResultFuture<BaseRow> resultFuture = mock(ResultFuture.class);
         asyncReqRow.dealMissKey(input, resultFuture);
 
-        asyncReqRow.dealCacheData("key", CacheObj.buildCacheObj(ECacheContentType.SingleLine, "a") );
-        asyncReqRow.getFromCache("key");
+        asyncReqRow.dealCacheData(SideCacheKey.of("key"), CacheObj.buildCacheObj(ECacheContentType.SingleLine, "a") );
+        asyncReqRow.getFromCache(SideCacheKey.of("key"));
 
         asyncReqRow.timeout(input, resultFuture);
 
@@ -93,4 +111,104 @@ public class BaseAsyncReqRowTest {
 
     }
 
+    @Test
+    public void testFollowerReadsResultOfLeader() throws Exception {
+        List<ResultFuture<BaseRow>> lookups = Lists.newArrayList();
+        Map<SideCacheKey, CacheObj> cache = Maps.newHashMap();
+        BaseAsyncReqRow reqRow = buildSingleFlightReqRow(lookups, cache);
+        SideCacheKey key = SideCacheKey.of("a");
+        ResultFuture<BaseRow> leader = mock(ResultFuture.class);
+        ResultFuture<BaseRow> follower = mock(ResultFuture.class);
+
+        invokeWithSingleFlight(reqRow, key, leader);
+        invokeWithSingleFlight(reqRow, key, follower);
+        Assert.assertEquals(1, lookups.size());
+        verify(reqRow.coalescedRecords).inc();
+
+        // 插件先写缓存再返回结果
+        cache.put(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, Lists.newArrayList("v")));
+        lookups.get(0).complete(Collections.singletonList(new GenericRow(1)));
+
+        Assert.assertEquals(1, lookups.size());
+        verify(leader, times(1)).complete(anyCollection());
+        verify(follower, times(1)).complete(anyCollection());
+        Assert.assertTrue(((Map<?, ?>) Whitebox.getInternalState(reqRow, "inFlightLookups")).isEmpty());
+        Assert.assertEquals(0, ((AtomicInteger) Whitebox.getInternalState(reqRow, "inFlightLookupNum")).get());
+    }
+
+    @Test
+    public void testFollowerLooksUpAloneWhenLeaderFails() throws Exception {
+        List<ResultFuture<BaseRow>> lookups = Lists.newArrayList();
+        BaseAsyncReqRow reqRow = buildSingleFlightReqRow(lookups, Maps.newHashMap());
+        SideCacheKey key = SideCacheKey.of("a");
+        ResultFuture<BaseRow> leader = mock(ResultFuture.class);
+        ResultFuture<BaseRow> follower = mock(ResultFuture.class);
+
+        invokeWithSingleFlight(reqRow, key, leader);
+        invokeWithSingleFlight(reqRow, key, follower);
+        RuntimeException error = new RuntimeException("lookup failed");
+        lookups.get(0).completeExceptionally(error);
+
+        verify(leader).completeExceptionally(error);
+        Assert.assertEquals(2, lookups.size());
+        verify(follower, never()).complete(anyCollection());
+
+        lookups.get(1).complete(Collections.emptyList());
+        verify(follower, times(1)).complete(anyCollection());
+        verify(follower, never()).completeExceptionally(any(Throwable.class));
+
+        // 查询结束后同一个key重新发起查询
+        invokeWithSingleFlight(reqRow, key, mock(ResultFuture.class));
+        Assert.assertEquals(3, lookups.size());
+    }
+
+    private static void invokeWithSingleFlight(BaseAsyncReqRow reqRow, SideCacheKey key, ResultFuture<BaseRow> resultFuture) throws Exception {
+        Map<String, Object> inputParams = Maps.newHashMap();
+        inputParams.put("key", "a");
+        GenericRow input = new GenericRow(1);
+        input.setField(0, "a");
+        Whitebox.invokeMethod(reqRow, "invokeWithSingleFlight", key, inputParams, input, resultFuture);
+    }
+
+    /**
+     * handleAsyncInvoke keeps the ResultFuture of each side table query, the test completes them
+     */
+    private static BaseAsyncReqRow buildSingleFlightReqRow(List<ResultFuture<BaseRow>> lookups, Map<SideCacheKey, CacheObj> cache) {
+        BaseSideInfo sideInfo = mock(BaseSideInfo.class);
+        AbstractSideTableInfo sideTableInfo = mock(AbstractSideTableInfo.class);
+        when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
+        when(sideInfo.getJoinType()).thenReturn(JoinType.INNER);
+        when(sideTableInfo.getAsyncTimeout()).thenReturn(10000);
+
+        BaseAsyncReqRow reqRow = new BaseAsyncReqRow(sideInfo) {
+            @Override
+            public BaseRow fillData(BaseRow input, Object sideInput) {
+                GenericRow row = new GenericRow(1);
+                row.setField(0, sideInput);
+                return row;
+            }
+
+            @Override
+            public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) {
+                lookups.add(resultFuture);
+            }
+
+            @Override
+            protected CacheObj getFromCache(SideCacheKey key) {
+                return cache.get(key);
+            }
+
+            @Override
+            protected void putCache(SideCacheKey key, CacheObj value) {
+                cache.put(key, value);
+            }
+        };
+        reqRow.coalescedRecords = mock(Counter.class);
+        reqRow.lookupLatency = mock(Histogram.class);
+        Whitebox.setInternalState(reqRow, "inFlightLookupNum", new AtomicInteger());
+        Whitebox.setInternalState(reqRow, "inFlightLookups", Maps.newConcurrentMap());
+        Whitebox.setInternalState(reqRow, "activeLookups", Maps.newConcurrentMap());
+        return reqRow;
+    }
+
 }
@@ -0,0 +1,74 @@
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SideEnrichmentRegistryTest {
+
+    @Test
+    public void testResolveStreamKeyIndexes() {
+        // stream(a, b, c) join d1 => (c, a, d1.x), then join d2 => (a, d1.x, d2.y)
+        Map<Integer, Integer> first = Maps.newHashMap();
+        first.put(0, 2);
+        first.put(1, 0);
+        Map<Integer, Integer> second = Maps.newHashMap();
+        second.put(0, 1);
+        List<Map<Integer, Integer>> upstream = Lists.newArrayList(first, second);
+
+        Assert.assertArrayEquals(new int[]{2, 0}, SideEnrichmentRegistry.resolveStreamKeyIndexes(Collections.singletonList(first), new int[]{0, 1}));
+        Assert.assertArrayEquals(new int[]{0}, SideEnrichmentRegistry.resolveStreamKeyIndexes(upstream, new int[]{0}));
+        Assert.assertNull(SideEnrichmentRegistry.resolveStreamKeyIndexes(upstream, new int[]{0, 1}));
+        Assert.assertNull(SideEnrichmentRegistry.resolveStreamKeyIndexes(Collections.singletonList(first), new int[]{2}));
+    }
+
+    @Test
+    public void testPrefetchOnlyConcurrentLookups() {
+        // stream(a, b) join d0 => (a, b, d0.x), then join d1 on a, then join d2 on b
+        BaseAsyncReqRow first = mockMember(new int[]{0}, false);
+        BaseAsyncReqRow unsafe = mockMember(new int[]{0}, false);
+        BaseAsyncReqRow concurrent = mockMember(new int[]{1}, true);
+        String identity = "testPrefetchOnlyConcurrentLookups|0";
+        SideEnrichmentRegistry.EnrichmentChain chain = SideEnrichmentRegistry.register(identity, 0, first);
+        SideEnrichmentRegistry.register(identity, 1, unsafe);
+        SideEnrichmentRegistry.register(identity, 2, concurrent);
+
+        GenericRow streamRow = GenericRow.of(1, 2);
+        chain.prefetch(streamRow);
+
+        verify(concurrent, times(1)).prefetch(streamRow, new int[]{1});
+        verify(unsafe, never()).prefetch(any(), any());
+        verify(first, never()).prefetch(any(), any());
+
+        SideEnrichmentRegistry.unregister(identity, 2, concurrent);
+        SideEnrichmentRegistry.unregister(identity, 1, unsafe);
+        SideEnrichmentRegistry.unregister(identity, 0, first);
+    }
+
+    private static BaseAsyncReqRow mockMember(int[] equalValIndexes, boolean concurrentLookup) {
+        Map<Integer, Integer> inFieldIndex = Maps.newHashMap();
+        inFieldIndex.put(0, 0);
+        inFieldIndex.put(1, 1);
+        BaseSideInfo sideInfo = mock(BaseSideInfo.class);
+        when(sideInfo.getInFieldIndex()).thenReturn(inFieldIndex);
+        BaseAsyncReqRow member = mock(BaseAsyncReqRow.class);
+        Whitebox.setInternalState(member, "sideInfo", sideInfo);
+        when(member.getEqualValIndexes()).thenReturn(equalValIndexes);
+        when(member.supportConcurrentLookup()).thenReturn(concurrentLookup);
+        return member;
+    }
+}
@@ -0,0 +1,91 @@
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SideJoinFuserTest {
+
+    private Map<String, AbstractSideTableInfo> sideTableMap;
+
+    @Before
+    public void init() {
+        AbstractSideTableInfo sideTableInfo = mock(AbstractSideTableInfo.class);
+        when(sideTableInfo.getName()).thenReturn("dim");
+        when(sideTableInfo.getCacheType()).thenReturn("LRU");
+        when(sideTableInfo.getFieldList()).thenReturn(Lists.newArrayList("id", "name", "city", "age"));
+        when(sideTableInfo.getPhysicalFields()).thenReturn(Maps.newHashMap());
+        when(sideTableInfo.getFullPredicateInfoes()).thenReturn(Lists.newArrayList());
+        sideTableMap = Maps.newHashMap();
+        sideTableMap.put("dim", sideTableInfo);
+    }
+
+    @Test
+    public void testFuseSameKeyJoins() {
+        JoinInfo first = buildJoinInfo("a", "d1", "uid", "id", "id", "name");
+        JoinInfo second = buildJoinInfo("a_d1", "d2", "uid", "id", "id", "city");
+        JoinInfo other = buildJoinInfo("a_d1_d2", "d3", "uid", "name", "name", "age");
+
+        List<Object> exeQueue = Lists.newArrayList(first, "select", second, other);
+        SideJoinFuser.fuse(exeQueue, sideTableMap);
+
+        Assert.assertEquals(Lists.newArrayList("id", "name", "city"), first.getFusedSideFields());
+        Assert.assertEquals(Lists.newArrayList("id", "name", "city"), second.getFusedSideFields());
+        Assert.assertTrue(other.getFusedSideFields().isEmpty());
+    }
+
+    @Test
+    public void testNotFuseWithoutCache() {
+        when(sideTableMap.get("dim").getCacheType()).thenReturn("NONE");
+        JoinInfo first = buildJoinInfo("a", "d1", "uid", "id", "id", "name");
+        JoinInfo second = buildJoinInfo("a_d1", "d2", "uid", "id", "id", "city");
+
+        SideJoinFuser.fuse(Lists.newArrayList(first, second), sideTableMap);
+
+        Assert.assertTrue(first.getFusedSideFields().isEmpty());
+        Assert.assertTrue(second.getFusedSideFields().isEmpty());
+    }
+
+    @Test
+    public void testLookupIdentityIgnoreStreamSide() {
+        AbstractSideTableInfo sideTableInfo = sideTableMap.get("dim");
+        String first = SideJoinFuser.buildLookupIdentity(buildJoinInfo("a", "d1", "uid", "id", "id"), sideTableInfo);
+        String second = SideJoinFuser.buildLookupIdentity(buildJoinInfo("b", "d2", "user_id", "id", "id"), sideTableInfo);
+        String other = SideJoinFuser.buildLookupIdentity(buildJoinInfo("a", "d1", "uid", "name", "name"), sideTableInfo);
+
+        Assert.assertEquals(first, second);
+        Assert.assertNotEquals(first, other);
+    }
+
+    private JoinInfo buildJoinInfo(String leftAlias, String sideAlias, String leftField, String sideField, String... selectFields) {
+        SqlNode condition = SqlStdOperatorTable.EQUALS.createCall(SqlParserPos.ZERO,
+                new SqlIdentifier(Lists.newArrayList(leftAlias, leftField), SqlParserPos.ZERO),
+                new SqlIdentifier(Lists.newArrayList(sideAlias, sideField), SqlParserPos.ZERO));
+
+        JoinInfo joinInfo = new JoinInfo();
+        joinInfo.setLeftTableAlias(leftAlias);
+        joinInfo.setLeftTableName(leftAlias);
+        joinInfo.setRightTableAlias(sideAlias);
+        joinInfo.setRightTableName("dim");
+        joinInfo.setRightIsSideTable(true);
+        joinInfo.setCondition(condition);
+        Map<String, String> rightSelectFieldInfo = Maps.newHashMap();
+        for (String selectField : selectFields) {
+            rightSelectFieldInfo.put(selectField, selectField);
+        }
+        joinInfo.setRightSelectFieldInfo(rightSelectFieldInfo);
+        return joinInfo;
+    }
+}
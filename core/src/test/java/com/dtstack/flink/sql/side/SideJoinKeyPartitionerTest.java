@@ -0,0 +1,46 @@
+package com.dtstack.flink.sql.side;
+
+import com.google.common.collect.Lists;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.BinaryString;
+import org.apache.flink.table.dataformat.Decimal;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class SideJoinKeyPartitionerTest {
+
+    @Test
+    public void testPartitionSameWithLoadedKey() throws Exception {
+        GenericRow input = new GenericRow(3);
+        input.setField(0, BinaryString.fromString("a"));
+        input.setField(1, 12L);
+        input.setField(2, 1);
+
+        TupleKeySelector keySelector = new TupleKeySelector(new int[]{2, 0}, null);
+        BaseRow key = keySelector.getKey(input);
+
+        SideJoinKeyPartitioner partitioner = new SideJoinKeyPartitioner();
+        for (int numPartitions = 1; numPartitions < 64; numPartitions++) {
+            int partition = partitioner.partition(key, numPartitions);
+            Assert.assertTrue(partition >= 0 && partition < numPartitions);
+            Assert.assertEquals(SideJoinKeyPartitioner.selectPartition(Lists.newArrayList(1, "a"), numPartitions), partition);
+        }
+    }
+
+    @Test
+    public void testDecimalKeySameWithLoadedKey() throws Exception {
+        // 流上是Decimal, 维表加载的是BigDecimal或者long
+        GenericRow input = GenericRow.of(Decimal.fromBigDecimal(new BigDecimal("7.00"), 38, 2), BinaryString.fromString("a"));
+        BaseRow key = new TupleKeySelector(new int[]{0, 1}, null).getKey(input);
+
+        SideJoinKeyPartitioner partitioner = new SideJoinKeyPartitioner();
+        for (int numPartitions = 1; numPartitions < 64; numPartitions++) {
+            int partition = partitioner.partition(key, numPartitions);
+            Assert.assertEquals(SideJoinKeyPartitioner.selectPartition(Lists.newArrayList(new BigDecimal("7"), "a"), numPartitions), partition);
+            Assert.assertEquals(SideJoinKeyPartitioner.selectPartition(Lists.newArrayList(7L, "a"), numPartitions), partition);
+        }
+    }
+}
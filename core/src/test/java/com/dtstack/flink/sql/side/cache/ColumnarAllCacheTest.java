@@ -0,0 +1,68 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public class ColumnarAllCacheTest {
+
+    @Test
+    public void rowsOfSameKeyKeepLoadOrder() {
+        ColumnarAllCache.Builder builder = ColumnarAllCache.builder(new String[]{"id", "name", "score"});
+        builder.addRow(SideCacheKey.of(1L), new Object[]{1L, "a", 1.5D});
+        builder.addRow(SideCacheKey.of(2L), new Object[]{2L, null, 2.5D});
+        builder.addRow(SideCacheKey.of(1L), new Object[]{1L, "a", null});
+        ColumnarAllCache cache = builder.build();
+
+        Assert.assertEquals(3L, cache.getRowCount());
+        Assert.assertEquals(2, cache.getKeyCount());
+        int nameIndex = cache.getColumnIndex("name");
+        int scoreIndex = cache.getColumnIndex("score");
+
+        int row = cache.firstRow(SideCacheKey.of(1));
+        Assert.assertEquals("a", cache.get(row, nameIndex));
+        Assert.assertEquals(1.5D, cache.get(row, scoreIndex));
+        row = cache.nextRow(row);
+        Assert.assertEquals("a", cache.get(row, nameIndex));
+        Assert.assertNull(cache.get(row, scoreIndex));
+        Assert.assertEquals(-1, cache.nextRow(row));
+
+        row = cache.firstRow(SideCacheKey.of(2L));
+        Assert.assertNull(cache.get(row, nameIndex));
+        Assert.assertEquals(-1, cache.firstRow(SideCacheKey.of(3L)));
+    }
+
+    @Test
+    public void mixedTypesFallBackToObjects() {
+        ColumnarAllCache.Builder builder = ColumnarAllCache.builder(new String[]{"id", "value"});
+        builder.addRow(SideCacheKey.of(1), new Object[]{1, 1});
+        builder.addRow(SideCacheKey.of(2), new Object[]{2, "2"});
+        builder.addRow(SideCacheKey.of(3), new Object[]{3, new BigDecimal("3.0")});
+        ColumnarAllCache cache = builder.build();
+
+        Assert.assertEquals(1, cache.get(cache.firstRow(SideCacheKey.of(1)), 1));
+        Assert.assertEquals("2", cache.get(cache.firstRow(SideCacheKey.of(2)), 1));
+        Assert.assertEquals(new BigDecimal("3.0"), cache.get(cache.firstRow(SideCacheKey.of(3)), 1));
+    }
+
+    @Test
+    public void changedRowsOverrideColumns() {
+        ColumnarAllCache cache = ColumnarAllCache.builder(new String[]{"id", "name"})
+                .addRow(SideCacheKey.of(1), new Object[]{1, "a"})
+                .build();
+
+        List<Map<String, Object>> rows = cache.getRows(SideCacheKey.of(1));
+        Assert.assertEquals(1, rows.size());
+        Assert.assertEquals("a", rows.get(0).get("name"));
+        Assert.assertNull(cache.getChangedRows(SideCacheKey.of(1)));
+
+        rows.get(0).put("name", "b");
+        cache.replaceRows(SideCacheKey.of(1), Lists.newArrayList(rows));
+        Assert.assertEquals("b", cache.getRows(SideCacheKey.of(1)).get(0).get("name"));
+        Assert.assertTrue(cache.getRows(SideCacheKey.of(2)).isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package com.dtstack.flink.sql.side.cache;
+
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class KeyBloomFilterTest {
+
+    private static final int[] KEY_INDEXES = new int[]{0, 1};
+
+    @Test
+    public void matchKeysLoosely() {
+        KeyBloomFilter filter = new KeyBloomFilter(100);
+        filter.put(new Object[]{1, "Abc  "});
+        filter.put(new Object[]{new BigDecimal("2.50"), "x"});
+        filter.put(new Object[]{3L, null});
+        Assert.assertEquals(2L, filter.getKeyNum());
+
+        Assert.assertTrue(filter.mightContain(GenericRow.of(1L, "abc"), KEY_INDEXES));
+        Assert.assertTrue(filter.mightContain(GenericRow.of(2.5D, "x"), KEY_INDEXES));
+        Assert.assertFalse(filter.mightContain(GenericRow.of(3L, null), KEY_INDEXES));
+    }
+
+    @Test
+    public void mostUnknownKeysAreFiltered() {
+        KeyBloomFilter filter = new KeyBloomFilter(1000);
+        for (long i = 0; i < 1000; i++) {
+            filter.put(new Object[]{i, "k"});
+        }
+        int falsePositives = 0;
+        for (long i = 1000; i < 11000; i++) {
+            if (filter.mightContain(GenericRow.of(i, "k"), KEY_INDEXES)) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue(falsePositives < 300);
+    }
+}
@@ -1,6 +1,8 @@
 package com.dtstack.flink.sql.side.cache;
 
+import com.dtstack.flink.sql.enums.ECacheContentType;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -23,12 +25,21 @@ public class LruSideCacheTest {
 
     @Test
     public void getFromCache(){
-       lruSideCache.getFromCache("test");
+       lruSideCache.getFromCache(SideCacheKey.of("test"));
 
     }
 
     @Test
     public void putCache(){
-        lruSideCache.putCache("test", CacheObj.buildCacheObj(null, null));
+        lruSideCache.putCache(SideCacheKey.of("test"), CacheObj.buildCacheObj(null, null));
+    }
+
+    @Test
+    public void hottest(){
+        for (long i = 0; i < 5; i++) {
+            lruSideCache.putCache(SideCacheKey.of(i), CacheObj.buildCacheObj(ECacheContentType.SingleLine, i));
+        }
+        Assert.assertEquals(3, lruSideCache.hottest(3).size());
+        Assert.assertEquals(5, lruSideCache.hottest(10).size());
     }
 }
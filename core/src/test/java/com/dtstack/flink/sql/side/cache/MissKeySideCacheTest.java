@@ -0,0 +1,65 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.enums.ECacheContentType;
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.dtstack.flink.sql.side.CacheMissVal;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MissKeySideCacheTest {
+
+    private AbstractSideTableInfo sideTableInfo;
+
+    @Before
+    public void before() {
+        sideTableInfo = mock(AbstractSideTableInfo.class);
+        when(sideTableInfo.getCacheSize()).thenReturn(1000);
+        when(sideTableInfo.getCacheTimeout()).thenReturn(1000000L);
+        when(sideTableInfo.getCacheMissSize()).thenReturn(10);
+        when(sideTableInfo.getCacheMissTTLMs()).thenReturn(20L);
+    }
+
+    @Test
+    public void missKeysDoNotEvictRows() {
+        MissKeySideCache sideCache = new MissKeySideCache(sideTableInfo, new LRUSideCache(sideTableInfo));
+        sideCache.initCache();
+        for (long i = 0; i < 100; i++) {
+            sideCache.putCache(SideCacheKey.of(i), CacheObj.buildCacheObj(ECacheContentType.SingleLine, i));
+        }
+        for (long i = 100; i < 10000; i++) {
+            sideCache.putCache(SideCacheKey.of(i), CacheMissVal.getMissKeyObj());
+        }
+        for (long i = 0; i < 100; i++) {
+            Assert.assertEquals(i, sideCache.getFromCache(SideCacheKey.of(i)).getContent());
+        }
+    }
+
+    @Test
+    public void missKeyExpiresByOwnTtl() throws InterruptedException {
+        MissKeySideCache sideCache = new MissKeySideCache(sideTableInfo, new LRUSideCache(sideTableInfo));
+        sideCache.initCache();
+        SideCacheKey key = SideCacheKey.of("a");
+        sideCache.putCache(key, CacheMissVal.getMissKeyObj());
+        Assert.assertEquals(ECacheContentType.MissVal, sideCache.getFromCache(key).getType());
+
+        Thread.sleep(50);
+        Assert.assertNull(sideCache.getFromCache(key));
+    }
+
+    @Test
+    public void rowAndMissReplaceEachOther() {
+        MissKeySideCache sideCache = new MissKeySideCache(sideTableInfo, new TinyLfuSideCache(sideTableInfo));
+        sideCache.initCache();
+        SideCacheKey key = SideCacheKey.of("a");
+        sideCache.putCache(key, CacheMissVal.getMissKeyObj());
+        sideCache.putCache(key, CacheObj.buildCacheObj(ECacheContentType.SingleLine, "row"));
+        Assert.assertEquals("row", sideCache.getFromCache(key).getContent());
+
+        sideCache.putCache(key, CacheMissVal.getMissKeyObj());
+        Assert.assertEquals(ECacheContentType.MissVal, sideCache.getFromCache(key).getType());
+    }
+}
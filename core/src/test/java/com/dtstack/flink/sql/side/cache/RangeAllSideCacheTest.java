@@ -0,0 +1,107 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.side.RangeJoinCondition;
+import com.google.common.collect.Lists;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class RangeAllSideCacheTest {
+
+    private static final String[] COLUMNS = new String[]{"start_ip", "end_ip", "city"};
+
+    private static final SideCacheKey KEY = SideCacheKey.of(Lists.newArrayList());
+
+    // a.ip BETWEEN s.start_ip AND s.end_ip
+    private static final List<RangeJoinCondition> BETWEEN = Lists.newArrayList(
+            RangeJoinCondition.of(SqlKind.LESS_THAN_OR_EQUAL, true, "start_ip", 0),
+            RangeJoinCondition.of(SqlKind.GREATER_THAN_OR_EQUAL, true, "end_ip", 0));
+
+    @Test
+    public void findDisjointRange() {
+        RangeAllSideCache cache = RangeAllSideCache.builder(COLUMNS, BETWEEN)
+                .addRow(KEY, new Object[]{200L, 299L, "b"})
+                .addRow(KEY, new Object[]{100L, 199L, "a"})
+                .addRow(KEY, new Object[]{300L, 399L, "c"})
+                .build();
+
+        Assert.assertEquals(Lists.newArrayList("a"), cities(cache, 100));
+        Assert.assertEquals(Lists.newArrayList("b"), cities(cache, 299L));
+        Assert.assertEquals(Lists.newArrayList("c"), cities(cache, 300));
+        Assert.assertTrue(cities(cache, 99).isEmpty());
+        Assert.assertTrue(cities(cache, 400).isEmpty());
+        Assert.assertTrue(cities(cache, null).isEmpty());
+        Assert.assertEquals(3L, cache.getRowCount());
+    }
+
+    @Test
+    public void findOverlappedRanges() {
+        RangeAllSideCache cache = RangeAllSideCache.builder(COLUMNS, BETWEEN)
+                .addRow(KEY, new Object[]{0, 1000, "all"})
+                .addRow(KEY, new Object[]{100, 199, "a"})
+                .addRow(KEY, new Object[]{150, 160, "a1"})
+                .addRow(KEY, new Object[]{300, null, "open"})
+                .build();
+
+        Assert.assertEquals(Lists.newArrayList("all", "a", "a1"), cities(cache, 155));
+        Assert.assertEquals(Lists.newArrayList("all", "a"), cities(cache, 170));
+        Assert.assertEquals(Lists.newArrayList("open"), cities(cache, 2000));
+    }
+
+    @Test
+    public void exclusiveAndOneSideBounds() {
+        // s.start_ip < a.ip
+        RangeAllSideCache lower = RangeAllSideCache.builder(COLUMNS,
+                Lists.newArrayList(RangeJoinCondition.of(SqlKind.GREATER_THAN, false, "start_ip", 0)))
+                .addRow(KEY, new Object[]{100, 199, "a"})
+                .addRow(KEY, new Object[]{200, 299, "b"})
+                .build();
+        Assert.assertEquals(Lists.newArrayList("a"), cities(lower, 200));
+        Assert.assertEquals(Lists.newArrayList("a", "b"), cities(lower, 201));
+
+        // a.ip <= s.end_ip
+        RangeAllSideCache upper = RangeAllSideCache.builder(COLUMNS,
+                Lists.newArrayList(RangeJoinCondition.of(SqlKind.LESS_THAN_OR_EQUAL, false, "end_ip", 0)))
+                .addRow(KEY, new Object[]{100, 199, "a"})
+                .addRow(KEY, new Object[]{200, 299, "b"})
+                .build();
+        Assert.assertEquals(Lists.newArrayList("a", "b"), cities(upper, 199));
+        Assert.assertEquals(Lists.newArrayList("b"), cities(upper, 200));
+    }
+
+    @Test
+    public void compareTimeAndNumberTypes() {
+        RangeAllSideCache cache = RangeAllSideCache.builder(COLUMNS, BETWEEN)
+                .addRow(KEY, new Object[]{new Timestamp(100L), new Timestamp(200L), "a"})
+                .build();
+
+        Assert.assertEquals(Lists.newArrayList("a"), cities(cache, new Timestamp(150L)));
+        Assert.assertEquals(Lists.newArrayList("a"), cities(cache, 200L));
+        Assert.assertTrue(cities(cache, new Timestamp(201L)).isEmpty());
+    }
+
+    @Test
+    public void replaceRowsRebuildIndex() {
+        RangeAllSideCache cache = RangeAllSideCache.builder(COLUMNS, BETWEEN)
+                .addRow(KEY, new Object[]{100, 199, "a"})
+                .build();
+        Map<String, Object> row = cache.getRows(KEY).get(0);
+        row.put("city", "a2");
+        cache.replaceRows(KEY, Lists.newArrayList(row));
+
+        Assert.assertEquals(Lists.newArrayList("a2"), cities(cache, 150));
+        Assert.assertEquals(1L, cache.getRowCount());
+    }
+
+    private List<Object> cities(RangeAllSideCache cache, Object ip) {
+        return cache.getRows(KEY, GenericRow.of(ip)).stream()
+                .map(row -> row.get("city"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,62 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+public class RocksDbAllCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void encodeAndDecodeRow() {
+        Timestamp timestamp = new Timestamp(1600000000123L);
+        timestamp.setNanos(123456789);
+        Object[] values = new Object[]{1, 2L, "dtstack", null, new BigDecimal("-12.340"), timestamp, true};
+        String[] columnNames = new String[]{"a", "b", "c", "d", "e", "f", "g"};
+
+        Map<String, Object> row = RocksDbAllCache.decodeRow(columnNames, RocksDbAllCache.encodeRow(values));
+        for (int i = 0; i < columnNames.length; i++) {
+            Assert.assertEquals(values[i], row.get(columnNames[i]));
+        }
+    }
+
+    @Test
+    public void keyBytesAreNotPrefixOfEachOther() {
+        byte[] single = SideCacheKey.of("a").toBytes();
+        byte[] composite = SideCacheKey.of(Lists.newArrayList("a", "b")).toBytes();
+        Assert.assertNotEquals(single.length, composite.length);
+        Assert.assertArrayEquals(SideCacheKey.of(1).toBytes(), SideCacheKey.of(1L).toBytes());
+    }
+
+    @Test
+    public void loadReplaceAndClose() throws Exception {
+        RocksDbAllCache cache = RocksDbAllCache.builder(new String[]{"id", "name"}, folder.getRoot().getAbsolutePath())
+                .addRow(SideCacheKey.of(1), new Object[]{1, "a"})
+                .addRow(SideCacheKey.of(2), new Object[]{2, "b"})
+                .addRow(SideCacheKey.of(1), new Object[]{1, "c"})
+                .build();
+
+        List<Map<String, Object>> rows = cache.getRows(SideCacheKey.of(1L));
+        Assert.assertEquals(2, rows.size());
+        Assert.assertEquals("a", rows.get(0).get("name"));
+        Assert.assertEquals("c", rows.get(1).get("name"));
+        Assert.assertTrue(cache.getRows(SideCacheKey.of(3)).isEmpty());
+
+        cache.replaceRows(SideCacheKey.of(1), Lists.newArrayList(rows.get(1)));
+        Assert.assertEquals(1, cache.getRows(SideCacheKey.of(1)).size());
+        Assert.assertEquals(2L, cache.getRowCount());
+
+        cache.close();
+        Assert.assertNull(cache.getRows(SideCacheKey.of(1)));
+        Assert.assertEquals(0, folder.getRoot().list().length);
+    }
+}
@@ -0,0 +1,75 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.flink.table.dataformat.BinaryString;
+import org.apache.flink.table.dataformat.Decimal;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+public class SideCacheKeyTest {
+
+    @Test
+    public void compositeKeyWithUnderscore() {
+        SideCacheKey key1 = SideCacheKey.of(Lists.newArrayList("a_b", "c"));
+        SideCacheKey key2 = SideCacheKey.of(Lists.newArrayList("a", "b_c"));
+        Assert.assertNotEquals(key1, key2);
+        Assert.assertEquals(key1, SideCacheKey.of(Lists.newArrayList("a_b", "c")));
+    }
+
+    @Test
+    public void integralKeys() {
+        SideCacheKey intKey = SideCacheKey.of(1);
+        Assert.assertTrue(intKey instanceof SideCacheKey.LongKey);
+        Assert.assertEquals(intKey, SideCacheKey.of(1L));
+        Assert.assertEquals(intKey.hashCode(), SideCacheKey.of((short) 1).hashCode());
+        Assert.assertEquals(SideCacheKey.of(Lists.newArrayList(1, "a")), SideCacheKey.of(Lists.newArrayList(1L, "a")));
+    }
+
+    @Test
+    public void streamAndSideValues() {
+        Map<String, Object> sideRow = Maps.newHashMap();
+        sideRow.put("id", 1L);
+        sideRow.put("name", "dtstack");
+        SideCacheKey sideKey = SideCacheKey.of(sideRow, Lists.newArrayList("id", "name"));
+        SideCacheKey streamKey = SideCacheKey.of(Lists.newArrayList(1, BinaryString.fromString("dtstack")));
+        Assert.assertEquals(sideKey, streamKey);
+
+        Assert.assertNotEquals(SideCacheKey.of((Object) null), SideCacheKey.of("null"));
+    }
+
+    @Test
+    public void streamRowKeys() {
+        GenericRow row = GenericRow.of("a", 1, BinaryString.fromString("dtstack"));
+        Assert.assertEquals(SideCacheKey.of(Lists.newArrayList(1, BinaryString.fromString("dtstack"))), SideCacheKey.of(row, new int[]{1, 2}));
+        Assert.assertEquals(SideCacheKey.of(1L), SideCacheKey.of(row, new int[]{1}));
+    }
+
+    @Test
+    public void mixedTypeKeys() {
+        // varchar维表字段和int流字段
+        Assert.assertEquals(SideCacheKey.of(5), SideCacheKey.of("5"));
+        Assert.assertEquals(SideCacheKey.of(-5L), SideCacheKey.of(BinaryString.fromString("-5")));
+        // oracle NUMBER, decimal, bigint unsigned
+        Assert.assertEquals(SideCacheKey.of(5), SideCacheKey.of(new BigDecimal("5")));
+        Assert.assertEquals(SideCacheKey.of(5), SideCacheKey.of(new BigDecimal("5.00")));
+        Assert.assertEquals(SideCacheKey.of(5L), SideCacheKey.of(BigInteger.valueOf(5)));
+        Assert.assertEquals(SideCacheKey.of(5), SideCacheKey.of(Decimal.fromBigDecimal(new BigDecimal("5"), 10, 0)));
+        Assert.assertEquals(SideCacheKey.of(0), SideCacheKey.of(new BigDecimal("0.00")));
+        Assert.assertEquals(SideCacheKey.of(Lists.newArrayList(5, "a")), SideCacheKey.of(Lists.newArrayList(new BigDecimal("5"), "a")));
+
+        // 字符串形式不同的值仍然不相等
+        Assert.assertNotEquals(SideCacheKey.of(5), SideCacheKey.of("05"));
+        Assert.assertNotEquals(SideCacheKey.of(5), SideCacheKey.of("+5"));
+        Assert.assertNotEquals(SideCacheKey.of(0), SideCacheKey.of("-0"));
+        Assert.assertEquals(SideCacheKey.of("1.50"), SideCacheKey.of(new BigDecimal("1.50")));
+        BigInteger unsignedMax = new BigInteger("18446744073709551615");
+        Assert.assertEquals(SideCacheKey.of(unsignedMax.toString()), SideCacheKey.of(unsignedMax));
+        Assert.assertEquals(SideCacheKey.of("18446744073709551615"), SideCacheKey.of(new BigDecimal(unsignedMax)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.enums.ECacheContentType;
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.dtstack.flink.sql.side.CacheMissVal;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SideCacheWeigherTest {
+
+    @Test
+    public void weighCacheObj() {
+        Map<String, Object> oneRow = Maps.newHashMap();
+        oneRow.put("id", 1L);
+        oneRow.put("name", "dtstack");
+        CacheObj singleLine = CacheObj.buildCacheObj(ECacheContentType.SingleLine, oneRow);
+
+        List<Map<String, Object>> rows = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            rows.add(oneRow);
+        }
+        CacheObj multiLine = CacheObj.buildCacheObj(ECacheContentType.MultiLine, rows);
+
+        int missWeight = SideCacheWeigher.weigh(SideCacheKey.of("key"), CacheMissVal.getMissKeyObj());
+        int singleWeight = SideCacheWeigher.weigh(SideCacheKey.of("key"), singleLine);
+        int multiWeight = SideCacheWeigher.weigh(SideCacheKey.of("key"), multiLine);
+        Assert.assertTrue(missWeight > 0);
+        Assert.assertTrue(singleWeight > missWeight);
+        Assert.assertTrue(multiWeight > 50 * singleWeight);
+    }
+
+    @Test
+    public void boundByBytes() {
+        AbstractSideTableInfo sideTableInfo = mock(AbstractSideTableInfo.class);
+        when(sideTableInfo.getCacheSize()).thenReturn(10);
+        when(sideTableInfo.getCacheTimeout()).thenReturn(1000000L);
+        when(sideTableInfo.getCacheMaxBytes()).thenReturn(64 * 1024L);
+
+        LRUSideCache lruSideCache = new LRUSideCache(sideTableInfo);
+        lruSideCache.initCache();
+        for (int i = 0; i < 10000; i++) {
+            lruSideCache.putCache(SideCacheKey.of(i), CacheObj.buildCacheObj(ECacheContentType.SingleLine, "value" + i));
+        }
+
+        Assert.assertTrue(lruSideCache.getWeightedSize() > 0);
+        Assert.assertTrue(lruSideCache.getWeightedSize() <= 64 * 1024L);
+        Assert.assertTrue(lruSideCache.getEvictionCount() > 0);
+        Assert.assertNotNull(lruSideCache.getFromCache(SideCacheKey.of(9999)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+
+public class TemporalAllSideCacheTest {
+
+    private static final String[] COLUMNS = new String[]{"id", "price", "valid_from", "valid_to"};
+
+    @Test
+    public void versionValidAtTime() {
+        TemporalAllSideCache cache = TemporalAllSideCache.builder(COLUMNS, "valid_from", null, 10)
+                .addRow(SideCacheKey.of(1), new Object[]{1, 20, new Timestamp(200L), null})
+                .addRow(SideCacheKey.of(1), new Object[]{1, 10, new Timestamp(100L), null})
+                .addRow(SideCacheKey.of(1), new Object[]{1, 30, new Timestamp(300L), null})
+                .build();
+
+        Assert.assertNull(cache.getVersion(SideCacheKey.of(1), 99L));
+        Assert.assertEquals(10, cache.getVersion(SideCacheKey.of(1), 100L).get("price"));
+        Assert.assertEquals(20, cache.getVersion(SideCacheKey.of(1), 299L).get("price"));
+        Assert.assertEquals(30, cache.getVersion(SideCacheKey.of(1), Long.MAX_VALUE).get("price"));
+        Assert.assertNull(cache.getVersion(SideCacheKey.of(2), 100L));
+        Assert.assertEquals(3L, cache.getRowCount());
+    }
+
+    @Test
+    public void validToEndsVersion() {
+        TemporalAllSideCache cache = TemporalAllSideCache.builder(COLUMNS, "valid_from", "valid_to", 10)
+                .addRow(SideCacheKey.of(1), new Object[]{1, 10, 100L, 150L})
+                .addRow(SideCacheKey.of(1), new Object[]{1, 20, 200L, null})
+                .build();
+
+        Assert.assertEquals(10, cache.getVersion(SideCacheKey.of(1), 149L).get("price"));
+        Assert.assertNull(cache.getVersion(SideCacheKey.of(1), 150L));
+        Assert.assertEquals(20, cache.getVersion(SideCacheKey.of(1), 1000L).get("price"));
+    }
+
+    @Test
+    public void onlyLatestVersionsKept() {
+        TemporalAllSideCache.Builder builder = TemporalAllSideCache.builder(COLUMNS, "valid_from", null, 2);
+        for (long i = 1; i <= 5; i++) {
+            builder.addRow(SideCacheKey.of(1), new Object[]{1, (int) i, i * 100, null});
+        }
+        TemporalAllSideCache cache = builder.build();
+
+        Assert.assertEquals(2L, cache.getRowCount());
+        Assert.assertNull(cache.getVersion(SideCacheKey.of(1), 350L));
+        Assert.assertEquals(4, cache.getVersion(SideCacheKey.of(1), 450L).get("price"));
+    }
+
+    @Test
+    public void replaceRowsOfKey() {
+        TemporalAllSideCache cache = TemporalAllSideCache.builder(COLUMNS, "valid_from", null, 10)
+                .addRow(SideCacheKey.of(1), new Object[]{1, 10, 100L, null})
+                .build();
+
+        cache.replaceRows(SideCacheKey.of(1), Lists.newArrayList(
+                ImmutableMap.of("id", 1, "price", 10, "valid_from", 100L),
+                ImmutableMap.of("id", 1, "price", 20, "valid_from", 200L)));
+        Assert.assertEquals(2L, cache.getRowCount());
+        Assert.assertEquals(2, cache.getRows(SideCacheKey.of(1)).size());
+        Assert.assertEquals(20, cache.getVersion(SideCacheKey.of(1), 200L).get("price"));
+
+        cache.replaceRows(SideCacheKey.of(1), Lists.newArrayList());
+        Assert.assertEquals(0L, cache.getRowCount());
+        Assert.assertTrue(cache.getRows(SideCacheKey.of(1)).isEmpty());
+    }
+}
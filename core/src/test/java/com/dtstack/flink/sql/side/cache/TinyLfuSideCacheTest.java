@@ -0,0 +1,115 @@
+package com.dtstack.flink.sql.side.cache;
+
+import com.dtstack.flink.sql.enums.ECacheContentType;
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TinyLfuSideCacheTest {
+
+    private static final SideCacheKey TEST_KEY = SideCacheKey.of("test");
+
+    private static final int KEY_NUM = 10000;
+
+    private static final int CACHE_SIZE = 200;
+
+    private AbstractSideTableInfo sideTableInfo;
+
+    @Before
+    public void before() {
+        sideTableInfo = mock(AbstractSideTableInfo.class);
+        when(sideTableInfo.getCacheSize()).thenReturn(CACHE_SIZE);
+        when(sideTableInfo.getCacheTimeout()).thenReturn(1000000L);
+    }
+
+    @Test
+    public void putAndGet() {
+        TinyLfuSideCache sideCache = new TinyLfuSideCache(sideTableInfo);
+        sideCache.initCache();
+        Assert.assertNull(sideCache.getFromCache(TEST_KEY));
+        sideCache.putCache(TEST_KEY, CacheObj.buildCacheObj(ECacheContentType.SingleLine, "a"));
+        Assert.assertEquals("a", sideCache.getFromCache(TEST_KEY).getContent());
+        Assert.assertFalse(sideCache.tryStartRefresh(TEST_KEY));
+    }
+
+    @Test
+    public void hottestIsBounded() {
+        TinyLfuSideCache sideCache = new TinyLfuSideCache(sideTableInfo);
+        sideCache.initCache();
+        for (long i = 0; i < 50; i++) {
+            sideCache.putCache(SideCacheKey.of(i), CacheObj.buildCacheObj(ECacheContentType.SingleLine, i));
+        }
+        Assert.assertEquals(10, sideCache.hottest(10).size());
+        Assert.assertEquals(50, sideCache.hottest(100).size());
+    }
+
+    @Test
+    public void refreshOnlyOnceUntilPut() throws InterruptedException {
+        when(sideTableInfo.getCacheRefreshTime()).thenReturn(10L);
+        TinyLfuSideCache sideCache = new TinyLfuSideCache(sideTableInfo);
+        sideCache.initCache();
+        sideCache.putCache(TEST_KEY, CacheObj.buildCacheObj(ECacheContentType.SingleLine, "a"));
+        Assert.assertFalse(sideCache.tryStartRefresh(TEST_KEY));
+
+        Thread.sleep(20);
+        Assert.assertTrue(sideCache.tryStartRefresh(TEST_KEY));
+        Assert.assertFalse(sideCache.tryStartRefresh(TEST_KEY));
+        Assert.assertEquals("a", sideCache.getFromCache(TEST_KEY).getContent());
+
+        sideCache.putCache(TEST_KEY, CacheObj.buildCacheObj(ECacheContentType.SingleLine, "b"));
+        Assert.assertFalse(sideCache.tryStartRefresh(TEST_KEY));
+        Assert.assertEquals("b", sideCache.getFromCache(TEST_KEY).getContent());
+    }
+
+    @Test
+    public void hitRatioUnderZipfianKeys() {
+        LRUSideCache lruSideCache = new LRUSideCache(sideTableInfo);
+        lruSideCache.initCache();
+        TinyLfuSideCache tinyLfuSideCache = new TinyLfuSideCache(sideTableInfo);
+        tinyLfuSideCache.initCache();
+
+        int[] keys = zipfianKeys(200000, 1.0, 2020);
+        double lruHitRatio = hitRatio(lruSideCache, keys);
+        double tinyLfuHitRatio = hitRatio(tinyLfuSideCache, keys);
+        System.out.println(String.format("zipfian hit ratio, lru: %.4f, tinylfu: %.4f", lruHitRatio, tinyLfuHitRatio));
+        Assert.assertTrue(tinyLfuHitRatio > lruHitRatio);
+    }
+
+    private double hitRatio(AbstractSideCache sideCache, int[] keys) {
+        CacheObj value = CacheObj.buildCacheObj(ECacheContentType.SingleLine, "v");
+        int hit = 0;
+        for (int key : keys) {
+            SideCacheKey cacheKey = SideCacheKey.of(key);
+            if (sideCache.getFromCache(cacheKey) != null) {
+                hit++;
+            } else {
+                sideCache.putCache(cacheKey, value);
+            }
+        }
+        return (double) hit / keys.length;
+    }
+
+    private int[] zipfianKeys(int num, double skew, long seed) {
+        double[] cdf = new double[KEY_NUM];
+        double sum = 0;
+        for (int i = 0; i < KEY_NUM; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+
+        Random random = new Random(seed);
+        int[] keys = new int[num];
+        for (int i = 0; i < num; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            keys[i] = index >= 0 ? index : -index - 1;
+        }
+        return keys;
+    }
+}
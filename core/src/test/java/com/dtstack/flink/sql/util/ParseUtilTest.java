@@ -6,6 +6,8 @@ import com.google.common.collect.Lists;
 import org.apache.calcite.sql.SqlBasicCall;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -59,6 +61,49 @@ public class ParseUtilTest {
         ParseUtils.parseJoinCompareOperate(sqlNode, Lists.newArrayList());
     }
 
+    @Test
+    public void parseAndKeepsBetween() throws Exception {
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        ParseUtils.parseAnd(parseCondition("s.k = a.k AND a.ip BETWEEN s.start_ip AND s.end_ip"), sqlNodeList);
+
+        Assert.assertEquals(2, sqlNodeList.size());
+        Assert.assertEquals(SqlKind.EQUALS, sqlNodeList.get(0).getKind());
+        Assert.assertEquals(SqlKind.BETWEEN, sqlNodeList.get(1).getKind());
+    }
+
+    @Test
+    public void parseAndExpandBetween() throws Exception {
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        ParseUtils.parseAndExpandBetween(parseCondition("s.k = a.k AND a.ip BETWEEN s.start_ip AND s.end_ip"), sqlNodeList);
+
+        Assert.assertEquals(3, sqlNodeList.size());
+        Assert.assertEquals(SqlKind.EQUALS, sqlNodeList.get(0).getKind());
+        assertComparison(sqlNodeList.get(1), SqlKind.LESS_THAN_OR_EQUAL, "S.START_IP", "A.IP");
+        assertComparison(sqlNodeList.get(2), SqlKind.GREATER_THAN_OR_EQUAL, "S.END_IP", "A.IP");
+    }
+
+    @Test
+    public void notRangeBetween() throws Exception {
+        Assert.assertFalse(ParseUtils.isRangeBetween(parseCondition("a.ip NOT BETWEEN s.start_ip AND s.end_ip")));
+        Assert.assertFalse(ParseUtils.isRangeBetween(parseCondition("a.ip BETWEEN SYMMETRIC s.start_ip AND s.end_ip")));
+        Assert.assertFalse(ParseUtils.isRangeBetween(parseCondition("a.ip >= s.start_ip")));
+
+        List<SqlNode> sqlNodeList = Lists.newArrayList();
+        ParseUtils.parseAndExpandBetween(parseCondition("a.ip NOT BETWEEN s.start_ip AND s.end_ip"), sqlNodeList);
+        Assert.assertEquals(1, sqlNodeList.size());
+        Assert.assertEquals(SqlKind.BETWEEN, sqlNodeList.get(0).getKind());
+    }
+
+    private static SqlNode parseCondition(String condition) throws Exception {
+        return SqlParser.create(condition).parseExpression();
+    }
+
+    private static void assertComparison(SqlNode sqlNode, SqlKind kind, String left, String right) {
+        Assert.assertEquals(kind, sqlNode.getKind());
+        Assert.assertEquals(left, ((SqlBasicCall) sqlNode).getOperands()[0].toString());
+        Assert.assertEquals(right, ((SqlBasicCall) sqlNode).getOperands()[1].toString());
+    }
+
     @Test
     public void transformNotEqualsOperator(){
         SqlKind sqlKind = mock(SqlKind.class);
@@ -24,6 +24,7 @@ import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.elasticsearch6.table.Elasticsearch6SideTableInfo;
 import com.dtstack.flink.sql.side.elasticsearch6.util.Es6Util;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.CollectionUtils;
@@ -61,7 +62,7 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
     private static final Logger LOG = LoggerFactory.getLogger(Elasticsearch6AllReqRow.class);
 
     private static final int CONN_RETRY_NUM = 3;
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
     private transient RestHighLevelClient rhlClient;
     private SearchRequest searchRequest;
     private BoolQueryBuilder boolQueryBuilder;
@@ -84,7 +85,7 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
             inputParams.add(equalObj);
         }
 
-        String key = buildKey(inputParams);
+        SideCacheKey key = SideCacheKey.of(inputParams);
         List<Map<String, Object>> cacheList = cacheRef.get().get(key);
         if (CollectionUtils.isEmpty(cacheList)) {
             sendOutputRow(value, null, out);
@@ -126,32 +127,22 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
         return row;
     }
 
-    private String buildKey(List<Object> equalValList) {
-        StringBuilder sb = new StringBuilder("");
-        for (Object equalVal : equalValList) {
-            sb.append(equalVal).append("_");
-        }
-
-        return sb.toString();
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
     }
 
-    private String buildKey(Map<String, Object> val, List<String> equalFieldList) {
-        StringBuilder sb = new StringBuilder("");
-        for (String equalField : equalFieldList) {
-            sb.append(val.get(equalField)).append("_");
-        }
-
-        return sb.toString();
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>>) cacheRef;
     }
 
     @Override
     protected void initCache() {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         try {
-            // create search request and build where cause
-            searchRequest = Es6Util.setSearchRequest(sideInfo);
-            boolQueryBuilder = Es6Util.setPredicateclause(sideInfo);
             loadData(newCache);
         } catch (Exception e) {
             LOG.error("", e);
@@ -162,7 +153,7 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
     @Override
     protected void reloadCache() {
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         try {
             loadData(newCache);
         } catch (Exception e) {
@@ -174,8 +165,13 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
         LOG.info("----- elasticsearch6 all cacheRef reload end:{}", Calendar.getInstance());
     }
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) throws IOException {
+    private void loadData(Map<SideCacheKey, List<Map<String, Object>>> tmpCache) throws IOException {
         Elasticsearch6SideTableInfo tableInfo = (Elasticsearch6SideTableInfo) sideInfo.getSideTableInfo();
+        if (searchRequest == null) {
+            // create search request and build where cause, 共享缓存时接管刷新的subtask没有执行过initCache
+            searchRequest = Es6Util.setSearchRequest(sideInfo);
+            boolQueryBuilder = Es6Util.setPredicateclause(sideInfo);
+        }
 
         try {
             for (int i = 0; i < CONN_RETRY_NUM; i++) {
@@ -228,7 +224,7 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
     }
 
 
-    private void searchData(SearchSourceBuilder searchSourceBuilder, Map<String, List<Map<String, Object>>> tmpCache) {
+    private void searchData(SearchSourceBuilder searchSourceBuilder, Map<SideCacheKey, List<Map<String, Object>>> tmpCache) {
 
         Object[] searchAfterParameter = null;
         SearchResponse searchResponse = null;
@@ -258,7 +254,7 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
     }
 
     // data load to cache
-    private void loadToCache(SearchHit[] searchHits, Map<String, List<Map<String, Object>>> tmpCache) {
+    private void loadToCache(SearchHit[] searchHits, Map<SideCacheKey, List<Map<String, Object>>> tmpCache) {
         String[] sideFieldNames = StringUtils.split(sideInfo.getSideSelectFields().trim(), ",");
         String[] sideFieldTypes = sideInfo.getSideTableInfo().getFieldTypes();
 
@@ -271,7 +267,11 @@ public class Elasticsearch6AllReqRow extends BaseAllReqRow implements Serializab
                 oneRow.put(fieldName.trim(), object);
             }
 
-            String cacheKey = buildKey(oneRow, sideInfo.getEqualFieldList());
+            if (!isKeyInPartition(oneRow)) {
+                continue;
+            }
+
+            SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
             List<Map<String, Object>> list = tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList());
             list.add(oneRow);
 
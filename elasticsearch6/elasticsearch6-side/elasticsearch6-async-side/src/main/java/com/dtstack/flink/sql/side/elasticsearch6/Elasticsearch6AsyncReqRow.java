@@ -26,6 +26,7 @@ import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.PredicateInfo;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.elasticsearch6.table.Elasticsearch6SideTableInfo;
 import com.dtstack.flink.sql.side.elasticsearch6.util.Es6Util;
 import com.dtstack.flink.sql.util.ParseUtils;
@@ -86,7 +87,7 @@ public class Elasticsearch6AsyncReqRow extends BaseAsyncReqRow implements Serial
 
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
-        String key = buildCacheKey(inputParams);
+        SideCacheKey key = buildCacheKey(inputParams);
         BoolQueryBuilder boolQueryBuilder = Es6Util.setPredicateclause(sideInfo);
         boolQueryBuilder = setInputParams(inputParams, boolQueryBuilder);
         SearchSourceBuilder searchSourceBuilder = initConfiguration();
@@ -138,8 +139,8 @@ public class Elasticsearch6AsyncReqRow extends BaseAsyncReqRow implements Serial
                         }
                     }
                 } else {
-                    dealMissKey(input, resultFuture);
                     dealCacheData(key, CacheMissVal.getMissKeyObj());
+                    dealMissKey(input, resultFuture);
                 }
             }
 
@@ -152,16 +153,6 @@ public class Elasticsearch6AsyncReqRow extends BaseAsyncReqRow implements Serial
         });
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
-        StringBuilder sb = new StringBuilder();
-        for (Object ele : inputParams.values()) {
-            sb.append(ele)
-                    .append("_");
-        }
-
-        return sb.toString();
-    }
 
     private void loadDataToCache(SearchHit[] searchHits, List<BaseRow> rowList, List<Object> cacheContent, BaseRow copyCrow) {
         List<Object> results = Lists.newArrayList();
@@ -25,6 +25,7 @@ import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.elasticsearch7.table.Elasticsearch7SideTableInfo;
 import com.dtstack.flink.sql.side.elasticsearch7.util.Es7Util;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.CollectionUtils;
@@ -65,7 +66,7 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
     private static final Logger LOG = LoggerFactory.getLogger(Elasticsearch7AllReqRow.class);
 
     private static final int CONN_RETRY_NUM = 3;
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
     private transient RestHighLevelClient rhlClient;
     private SearchRequest searchRequest;
     private BoolQueryBuilder boolQueryBuilder;
@@ -87,7 +88,7 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
             inputParams.add(equalObj);
         }
 
-        String key = buildKey(inputParams);
+        SideCacheKey key = SideCacheKey.of(inputParams);
         List<Map<String, Object>> cacheList = cacheRef.get().get(key);
         if (CollectionUtils.isEmpty(cacheList)) {
             sendOutputRow(value, null, out);
@@ -104,14 +105,22 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
         }
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         try {
-            // create search request and build where cause
-            searchRequest = Es7Util.setSearchRequest(sideInfo);
-            boolQueryBuilder = Es7Util.setPredicateclause(sideInfo);
             loadData(newCache);
         } catch (Exception e) {
             LOG.error("", e);
@@ -122,7 +131,7 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
     @Override
     protected void reloadCache() {
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         try {
             loadData(newCache);
         } catch (Exception e) {
@@ -134,8 +143,13 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
         LOG.info("----- elasticsearch7 all cacheRef reload end:{}", Calendar.getInstance());
     }
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) throws IOException {
+    private void loadData(Map<SideCacheKey, List<Map<String, Object>>> tmpCache) throws IOException {
         Elasticsearch7SideTableInfo tableInfo = (Elasticsearch7SideTableInfo) sideInfo.getSideTableInfo();
+        if (searchRequest == null) {
+            // create search request and build where cause, 共享缓存时接管刷新的subtask没有执行过initCache
+            searchRequest = Es7Util.setSearchRequest(sideInfo);
+            boolQueryBuilder = Es7Util.setPredicateclause(sideInfo);
+        }
 
         try {
             for (int i = 0; i < CONN_RETRY_NUM; i++) {
@@ -171,7 +185,7 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
         }
     }
 
-    private void searchData(SearchSourceBuilder searchSourceBuilder, Map<String, List<Map<String, Object>>> tmpCache) {
+    private void searchData(SearchSourceBuilder searchSourceBuilder, Map<SideCacheKey, List<Map<String, Object>>> tmpCache) {
 
         Object[] searchAfterParameter = null;
         SearchResponse searchResponse = null;
@@ -216,7 +230,7 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
     }
 
     // data load to cache
-    private void loadToCache(SearchHit[] searchHits, Map<String, List<Map<String, Object>>> tmpCache) {
+    private void loadToCache(SearchHit[] searchHits, Map<SideCacheKey, List<Map<String, Object>>> tmpCache) {
         String[] sideFieldNames = StringUtils.split(sideInfo.getSideSelectFields().trim(), ",");
         String[] sideFieldTypes = sideInfo.getSideTableInfo().getFieldTypes();
 
@@ -229,31 +243,17 @@ public class Elasticsearch7AllReqRow extends BaseAllReqRow implements Serializab
                 oneRow.put(fieldName.trim(), object);
             }
 
-            String cacheKey = buildKey(oneRow, sideInfo.getEqualFieldList());
+            if (!isKeyInPartition(oneRow)) {
+                continue;
+            }
+
+            SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
             List<Map<String, Object>> list = tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList());
             list.add(oneRow);
 
         }
     }
 
-    private String buildKey(List<Object> equalValList) {
-        StringBuilder sb = new StringBuilder("");
-        for (Object equalVal : equalValList) {
-            sb.append(equalVal).append("_");
-        }
-
-        return sb.toString();
-    }
-
-    private String buildKey(Map<String, Object> val, List<String> equalFieldList) {
-        StringBuilder sb = new StringBuilder("");
-        for (String equalField : equalFieldList) {
-            sb.append(val.get(equalField)).append("_");
-        }
-
-        return sb.toString();
-    }
-
     public int getFetchSize() {
         return 1000;
     }
@@ -22,6 +22,7 @@ package com.dtstack.flink.sql.side.elasticsearch7;
 import com.dtstack.flink.sql.enums.ECacheContentType;
 import com.dtstack.flink.sql.side.*;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.elasticsearch7.table.Elasticsearch7SideTableInfo;
 import com.dtstack.flink.sql.side.elasticsearch7.util.Es7Util;
 import com.dtstack.flink.sql.util.ParseUtils;
@@ -85,7 +86,7 @@ public class Elasticsearch7AsyncReqRow extends BaseAsyncReqRow implements Serial
 
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
-        String key = buildCacheKey(inputParams);
+        SideCacheKey key = buildCacheKey(inputParams);
         BoolQueryBuilder boolQueryBuilder = Es7Util.setPredicateclause(sideInfo);
         boolQueryBuilder = setInputParams(inputParams, boolQueryBuilder);
         SearchSourceBuilder searchSourceBuilder = initConfiguration();
@@ -134,8 +135,8 @@ public class Elasticsearch7AsyncReqRow extends BaseAsyncReqRow implements Serial
                         }
                     }
                 } else {
-                    dealMissKey(input, resultFuture);
                     dealCacheData(key, CacheMissVal.getMissKeyObj());
+                    dealMissKey(input, resultFuture);
                 }
             }
 
@@ -147,15 +148,6 @@ public class Elasticsearch7AsyncReqRow extends BaseAsyncReqRow implements Serial
         });
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
-        StringBuilder sb = new StringBuilder();
-        for (Object ele: inputParams.values()) {
-            sb.append(ele)
-                    .append("_");
-        }
-        return sb.toString();
-    }
 
     protected List<BaseRow> getRows(BaseRow inputRow, List<Object> cacheContent, List<Object> results) {
         List<BaseRow> rowList = com.google.common.collect.Lists.newArrayList();
@@ -123,6 +123,17 @@ public class HbaseAllReqRow extends BaseAllReqRow {
         return row;
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<String, Map<String, Object>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
         Map<String, Map<String, Object>> newCache = Maps.newConcurrentMap();
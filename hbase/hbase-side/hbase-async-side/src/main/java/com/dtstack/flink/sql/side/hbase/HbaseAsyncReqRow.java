@@ -25,6 +25,7 @@ import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.dtstack.flink.sql.side.BaseAsyncReqRow;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.hbase.rowkeydealer.AbstractRowKeyModeDealer;
 import com.dtstack.flink.sql.side.hbase.rowkeydealer.PreRowKeyModeDealerDealer;
 import com.dtstack.flink.sql.side.hbase.rowkeydealer.RowKeyEqualModeDealer;
@@ -174,11 +175,20 @@ public class HbaseAsyncReqRow extends BaseAsyncReqRow {
 
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
-        rowKeyMode.asyncGetData(tableName, buildCacheKey(inputParams), input, resultFuture, sideInfo.getSideCache());
+        rowKeyMode.asyncGetData(tableName, buildRowKey(inputParams), input, resultFuture, sideInfo.getSideCache());
     }
 
     @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
+    public SideCacheKey buildCacheKey(Map<String, Object> inputParams) {
+        return SideCacheKey.of(buildRowKey(inputParams));
+    }
+
+    @Override
+    protected SideCacheKey buildCacheKey(BaseRow input) {
+        return buildCacheKey(parseInputParam(input));
+    }
+
+    private String buildRowKey(Map<String, Object> inputParams) {
         return ((HbaseAsyncSideInfo)sideInfo).getRowKeyBuilder().getRowKey(inputParams);
     }
 
@@ -25,6 +25,7 @@ import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.cache.AbstractSideCache;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.hbase.utils.HbaseUtils;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.collect.Lists;
@@ -83,10 +84,10 @@ public class PreRowKeyModeDealerDealer extends AbstractRowKeyModeDealer {
     private String dealOneRow(ArrayList<ArrayList<KeyValue>> args, String rowKeyStr, BaseRow input,
                               ResultFuture<BaseRow> resultFuture, AbstractSideCache sideCache) {
         if(args == null || args.size() == 0){
-            dealMissKey(input, resultFuture);
             if (openCache) {
-                sideCache.putCache(rowKeyStr, CacheMissVal.getMissKeyObj());
+                sideCache.putCache(SideCacheKey.of(rowKeyStr), CacheMissVal.getMissKeyObj());
             }
+            dealMissKey(input, resultFuture);
         }
 
         List<Object> cacheContent = Lists.newArrayList();
@@ -141,12 +142,12 @@ public class PreRowKeyModeDealerDealer extends AbstractRowKeyModeDealer {
             }
         }
 
-        if (rowList.size() > 0){
-            RowDataComplete.completeBaseRow(resultFuture, rowList);
+        if(openCache){
+            sideCache.putCache(SideCacheKey.of(rowKeyStr), CacheObj.buildCacheObj(ECacheContentType.MultiLine, cacheContent));
         }
 
-        if(openCache){
-            sideCache.putCache(rowKeyStr, CacheObj.buildCacheObj(ECacheContentType.MultiLine, cacheContent));
+        if (rowList.size() > 0){
+            RowDataComplete.completeBaseRow(resultFuture, rowList);
         }
 
         return "";
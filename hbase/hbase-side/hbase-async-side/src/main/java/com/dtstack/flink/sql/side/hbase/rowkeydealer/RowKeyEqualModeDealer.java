@@ -25,6 +25,7 @@ import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.cache.AbstractSideCache;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.hbase.utils.HbaseUtils;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.collect.Lists;
@@ -100,17 +101,17 @@ public class RowKeyEqualModeDealer extends AbstractRowKeyModeDealer {
 
                         BaseRow row = fillData(input, sideVal);
                         if(openCache){
-                            sideCache.putCache(rowKeyStr, CacheObj.buildCacheObj(ECacheContentType.SingleLine, sideVal));
+                            sideCache.putCache(SideCacheKey.of(rowKeyStr), CacheObj.buildCacheObj(ECacheContentType.SingleLine, sideVal));
                         }
                         RowDataComplete.completeBaseRow(resultFuture, row);
                     } catch (Exception e) {
                         resultFuture.completeExceptionally(e);
                     }
                 }else{
-                    dealMissKey(input, resultFuture);
                     if(openCache){
-                        sideCache.putCache(rowKeyStr, CacheMissVal.getMissKeyObj());
+                        sideCache.putCache(SideCacheKey.of(rowKeyStr), CacheMissVal.getMissKeyObj());
                     }
+                    dealMissKey(input, resultFuture);
                 }
             }catch (Exception e){
                 resultFuture.completeExceptionally(e);
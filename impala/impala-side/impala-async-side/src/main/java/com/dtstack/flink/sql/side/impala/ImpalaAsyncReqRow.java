@@ -38,9 +38,6 @@ import org.slf4j.LoggerFactory;
 import java.security.PrivilegedAction;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Date: 2019/11/12
@@ -146,16 +143,12 @@ public class ImpalaAsyncReqRow extends RdbAsyncReqRow {
                                   BaseRow input,
                           ResultFuture<BaseRow> resultFuture,
                           SQLClient rdbSqlClient,
-                          AtomicLong failCounter,
-                          AtomicBoolean finishFlag,
-                          CountDownLatch latch) {
+                          int attempt) {
         if (ugi == null) {
             doAsyncQueryData(inputParams,
                 input, resultFuture,
                 rdbSqlClient,
-                failCounter,
-                finishFlag,
-                latch);
+                attempt);
         } else {
             // Kerberos
             ugi.doAs(new PrivilegedAction<Object>() {
@@ -164,9 +157,7 @@ public class ImpalaAsyncReqRow extends RdbAsyncReqRow {
                     doAsyncQueryData(inputParams,
                         input, resultFuture,
                         rdbSqlClient,
-                        failCounter,
-                        finishFlag,
-                        latch);
+                        attempt);
                     return null;
                 }
             });
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka;
+
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.dtstack.flink.sql.side.BaseAllReqRow;
+import com.dtstack.flink.sql.side.FieldInfo;
+import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.dtstack.flink.sql.side.kafka.table.KafkaSideTableInfo;
+import com.dtstack.flink.sql.source.kafka.deserialization.DeserializationSchemaFactory;
+import com.dtstack.flink.sql.util.RowDataComplete;
+import com.google.common.collect.Maps;
+import org.apache.calcite.sql.JoinType;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.apache.flink.types.Row;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * 从compacted topic消费changelog构建维表: 启动时从最早的offset读到各分区当前的最新offset后才开始join,
+ * 之后后台线程持续消费, 按消息key覆盖旧的行, tombstone删除, 查询全部走本地索引.
+ * 每次都从最早的offset重建, 不提交消费位点; 消费线程异常退出后由定时reload重建索引
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+public class KafkaAllReqRow extends BaseAllReqRow {
+
+    private static final long serialVersionUID = -2735218924117342580L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaAllReqRow.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(1000);
+
+    private static final long CONSUMER_CLOSE_WAIT_MS = 5_000L;
+
+    private final KafkaSideTableInfo tableInfo;
+
+    private transient DeserializationSchema<Row> deserializationSchema;
+
+    private transient volatile KafkaChangelogIndex changelogIndex;
+
+    private transient KafkaConsumer<byte[], byte[]> consumer;
+
+    private transient Thread consumeThread;
+
+    private transient volatile boolean closed;
+
+    public KafkaAllReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
+        super(new KafkaAllSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
+        this.tableInfo = (KafkaSideTableInfo) sideTableInfo;
+    }
+
+    @Override
+    protected void initCache() throws SQLException {
+        deserializationSchema = DeserializationSchemaFactory.createDeserializationSchema(
+                tableInfo.toFormatInfo(), tableInfo.getRowTypeInfo());
+        startConsume();
+    }
+
+    /**
+     * 索引由消费线程持续更新, 只在消费线程退出后从最早的offset重建
+     */
+    @Override
+    protected void reloadCache() {
+        if (closed || (consumeThread != null && consumeThread.isAlive())) {
+            return;
+        }
+
+        LOG.warn("changelog consumer of side table {} stopped, rebuild from the earliest offset", tableInfo.getName());
+        startConsume();
+    }
+
+    @Override
+    protected long countCacheRows() {
+        KafkaChangelogIndex index = changelogIndex;
+        return index == null ? -1 : index.getRowNum();
+    }
+
+    @Override
+    public void flatMap(BaseRow input, Collector<BaseRow> out) throws Exception {
+        GenericRow genericRow = (GenericRow) input;
+        List<Object> inputParams = new ArrayList<>(sideInfo.getEqualValIndex().size());
+        for (Integer conValIndex : sideInfo.getEqualValIndex()) {
+            Object equalObj = genericRow.getField(conValIndex);
+            if (equalObj == null) {
+                if (sideInfo.getJoinType() == JoinType.LEFT) {
+                    RowDataComplete.collectBaseRow(out, fillData(input, null));
+                }
+                return;
+            }
+            inputParams.add(equalObj);
+        }
+
+        Collection<Map<String, Object>> rows = changelogIndex.get(SideCacheKey.of(inputParams));
+        if (rows.isEmpty() && sideInfo.getJoinType() == JoinType.LEFT) {
+            RowDataComplete.collectBaseRow(out, fillData(input, null));
+            return;
+        }
+        for (Map<String, Object> one : rows) {
+            RowDataComplete.collectBaseRow(out, fillData(input, one));
+        }
+    }
+
+    private void startConsume() {
+        KafkaChangelogIndex index = new KafkaChangelogIndex();
+        KafkaConsumer<byte[], byte[]> newConsumer = new KafkaConsumer<>(getKafkaProperties());
+        try {
+            bootstrap(newConsumer, index);
+        } catch (RuntimeException e) {
+            newConsumer.close();
+            throw e;
+        }
+
+        changelogIndex = index;
+        consumer = newConsumer;
+        consumeThread = new Thread(() -> consume(newConsumer, index), "kafka-side-changelog-" + tableInfo.getName());
+        consumeThread.setDaemon(true);
+        consumeThread.start();
+    }
+
+    /**
+     * 读到开始时各分区的最新offset为止, 超时抛出异常
+     */
+    private void bootstrap(KafkaConsumer<byte[], byte[]> kafkaConsumer, KafkaChangelogIndex index) {
+        List<TopicPartition> partitions = kafkaConsumer.partitionsFor(tableInfo.getTopic()).stream()
+                .map(partitionInfo -> new TopicPartition(partitionInfo.topic(), partitionInfo.partition()))
+                .collect(Collectors.toList());
+        kafkaConsumer.assign(partitions);
+        kafkaConsumer.seekToBeginning(partitions);
+        Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+
+        long deadline = System.currentTimeMillis() + tableInfo.getBootstrapTimeoutMs();
+        while (!isCaughtUp(kafkaConsumer, endOffsets)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException(String.format("bootstrap side table %s from topic %s timeout after %d ms",
+                        tableInfo.getName(), tableInfo.getTopic(), tableInfo.getBootstrapTimeoutMs()));
+            }
+            pollAndApply(kafkaConsumer, index);
+        }
+        LOG.info("side table {} bootstrapped from topic {}, rows:{}", tableInfo.getName(), tableInfo.getTopic(), index.getRowNum());
+    }
+
+    private boolean isCaughtUp(KafkaConsumer<byte[], byte[]> kafkaConsumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            if (kafkaConsumer.position(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void consume(KafkaConsumer<byte[], byte[]> kafkaConsumer, KafkaChangelogIndex index) {
+        try {
+            while (!closed) {
+                pollAndApply(kafkaConsumer, index);
+            }
+        } catch (WakeupException e) {
+            // close
+        } catch (Throwable e) {
+            LOG.error("consume changelog of side table " + tableInfo.getName() + " error", e);
+        } finally {
+            kafkaConsumer.close();
+        }
+    }
+
+    private void pollAndApply(KafkaConsumer<byte[], byte[]> kafkaConsumer, KafkaChangelogIndex index) {
+        for (ConsumerRecord<byte[], byte[]> record : kafkaConsumer.poll(POLL_TIMEOUT)) {
+            try {
+                apply(record, index);
+            } catch (Exception e) {
+                LOG.error("skip changelog record, topic:{}, partition:{}, offset:{}",
+                        record.topic(), record.partition(), record.offset(), e);
+            }
+        }
+    }
+
+    private void apply(ConsumerRecord<byte[], byte[]> record, KafkaChangelogIndex index) throws Exception {
+        Object recordKey = record.key() == null ? null : new String(record.key(), Charset.forName(tableInfo.getCharsetName()));
+        if (record.value() == null) {
+            // tombstone, 没有key的tombstone无法对应到行
+            if (recordKey != null) {
+                index.delete(recordKey);
+            }
+            return;
+        }
+
+        Row row = deserializationSchema.deserialize(record.value());
+        if (row == null) {
+            return;
+        }
+
+        String[] fields = tableInfo.getFields();
+        Map<String, Object> oneRow = Maps.newHashMapWithExpectedSize(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            oneRow.put(fields[i], row.getField(i));
+        }
+
+        SideCacheKey joinKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
+        // 没有key的消息按join key覆盖
+        recordKey = recordKey == null ? joinKey : recordKey;
+        if (isKeyInPartition(oneRow)) {
+            index.upsert(recordKey, joinKey, oneRow);
+        } else {
+            index.delete(recordKey);
+        }
+    }
+
+    private Properties getKafkaProperties() {
+        Properties props = new Properties();
+        props.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, tableInfo.getBootstrapServers());
+        props.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        for (String key : tableInfo.getKafkaParamKeys()) {
+            props.setProperty(key, tableInfo.getKafkaParam(key));
+        }
+        props.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        return props;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        super.close();
+        if (consumeThread != null) {
+            consumer.wakeup();
+            consumeThread.join(CONSUMER_CLOSE_WAIT_MS);
+        }
+    }
+}
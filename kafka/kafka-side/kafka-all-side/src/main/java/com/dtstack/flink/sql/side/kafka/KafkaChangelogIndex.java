@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka;
+
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * changelog维表的本地索引, 按join key查询.
+ * 只由一个消费线程写, 同一join key下的行以新的map整体替换, 查询线程读到的行集合不会再被修改
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+public class KafkaChangelogIndex {
+
+    private final Map<SideCacheKey, Map<Object, Map<String, Object>>> rowsByJoinKey = new ConcurrentHashMap<>();
+
+    // 消息key -> join key, 删除或者join key变化时找到旧的位置, 只在消费线程访问
+    private final Map<Object, SideCacheKey> joinKeyByRecordKey = new HashMap<>();
+
+    private volatile long rowNum;
+
+    public void upsert(Object recordKey, SideCacheKey joinKey, Map<String, Object> row) {
+        SideCacheKey oldJoinKey = joinKeyByRecordKey.put(recordKey, joinKey);
+        if (oldJoinKey != null && !oldJoinKey.equals(joinKey)) {
+            removeRow(oldJoinKey, recordKey);
+        }
+
+        rowsByJoinKey.compute(joinKey, (key, rows) -> {
+            Map<Object, Map<String, Object>> newRows = rows == null ? new LinkedHashMap<>() : new LinkedHashMap<>(rows);
+            newRows.put(recordKey, row);
+            return newRows;
+        });
+        rowNum = joinKeyByRecordKey.size();
+    }
+
+    public void delete(Object recordKey) {
+        SideCacheKey joinKey = joinKeyByRecordKey.remove(recordKey);
+        if (joinKey == null) {
+            return;
+        }
+
+        removeRow(joinKey, recordKey);
+        rowNum = joinKeyByRecordKey.size();
+    }
+
+    private void removeRow(SideCacheKey joinKey, Object recordKey) {
+        rowsByJoinKey.computeIfPresent(joinKey, (key, rows) -> {
+            Map<Object, Map<String, Object>> newRows = new LinkedHashMap<>(rows);
+            newRows.remove(recordKey);
+            return newRows.isEmpty() ? null : newRows;
+        });
+    }
+
+    /**
+     * @return rows of the join key, empty when not exists
+     */
+    public Collection<Map<String, Object>> get(SideCacheKey joinKey) {
+        Map<Object, Map<String, Object>> rows = rowsByJoinKey.get(joinKey);
+        return rows == null ? Collections.emptyList() : Collections.unmodifiableCollection(rows.values());
+    }
+
+    public long getRowNum() {
+        return rowNum;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka;
+
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaChangelogIndexTest {
+
+    @Test
+    public void testUpsertOverwritesByRecordKey() {
+        KafkaChangelogIndex index = new KafkaChangelogIndex();
+        index.upsert("u1", SideCacheKey.of(1), ImmutableMap.of("id", 1, "name", "a"));
+        index.upsert("u1", SideCacheKey.of(1), ImmutableMap.of("id", 1, "name", "b"));
+        index.upsert("u2", SideCacheKey.of(1), ImmutableMap.of("id", 1, "name", "c"));
+
+        Collection<Map<String, Object>> rows = index.get(SideCacheKey.of(1L));
+        assertEquals(2, rows.size());
+        assertEquals("b", rows.iterator().next().get("name"));
+        assertEquals(2, index.getRowNum());
+    }
+
+    @Test
+    public void testJoinKeyChanged() {
+        KafkaChangelogIndex index = new KafkaChangelogIndex();
+        index.upsert("u1", SideCacheKey.of(1), ImmutableMap.of("id", 1));
+        Collection<Map<String, Object>> oldRows = index.get(SideCacheKey.of(1));
+        index.upsert("u1", SideCacheKey.of(2), ImmutableMap.of("id", 2));
+
+        assertTrue(index.get(SideCacheKey.of(1)).isEmpty());
+        assertEquals(1, index.get(SideCacheKey.of(2)).size());
+        // 已经读到的行集合不受后续更新影响
+        assertEquals(1, oldRows.size());
+    }
+
+    @Test
+    public void testTombstoneDeletes() {
+        KafkaChangelogIndex index = new KafkaChangelogIndex();
+        index.upsert("u1", SideCacheKey.of(1), ImmutableMap.of("id", 1));
+        index.delete("u1");
+        index.delete("not_exists");
+
+        assertTrue(index.get(SideCacheKey.of(1)).isEmpty());
+        assertEquals(0, index.getRowNum());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka.table;
+
+import com.dtstack.flink.sql.source.kafka.table.KafkaSourceTableInfo;
+import com.dtstack.flink.sql.table.AbstractSideTableParser;
+import com.dtstack.flink.sql.table.AbstractTableInfo;
+import com.dtstack.flink.sql.util.MathUtil;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+public class KafkaSideParser extends AbstractSideTableParser {
+
+    @Override
+    public AbstractTableInfo getTableInfo(String tableName, String fieldsInfo, Map<String, Object> props) {
+        KafkaSideTableInfo kafkaSideTableInfo = new KafkaSideTableInfo();
+        kafkaSideTableInfo.setName(tableName);
+        parseFieldsInfo(fieldsInfo, kafkaSideTableInfo);
+        parseCacheProp(kafkaSideTableInfo, props);
+
+        kafkaSideTableInfo.setBootstrapServers(MathUtil.getString(props.get(KafkaSourceTableInfo.BOOTSTRAPSERVERS_KEY.toLowerCase())));
+        kafkaSideTableInfo.setTopic(MathUtil.getString(props.get(KafkaSourceTableInfo.TOPIC_KEY.toLowerCase())));
+        kafkaSideTableInfo.setSourceDataType(MathUtil.getString(props.getOrDefault(KafkaSourceTableInfo.SOURCE_DATA_TYPE_KEY.toLowerCase(), kafkaSideTableInfo.getSourceDataType())));
+        kafkaSideTableInfo.setSchemaString(MathUtil.getString(props.get(KafkaSourceTableInfo.SCHEMA_STRING_KEY.toLowerCase())));
+        kafkaSideTableInfo.setFieldDelimiter(MathUtil.getString(props.getOrDefault(KafkaSourceTableInfo.CSV_FIELD_DELIMITER_KEY.toLowerCase(), kafkaSideTableInfo.getFieldDelimiter())));
+        kafkaSideTableInfo.setCharsetName(MathUtil.getString(props.getOrDefault(KafkaSourceTableInfo.CHARSET_NAME_KEY.toLowerCase(), kafkaSideTableInfo.getCharsetName())));
+
+        if (props.containsKey(KafkaSideTableInfo.BOOTSTRAP_TIMEOUT_MS_KEY.toLowerCase())) {
+            kafkaSideTableInfo.setBootstrapTimeoutMs(MathUtil.getLongVal(props.get(KafkaSideTableInfo.BOOTSTRAP_TIMEOUT_MS_KEY.toLowerCase())));
+        }
+
+        Map<String, String> kafkaParams = props.keySet().stream()
+                .filter(key -> !key.isEmpty() && key.startsWith("kafka."))
+                .collect(Collectors.toMap(
+                        key -> key.substring(6), key -> props.get(key).toString())
+                );
+        kafkaSideTableInfo.addKafkaParam(kafkaParams);
+
+        kafkaSideTableInfo.check();
+        return kafkaSideTableInfo;
+    }
+}
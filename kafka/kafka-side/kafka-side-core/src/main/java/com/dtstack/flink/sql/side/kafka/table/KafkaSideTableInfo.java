@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka.table;
+
+import com.dtstack.flink.sql.enums.ECacheType;
+import com.dtstack.flink.sql.format.FormatType;
+import com.dtstack.flink.sql.side.AbstractSideTableInfo;
+import com.dtstack.flink.sql.source.kafka.table.KafkaSourceTableInfo;
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 由compacted topic的changelog构建的维表, 启动时从最早的offset读到最新, 之后持续消费增量,
+ * 消息key相同的记录相互覆盖, value为null的记录(tombstone)表示删除
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+public class KafkaSideTableInfo extends AbstractSideTableInfo {
+
+    private static final long serialVersionUID = -1855434397403364383L;
+
+    private static final String CURR_TYPE = "kafka";
+
+    public static final String BOOTSTRAP_TIMEOUT_MS_KEY = "bootstrapTimeoutMs";
+
+    private String bootstrapServers;
+
+    private String topic;
+
+    private String sourceDataType = FormatType.DT_NEST.name();
+
+    private String schemaString;
+
+    private String fieldDelimiter = "|";
+
+    private String charsetName = "UTF-8";
+
+    private long bootstrapTimeoutMs = 10 * 60 * 1000L;
+
+    private Map<String, String> kafkaParams = new HashMap<>();
+
+    public KafkaSideTableInfo() {
+        setType(CURR_TYPE);
+    }
+
+    public String getBootstrapServers() {
+        return bootstrapServers;
+    }
+
+    public void setBootstrapServers(String bootstrapServers) {
+        this.bootstrapServers = bootstrapServers;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getSourceDataType() {
+        return sourceDataType;
+    }
+
+    public void setSourceDataType(String sourceDataType) {
+        this.sourceDataType = sourceDataType;
+    }
+
+    public String getSchemaString() {
+        return schemaString;
+    }
+
+    public void setSchemaString(String schemaString) {
+        this.schemaString = schemaString;
+    }
+
+    public String getFieldDelimiter() {
+        return fieldDelimiter;
+    }
+
+    public void setFieldDelimiter(String fieldDelimiter) {
+        this.fieldDelimiter = fieldDelimiter;
+    }
+
+    public String getCharsetName() {
+        return charsetName;
+    }
+
+    public void setCharsetName(String charsetName) {
+        this.charsetName = charsetName;
+    }
+
+    public long getBootstrapTimeoutMs() {
+        return bootstrapTimeoutMs;
+    }
+
+    public void setBootstrapTimeoutMs(long bootstrapTimeoutMs) {
+        this.bootstrapTimeoutMs = bootstrapTimeoutMs;
+    }
+
+    public void addKafkaParam(Map<String, String> kafkaParam) {
+        kafkaParams.putAll(kafkaParam);
+    }
+
+    public String getKafkaParam(String key) {
+        return kafkaParams.get(key);
+    }
+
+    public Set<String> getKafkaParamKeys() {
+        return kafkaParams.keySet();
+    }
+
+    /**
+     * 转换成源表的格式信息, 复用kafka源表的反序列化
+     */
+    public KafkaSourceTableInfo toFormatInfo() {
+        KafkaSourceTableInfo formatInfo = new KafkaSourceTableInfo();
+        formatInfo.setName(getName());
+        formatInfo.setType(getType());
+        formatInfo.setFields(getFields());
+        formatInfo.setFieldTypes(getFieldTypes());
+        formatInfo.setFieldClasses(getFieldClasses());
+        formatInfo.setPhysicalFields(getPhysicalFields());
+        getFieldExtraInfoList().forEach(formatInfo::addFieldExtraInfo);
+        formatInfo.setSourceDataType(sourceDataType);
+        formatInfo.setSchemaString(schemaString);
+        formatInfo.setFieldDelimiter(fieldDelimiter);
+        formatInfo.setCharsetName(charsetName);
+        return formatInfo;
+    }
+
+    @Override
+    public boolean check() {
+        Preconditions.checkNotNull(bootstrapServers, "kafka of bootstrapServers is required");
+        Preconditions.checkNotNull(topic, "kafka of topic is required");
+        Preconditions.checkArgument(ECacheType.ALL.name().equalsIgnoreCase(getCacheType()),
+                "kafka side table only support cache type ALL");
+        Preconditions.checkArgument(bootstrapTimeoutMs > 0, "bootstrapTimeoutMs need > 0");
+        return true;
+    }
+}
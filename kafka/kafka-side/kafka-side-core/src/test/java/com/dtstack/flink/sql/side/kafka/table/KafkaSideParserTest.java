@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.kafka.table;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class KafkaSideParserTest {
+
+    private Map<String, Object> buildProps(String cache) {
+        Map<String, Object> props = Maps.newHashMap();
+        props.put("type", "kafka");
+        props.put("bootstrapservers", "localhost:9092");
+        props.put("topic", "dim_user");
+        props.put("sourcedatatype", "json");
+        props.put("cache", cache);
+        props.put("kafka.max.poll.records", "500");
+        return props;
+    }
+
+    @Test
+    public void testGetTableInfo() {
+        KafkaSideParser parser = new KafkaSideParser();
+        KafkaSideTableInfo tableInfo = (KafkaSideTableInfo) parser.getTableInfo("dimUser",
+                "id int, name varchar, PRIMARY KEY(id)", buildProps("ALL"));
+
+        assertEquals("dim_user", tableInfo.getTopic());
+        assertEquals("json", tableInfo.getSourceDataType());
+        assertEquals("500", tableInfo.getKafkaParam("max.poll.records"));
+        assertEquals("json", tableInfo.toFormatInfo().getSourceDataType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOnlyAllCacheSupported() {
+        new KafkaSideParser().getTableInfo("dimUser", "id int, name varchar, PRIMARY KEY(id)", buildProps("LRU"));
+    }
+}
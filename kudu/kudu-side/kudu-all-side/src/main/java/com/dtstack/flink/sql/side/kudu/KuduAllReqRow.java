@@ -7,6 +7,7 @@ import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.PredicateInfo;
 import com.dtstack.flink.sql.side.kudu.table.KuduSideTableInfo;
 import com.dtstack.flink.sql.side.kudu.utils.KuduUtil;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.util.KrbUtils;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.base.Preconditions;
@@ -62,15 +63,26 @@ public class KuduAllReqRow extends BaseAllReqRow {
     private KuduTable table;
 
 
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
 
     public KuduAllReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(new KuduAllSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         loadData(newCache);
     }
@@ -79,7 +91,7 @@ public class KuduAllReqRow extends BaseAllReqRow {
     @Override
     protected void reloadCache() {
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         loadData(newCache);
 
         cacheRef.set(newCache);
@@ -99,7 +111,7 @@ public class KuduAllReqRow extends BaseAllReqRow {
             inputParams.add(equalObj);
         }
 
-        String key = buildKey(inputParams);
+        SideCacheKey key = SideCacheKey.of(inputParams);
         List<Map<String, Object>> cacheList = cacheRef.get().get(key);
         if (CollectionUtils.isEmpty(cacheList)) {
             if (sideInfo.getJoinType() == JoinType.LEFT) {
@@ -115,7 +127,7 @@ public class KuduAllReqRow extends BaseAllReqRow {
         }
     }
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) {
+    private void loadData(Map<SideCacheKey, List<Map<String, Object>>> tmpCache) {
         KuduSideTableInfo tableInfo = (KuduSideTableInfo) sideInfo.getSideTableInfo();
         KuduScanner scanner = null;
         try {
@@ -153,7 +165,11 @@ public class KuduAllReqRow extends BaseAllReqRow {
                             oneRow.put(sideFieldName, result.getObject(sideFieldName));
                         }
                     }
-                    String cacheKey = buildKey(oneRow, sideInfo.getEqualFieldList());
+                    if (!isKeyInPartition(oneRow)) {
+                        continue;
+                    }
+
+                    SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
                     List<Map<String, Object>> list = tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList());
                     list.add(oneRow);
                 }
@@ -174,23 +190,6 @@ public class KuduAllReqRow extends BaseAllReqRow {
 
     }
 
-    private String buildKey(List<Object> equalValList) {
-        StringBuilder sb = new StringBuilder("");
-        for (Object equalVal : equalValList) {
-            sb.append(equalVal).append("_");
-        }
-
-        return sb.toString();
-    }
-
-    private String buildKey(Map<String, Object> val, List<String> equalFieldList) {
-        StringBuilder sb = new StringBuilder("");
-        for (String equalField : equalFieldList) {
-            sb.append(val.get(equalField)).append("_");
-        }
-        return sb.toString();
-    }
-
     private KuduScanner getConn(KuduSideTableInfo tableInfo) {
         try {
             if (client == null) {
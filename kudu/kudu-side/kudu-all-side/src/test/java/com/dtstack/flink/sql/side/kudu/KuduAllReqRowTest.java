@@ -21,6 +21,7 @@ package com.dtstack.flink.sql.side.kudu;
 import com.dtstack.flink.sql.side.BaseAllReqRow;
 import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.kudu.table.KuduSideTableInfo;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -135,9 +136,9 @@ public class KuduAllReqRowTest {
         List<Integer> equalValIndex = Lists.newArrayList();
         equalValIndex.add(0);
 
-        AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+        AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
         Map keyValue = Maps.newConcurrentMap();
-        keyValue.put("1", Lists.newArrayList());
+        keyValue.put(SideCacheKey.of(1), Lists.newArrayList());
         cacheRef.set(keyValue);
 
         List<FieldInfo> outFieldInfoList = Lists.newArrayList();
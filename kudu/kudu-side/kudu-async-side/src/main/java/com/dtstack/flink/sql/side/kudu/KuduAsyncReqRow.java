@@ -8,6 +8,7 @@ import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.PredicateInfo;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.kudu.table.KuduSideTableInfo;
 import com.dtstack.flink.sql.side.kudu.utils.KuduUtil;
 import com.dtstack.flink.sql.util.DateUtil;
@@ -230,16 +231,6 @@ public class KuduAsyncReqRow extends BaseAsyncReqRow {
         return value;
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
-        StringBuilder sb = new StringBuilder();
-        for (Object ele : inputParams.values()) {
-            sb.append(ele)
-                    .append("_");
-        }
-
-        return sb.toString();
-    }
 
 
     @Override
@@ -283,14 +274,14 @@ public class KuduAsyncReqRow extends BaseAsyncReqRow {
         private List<BaseRow> rowList;
         private AsyncKuduScanner asyncKuduScanner;
         private ResultFuture<BaseRow> resultFuture;
-        private String key;
+        private SideCacheKey key;
 
 
         public GetListRowCB() {
         }
 
         GetListRowCB(BaseRow input, List<Map<String, Object>> cacheContent, List<BaseRow> rowList,
-                     AsyncKuduScanner asyncKuduScanner, ResultFuture<BaseRow> resultFuture, String key) {
+                     AsyncKuduScanner asyncKuduScanner, ResultFuture<BaseRow> resultFuture, SideCacheKey key) {
             this.input = input;
             this.cacheContent = cacheContent;
             this.rowList = rowList;
@@ -331,11 +322,11 @@ public class KuduAsyncReqRow extends BaseAsyncReqRow {
                 }
                 RowDataComplete.completeBaseRow(resultFuture, rowList);
             } else {
-                dealMissKey(input, resultFuture);
                 if (openCache()) {
                     //放置在putCache的Miss中 一段时间内同一个key都会直接返回
                     putCache(key, CacheMissVal.getMissKeyObj());
                 }
+                dealMissKey(input, resultFuture);
             }
 
             resultFuture.complete(Collections.emptyList());
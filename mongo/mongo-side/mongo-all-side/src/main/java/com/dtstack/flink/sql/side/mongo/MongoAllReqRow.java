@@ -24,6 +24,7 @@ import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.mongo.table.MongoSideTableInfo;
 import com.dtstack.flink.sql.side.mongo.utils.MongoUtil;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.util.RowDataComplete;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -71,15 +72,26 @@ public class MongoAllReqRow extends BaseAllReqRow {
 
     private MongoDatabase db;
 
-    private AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
 
     public MongoAllReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(new MongoAllSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         loadData(newCache);
     }
@@ -87,7 +99,7 @@ public class MongoAllReqRow extends BaseAllReqRow {
     @Override
     protected void reloadCache() {
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        Map<SideCacheKey, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
         try {
             loadData(newCache);
         } catch (SQLException e) {
@@ -114,7 +126,7 @@ public class MongoAllReqRow extends BaseAllReqRow {
             inputParams.add(equalObj);
         }
 
-        String key = buildKey(inputParams);
+        SideCacheKey key = SideCacheKey.of(inputParams);
         List<Map<String, Object>> cacheList = cacheRef.get().get(key);
         if (CollectionUtils.isEmpty(cacheList)) {
             if (sideInfo.getJoinType() == JoinType.LEFT) {
@@ -133,24 +145,6 @@ public class MongoAllReqRow extends BaseAllReqRow {
         }
     }
 
-    private String buildKey(List<Object> equalValList) {
-        StringBuilder sb = new StringBuilder("");
-        for (Object equalVal : equalValList) {
-            sb.append(equalVal).append("_");
-        }
-
-        return sb.toString();
-    }
-
-    private String buildKey(Map<String, Object> val, List<String> equalFieldList) {
-        StringBuilder sb = new StringBuilder("");
-        for (String equalField : equalFieldList) {
-            sb.append(val.get(equalField)).append("_");
-        }
-
-        return sb.toString();
-    }
-
     private MongoCollection getConn(String host, String userName, String password, String database, String tableName) {
 
         MongoCollection dbCollection;
@@ -161,7 +155,7 @@ public class MongoAllReqRow extends BaseAllReqRow {
 
     }
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) throws SQLException {
+    private void loadData(Map<SideCacheKey, List<Map<String, Object>>> tmpCache) throws SQLException {
         MongoSideTableInfo tableInfo = (MongoSideTableInfo) sideInfo.getSideTableInfo();
         MongoCollection dbCollection = null;
 
@@ -215,7 +209,11 @@ public class MongoAllReqRow extends BaseAllReqRow {
                 for (String fieldName : sideFieldNames) {
                     oneRow.put(fieldName.trim(), doc.get(fieldName.trim()));
                 }
-                String cacheKey = buildKey(oneRow, sideInfo.getEqualFieldList());
+                if (!isKeyInPartition(oneRow)) {
+                    continue;
+                }
+
+                SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
                 List<Map<String, Object>> list = tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList());
                 list.add(oneRow);
             }
@@ -23,6 +23,7 @@ import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.PredicateInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.mongo.table.MongoSideTableInfo;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -68,8 +69,8 @@ public class MongoAllReqRowTest {
     private List<FieldInfo> outFieldInfoList = new ArrayList<>();
     private MongoSideTableInfo sideTableInfo;
     private BaseSideInfo sideInfo;
-    AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
-    Map<String, List<Map<String, Object>>> map = Maps.newHashMap();
+    AtomicReference<Map<SideCacheKey, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    Map<SideCacheKey, List<Map<String, Object>>> map = Maps.newHashMap();
 
     @Before
     public void setUp() {
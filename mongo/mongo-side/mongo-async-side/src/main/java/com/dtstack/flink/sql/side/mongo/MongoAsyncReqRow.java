@@ -22,9 +22,11 @@ package com.dtstack.flink.sql.side.mongo;
 import com.dtstack.flink.sql.enums.ECacheContentType;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.dtstack.flink.sql.side.BaseAsyncReqRow;
+import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.mongo.table.MongoSideTableInfo;
 import com.dtstack.flink.sql.side.mongo.utils.MongoUtil;
 import com.dtstack.flink.sql.util.RowDataComplete;
@@ -48,10 +50,8 @@ import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Reason:
@@ -110,48 +110,44 @@ public class MongoAsyncReqRow extends BaseAsyncReqRow {
             LOG.info("add predicate infoes error ", e);
         }
 
-        String key = buildCacheKey(inputParams);
+        SideCacheKey key = buildCacheKey(inputParams);
 
-        AtomicInteger atomicInteger = new AtomicInteger(0);
         MongoCollection dbCollection = db.getCollection(mongoSideTableInfo.getTableName(), Document.class);
-        List<Document> cacheContent = Lists.newArrayList();
-        Block<Document> printDocumentBlock = new Block<Document>() {
-            @Override
-            public void apply(final Document document) {
-                atomicInteger.incrementAndGet();
-                BaseRow row = fillData(inputCopy, document);
-                if (openCache()) {
-                    cacheContent.add(document);
-                }
-                RowDataComplete.completeBaseRow(resultFuture, row);
-            }
-        };
+        List<Document> documents = Lists.newArrayList();
+        Block<Document> collectDocumentBlock = documents::add;
+        // 查询结束后先写缓存再一次性返回结果, 等待同一个key的请求从缓存读取
         SingleResultCallback<Void> callbackWhenFinished = new SingleResultCallback<Void>() {
             @Override
             public void onResult(final Void result, final Throwable t) {
-                if (atomicInteger.get() <= 0) {
-                    LOG.warn("Cannot retrieve the data from the database");
-                    resultFuture.complete(Collections.EMPTY_LIST);
-                } else {
+                if (t != null) {
+                    LOG.error("query mongo side table error", t);
+                    dealFillDataError(inputCopy, resultFuture, t);
+                    return;
+                }
+                if (documents.isEmpty()) {
                     if (openCache()) {
-                        putCache(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, cacheContent));
+                        putCache(key, CacheMissVal.getMissKeyObj());
                     }
+                    dealMissKey(inputCopy, resultFuture);
+                    return;
+                }
+                try {
+                    List<BaseRow> rowList = Lists.newArrayListWithCapacity(documents.size());
+                    for (Document document : documents) {
+                        rowList.add(fillData(inputCopy, document));
+                    }
+                    if (openCache()) {
+                        putCache(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, documents));
+                    }
+                    RowDataComplete.completeBaseRow(resultFuture, rowList);
+                } catch (Exception e) {
+                    dealFillDataError(inputCopy, resultFuture, e);
                 }
             }
         };
-        dbCollection.find(basicDbObject).forEach(printDocumentBlock, callbackWhenFinished);
+        dbCollection.find(basicDbObject).forEach(collectDocumentBlock, callbackWhenFinished);
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParams) {
-        StringBuilder sb = new StringBuilder();
-        for (Object ele : inputParams.values()) {
-            sb.append(ele.toString())
-                    .append("_");
-        }
-
-        return sb.toString();
-    }
 
     @Override
     public BaseRow fillData(BaseRow input, Object line) {
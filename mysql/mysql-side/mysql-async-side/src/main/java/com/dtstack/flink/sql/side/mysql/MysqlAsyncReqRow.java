@@ -22,9 +22,15 @@ package com.dtstack.flink.sql.side.mysql;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.rdb.async.NativeSqlClient;
 import com.dtstack.flink.sql.side.rdb.async.RdbAsyncReqRow;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.mysqlclient.MySQLConnectOptions;
+import io.vertx.mysqlclient.MySQLPool;
+import io.vertx.sqlclient.PoolOptions;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
 import org.apache.flink.configuration.Configuration;
 
@@ -67,4 +73,15 @@ public class MysqlAsyncReqRow extends RdbAsyncReqRow {
 
         return mysqlClientConfig;
     }
+
+    @Override
+    protected SQLClient buildNativeClient(Vertx vertx) {
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideInfo.getSideTableInfo();
+        MySQLConnectOptions connectOptions = MySQLConnectOptions.fromUri(NativeSqlClient.toNativeUri(rdbSideTableInfo.getUrl()))
+                .setUser(rdbSideTableInfo.getUserName())
+                .setPassword(rdbSideTableInfo.getPassword())
+                .setCachePreparedStatements(true);
+        PoolOptions poolOptions = new PoolOptions().setMaxSize(rdbSideTableInfo.getAsyncPoolSize());
+        return new NativeSqlClient(MySQLPool.pool(vertx, connectOptions, poolOptions), rdbSideTableInfo.getAsyncPoolSize(), false);
+    }
 }
@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
@@ -67,4 +68,10 @@ public class PostgresqlAllReqRow extends AbstractRdbAllReqRow {
             throw new RuntimeException("", e);
         }
     }
+
+    @Override
+    protected void beforeStreamingQuery(Connection connection) throws SQLException {
+        // 自动提交时postgresql驱动会一次读取全部结果, 忽略fetchSize
+        connection.setAutoCommit(false);
+    }
 }
@@ -22,9 +22,15 @@ package com.dtstack.flink.sql.side.postgresql;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.rdb.async.NativeSqlClient;
 import com.dtstack.flink.sql.side.rdb.async.RdbAsyncReqRow;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.PoolOptions;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
 import org.apache.flink.configuration.Configuration;
 import org.slf4j.Logger;
@@ -45,6 +51,8 @@ public class PostgresqlAsyncReqRow extends RdbAsyncReqRow {
 
     private final static String POSTGRESQL_DRIVER = "org.postgresql.Driver";
 
+    private final static int PIPELINING_LIMIT = 256;
+
     public PostgresqlAsyncReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(new PostgresqlAsyncSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
     }
@@ -70,4 +78,19 @@ public class PostgresqlAsyncReqRow extends RdbAsyncReqRow {
 
         return pgClientConfig;
     }
+
+    /**
+     * postgresql协议支持pipeline, 同一连接上最多PIPELINING_LIMIT个查询同时在途
+     */
+    @Override
+    protected SQLClient buildNativeClient(Vertx vertx) {
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideInfo.getSideTableInfo();
+        PgConnectOptions connectOptions = PgConnectOptions.fromUri(NativeSqlClient.toNativeUri(rdbSideTableInfo.getUrl()))
+                .setUser(rdbSideTableInfo.getUserName())
+                .setPassword(rdbSideTableInfo.getPassword())
+                .setPipeliningLimit(PIPELINING_LIMIT)
+                .setCachePreparedStatements(true);
+        PoolOptions poolOptions = new PoolOptions().setMaxSize(rdbSideTableInfo.getAsyncPoolSize());
+        return new NativeSqlClient(PgPool.pool(vertx, connectOptions, poolOptions), rdbSideTableInfo.getAsyncPoolSize(), true);
+    }
 }
@@ -20,13 +20,23 @@ package com.dtstack.flink.sql.side.rdb.all;
 
 import com.dtstack.flink.sql.core.rdb.JdbcResourceCheck;
 import com.dtstack.flink.sql.core.rdb.util.JdbcConnectionUtil;
+import com.dtstack.flink.sql.factory.DTThreadFactory;
 import com.dtstack.flink.sql.side.BaseAllReqRow;
 import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
 import com.dtstack.flink.sql.side.rdb.util.SwitchUtil;
+import com.dtstack.flink.sql.side.cache.AllSideCache;
+import com.dtstack.flink.sql.side.cache.ColumnarAllCache;
+import com.dtstack.flink.sql.side.cache.RangeAllSideCache;
+import com.dtstack.flink.sql.side.cache.RocksDbAllCache;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.dtstack.flink.sql.side.cache.TemporalAllSideCache;
 import com.dtstack.flink.sql.util.RowDataComplete;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import org.apache.calcite.sql.JoinType;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -39,16 +49,27 @@ import org.apache.flink.util.Collector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -69,8 +90,19 @@ public abstract class AbstractRdbAllReqRow extends BaseAllReqRow {
     private static final int CONN_RETRY_NUM = 3;
 
     private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final int LOAD_BATCH_ROWS = 1000;
     private static volatile boolean resourceCheck = true;
-    private final AtomicReference<Map<String, List<Map<String, Object>>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<AllSideCache> cacheRef = new AtomicReference<>();
+    // 维表字段在输出行中的位置和在列存缓存中的列序号, open时计算一次
+    private transient int[] sideOutIndexes;
+    private transient int[] sideColumnIndexes;
+    // 已加载数据中增量字段的最大值, 下次增量加载从这里开始
+    private transient Object incrementWatermark;
+    private transient long lastFullLoadTime;
+    private transient volatile boolean closed;
+    // 左表事件时间字段的位置, 按版本关联且左表没有事件时间时为-1, 用处理时间关联
+    private transient int rowtimeIndex = -1;
 
     public AbstractRdbAllReqRow(BaseSideInfo sideInfo) {
         super(sideInfo);
@@ -85,30 +117,84 @@ public abstract class AbstractRdbAllReqRow extends BaseAllReqRow {
                 JdbcResourceCheck.getInstance().checkResourceStatus(tableInfo.getCheckProperties());
             }
         }
+        initSideColumnIndexes();
+        if (tableInfo.isTemporalJoin()) {
+            initRowtimeIndex();
+        }
         super.open(parameters);
         LOG.info("rdb dim table config info: {} ", tableInfo.toString());
     }
 
+    /**
+     * rocksdb缓存由各个subtask自己加载和关闭, 不支持cacheShared
+     */
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return isRocksDbCache() ? null : cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<AllSideCache>) cacheRef;
+    }
+
+    @Override
+    protected long countCacheRows() {
+        AllSideCache cache = cacheRef.get();
+        return cache == null ? 0 : cache.getRowCount();
+    }
+
+    private boolean isRocksDbCache() {
+        return ((RdbSideTableInfo) sideInfo.getSideTableInfo()).isRocksDbCacheBackend();
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
-        cacheRef.set(newCache);
-        loadData(newCache);
+        cacheRef.set(loadData());
     }
 
     @Override
     protected void reloadCache() {
+        if (isIncrementReload()) {
+            try {
+                loadIncrementData(cacheRef.get());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            LOG.info("----- rdb all cacheRef increment reload end:{}, watermark:{}", Calendar.getInstance(), incrementWatermark);
+            return;
+        }
+
         //reload cacheRef and replace to old cacheRef
-        Map<String, List<Map<String, Object>>> newCache = Maps.newConcurrentMap();
+        AllSideCache newCache;
         try {
-            loadData(newCache);
+            newCache = loadData();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        cacheRef.set(newCache);
+        AllSideCache oldCache = cacheRef.getAndSet(newCache);
+        if (oldCache != null) {
+            oldCache.close();
+        }
+        if (closed) {
+            // close 时reload还没有结束
+            newCache.close();
+        }
         LOG.info("----- rdb all cacheRef reload end:{}", Calendar.getInstance());
     }
 
+    /**
+     * 配置了增量字段且距上次全量加载未超过fullReloadIntervalMs时只加载变化的数据,
+     * 删除的数据和没有更新增量字段的修改要等下次全量加载才生效
+     */
+    private boolean isIncrementReload() {
+        RdbSideTableInfo tableInfo = (RdbSideTableInfo) sideInfo.getSideTableInfo();
+        return StringUtils.isNotBlank(tableInfo.getIncrementColumn())
+                && incrementWatermark != null
+                && System.currentTimeMillis() - lastFullLoadTime < tableInfo.getFullReloadIntervalMs();
+    }
+
     @Override
     public void flatMap(BaseRow value, Collector<BaseRow> out) throws Exception {
         GenericRow genericRow = (GenericRow) value;
@@ -123,19 +209,99 @@ public abstract class AbstractRdbAllReqRow extends BaseAllReqRow {
             return;
         }
 
-        String cacheKey = inputParams.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining("_"));
+        SideCacheKey cacheKey = SideCacheKey.of(inputParams);
 
-        List<Map<String, Object>> cacheList = cacheRef.get().get(cacheKey);
-        if (CollectionUtils.isEmpty(cacheList) && sideInfo.getJoinType() == JoinType.LEFT) {
+        AllSideCache allSideCache = cacheRef.get();
+        if (allSideCache instanceof RangeAllSideCache) {
+            collectRows(value, ((RangeAllSideCache) allSideCache).getRows(cacheKey, genericRow), out);
+            return;
+        }
+
+        if (allSideCache instanceof TemporalAllSideCache) {
+            Long time = rowtimeIndex < 0 ? Long.valueOf(System.currentTimeMillis()) : TemporalAllSideCache.toMillis(genericRow.getField(rowtimeIndex));
+            Map<String, Object> version = time == null ? null : ((TemporalAllSideCache) allSideCache).getVersion(cacheKey, time);
+            if (version != null || sideInfo.getJoinType() == JoinType.LEFT) {
+                RowDataComplete.collectBaseRow(out, fillData(value, version));
+            }
+            return;
+        }
+
+        if (!(allSideCache instanceof ColumnarAllCache)) {
+            List<Map<String, Object>> cacheList = allSideCache.getRows(cacheKey);
+            while (cacheList == null) {
+                // 读到的缓存已被reload替换并关闭, 读新的缓存
+                cacheList = cacheRef.get().getRows(cacheKey);
+            }
+            collectRows(value, cacheList, out);
+            return;
+        }
+
+        ColumnarAllCache cache = (ColumnarAllCache) allSideCache;
+        List<Map<String, Object>> cacheList = cache.getChangedRows(cacheKey);
+        if (cacheList != null) {
+            collectRows(value, cacheList, out);
+            return;
+        }
+
+        int cacheRow = cache.firstRow(cacheKey);
+        if (cacheRow < 0 && sideInfo.getJoinType() == JoinType.LEFT) {
             BaseRow row = fillData(value, null);
             RowDataComplete.collectBaseRow(out, row);
-        } else if (!CollectionUtils.isEmpty(cacheList)) {
-            cacheList.forEach(one -> RowDataComplete.collectBaseRow(out, fillData(value, one)));
+        }
+        for (; cacheRow >= 0; cacheRow = cache.nextRow(cacheRow)) {
+            RowDataComplete.collectBaseRow(out, fillData(value, cache, cacheRow));
         }
     }
 
+    private void collectRows(BaseRow value, List<Map<String, Object>> cacheList, Collector<BaseRow> out) {
+        if (cacheList.isEmpty() && sideInfo.getJoinType() == JoinType.LEFT) {
+            RowDataComplete.collectBaseRow(out, fillData(value, null));
+        }
+        cacheList.forEach(one -> RowDataComplete.collectBaseRow(out, fillData(value, one)));
+    }
+
+    private BaseRow fillData(BaseRow input, ColumnarAllCache cache, int cacheRow) {
+        GenericRow row = (GenericRow) fillData(input, null);
+        for (int i = 0; i < sideOutIndexes.length; i++) {
+            row.setField(sideOutIndexes[i], cache.get(cacheRow, sideColumnIndexes[i]));
+        }
+        return row;
+    }
+
+    private void initSideColumnIndexes() {
+        List<String> columnNames = Arrays.asList(getSideColumnNames());
+        Map<Integer, String> sideFieldNameIndex = sideInfo.getSideFieldNameIndex();
+        List<Integer> outIndexes = Lists.newArrayListWithCapacity(sideFieldNameIndex.size());
+        List<Integer> columnIndexes = Lists.newArrayListWithCapacity(sideFieldNameIndex.size());
+        for (Map.Entry<Integer, String> entry : sideFieldNameIndex.entrySet()) {
+            int columnIndex = columnNames.indexOf(entry.getValue());
+            if (columnIndex >= 0) {
+                outIndexes.add(entry.getKey());
+                columnIndexes.add(columnIndex);
+            }
+        }
+        sideOutIndexes = Ints.toArray(outIndexes);
+        sideColumnIndexes = Ints.toArray(columnIndexes);
+    }
+
+    /**
+     * 算子输入类型中的时间属性已转换为Timestamp, 事件时间字段的位置由SideSqlExec在转换前记录在JoinInfo中
+     */
+    private void initRowtimeIndex() {
+        rowtimeIndex = sideInfo.getJoinInfo().getLeftRowtimeIndex();
+        if (rowtimeIndex >= 0) {
+            return;
+        }
+        LOG.warn("left table of side table {} has no event time attribute, join the version valid at processing time",
+                sideInfo.getSideTableInfo().getName());
+    }
+
+    private String[] getSideColumnNames() {
+        return Arrays.stream(StringUtils.split(sideInfo.getSideSelectFields(), ","))
+                .map(String::trim)
+                .toArray(String[]::new);
+    }
+
     /**
      * covert flink time attribute.Type information for indicating event or processing time.
      * However, it behaves like a regular SQL timestamp but is serialized as Long.
@@ -154,8 +320,105 @@ public abstract class AbstractRdbAllReqRow extends BaseAllReqRow {
         return obj;
     }
 
-    private void loadData(Map<String, List<Map<String, Object>>> tmpCache) throws SQLException {
-        queryAndFillData(tmpCache, getConnectionWithRetry((RdbSideTableInfo) sideInfo.getSideTableInfo()));
+    private AllSideCache loadData() throws SQLException {
+        long loadStartTime = System.currentTimeMillis();
+        RdbSideTableInfo tableInfo = (RdbSideTableInfo) sideInfo.getSideTableInfo();
+        AllSideCache.Builder builder;
+        if (!sideInfo.getRangeConditionList().isEmpty()) {
+            Preconditions.checkState(!tableInfo.isTemporalJoin() && !tableInfo.isRocksDbCacheBackend(),
+                    "range join of side table %s only supports heap cache without version columns", tableInfo.getName());
+            builder = RangeAllSideCache.builder(getSideColumnNames(), sideInfo.getRangeConditionList());
+        } else if (tableInfo.isTemporalJoin()) {
+            builder = TemporalAllSideCache.builder(getSideColumnNames(), tableInfo.getVersionStartColumn(),
+                    tableInfo.getVersionEndColumn(), tableInfo.getVersionMaxNum());
+        } else if (tableInfo.isRocksDbCacheBackend()) {
+            builder = RocksDbAllCache.builder(getSideColumnNames(), tableInfo.getCacheLocalDir());
+        } else {
+            builder = ColumnarAllCache.builder(getSideColumnNames());
+        }
+        AllSideCache cache;
+        try {
+            incrementWatermark = tableInfo.getLoadParallelism() > 1
+                    ? parallelQueryAndFillData(builder, tableInfo)
+                    : queryAndFillData(builder, getConnectionWithRetry(tableInfo), sideInfo.getSqlCondition());
+            cache = builder.build();
+        } catch (SQLException | RuntimeException e) {
+            builder.abort();
+            throw e;
+        }
+        lastFullLoadTime = loadStartTime;
+        LOG.info("rdb all cacheRef load rows:{}", cache.getRowCount());
+        return cache;
+    }
+
+    /**
+     * 查询增量字段不小于上次最大值的数据, 按key替换到正在使用的缓存中.
+     * 同一个key下按主键替换旧数据, 配置incrementColumn时主键是必须的并且总会被加载
+     */
+    private void loadIncrementData(AllSideCache cache) throws SQLException {
+        RdbSideTableInfo tableInfo = (RdbSideTableInfo) sideInfo.getSideTableInfo();
+        String[] sideFieldNames = StringUtils.split(sideInfo.getSideSelectFields(), ",");
+        Map<String, String> sideFieldNamesAndTypes = getSideFieldNamesAndTypes();
+        Map<SideCacheKey, List<Map<String, Object>>> changedRows = Maps.newHashMap();
+        Object watermark = incrementWatermark;
+        Connection connection = getConnectionWithRetry(tableInfo);
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            beforeStreamingQuery(connection);
+            statement = connection.prepareStatement(((RdbAllSideInfo) sideInfo).getIncrementSqlCondition());
+            statement.setFetchSize(getFetchSize());
+            statement.setObject(1, incrementWatermark);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                watermark = maxIncrementValue(watermark, resultSet.getObject(tableInfo.getIncrementColumn()));
+                Map<String, Object> oneRow = readRow(resultSet, sideFieldNames, sideFieldNamesAndTypes);
+                if (!isKeyInPartition(oneRow)) {
+                    continue;
+                }
+
+                SideCacheKey cacheKey = SideCacheKey.of(oneRow, sideInfo.getEqualFieldList());
+                changedRows.computeIfAbsent(cacheKey, key -> Lists.newArrayList())
+                        .add(oneRow);
+            }
+        } finally {
+            JdbcConnectionUtil.closeConnectionResource(resultSet, statement, connection, false);
+        }
+
+        List<String> primaryKeys = tableInfo.getPrimaryKeys();
+        // flatMap 正在遍历旧的list, 这里替换成新的list而不是原地修改
+        changedRows.forEach((key, rows) -> cache.replaceRows(key, mergeRows(cache.getRows(key), rows, primaryKeys)));
+        incrementWatermark = watermark;
+        LOG.info("rdb all cacheRef increment reload changed keys:{}", changedRows.size());
+    }
+
+    private List<Map<String, Object>> mergeRows(List<Map<String, Object>> oldRows, List<Map<String, Object>> changedRows, List<String> primaryKeys) {
+        if (CollectionUtils.isEmpty(oldRows)) {
+            return changedRows;
+        }
+
+        Set<SideCacheKey> changedKeys = changedRows.stream()
+                .map(row -> SideCacheKey.of(row, primaryKeys))
+                .collect(Collectors.toSet());
+        List<Map<String, Object>> mergedRows = Lists.newArrayListWithCapacity(oldRows.size() + changedRows.size());
+        for (Map<String, Object> oldRow : oldRows) {
+            if (!changedKeys.contains(SideCacheKey.of(oldRow, primaryKeys))) {
+                mergedRows.add(oldRow);
+            }
+        }
+        mergedRows.addAll(changedRows);
+        return mergedRows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object maxIncrementValue(Object current, Object value) {
+        if (value == null) {
+            return current;
+        }
+        if (current == null || ((Comparable<Object>) value).compareTo(current) > 0) {
+            return value;
+        }
+        return current;
     }
 
     private Connection getConnectionWithRetry(RdbSideTableInfo tableInfo) throws SQLException {
@@ -177,44 +440,257 @@ public abstract class AbstractRdbAllReqRow extends BaseAllReqRow {
         throw new SQLException("get conn fail. connInfo: " + connInfo + "\ncause by: " + errorMsg);
     }
 
-    private void queryAndFillData(Map<String, List<Map<String, Object>>> tmpCache, Connection connection) throws SQLException {
-        //load data from table
-        String sql = sideInfo.getSqlCondition();
-        Statement statement = connection.createStatement();
-        statement.setFetchSize(getFetchSize());
-        ResultSet resultSet = statement.executeQuery(sql);
+    /**
+     * 按splitColumn的最小最大值把表切分成loadParallelism个范围, 每个范围用单独的连接并发查询,
+     * 切分字段不是数值类型时退化为一次查询
+     */
+    private Object parallelQueryAndFillData(AllSideCache.Builder builder, RdbSideTableInfo tableInfo) throws SQLException {
+        RdbAllSideInfo rdbSideInfo = (RdbAllSideInfo) sideInfo;
+        Object[] bounds = querySplitBounds(rdbSideInfo.getSplitBoundSqlCondition(), tableInfo);
+        List<long[]> ranges = splitRanges(bounds[0], bounds[1], tableInfo.getLoadParallelism());
+        if (ranges.isEmpty()) {
+            LOG.warn("split bounds {} ~ {} can't be split, load side table {} by one query", bounds[0], bounds[1], tableInfo.getTableName());
+            return queryAndFillData(builder, getConnectionWithRetry(tableInfo), sideInfo.getSqlCondition());
+        }
 
-        String[] sideFieldNames = StringUtils.split(sideInfo.getSideSelectFields(), ",");
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size(), new DTThreadFactory("rdb-all-load"));
+        RunningStatements statements = new RunningStatements();
+        List<Future<Object>> futures = Lists.newArrayListWithCapacity(ranges.size() + 1);
+        futures.add(executor.submit(() -> queryAndFillData(builder, getConnectionWithRetry(tableInfo), statements, rdbSideInfo.getSplitNullSqlCondition())));
+        for (long[] range : ranges) {
+            futures.add(executor.submit(() -> queryAndFillData(builder, getConnectionWithRetry(tableInfo), statements, rdbSideInfo.getSplitSqlCondition(), range[0], range[1])));
+        }
+
+        Object watermark = null;
+        try {
+            for (Future<Object> future : futures) {
+                watermark = maxIncrementValue(watermark, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // 读取中的jdbc查询不响应中断, 一个范围失败时取消其他范围的查询
+            statements.cancelAll();
+            executor.shutdownNow();
+        }
+        LOG.info("rdb all cacheRef loaded by {} ranges", ranges.size());
+        return watermark;
+    }
+
+    private Object[] querySplitBounds(String sql, RdbSideTableInfo tableInfo) throws SQLException {
+        Connection connection = getConnectionWithRetry(tableInfo);
+        Statement statement = null;
+        ResultSet resultSet = null;
+        Object[] bounds = new Object[2];
+        try {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery(sql);
+            if (resultSet.next()) {
+                bounds[0] = resultSet.getObject(1);
+                bounds[1] = resultSet.getObject(2);
+            }
+        } finally {
+            JdbcConnectionUtil.closeConnectionResource(resultSet, statement, connection, false);
+        }
+        return bounds;
+    }
+
+    /**
+     * @return [lower, upper) ranges covering all integral values between min and max, empty if the bounds are not numbers
+     */
+    static List<long[]> splitRanges(Object min, Object max, int numSplits) {
+        if (!(min instanceof Number) || !(max instanceof Number)) {
+            return Collections.emptyList();
+        }
+        BigInteger lower = new BigDecimal(min.toString()).setScale(0, RoundingMode.FLOOR).toBigInteger();
+        BigInteger upper = new BigDecimal(max.toString()).setScale(0, RoundingMode.FLOOR).toBigInteger().add(BigInteger.ONE);
+        if (lower.compareTo(BigInteger.valueOf(Long.MIN_VALUE)) < 0 || upper.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
+            return Collections.emptyList();
+        }
+
+        BigInteger span = upper.subtract(lower);
+        int splits = span.min(BigInteger.valueOf(numSplits)).intValue();
+        List<long[]> ranges = Lists.newArrayListWithCapacity(splits);
+        BigInteger start = lower;
+        for (int i = 1; i <= splits; i++) {
+            BigInteger end = i == splits ? upper : lower.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(splits)));
+            ranges.add(new long[]{start.longValue(), end.longValue()});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * @return max value of the increment column in the loaded data, null if increment reload is off
+     */
+    private Object queryAndFillData(AllSideCache.Builder builder, Connection connection, String sql, Object... params) throws SQLException {
+        return queryAndFillData(builder, connection, null, sql, params);
+    }
+
+    /**
+     * @param statements 并发加载时登记正在执行的查询, 便于失败时取消, 单个查询时为null
+     */
+    private Object queryAndFillData(AllSideCache.Builder builder, Connection connection, RunningStatements statements,
+                                    String sql, Object... params) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            //load data from table
+            beforeStreamingQuery(connection);
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (statements != null && !statements.register(statement)) {
+                throw new SQLException("load of side table cancelled");
+            }
+            statement.setFetchSize(getFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            resultSet = statement.executeQuery();
+            return fillCache(builder, resultSet);
+        } finally {
+            if (statements != null && statement != null) {
+                statements.unregister(statement);
+            }
+            JdbcConnectionUtil.closeConnectionResource(resultSet, statement, connection, false);
+        }
+    }
+
+    /**
+     * 多个范围并发查询时加入缓存需要加锁, 按批加入减少锁竞争
+     */
+    private Object fillCache(AllSideCache.Builder builder, ResultSet resultSet) throws SQLException {
+        String[] sideFieldNames = getSideColumnNames();
+        Map<String, String> sideFieldNamesAndTypes = getSideFieldNamesAndTypes();
+        String[] sideFieldTypes = Arrays.stream(sideFieldNames)
+                .map(sideFieldNamesAndTypes::get)
+                .toArray(String[]::new);
+        List<String> columnNames = Arrays.asList(sideFieldNames);
+        int[] keyIndexes = sideInfo.getEqualFieldList().stream()
+                .mapToInt(columnNames::indexOf)
+                .toArray();
+        String incrementColumn = ((RdbSideTableInfo) sideInfo.getSideTableInfo()).getIncrementColumn();
+        boolean trackIncrement = StringUtils.isNotBlank(incrementColumn);
+        Object watermark = null;
+        List<SideCacheKey> batchKeys = Lists.newArrayListWithCapacity(LOAD_BATCH_ROWS);
+        List<Object[]> batchRows = Lists.newArrayListWithCapacity(LOAD_BATCH_ROWS);
+
+        while (resultSet.next()) {
+            if (trackIncrement) {
+                watermark = maxIncrementValue(watermark, resultSet.getObject(incrementColumn));
+            }
+            Object[] values = new Object[sideFieldNames.length];
+            for (int i = 0; i < sideFieldNames.length; i++) {
+                values[i] = SwitchUtil.getTarget(resultSet.getObject(sideFieldNames[i]), sideFieldTypes[i]);
+            }
+
+            List<Object> keyValues = Lists.newArrayListWithCapacity(keyIndexes.length);
+            for (int keyIndex : keyIndexes) {
+                keyValues.add(values[keyIndex]);
+            }
+            if (!isKeyInPartition(keyValues)) {
+                continue;
+            }
+
+            batchKeys.add(SideCacheKey.of(keyValues));
+            batchRows.add(values);
+            if (batchRows.size() >= LOAD_BATCH_ROWS) {
+                addRows(builder, batchKeys, batchRows);
+            }
+        }
+        addRows(builder, batchKeys, batchRows);
+        return watermark;
+    }
+
+    private void addRows(AllSideCache.Builder builder, List<SideCacheKey> keys, List<Object[]> rows) {
+        synchronized (builder) {
+            for (int i = 0; i < rows.size(); i++) {
+                builder.addRow(keys.get(i), rows.get(i));
+            }
+        }
+        keys.clear();
+        rows.clear();
+    }
+
+    private Map<String, String> getSideFieldNamesAndTypes() {
         String[] sideFieldTypes = sideInfo.getSideTableInfo().getFieldTypes();
         String[] fields = sideInfo.getSideTableInfo().getFields();
         Map<String, String> sideFieldNamesAndTypes = Maps.newHashMap();
         for (int i = 0; i < fields.length; i++) {
             sideFieldNamesAndTypes.put(fields[i], sideFieldTypes[i]);
         }
+        return sideFieldNamesAndTypes;
+    }
 
-        while (resultSet.next()) {
-            Map<String, Object> oneRow = Maps.newHashMap();
-            for (String fieldName : sideFieldNames) {
-                Object object = resultSet.getObject(fieldName.trim());
-                object = SwitchUtil.getTarget(object, sideFieldNamesAndTypes.get(fieldName));
-                oneRow.put(fieldName.trim(), object);
+    private Map<String, Object> readRow(ResultSet resultSet, String[] sideFieldNames, Map<String, String> sideFieldNamesAndTypes) throws SQLException {
+        Map<String, Object> oneRow = Maps.newHashMap();
+        for (String fieldName : sideFieldNames) {
+            Object object = resultSet.getObject(fieldName.trim());
+            object = SwitchUtil.getTarget(object, sideFieldNamesAndTypes.get(fieldName));
+            oneRow.put(fieldName.trim(), object);
+        }
+        return oneRow;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        super.close();
+        // 共享的堆内缓存关闭是空操作, rocksdb缓存不共享
+        AllSideCache cache = cacheRef.get();
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /**
+     * 并发加载中正在执行的查询, 取消之后登记的查询不再执行
+     */
+    private static class RunningStatements {
+
+        private final Set<Statement> statements = Sets.newHashSet();
+
+        private boolean cancelled = false;
+
+        synchronized boolean register(Statement statement) {
+            if (!cancelled) {
+                statements.add(statement);
             }
+            return !cancelled;
+        }
 
-            String cacheKey = sideInfo.getEqualFieldList().stream()
-                    .map(oneRow::get)
-                    .map(String::valueOf)
-                    .collect(Collectors.joining("_"));
+        synchronized void unregister(Statement statement) {
+            statements.remove(statement);
+        }
 
-            tmpCache.computeIfAbsent(cacheKey, key -> Lists.newArrayList())
-                    .add(oneRow);
+        synchronized void cancelAll() {
+            cancelled = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    LOG.warn("cancel side table load query error", e);
+                }
+            }
+            statements.clear();
         }
-        JdbcConnectionUtil.closeConnectionResource(resultSet, statement, connection, false);
     }
 
     public int getFetchSize() {
         return DEFAULT_FETCH_SIZE;
     }
 
+    /**
+     * 部分驱动流式读取需要额外的设置, 如postgresql只在非自动提交时按fetchSize用游标读取
+     */
+    protected void beforeStreamingQuery(Connection connection) throws SQLException {
+    }
+
     /**
      * get jdbc connection
      *
@@ -23,6 +23,7 @@ import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.PredicateInfo;
+import com.dtstack.flink.sql.side.RangeJoinCondition;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
 import com.dtstack.flink.sql.util.ParseUtils;
 import com.google.common.collect.Lists;
@@ -51,6 +52,12 @@ public class RdbAllSideInfo extends BaseSideInfo {
     private static final long serialVersionUID = -5858335638589472159L;
     private static final Logger LOG = LoggerFactory.getLogger(RdbAllSideInfo.class.getSimpleName());
 
+    // 增量加载的查询语句, 参数为上次加载到的增量字段最大值
+    private String incrementSqlCondition;
+    // 并行加载时查询切分字段的最小最大值, 按范围查询, 查询切分字段为null的数据
+    private String splitBoundSqlCondition;
+    private String splitSqlCondition;
+    private String splitNullSqlCondition;
 
     public RdbAllSideInfo(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo);
@@ -70,17 +77,69 @@ public class RdbAllSideInfo extends BaseSideInfo {
                     }
                 }
         );
-        sqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), selectFields, sideTableInfo.getPredicateInfoes());
+        sqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), selectFields, sideTableInfo.getPredicateInfoes(), null);
         LOG.info("--------dimension sql query-------\n{}" + sqlCondition);
+
+        String incrementColumn = rdbSideTableInfo.getIncrementColumn();
+        if (StringUtils.isNotBlank(incrementColumn)) {
+            String physicalName = physicalFields.get(incrementColumn) == null ? incrementColumn : physicalFields.get(incrementColumn);
+            String incrementCondition = quoteIdentifier(physicalName) + " >= ?";
+            incrementSqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), selectFields, sideTableInfo.getPredicateInfoes(), incrementCondition);
+            LOG.info("--------dimension increment sql query-------\n{}", incrementSqlCondition);
+        }
+
+        if (rdbSideTableInfo.getLoadParallelism() > 1) {
+            String splitColumn = getSplitColumn(rdbSideTableInfo);
+            String physicalName = physicalFields.get(splitColumn) == null ? splitColumn : physicalFields.get(splitColumn);
+            String quotedName = quoteIdentifier(physicalName);
+            List<String> boundFields = Lists.newArrayList("MIN(" + quotedName + ")", "MAX(" + quotedName + ")");
+            splitBoundSqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), boundFields, sideTableInfo.getPredicateInfoes(), null);
+            splitSqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), selectFields, sideTableInfo.getPredicateInfoes(),
+                    quotedName + " >= ? AND " + quotedName + " < ?");
+            splitNullSqlCondition = getSelectFromStatement(getTableName(rdbSideTableInfo), selectFields, sideTableInfo.getPredicateInfoes(),
+                    quotedName + " IS NULL");
+            LOG.info("--------dimension split sql query-------\n{}", splitSqlCondition);
+        }
+    }
+
+    /**
+     * 没有指定splitColumn时, 用唯一的主键或第一个join字段切分
+     */
+    private String getSplitColumn(RdbSideTableInfo rdbSideTableInfo) {
+        if (StringUtils.isNotBlank(rdbSideTableInfo.getSplitColumn())) {
+            return rdbSideTableInfo.getSplitColumn();
+        }
+        List<String> primaryKeys = rdbSideTableInfo.getPrimaryKeys();
+        return primaryKeys.size() == 1 ? primaryKeys.get(0) : equalFieldList.get(0);
+    }
+
+    public String getIncrementSqlCondition() {
+        return incrementSqlCondition;
+    }
+
+    public String getSplitBoundSqlCondition() {
+        return splitBoundSqlCondition;
+    }
+
+    public String getSplitSqlCondition() {
+        return splitSqlCondition;
+    }
+
+    public String getSplitNullSqlCondition() {
+        return splitNullSqlCondition;
     }
 
     public String getAdditionalWhereClause() {
         return "";
     }
 
-    private String getSelectFromStatement(String tableName, List<String> selectFields, List<PredicateInfo> predicateInfoes) {
+    private String getSelectFromStatement(String tableName, List<String> selectFields, List<PredicateInfo> predicateInfoes, String extraCondition) {
         String fromClause = String.join(", ", selectFields);
-        String predicateClause = predicateInfoes.stream().map(this::buildFilterCondition).collect(Collectors.joining(" AND "));
+        List<String> conditions = predicateInfoes.stream().map(this::buildFilterCondition).collect(Collectors.toList());
+        if (StringUtils.isNotEmpty(extraCondition)) {
+            conditions.add(extraCondition);
+        }
+        String predicateClause = String.join(" AND ", conditions);
         String whereClause = buildWhereClause(predicateClause);
         return "SELECT " + fromClause + " FROM " + tableName + whereClause;
     }
@@ -98,10 +157,18 @@ public class RdbAllSideInfo extends BaseSideInfo {
         String nonSideTableName = joinInfo.getNonSideTable();
         List<String> fields = Lists.newArrayList();
 
+        boolean fused = isFusedJoin();
+        if (fused) {
+            fields.addAll(joinInfo.getFusedSideFields());
+        }
+
         int sideIndex = 0;
         for (int i = 0; i < outFieldInfoList.size(); i++) {
             FieldInfo fieldInfo = outFieldInfoList.get(i);
-            if (fieldInfo.getTable().equalsIgnoreCase(sideTableName)) {
+            if (fieldInfo.getTable().equalsIgnoreCase(sideTableName) && fused) {
+                sideFieldIndex.put(i, getFusedFieldIndex(fieldInfo.getFieldName()));
+                sideFieldNameIndex.put(i, fieldInfo.getFieldName());
+            } else if (fieldInfo.getTable().equalsIgnoreCase(sideTableName)) {
                 fields.add(fieldInfo.getFieldName());
                 sideFieldIndex.put(i, sideIndex);
                 sideFieldNameIndex.put(i, fieldInfo.getFieldName());
@@ -123,13 +190,16 @@ public class RdbAllSideInfo extends BaseSideInfo {
 
         List<SqlNode> sqlNodeList = Lists.newArrayList();
 
-        ParseUtils.parseAnd(conditionNode, sqlNodeList);
+        ParseUtils.parseAndExpandBetween(conditionNode, sqlNodeList);
 
+        // 范围条件(含BETWEEN)由缓存的范围索引匹配, 不作为等值关联字段
         for (SqlNode sqlNode : sqlNodeList) {
-            dealOneEqualCon(sqlNode, sideTableName);
+            if (!dealOneRangeCon(sqlNode, sideTableName)) {
+                dealOneEqualCon(sqlNode, sideTableName);
+            }
         }
 
-        if (CollectionUtils.isEmpty(equalFieldList)) {
+        if (CollectionUtils.isEmpty(equalFieldList) && CollectionUtils.isEmpty(rangeConditionList)) {
             throw new RuntimeException("no join condition found after table " + joinInfo.getLeftTableName());
         }
 
@@ -141,6 +211,29 @@ public class RdbAllSideInfo extends BaseSideInfo {
             fields.add(equalField);
         }
 
+        for (RangeJoinCondition rangeCondition : rangeConditionList) {
+            if (!fields.contains(rangeCondition.getSideField())) {
+                fields.add(rangeCondition.getSideField());
+            }
+        }
+
+        // 按事件时间关联时版本字段也要加载
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideTableInfo;
+        for (String versionColumn : new String[]{rdbSideTableInfo.getVersionStartColumn(), rdbSideTableInfo.getVersionEndColumn()}) {
+            if (versionColumn != null && !fields.contains(versionColumn)) {
+                fields.add(versionColumn);
+            }
+        }
+
+        // 增量加载按主键替换旧数据, 主键也要加载
+        if (StringUtils.isNotBlank(rdbSideTableInfo.getIncrementColumn())) {
+            for (String primaryKey : rdbSideTableInfo.getPrimaryKeys()) {
+                if (!fields.contains(primaryKey)) {
+                    fields.add(primaryKey);
+                }
+            }
+        }
+
         sideSelectFields = String.join(",", fields);
     }
 
@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.flink.sql.side.rdb.async;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.SQLOptions;
+import io.vertx.ext.sql.SQLRowStream;
+import io.vertx.ext.sql.TransactionIsolation;
+import io.vertx.ext.sql.UpdateResult;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 数据库原生协议的非阻塞客户端(vertx-mysql-client, vertx-pg-client)适配成 {@link SQLClient},
+ * 复用jdbc客户端的查询、攒批、缓存和重试逻辑;
+ * 固定持有connectionNum个连接, 查询轮流发到各个连接上, 支持pipeline的协议在同一连接上不等上一条返回就发送下一条
+ * Company: www.dtstack.com
+ *
+ * @author xuchao
+ */
+
+public class NativeSqlClient implements SQLClient {
+
+    private final Pool pool;
+
+    private final boolean numberedPlaceholder;
+
+    private final AtomicReferenceArray<CompletableFuture<SqlConnection>> connections;
+
+    private final AtomicInteger nextConnection = new AtomicInteger(0);
+
+    /**
+     * @param numberedPlaceholder 占位符是否需要改写成 $1, $2 (postgresql)
+     */
+    public NativeSqlClient(Pool pool, int connectionNum, boolean numberedPlaceholder) {
+        Preconditions.checkArgument(connectionNum > 0, "connection num need > 0");
+        this.pool = pool;
+        this.numberedPlaceholder = numberedPlaceholder;
+        this.connections = new AtomicReferenceArray<>(connectionNum);
+    }
+
+    @Override
+    public SQLClient getConnection(Handler<AsyncResult<SQLConnection>> handler) {
+        int slot = Math.floorMod(nextConnection.getAndIncrement(), connections.length());
+        connectionOf(slot).whenComplete((conn, cause) -> {
+            if (cause != null) {
+                handler.handle(Future.failedFuture(cause));
+            } else {
+                handler.handle(Future.succeededFuture(new NativeSqlConnection(conn)));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 连接断开或者获取失败后, 下一次使用该位置时重新获取
+     */
+    private CompletableFuture<SqlConnection> connectionOf(int slot) {
+        while (true) {
+            CompletableFuture<SqlConnection> current = connections.get(slot);
+            if (current != null && !current.isCompletedExceptionally()) {
+                return current;
+            }
+            CompletableFuture<SqlConnection> created = new CompletableFuture<>();
+            if (!connections.compareAndSet(slot, current, created)) {
+                continue;
+            }
+            pool.getConnection(conn -> {
+                if (conn.failed()) {
+                    created.completeExceptionally(conn.cause());
+                    return;
+                }
+                conn.result().closeHandler(v -> connections.compareAndSet(slot, created, null));
+                created.complete(conn.result());
+            });
+            return created;
+        }
+    }
+
+    @Override
+    public void close(Handler<AsyncResult<Void>> handler) {
+        close();
+        if (handler != null) {
+            handler.handle(Future.succeededFuture());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < connections.length(); i++) {
+            CompletableFuture<SqlConnection> conn = connections.getAndSet(i, null);
+            if (conn != null && conn.isDone() && !conn.isCompletedExceptionally()) {
+                conn.join().close();
+            }
+        }
+        pool.close();
+    }
+
+    /**
+     * jdbc风格的 ? 占位符改写成 $1, $2, 引号内的内容不改写
+     */
+    public static String toNumberedPlaceholder(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        char quote = 0;
+        for (char c : sql.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                builder.append('$').append(++index);
+                continue;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * jdbc url 转成原生客户端的连接uri, 如 jdbc:mysql://host:3306/db?useSSL=false 转成 mysql://host:3306/db,
+     * url上的jdbc参数原生客户端不识别, 直接去掉
+     */
+    public static String toNativeUri(String jdbcUrl) {
+        String uri = StringUtils.removeStart(jdbcUrl.trim(), "jdbc:");
+        return StringUtils.substringBefore(uri, "?");
+    }
+
+    /**
+     * 原生客户端返回的值转成和jdbc客户端相同的类型, 后续按字段类型转换时不用区分客户端
+     */
+    public static Object toJdbcValue(Object val) {
+        if (val instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) val);
+        } else if (val instanceof LocalDate) {
+            return java.sql.Date.valueOf((LocalDate) val);
+        } else if (val instanceof LocalTime) {
+            return Time.valueOf((LocalTime) val);
+        } else if (val instanceof OffsetDateTime) {
+            return Timestamp.from(((OffsetDateTime) val).toInstant());
+        } else if (val instanceof Buffer) {
+            return ((Buffer) val).getBytes();
+        } else if (val instanceof Number && !isJdkNumber(val)) {
+            // postgresql的numeric类型
+            try {
+                return new BigDecimal(val.toString());
+            } catch (NumberFormatException e) {
+                return ((Number) val).doubleValue();
+            }
+        }
+        return val;
+    }
+
+    private static boolean isJdkNumber(Object val) {
+        return val instanceof Integer || val instanceof Long || val instanceof Short || val instanceof Byte
+                || val instanceof Double || val instanceof Float || val instanceof BigDecimal || val instanceof BigInteger;
+    }
+
+    private static Object toNativeParam(Object val) {
+        if (val instanceof Timestamp) {
+            return ((Timestamp) val).toLocalDateTime();
+        } else if (val instanceof java.sql.Date) {
+            return ((java.sql.Date) val).toLocalDate();
+        } else if (val instanceof Time) {
+            return ((Time) val).toLocalTime();
+        }
+        return val;
+    }
+
+    private static ResultSet toResultSet(RowSet<Row> rows, int maxRows) {
+        List<JsonArray> results = Lists.newArrayList();
+        for (Row row : rows) {
+            if (maxRows > 0 && results.size() >= maxRows) {
+                break;
+            }
+            List<Object> line = Lists.newArrayListWithCapacity(row.size());
+            for (int i = 0; i < row.size(); i++) {
+                line.add(toJdbcValue(row.getValue(i)));
+            }
+            results.add(new JsonArray(line));
+        }
+        return new ResultSet(rows.columnsNames(), results, null);
+    }
+
+    /**
+     * 共享的原生连接, close只是归还给NativeSqlClient, 连接本身一直保持;
+     * 只支持维表用到的查询, 其余操作返回失败
+     */
+    private class NativeSqlConnection implements SQLConnection {
+
+        private final SqlConnection connection;
+
+        private int maxRows = 0;
+
+        NativeSqlConnection(SqlConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public SQLConnection setOptions(SQLOptions options) {
+            maxRows = options == null ? 0 : options.getMaxRows();
+            return this;
+        }
+
+        @Override
+        public SQLConnection query(String sql, Handler<AsyncResult<ResultSet>> resultHandler) {
+            connection.query(sql).execute(rs -> handleResult(rs, resultHandler));
+            return this;
+        }
+
+        @Override
+        public SQLConnection queryWithParams(String sql, JsonArray params, Handler<AsyncResult<ResultSet>> resultHandler) {
+            Tuple tuple = Tuple.tuple();
+            for (Object param : params.getList()) {
+                tuple.addValue(toNativeParam(param));
+            }
+            String nativeSql = numberedPlaceholder ? toNumberedPlaceholder(sql) : sql;
+            connection.preparedQuery(nativeSql).execute(tuple, rs -> handleResult(rs, resultHandler));
+            return this;
+        }
+
+        private void handleResult(AsyncResult<RowSet<Row>> rs, Handler<AsyncResult<ResultSet>> resultHandler) {
+            if (rs.failed()) {
+                resultHandler.handle(Future.failedFuture(rs.cause()));
+                return;
+            }
+            ResultSet resultSet;
+            try {
+                resultSet = toResultSet(rs.result(), maxRows);
+            } catch (Exception e) {
+                resultHandler.handle(Future.failedFuture(e));
+                return;
+            }
+            resultHandler.handle(Future.succeededFuture(resultSet));
+        }
+
+        @Override
+        public void close(Handler<AsyncResult<Void>> handler) {
+            if (handler != null) {
+                handler.handle(Future.succeededFuture());
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public SQLConnection setAutoCommit(boolean autoCommit, Handler<AsyncResult<Void>> resultHandler) {
+            return unsupported("setAutoCommit", resultHandler);
+        }
+
+        @Override
+        public SQLConnection execute(String sql, Handler<AsyncResult<Void>> resultHandler) {
+            return unsupported("execute", resultHandler);
+        }
+
+        @Override
+        public SQLConnection queryStream(String sql, Handler<AsyncResult<SQLRowStream>> handler) {
+            return unsupported("queryStream", handler);
+        }
+
+        @Override
+        public SQLConnection queryStreamWithParams(String sql, JsonArray params, Handler<AsyncResult<SQLRowStream>> handler) {
+            return unsupported("queryStreamWithParams", handler);
+        }
+
+        @Override
+        public SQLConnection update(String sql, Handler<AsyncResult<UpdateResult>> resultHandler) {
+            return unsupported("update", resultHandler);
+        }
+
+        @Override
+        public SQLConnection updateWithParams(String sql, JsonArray params, Handler<AsyncResult<UpdateResult>> resultHandler) {
+            return unsupported("updateWithParams", resultHandler);
+        }
+
+        @Override
+        public SQLConnection call(String sql, Handler<AsyncResult<ResultSet>> resultHandler) {
+            return unsupported("call", resultHandler);
+        }
+
+        @Override
+        public SQLConnection callWithParams(String sql, JsonArray params, JsonArray outputs, Handler<AsyncResult<ResultSet>> resultHandler) {
+            return unsupported("callWithParams", resultHandler);
+        }
+
+        @Override
+        public SQLConnection commit(Handler<AsyncResult<Void>> handler) {
+            return unsupported("commit", handler);
+        }
+
+        @Override
+        public SQLConnection rollback(Handler<AsyncResult<Void>> handler) {
+            return unsupported("rollback", handler);
+        }
+
+        @Override
+        public SQLConnection batch(List<String> sqlStatements, Handler<AsyncResult<List<Integer>>> handler) {
+            return unsupported("batch", handler);
+        }
+
+        @Override
+        public SQLConnection batchWithParams(String sqlStatement, List<JsonArray> args, Handler<AsyncResult<List<Integer>>> handler) {
+            return unsupported("batchWithParams", handler);
+        }
+
+        @Override
+        public SQLConnection batchCallableWithParams(String sqlStatement, List<JsonArray> inArgs, List<JsonArray> outArgs, Handler<AsyncResult<List<Integer>>> handler) {
+            return unsupported("batchCallableWithParams", handler);
+        }
+
+        @Override
+        public SQLConnection setTransactionIsolation(TransactionIsolation isolation, Handler<AsyncResult<Void>> handler) {
+            return unsupported("setTransactionIsolation", handler);
+        }
+
+        @Override
+        public SQLConnection getTransactionIsolation(Handler<AsyncResult<TransactionIsolation>> handler) {
+            return unsupported("getTransactionIsolation", handler);
+        }
+
+        private <T> SQLConnection unsupported(String operation, Handler<AsyncResult<T>> handler) {
+            if (handler != null) {
+                handler.handle(Future.failedFuture(new UnsupportedOperationException(operation + " is not supported by native async client")));
+            }
+            return this;
+        }
+    }
+}
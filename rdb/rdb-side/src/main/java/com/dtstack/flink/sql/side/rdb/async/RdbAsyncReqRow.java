@@ -27,6 +27,7 @@ import com.dtstack.flink.sql.side.BaseAsyncReqRow;
 import com.dtstack.flink.sql.side.BaseSideInfo;
 import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
 import com.dtstack.flink.sql.side.rdb.util.SwitchUtil;
 import com.dtstack.flink.sql.util.DateUtil;
@@ -43,7 +44,9 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.jdbc.JDBCClient;
 import io.vertx.ext.sql.SQLClient;
 import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.SQLOptions;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.runtime.execution.SuppressRestartsException;
 import org.apache.flink.streaming.api.functions.async.ResultFuture;
@@ -53,17 +56,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Date: 2018/11/26
@@ -102,18 +109,33 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
 
     private final int errorLogPrintNum = 3;
 
-    private final AtomicBoolean connectionStatus = new AtomicBoolean(true);
-
     private static volatile boolean resourceCheck = false;
 
-    private transient ThreadPoolExecutor executor;
-
     // 共享条件：1.一个维表多个并行度在一个tm上可以共享，2.多个同种类型维表单个并行度、多个并行度在一个tm上可以共享
     protected static Map<String, SQLClient> rdbSqlClientPool = Maps.newConcurrentMap();
     // 同种类型维表以url为单位，在同一个tm中只有一个连接池
     private String url ;
 
-    private final static int MAX_TASK_QUEUE_SIZE = 100000;
+    private final static int KEY_SCAN_FETCH_SIZE = 1000;
+
+    private final static long HOT_SET_LOAD_TIMEOUT_MINUTES = 10L;
+
+    private final static Pattern NUMERIC_TYPE_PATTERN = Pattern.compile("int|long|decimal|numeric|double|float|real|number");
+
+    // 攒批查询, 未命中缓存的key攒够lookupBatchSize个或者每隔lookupBatchIntervalMs合并成一次查询
+    private boolean batchLookup = false;
+
+    private int lookupBatchSize;
+
+    private int lookupBatchIntervalMs;
+
+    private List<Boolean> numericKeyFields;
+
+    private transient Object batchLock;
+
+    private transient Map<SideCacheKey, PendingLookup> pendingLookups;
+
+    private transient ScheduledExecutorService batchFlushExecutor;
 
     public RdbAsyncReqRow(BaseSideInfo sideInfo) {
         super(sideInfo);
@@ -129,7 +151,6 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
                 JdbcResourceCheck.getInstance().checkResourceStatus(rdbSideTableInfo.getCheckProperties());
             }
         }
-        super.open(parameters);
 
         VertxOptions vertxOptions = new VertxOptions();
         if (clientShare) {
@@ -143,23 +164,38 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
                 .setWorkerPoolSize(asyncPoolSize)
                 .setFileResolverCachingEnabled(false);
 
-        executor = new ThreadPoolExecutor(
-                MAX_DB_CONN_POOL_SIZE_LIMIT,
-                MAX_DB_CONN_POOL_SIZE_LIMIT,
-                0,
-                TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(MAX_TASK_QUEUE_SIZE),
-                new DTThreadFactory("rdbAsyncExec"),
-                new ThreadPoolExecutor.CallerRunsPolicy());
-
         vertx = Vertx.vertx(vertxOptions);
         if (clientShare) {
-            rdbSqlClientPool.putIfAbsent(url, JDBCClient.createNonShared(vertx, jdbcConfig));
+            rdbSqlClientPool.computeIfAbsent(url, key -> createSqlClient(rdbSideTableInfo, jdbcConfig));
             LOG.info("{} lru type open connection share, url:{}, rdbSqlClientPool size:{}, rdbSqlClientPool:{}", rdbSideTableInfo.getType(), url, rdbSqlClientPool.size(), rdbSqlClientPool);
         } else {
-            this.rdbSqlClient = JDBCClient.createNonShared(vertx, jdbcConfig);
+            this.rdbSqlClient = createSqlClient(rdbSideTableInfo, jdbcConfig);
+        }
+
+        if (batchLookup) {
+            batchLock = new Object();
+            pendingLookups = Maps.newLinkedHashMap();
+            batchFlushExecutor = new ScheduledThreadPoolExecutor(1, new DTThreadFactory("rdbLookupBatchFlush"));
+            batchFlushExecutor.scheduleAtFixedRate(this::flushPendingLookups, lookupBatchIntervalMs, lookupBatchIntervalMs, TimeUnit.MILLISECONDS);
         }
+        // 连接池创建后再初始化缓存, 热点数据的加载会用到连接池
+        super.open(parameters);
+    }
+
+    private SQLClient createSqlClient(RdbSideTableInfo rdbSideTableInfo, JsonObject jdbcConfig) {
+        if (rdbSideTableInfo.isNativeAsyncClient()) {
+            LOG.info("{} side table {} use native async client with {} connections", rdbSideTableInfo.getType(), rdbSideTableInfo.getName(), rdbSideTableInfo.getAsyncPoolSize());
+            return buildNativeClient(vertx);
+        }
+        return JDBCClient.createNonShared(vertx, jdbcConfig);
+    }
 
+    /**
+     * 数据库原生协议的非阻塞客户端, 支持asyncClient = 'native'的插件覆盖该方法
+     */
+    protected SQLClient buildNativeClient(Vertx vertx) {
+        throw new RuntimeException("asyncClient native is not supported by side table type "
+                + sideInfo.getSideTableInfo().getType());
     }
 
     protected void init(BaseSideInfo sideInfo) {
@@ -169,6 +205,118 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
                 rdbSideTableInfo.getAsyncPoolSize() : defaultAsyncPoolSize;
         rdbSideTableInfo.setAsyncPoolSize(asyncPoolSize);
         url = rdbSideTableInfo.getUrl();
+
+        lookupBatchSize = rdbSideTableInfo.getLookupBatchSize();
+        lookupBatchIntervalMs = rdbSideTableInfo.getLookupBatchIntervalMs();
+        if (lookupBatchSize > 1) {
+            batchLookup = sideInfo instanceof RdbAsyncSideInfo && ((RdbAsyncSideInfo) sideInfo).isBatchLookupSupported();
+            if (!batchLookup) {
+                LOG.warn("side table {} only supports batch lookup with equal join on non-time fields, lookupBatchSize is ignored", rdbSideTableInfo.getName());
+            }
+        }
+        numericKeyFields = Lists.newArrayList();
+        for (String equalField : sideInfo.getEqualFieldList()) {
+            int pos = rdbSideTableInfo.getFieldList().indexOf(equalField);
+            String type = pos < 0 ? "" : rdbSideTableInfo.getFieldTypeList().get(pos).toLowerCase();
+            numericKeyFields.add(NUMERIC_TYPE_PATTERN.matcher(type).find());
+        }
+    }
+
+    /**
+     * keys of the database and the stream are matched loosely, only equal join on non-time fields is supported like batch lookup
+     */
+    @Override
+    protected boolean supportKeyFilter() {
+        return sideInfo instanceof RdbAsyncSideInfo && ((RdbAsyncSideInfo) sideInfo).isBatchLookupSupported();
+    }
+
+    /**
+     * scan with its own jdbc connection, a long scan does not hold a connection of the lookup pool
+     */
+    @Override
+    protected void scanSideKeys(Consumer<Object[]> keyConsumer) throws Exception {
+        JsonObject jdbcConfig = buildJdbcConfig();
+        Class.forName(jdbcConfig.getString("driver_class"));
+        String sql = ((RdbAsyncSideInfo) sideInfo).getKeyScanSql();
+        int keySize = sideInfo.getEqualFieldList().size();
+        try (Connection connection = DriverManager.getConnection(jdbcConfig.getString("url"), jdbcConfig.getString("user"), jdbcConfig.getString("password"));
+             Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(KEY_SCAN_FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                while (resultSet.next()) {
+                    Object[] keyValues = new Object[keySize];
+                    for (int i = 0; i < keySize; i++) {
+                        keyValues[i] = resultSet.getObject(i + 1);
+                    }
+                    keyConsumer.accept(keyValues);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean supportHotSet() {
+        return sideInfo instanceof RdbAsyncSideInfo && ((RdbAsyncSideInfo) sideInfo).isBatchLookupSupported();
+    }
+
+    /**
+     * 查询只用到vertx客户端和每次查询自己的参数, 攒批由batchLock保护, 可以在其他线程中同时查询
+     */
+    @Override
+    protected boolean supportConcurrentLookup() {
+        return true;
+    }
+
+    /**
+     * load through the lookup pool so that the rows are in the same form as the rows queried on demand,
+     * the key values are normalized like the keys of a batch lookup (decimal numbers, padded char)
+     */
+    @Override
+    protected Map<SideCacheKey, CacheObj> loadHotSet() throws Exception {
+        String sql = ((RdbAsyncSideInfo) sideInfo).getHotSetSql();
+        int hotSetSize = sideInfo.getSideTableInfo().getHotSetSize();
+        SQLClient sqlClient = clientShare ? rdbSqlClientPool.get(url) : this.rdbSqlClient;
+        CompletableFuture<List<JsonArray>> result = new CompletableFuture<>();
+        sqlClient.getConnection(conn -> {
+            if (conn.failed()) {
+                result.completeExceptionally(conn.cause());
+                return;
+            }
+            SQLConnection connection = conn.result();
+            if (hotSetSize > 0) {
+                connection.setOptions(new SQLOptions().setMaxRows(hotSetSize));
+            }
+            connection.query(sql, rs -> {
+                if (rs.failed()) {
+                    result.completeExceptionally(rs.cause());
+                } else {
+                    result.complete(rs.result().getResults());
+                }
+                connection.close(done -> {
+                    if (done.failed()) {
+                        LOG.error("sql connection close failed! " +
+                                ExceptionTrace.traceOriginalCause(done.cause())
+                        );
+                    }
+                });
+            });
+        });
+
+        int keySize = sideInfo.getEqualFieldList().size();
+        Map<SideCacheKey, List<JsonArray>> linesByKey = Maps.newHashMap();
+        for (JsonArray line : result.get(HOT_SET_LOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            int selectSize = line.size() - keySize;
+            List<Object> keyValues = Lists.newArrayList();
+            for (int i = selectSize; i < line.size(); i++) {
+                keyValues.add(line.getValue(i));
+            }
+            linesByKey.computeIfAbsent(buildMatchKey(keyValues), key -> Lists.newArrayList())
+                    .add(new JsonArray(Lists.newArrayList(line.getList().subList(0, selectSize))));
+        }
+
+        Map<SideCacheKey, CacheObj> hotRows = Maps.newHashMapWithExpectedSize(linesByKey.size());
+        linesByKey.forEach((key, lines) -> hotRows.put(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, lines)));
+        return hotRows;
     }
 
     public JsonObject buildJdbcConfig() {
@@ -180,36 +328,193 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
     protected void preInvoke(BaseRow input, ResultFuture<BaseRow> resultFuture) {
     }
 
+    /**
+     * 取连接、查询和重试都在vertx的回调中完成, 任务线程不阻塞;
+     * 正在查询和等待重试的请求都占用AsyncWaitOperator的队列, 队列满(asyncCapacity)时由算子反压上游
+     */
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
         SQLClient sqlClient = clientShare ? rdbSqlClientPool.get(url) : this.rdbSqlClient;
-        AtomicLong networkLogCounter = new AtomicLong(0L);
-        //network is unhealthy
-        while (!connectionStatus.get()) {
-            if (networkLogCounter.getAndIncrement() % 1000 == 0) {
-                LOG.info("network unhealthy to block task");
+        Map<String, Object> params = formatInputParam(inputParams);
+        if (batchLookup) {
+            addToBatch(params, input, resultFuture, sqlClient);
+            return;
+        }
+        asyncQueryData(params, input, resultFuture, sqlClient, 0);
+    }
+
+    private void addToBatch(Map<String, Object> params, BaseRow input, ResultFuture<BaseRow> resultFuture, SQLClient sqlClient) {
+        Map<SideCacheKey, PendingLookup> batch = null;
+        synchronized (batchLock) {
+            pendingLookups.computeIfAbsent(buildCacheKey(params), key -> new PendingLookup(params))
+                    .add(input, resultFuture);
+            if (pendingLookups.size() >= lookupBatchSize) {
+                batch = pendingLookups;
+                pendingLookups = Maps.newLinkedHashMap();
             }
-            Thread.sleep(100);
         }
-        Map<String, Object> params = formatInputParam(inputParams);
-        executor.execute(() -> connectWithRetry(params, input, resultFuture, sqlClient));
+        if (batch != null) {
+            queryBatch(batch, sqlClient);
+        }
     }
 
+    private void flushPendingLookups() {
+        Map<SideCacheKey, PendingLookup> batch;
+        synchronized (batchLock) {
+            if (pendingLookups.isEmpty()) {
+                return;
+            }
+            batch = pendingLookups;
+            pendingLookups = Maps.newLinkedHashMap();
+        }
+        SQLClient sqlClient = clientShare ? rdbSqlClientPool.get(url) : this.rdbSqlClient;
+        queryBatch(batch, sqlClient);
+    }
+
+    private void queryBatch(Map<SideCacheKey, PendingLookup> batch, SQLClient sqlClient) {
+        sqlClient.getConnection(conn -> {
+            if (conn.failed()) {
+                // 批量查询拿不到连接时退化为单条查询, 复用单条查询的重试逻辑
+                LOG.error("getConnection error for batch lookup, fall back to single lookup. cause by "
+                        + ExceptionTrace.traceOriginalCause(conn.cause()));
+                for (PendingLookup lookup : batch.values()) {
+                    for (Tuple2<BaseRow, ResultFuture<BaseRow>> waiter : lookup.waiters) {
+                        retryLater(lookup.params, waiter.f0, waiter.f1, sqlClient, 1);
+                    }
+                }
+                return;
+            }
+            handleBatchQuery(conn.result(), Lists.newArrayList(batch.values()), sqlClient);
+        });
+    }
+
+    private void handleBatchQuery(SQLConnection connection, List<PendingLookup> lookups, SQLClient sqlClient) {
+        List<Object> params = Lists.newArrayList();
+        Map<SideCacheKey, List<PendingLookup>> lookupsByKey = Maps.newHashMap();
+        for (PendingLookup lookup : lookups) {
+            for (Tuple2<BaseRow, ResultFuture<BaseRow>> waiter : lookup.waiters) {
+                try {
+                    registerTimerAndAddToHandler(waiter.f0, waiter.f1);
+                } catch (Exception e) {
+                    LOG.error("register timeout timer failed", e);
+                }
+            }
+            params.addAll(lookup.params.values());
+            lookupsByKey.computeIfAbsent(buildMatchKey(Lists.newArrayList(lookup.params.values())), key -> Lists.newArrayList())
+                    .add(lookup);
+        }
+
+        String sql = ((RdbAsyncSideInfo) sideInfo).getBatchSqlCondition(lookups.size());
+        connection.queryWithParams(sql, new JsonArray(params), rs -> {
+            try {
+                if (rs.failed()) {
+                    LOG.error(
+                            String.format("\nget data with sql [%s] failed! \ncause: [%s]",
+                                    sql,
+                                    rs.cause().getMessage()
+                            )
+                    );
+                    for (PendingLookup lookup : lookups) {
+                        lookup.waiters.forEach(waiter -> dealFillDataError(waiter.f0, waiter.f1, rs.cause()));
+                    }
+                    return;
+                }
+
+                // 结果最后几列是关联字段, 用来把结果行分发回对应的key
+                int keySize = sideInfo.getEqualFieldList().size();
+                Map<SideCacheKey, List<JsonArray>> linesByKey = Maps.newHashMap();
+                for (JsonArray line : rs.result().getResults()) {
+                    int selectSize = line.size() - keySize;
+                    List<Object> keyValues = Lists.newArrayList();
+                    for (int i = selectSize; i < line.size(); i++) {
+                        keyValues.add(line.getValue(i));
+                    }
+                    linesByKey.computeIfAbsent(buildMatchKey(keyValues), key -> Lists.newArrayList())
+                            .add(new JsonArray(Lists.newArrayList(line.getList().subList(0, selectSize))));
+                }
+
+                lookupsByKey.forEach((matchKey, keyLookups) ->
+                        keyLookups.forEach(lookup -> completeLookup(lookup, linesByKey.get(matchKey), sqlClient)));
+            } finally {
+                connection.close(done -> {
+                    if (done.failed()) {
+                        LOG.error("sql connection close failed! " +
+                                ExceptionTrace.traceOriginalCause(done.cause())
+                        );
+                    }
+                });
+            }
+        });
+    }
+
+    private void completeLookup(PendingLookup lookup, List<JsonArray> lines, SQLClient sqlClient) {
+        if (lines == null || lines.isEmpty()) {
+            // 数据库的比较规则可能和这里的匹配不同(如mysql不区分大小写的排序规则), 匹配不上的key不能认定为不存在,
+            // 改为单条查询, 由单条查询的结果决定是否缓存MissVal
+            for (Tuple2<BaseRow, ResultFuture<BaseRow>> waiter : lookup.waiters) {
+                asyncQueryData(lookup.params, waiter.f0, waiter.f1, sqlClient, 0);
+            }
+            return;
+        }
+
+        SideCacheKey key = buildCacheKey(lookup.params);
+
+        if (openCache()) {
+            putCache(key, CacheObj.buildCacheObj(ECacheContentType.MultiLine, lines));
+        }
+        for (Tuple2<BaseRow, ResultFuture<BaseRow>> waiter : lookup.waiters) {
+            try {
+                List<BaseRow> rowList = Lists.newArrayList();
+                for (JsonArray line : lines) {
+                    rowList.add(fillData(waiter.f0, line));
+                }
+                RowDataComplete.completeBaseRow(waiter.f1, rowList);
+            } catch (Exception e) {
+                dealFillDataError(waiter.f0, waiter.f1, e);
+            }
+        }
+    }
+
+    /**
+     * 数据库返回的关联字段和流上的值类型可能不同(如 int 和 long, decimal 和 double, char 补齐的空格), 统一后再匹配
+     */
+    private SideCacheKey buildMatchKey(List<Object> keyValues) {
+        List<Object> normalized = Lists.newArrayList();
+        for (int i = 0; i < keyValues.size(); i++) {
+            Object val = keyValues.get(i);
+            if (val == null) {
+                normalized.add(null);
+            } else if (numericKeyFields.get(i)) {
+                normalized.add(normalizeNumber(val.toString().trim()));
+            } else {
+                normalized.add(StringUtils.stripEnd(val.toString(), " "));
+            }
+        }
+        return SideCacheKey.of(normalized);
+    }
+
+    private Object normalizeNumber(String val) {
+        try {
+            return new BigDecimal(val).stripTrailingZeros();
+        } catch (NumberFormatException e) {
+            return val;
+        }
+    }
+
+    /**
+     * @param attempt 已经失败的取连接次数
+     */
     protected void asyncQueryData(Map<String, Object> inputParams,
                                   BaseRow input,
                                   ResultFuture<BaseRow> resultFuture,
                                   SQLClient rdbSqlClient,
-                                  AtomicLong failCounter,
-                                  AtomicBoolean finishFlag,
-                                  CountDownLatch latch) {
+                                  int attempt) {
         doAsyncQueryData(
                 inputParams,
                 input,
                 resultFuture,
                 rdbSqlClient,
-                failCounter,
-                finishFlag,
-                latch);
+                attempt);
     }
 
     final protected void doAsyncQueryData(
@@ -217,71 +522,42 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
             BaseRow input,
             ResultFuture<BaseRow> resultFuture,
             SQLClient rdbSqlClient,
-            AtomicLong failCounter,
-            AtomicBoolean finishFlag,
-            CountDownLatch latch) {
+            int attempt) {
         rdbSqlClient.getConnection(conn -> {
             try {
-                String errorMsg;
-                Integer retryMaxNum = sideInfo.getSideTableInfo().getConnectRetryMaxNum(3);
-                int logPrintTime = retryMaxNum / errorLogPrintNum == 0 ?
-                        retryMaxNum : retryMaxNum / errorLogPrintNum;
                 if (conn.failed()) {
-                    connectionStatus.set(false);
-                    errorMsg = ExceptionTrace.traceOriginalCause(conn.cause());
-                    if (failCounter.getAndIncrement() % logPrintTime == 0) {
-                        LOG.error("getConnection error. cause by " + errorMsg);
+                    int failNum = attempt + 1;
+                    Integer retryMaxNum = sideInfo.getSideTableInfo().getConnectRetryMaxNum(3);
+                    int logPrintTime = retryMaxNum / errorLogPrintNum == 0 ?
+                            retryMaxNum : retryMaxNum / errorLogPrintNum;
+                    if (attempt % logPrintTime == 0) {
+                        LOG.error("getConnection error. cause by " + ExceptionTrace.traceOriginalCause(conn.cause()));
                     }
-                    LOG.error(String.format("retry ... current time [%s]", failCounter.get()));
-                    if (failCounter.get() >= retryMaxNum) {
+                    LOG.error(String.format("retry ... current time [%s]", failNum));
+                    if (failNum >= retryMaxNum) {
                         resultFuture.completeExceptionally(
                                 new SuppressRestartsException(conn.cause())
                         );
-                        finishFlag.set(true);
+                        return;
                     }
+                    retryLater(inputParams, input, resultFuture, rdbSqlClient, failNum);
                     return;
                 }
-                connectionStatus.set(true);
                 registerTimerAndAddToHandler(input, resultFuture);
 
                 handleQuery(conn.result(), inputParams, input, resultFuture);
-                finishFlag.set(true);
             } catch (Exception e) {
                 dealFillDataError(input, resultFuture, e);
-            } finally {
-                latch.countDown();
             }
         });
     }
 
-    private void connectWithRetry(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture, SQLClient rdbSqlClient) {
-        AtomicLong failCounter = new AtomicLong(0);
-        AtomicBoolean finishFlag = new AtomicBoolean(false);
-        while (!finishFlag.get()) {
-            try {
-                CountDownLatch latch = new CountDownLatch(1);
-                asyncQueryData(
-                        inputParams,
-                        input,
-                        resultFuture,
-                        rdbSqlClient,
-                        failCounter,
-                        finishFlag,
-                        latch);
-                try {
-                    latch.await();
-                } catch (InterruptedException e) {
-                    LOG.error("", e);
-                }
-
-            } catch (Exception e) {
-                //数据源队列溢出情况
-                connectionStatus.set(false);
-            }
-            if (!finishFlag.get()) {
-                ThreadUtil.sleepSeconds(ThreadUtil.DEFAULT_SLEEP_TIME);
-            }
-        }
+    /**
+     * 取连接失败后用vertx的定时器延迟重试, 不占用任何线程
+     */
+    private void retryLater(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture, SQLClient rdbSqlClient, int attempt) {
+        vertx.setTimer(TimeUnit.SECONDS.toMillis(ThreadUtil.DEFAULT_SLEEP_TIME),
+                timerId -> asyncQueryData(inputParams, input, resultFuture, rdbSqlClient, attempt));
     }
 
     private Object convertDataType(Object val) {
@@ -320,11 +596,6 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
 
     }
 
-    @Override
-    public String buildCacheKey(Map<String, Object> inputParam) {
-        return StringUtils.join(inputParam.values(), "_");
-    }
-
     @Override
     public BaseRow fillData(BaseRow input, Object line) {
         GenericRow genericRow = (GenericRow) input;
@@ -360,8 +631,8 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
             rdbSqlClient.close(getAsyncResultHandler());
         }
 
-        if (executor != null) {
-            executor.shutdown();
+        if (batchFlushExecutor != null) {
+            batchFlushExecutor.shutdownNow();
         }
 
         // 关闭异步连接vertx事件循环线程，因为vertx使用的是非守护线程
@@ -391,7 +662,7 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
     }
 
     private void handleQuery(SQLConnection connection, Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) {
-        String key = buildCacheKey(inputParams);
+        SideCacheKey key = buildCacheKey(inputParams);
         JsonArray params = new JsonArray(Lists.newArrayList(inputParams.values()));
         connection.queryWithParams(sideInfo.getSqlCondition(), params, rs -> {
             try {
@@ -425,10 +696,10 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
                     }
                     RowDataComplete.completeBaseRow(resultFuture, rowList);
                 } else {
-                    dealMissKey(input, resultFuture);
                     if (openCache()) {
                         putCache(key, CacheMissVal.getMissKeyObj());
                     }
+                    dealMissKey(input, resultFuture);
                 }
             } finally {
                 // and close the connection
@@ -450,4 +721,22 @@ public class RdbAsyncReqRow extends BaseAsyncReqRow {
         });
         return result;
     }
+
+    /**
+     * 同一个key在一批中只查询一次, 结果分发给所有等待的输入
+     */
+    private static class PendingLookup {
+
+        private final Map<String, Object> params;
+
+        private final List<Tuple2<BaseRow, ResultFuture<BaseRow>>> waiters = Lists.newArrayList();
+
+        PendingLookup(Map<String, Object> params) {
+            this.params = params;
+        }
+
+        void add(BaseRow input, ResultFuture<BaseRow> resultFuture) {
+            waiters.add(Tuple2.of(input, resultFuture));
+        }
+    }
 }
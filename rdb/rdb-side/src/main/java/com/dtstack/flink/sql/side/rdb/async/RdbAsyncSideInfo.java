@@ -37,9 +37,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -55,6 +57,8 @@ public class RdbAsyncSideInfo extends BaseSideInfo {
     private static final long serialVersionUID = 1942629132469918611L;
     private static final Logger LOG = LoggerFactory.getLogger(RdbAsyncSideInfo.class);
 
+    private List<String> sqlJoinCompareOperate = Lists.newArrayList();
+
 
     public RdbAsyncSideInfo(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo);
@@ -68,7 +72,7 @@ public class RdbAsyncSideInfo extends BaseSideInfo {
         SqlNode conditionNode = joinInfo.getCondition();
 
         List<SqlNode> sqlNodeList = Lists.newArrayList();
-        List<String> sqlJoinCompareOperate= Lists.newArrayList();
+        sqlJoinCompareOperate = Lists.newArrayList();
 
         ParseUtils.parseAnd(conditionNode, sqlNodeList);
         ParseUtils.parseJoinCompareOperate(conditionNode, sqlJoinCompareOperate);
@@ -106,6 +110,106 @@ public class RdbAsyncSideInfo extends BaseSideInfo {
         return dimQuerySql;
     }
 
+    /**
+     * 只有全部为等值关联且关联字段不是时间类型时才能攒批查询, 否则无法把结果按key分发回去
+     */
+    public boolean isBatchLookupSupported() {
+        if (equalFieldList.isEmpty() || equalFieldList.size() != sqlJoinCompareOperate.size()) {
+            return false;
+        }
+        for (int i = 0; i < equalFieldList.size(); i++) {
+            if (!"=".equals(StringUtils.trim(sqlJoinCompareOperate.get(i)))) {
+                return false;
+            }
+            int pos = sideTableInfo.getFieldList().indexOf(equalFieldList.get(i));
+            String type = pos < 0 ? "" : sideTableInfo.getFieldTypeList().get(pos).toLowerCase();
+            if (type.contains("date") || type.contains("time")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * batch query of keyNum keys, the join key columns are appended after the select fields
+     * so that result lines can be matched back to the keys
+     */
+    public String getBatchSqlCondition(int keyNum) {
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideTableInfo;
+        return getBatchSelectFromStatement(getTableName(rdbSideTableInfo), Arrays.asList(StringUtils.split(sideSelectFields, ",")),
+                equalFieldList, sideTableInfo.getPredicateInfoes(), keyNum);
+    }
+
+    public String getBatchSelectFromStatement(String tableName, List<String> selectFields, List<String> conditionFields,
+                                              List<PredicateInfo> predicateInfoes, int keyNum) {
+        List<String> physicalConditionFields = conditionFields.stream()
+                .map(f -> sideTableInfo.getPhysicalFields().getOrDefault(f, f))
+                .collect(Collectors.toList());
+
+        String fromClause = Stream.concat(selectFields.stream(), physicalConditionFields.stream())
+                .map(this::quoteIdentifier)
+                .collect(Collectors.joining(", "));
+
+        String whereClause;
+        if (conditionFields.size() == 1) {
+            String placeholder = wrapperPlaceholder(conditionFields.get(0));
+            whereClause = quoteIdentifier(physicalConditionFields.get(0)) + " IN ("
+                    + String.join(",", Collections.nCopies(keyNum, placeholder)) + ")";
+        } else {
+            // (k1, k2) IN ((?, ?)) 并不是所有数据库都支持, 组合key使用 OR 展开
+            String oneKeyClause = conditionFields.stream()
+                    .map(f -> quoteIdentifier(sideTableInfo.getPhysicalFields().getOrDefault(f, f)) + "=" + wrapperPlaceholder(f))
+                    .collect(Collectors.joining(" AND ", "(", ")"));
+            whereClause = String.join(" OR ", Collections.nCopies(keyNum, oneKeyClause));
+        }
+
+        String predicateClause = predicateInfoes.stream()
+                .map(this::buildFilterCondition)
+                .collect(Collectors.joining(" AND "));
+
+        return "SELECT " + fromClause + " FROM " + tableName + " WHERE (" + whereClause + ")"
+                + (predicateInfoes.size() > 0 ? " AND " + predicateClause : "") + getAdditionalWhereClause();
+    }
+
+    /**
+     * distinct join keys of the side table, used to build the key filter
+     */
+    public String getKeyScanSql() {
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideTableInfo;
+        String keyFields = equalFieldList.stream()
+                .map(f -> quoteIdentifier(sideTableInfo.getPhysicalFields().getOrDefault(f, f)))
+                .collect(Collectors.joining(", "));
+
+        String predicateClause = sideTableInfo.getPredicateInfoes().stream()
+                .map(this::buildFilterCondition)
+                .map(condition -> " AND " + condition)
+                .collect(Collectors.joining());
+
+        return "SELECT DISTINCT " + keyFields + " FROM " + getTableName(rdbSideTableInfo) + " WHERE 1 = 1"
+                + predicateClause + getAdditionalWhereClause();
+    }
+
+    /**
+     * hot rows of the hybrid cache, the join key columns are appended after the select fields like batch query
+     */
+    public String getHotSetSql() {
+        RdbSideTableInfo rdbSideTableInfo = (RdbSideTableInfo) sideTableInfo;
+        String fromClause = Stream.concat(Arrays.stream(StringUtils.split(sideSelectFields, ",")),
+                equalFieldList.stream().map(f -> sideTableInfo.getPhysicalFields().getOrDefault(f, f)))
+                .map(this::quoteIdentifier)
+                .collect(Collectors.joining(", "));
+
+        String hotSetClause = StringUtils.isBlank(sideTableInfo.getHotSetCondition()) ? "" : " AND (" + sideTableInfo.getHotSetCondition() + ")";
+        String predicateClause = sideTableInfo.getPredicateInfoes().stream()
+                .map(this::buildFilterCondition)
+                .map(condition -> " AND " + condition)
+                .collect(Collectors.joining());
+        String orderByClause = StringUtils.isBlank(sideTableInfo.getHotSetOrderBy()) ? "" : " ORDER BY " + sideTableInfo.getHotSetOrderBy();
+
+        return "SELECT " + fromClause + " FROM " + getTableName(rdbSideTableInfo) + " WHERE 1 = 1"
+                + hotSetClause + predicateClause + getAdditionalWhereClause() + orderByClause;
+    }
+
     public String wrapperPlaceholder(String fieldName) {
         return " ? ";
     }
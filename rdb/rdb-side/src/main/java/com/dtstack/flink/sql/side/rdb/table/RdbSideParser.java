@@ -19,9 +19,11 @@
 
 package com.dtstack.flink.sql.side.rdb.table;
 
+import com.dtstack.flink.sql.enums.ECacheType;
 import com.dtstack.flink.sql.table.AbstractSideTableParser;
 import com.dtstack.flink.sql.table.AbstractTableInfo;
 import com.dtstack.flink.sql.util.MathUtil;
+import org.apache.commons.collections.CollectionUtils;
 
 import java.util.Map;
 
@@ -57,9 +59,119 @@ public class RdbSideParser extends AbstractSideTableParser {
             rdbTableInfo.setErrorLimit(MathUtil.getLongVal(props.get(RdbSideTableInfo.ERROR_LIMIT.toLowerCase())));
         }
 
+        Integer lookupBatchSize = MathUtil.getIntegerVal(props.get(RdbSideTableInfo.LOOKUP_BATCH_SIZE_KEY.toLowerCase()));
+        if (lookupBatchSize != null) {
+            if (lookupBatchSize < 0) {
+                throw new RuntimeException("lookupBatchSize must not be negative");
+            }
+            rdbTableInfo.setLookupBatchSize(lookupBatchSize);
+        }
+
+        Integer lookupBatchIntervalMs = MathUtil.getIntegerVal(props.get(RdbSideTableInfo.LOOKUP_BATCH_INTERVAL_MS_KEY.toLowerCase()));
+        if (lookupBatchIntervalMs != null) {
+            if (lookupBatchIntervalMs <= 0) {
+                throw new RuntimeException("lookupBatchIntervalMs must be greater than 0");
+            }
+            rdbTableInfo.setLookupBatchIntervalMs(lookupBatchIntervalMs);
+        }
+
+        String incrementColumn = MathUtil.getString(props.get(RdbSideTableInfo.INCREMENT_COLUMN_KEY.toLowerCase()));
+        if (incrementColumn != null) {
+            if (!rdbTableInfo.getFieldList().contains(incrementColumn)) {
+                throw new RuntimeException("incrementColumn " + incrementColumn + " is not a field of side table " + tableName);
+            }
+            // 增量数据按主键替换同一个key下的旧数据, 没有主键时无法知道哪些旧数据被更新了
+            if (CollectionUtils.isEmpty(rdbTableInfo.getPrimaryKeys())) {
+                throw new RuntimeException("incrementColumn requires the primary key of side table " + tableName);
+            }
+            rdbTableInfo.setIncrementColumn(incrementColumn);
+        }
+
+        Long fullReloadIntervalMs = MathUtil.getLongVal(props.get(RdbSideTableInfo.FULL_RELOAD_INTERVAL_MS_KEY.toLowerCase()));
+        if (fullReloadIntervalMs != null) {
+            if (fullReloadIntervalMs <= 0) {
+                throw new RuntimeException("fullReloadIntervalMs must be greater than 0");
+            }
+            rdbTableInfo.setFullReloadIntervalMs(fullReloadIntervalMs);
+        }
+
+        String cacheBackend = MathUtil.getString(props.get(RdbSideTableInfo.CACHE_BACKEND_KEY.toLowerCase()));
+        if (cacheBackend != null) {
+            cacheBackend = cacheBackend.toLowerCase();
+            if (!RdbSideTableInfo.HEAP_CACHE_BACKEND.equals(cacheBackend) && !RdbSideTableInfo.ROCKSDB_CACHE_BACKEND.equals(cacheBackend)) {
+                throw new RuntimeException("cacheBackend only support heap or rocksdb, but is " + cacheBackend);
+            }
+            rdbTableInfo.setCacheBackend(cacheBackend);
+        }
+
+        String cacheLocalDir = MathUtil.getString(props.get(RdbSideTableInfo.CACHE_LOCAL_DIR_KEY.toLowerCase()));
+        if (cacheLocalDir != null) {
+            rdbTableInfo.setCacheLocalDir(cacheLocalDir);
+        }
+
+        Integer loadParallelism = MathUtil.getIntegerVal(props.get(RdbSideTableInfo.LOAD_PARALLELISM_KEY.toLowerCase()));
+        if (loadParallelism != null) {
+            if (loadParallelism < 1) {
+                throw new RuntimeException("loadParallelism must be greater than 0");
+            }
+            rdbTableInfo.setLoadParallelism(loadParallelism);
+        }
+
+        String splitColumn = MathUtil.getString(props.get(RdbSideTableInfo.SPLIT_COLUMN_KEY.toLowerCase()));
+        if (splitColumn != null) {
+            if (!rdbTableInfo.getFieldList().contains(splitColumn)) {
+                throw new RuntimeException("splitColumn " + splitColumn + " is not a field of side table " + tableName);
+            }
+            rdbTableInfo.setSplitColumn(splitColumn);
+        }
+
+        parseVersionProp(rdbTableInfo, tableName, props);
+
+        String asyncClient = MathUtil.getString(props.get(RdbSideTableInfo.ASYNC_CLIENT_KEY.toLowerCase()));
+        if (asyncClient != null) {
+            asyncClient = asyncClient.toLowerCase();
+            if (!RdbSideTableInfo.JDBC_ASYNC_CLIENT.equals(asyncClient) && !RdbSideTableInfo.NATIVE_ASYNC_CLIENT.equals(asyncClient)) {
+                throw new RuntimeException("asyncClient only support jdbc or native, but is " + asyncClient);
+            }
+            rdbTableInfo.setAsyncClient(asyncClient);
+        }
+
         rdbTableInfo.setCheckProperties();
 
         rdbTableInfo.check();
         return rdbTableInfo;
     }
+
+    /**
+     * 配置了versionStartColumn时按左表的事件时间关联当时生效的版本, 版本保存在堆内的ALL缓存中
+     */
+    private void parseVersionProp(RdbSideTableInfo rdbTableInfo, String tableName, Map<String, Object> props) {
+        String versionStartColumn = MathUtil.getString(props.get(RdbSideTableInfo.VERSION_START_COLUMN_KEY.toLowerCase()));
+        String versionEndColumn = MathUtil.getString(props.get(RdbSideTableInfo.VERSION_END_COLUMN_KEY.toLowerCase()));
+        if (versionStartColumn == null) {
+            if (versionEndColumn != null) {
+                throw new RuntimeException("versionEndColumn need versionStartColumn of side table " + tableName);
+            }
+            return;
+        }
+
+        if (!ECacheType.ALL.name().equalsIgnoreCase(rdbTableInfo.getCacheType()) || rdbTableInfo.isRocksDbCacheBackend()) {
+            throw new RuntimeException("versionStartColumn only support cache ALL with heap cacheBackend, side table " + tableName);
+        }
+        for (String versionColumn : new String[]{versionStartColumn, versionEndColumn}) {
+            if (versionColumn != null && !rdbTableInfo.getFieldList().contains(versionColumn)) {
+                throw new RuntimeException("version column " + versionColumn + " is not a field of side table " + tableName);
+            }
+        }
+        rdbTableInfo.setVersionStartColumn(versionStartColumn);
+        rdbTableInfo.setVersionEndColumn(versionEndColumn);
+
+        Integer versionMaxNum = MathUtil.getIntegerVal(props.get(RdbSideTableInfo.VERSION_MAX_NUM_KEY.toLowerCase()));
+        if (versionMaxNum != null) {
+            if (versionMaxNum < 1) {
+                throw new RuntimeException("versionMaxNum must be greater than 0");
+            }
+            rdbTableInfo.setVersionMaxNum(versionMaxNum);
+        }
+    }
 }
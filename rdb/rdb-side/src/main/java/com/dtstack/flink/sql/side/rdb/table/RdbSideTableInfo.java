@@ -19,10 +19,12 @@ package com.dtstack.flink.sql.side.rdb.table;
 
 import com.dtstack.flink.sql.core.rdb.JdbcCheckKeys;
 import com.dtstack.flink.sql.core.rdb.JdbcResourceCheck;
+import com.dtstack.flink.sql.enums.ECacheType;
 import com.dtstack.flink.sql.resource.ResourceCheck;
 import com.dtstack.flink.sql.side.AbstractSideTableInfo;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.Map;
 
@@ -41,6 +43,25 @@ public class RdbSideTableInfo extends AbstractSideTableInfo {
     public static final String USER_NAME_KEY = "userName";
     public static final String PASSWORD_KEY = "password";
     public static final String SCHEMA_KEY = "schema";
+    public static final String LOOKUP_BATCH_SIZE_KEY = "lookupBatchSize";
+    public static final String LOOKUP_BATCH_INTERVAL_MS_KEY = "lookupBatchIntervalMs";
+    public static final int DEFAULT_LOOKUP_BATCH_INTERVAL_MS = 10;
+    public static final String INCREMENT_COLUMN_KEY = "incrementColumn";
+    public static final String FULL_RELOAD_INTERVAL_MS_KEY = "fullReloadIntervalMs";
+    public static final long DEFAULT_FULL_RELOAD_INTERVAL_MS = 60 * 60 * 1000L;
+    public static final String CACHE_BACKEND_KEY = "cacheBackend";
+    public static final String CACHE_LOCAL_DIR_KEY = "cacheLocalDir";
+    public static final String HEAP_CACHE_BACKEND = "heap";
+    public static final String ROCKSDB_CACHE_BACKEND = "rocksdb";
+    public static final String LOAD_PARALLELISM_KEY = "loadParallelism";
+    public static final String SPLIT_COLUMN_KEY = "splitColumn";
+    public static final String VERSION_START_COLUMN_KEY = "versionStartColumn";
+    public static final String VERSION_END_COLUMN_KEY = "versionEndColumn";
+    public static final String VERSION_MAX_NUM_KEY = "versionMaxNum";
+    public static final int DEFAULT_VERSION_MAX_NUM = 100;
+    public static final String ASYNC_CLIENT_KEY = "asyncClient";
+    public static final String JDBC_ASYNC_CLIENT = "jdbc";
+    public static final String NATIVE_ASYNC_CLIENT = "native";
     private static final long serialVersionUID = -1L;
     private String driverName;
     private String url;
@@ -48,6 +69,26 @@ public class RdbSideTableInfo extends AbstractSideTableInfo {
     private String userName;
     private String password;
     private String schema;
+    // 异步维表批量查询的最大key数, 小于等于1表示不攒批
+    private int lookupBatchSize = 0;
+    private int lookupBatchIntervalMs = DEFAULT_LOOKUP_BATCH_INTERVAL_MS;
+    // ALL维表增量加载依据的单调递增字段(更新时间或版本号), 为空时每次全量加载
+    private String incrementColumn;
+    private long fullReloadIntervalMs = DEFAULT_FULL_RELOAD_INTERVAL_MS;
+    // ALL维表缓存存放位置, heap: 堆内列存, rocksdb: TaskManager本地磁盘
+    private String cacheBackend = HEAP_CACHE_BACKEND;
+    private String cacheLocalDir = System.getProperty("java.io.tmpdir");
+    // ALL维表加载时按splitColumn的范围切分的并行查询数
+    private int loadParallelism = 1;
+    private String splitColumn;
+    // ALL维表按事件时间关联时版本的生效时间字段, 为空时关联最新的数据
+    private String versionStartColumn;
+    // 版本的失效时间字段, 为空时版本到下一个版本生效前一直有效
+    private String versionEndColumn;
+    // 每个key最多保留的版本数
+    private int versionMaxNum = DEFAULT_VERSION_MAX_NUM;
+    // 异步维表的查询客户端, jdbc: 阻塞的jdbc驱动跑在vertx worker线程上, native: 数据库原生协议的非阻塞客户端
+    private String asyncClient = JDBC_ASYNC_CLIENT;
 
     @Override
     public boolean check() {
@@ -112,6 +153,122 @@ public class RdbSideTableInfo extends AbstractSideTableInfo {
         this.driverName = driverName;
     }
 
+    public int getLookupBatchSize() {
+        return lookupBatchSize;
+    }
+
+    public void setLookupBatchSize(int lookupBatchSize) {
+        this.lookupBatchSize = lookupBatchSize;
+    }
+
+    public int getLookupBatchIntervalMs() {
+        return lookupBatchIntervalMs;
+    }
+
+    public void setLookupBatchIntervalMs(int lookupBatchIntervalMs) {
+        this.lookupBatchIntervalMs = lookupBatchIntervalMs;
+    }
+
+    public String getIncrementColumn() {
+        return incrementColumn;
+    }
+
+    public void setIncrementColumn(String incrementColumn) {
+        this.incrementColumn = incrementColumn;
+    }
+
+    public long getFullReloadIntervalMs() {
+        return fullReloadIntervalMs;
+    }
+
+    public void setFullReloadIntervalMs(long fullReloadIntervalMs) {
+        this.fullReloadIntervalMs = fullReloadIntervalMs;
+    }
+
+    public String getCacheBackend() {
+        return cacheBackend;
+    }
+
+    public void setCacheBackend(String cacheBackend) {
+        this.cacheBackend = cacheBackend;
+    }
+
+    public boolean isRocksDbCacheBackend() {
+        return ROCKSDB_CACHE_BACKEND.equals(cacheBackend);
+    }
+
+    public String getCacheLocalDir() {
+        return cacheLocalDir;
+    }
+
+    public void setCacheLocalDir(String cacheLocalDir) {
+        this.cacheLocalDir = cacheLocalDir;
+    }
+
+    public int getLoadParallelism() {
+        return loadParallelism;
+    }
+
+    public void setLoadParallelism(int loadParallelism) {
+        this.loadParallelism = loadParallelism;
+    }
+
+    public String getSplitColumn() {
+        return splitColumn;
+    }
+
+    public void setSplitColumn(String splitColumn) {
+        this.splitColumn = splitColumn;
+    }
+
+    public String getVersionStartColumn() {
+        return versionStartColumn;
+    }
+
+    public void setVersionStartColumn(String versionStartColumn) {
+        this.versionStartColumn = versionStartColumn;
+    }
+
+    public String getVersionEndColumn() {
+        return versionEndColumn;
+    }
+
+    public void setVersionEndColumn(String versionEndColumn) {
+        this.versionEndColumn = versionEndColumn;
+    }
+
+    public int getVersionMaxNum() {
+        return versionMaxNum;
+    }
+
+    public void setVersionMaxNum(int versionMaxNum) {
+        this.versionMaxNum = versionMaxNum;
+    }
+
+    public boolean isTemporalJoin() {
+        return StringUtils.isNotBlank(versionStartColumn);
+    }
+
+    public String getAsyncClient() {
+        return asyncClient;
+    }
+
+    public void setAsyncClient(String asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
+    public boolean isNativeAsyncClient() {
+        return NATIVE_ASYNC_CLIENT.equals(asyncClient);
+    }
+
+    /**
+     * ALL缓存由内存中的范围索引匹配
+     */
+    @Override
+    public boolean supportRangeJoin() {
+        return ECacheType.ALL.name().equalsIgnoreCase(getCacheType());
+    }
+
     @Override
     public String toString() {
         String cacheInfo = super.toString();
@@ -120,6 +277,18 @@ public class RdbSideTableInfo extends AbstractSideTableInfo {
                 ", tableName='" + tableName + '\'' +
                 ", schema='" + schema + '\'' +
                 ", driverName='" + driverName + '\'' +
+                ", lookupBatchSize=" + lookupBatchSize +
+                ", lookupBatchIntervalMs=" + lookupBatchIntervalMs +
+                ", incrementColumn='" + incrementColumn + '\'' +
+                ", fullReloadIntervalMs=" + fullReloadIntervalMs +
+                ", cacheBackend='" + cacheBackend + '\'' +
+                ", cacheLocalDir='" + cacheLocalDir + '\'' +
+                ", loadParallelism=" + loadParallelism +
+                ", splitColumn='" + splitColumn + '\'' +
+                ", versionStartColumn='" + versionStartColumn + '\'' +
+                ", versionEndColumn='" + versionEndColumn + '\'' +
+                ", versionMaxNum=" + versionMaxNum +
+                ", asyncClient='" + asyncClient + '\'' +
                 '}';
         return cacheInfo + " , " + connectionInfo;
     }
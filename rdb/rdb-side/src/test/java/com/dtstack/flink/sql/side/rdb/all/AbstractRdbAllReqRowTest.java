@@ -1,10 +1,16 @@
 package com.dtstack.flink.sql.side.rdb.all;
 
 import com.dtstack.flink.sql.side.BaseAllReqRow;
+import com.dtstack.flink.sql.side.JoinInfo;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.dtstack.flink.sql.side.cache.TemporalAllSideCache;
 import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
 import com.dtstack.flink.sql.side.rdb.testutil.ArgFactory;
+import com.dtstack.flink.sql.util.RowDataConvert;
 import com.google.common.collect.Maps;
+import org.apache.calcite.sql.JoinType;
 import org.apache.commons.compress.utils.Lists;
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
 import org.apache.flink.configuration.Configuration;
@@ -13,6 +19,7 @@ import org.apache.flink.table.dataformat.BaseRow;
 import org.apache.flink.table.dataformat.GenericRow;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.Collector;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,8 +27,11 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.powermock.api.support.membermodification.MemberModifier.suppress;
 
@@ -115,4 +125,90 @@ public class AbstractRdbAllReqRowTest {
         reqRow.fillData(input, sideInput);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSplitRanges() {
+        List<long[]> ranges = AbstractRdbAllReqRow.splitRanges(1, 10L, 3);
+        Assert.assertEquals(3, ranges.size());
+        Assert.assertArrayEquals(new long[]{1, 4}, ranges.get(0));
+        Assert.assertArrayEquals(new long[]{4, 7}, ranges.get(1));
+        Assert.assertArrayEquals(new long[]{7, 11}, ranges.get(2));
+
+        Assert.assertEquals(1, AbstractRdbAllReqRow.splitRanges(5, 5, 4).size());
+        Assert.assertArrayEquals(new long[]{-2, 3}, AbstractRdbAllReqRow.splitRanges(new BigDecimal("-1.5"), new BigDecimal("2.5"), 1).get(0));
+        Assert.assertTrue(AbstractRdbAllReqRow.splitRanges("a", "z", 4).isEmpty());
+        Assert.assertTrue(AbstractRdbAllReqRow.splitRanges(null, null, 4).isEmpty());
+    }
+
+    @Test
+    public void testMergeIncrementRows() throws Exception {
+        List<Map<String, Object>> oldRows = Lists.newArrayList();
+        oldRows.add(buildRow(1, "a", "x"));
+        oldRows.add(buildRow(2, "a", "y"));
+        List<Map<String, Object>> changedRows = Lists.newArrayList();
+        changedRows.add(buildRow(2, "a", "z"));
+        changedRows.add(buildRow(3, "a", "w"));
+
+        List<String> primaryKeys = Lists.newArrayList();
+        primaryKeys.add("pk");
+        List<Map<String, Object>> merged = Whitebox.invokeMethod(reqRow, "mergeRows", oldRows, changedRows, primaryKeys);
+
+        // 同一个key下只替换主键相同的旧数据
+        Assert.assertEquals(3, merged.size());
+        Assert.assertEquals("x", merged.get(0).get("name"));
+        Assert.assertEquals("z", merged.get(1).get("name"));
+        Assert.assertEquals("w", merged.get(2).get("name"));
+    }
+
+    private static Map<String, Object> buildRow(int pk, String id, String name) {
+        Map<String, Object> row = Maps.newHashMap();
+        row.put("pk", pk);
+        row.put("id", id);
+        row.put("name", name);
+        return row;
+    }
+
+    @Test
+    public void testTemporalJoinAtEventTime() throws Exception {
+        RdbAllSideInfo sideInfo = Whitebox.getInternalState(reqRow, "sideInfo");
+        sideInfo.setSideFieldNameIndex(Maps.newHashMap());
+        sideInfo.getSideFieldNameIndex().put(1, "name");
+        JoinInfo joinInfo = new JoinInfo();
+        // 左表为(id, rowtime), 传给算子前rowtime的类型已转换为Timestamp
+        joinInfo.setLeftRowtimeIndex(1);
+        Whitebox.setInternalState(sideInfo, "joinInfo", joinInfo);
+        Whitebox.setInternalState(sideInfo, "joinType", JoinType.INNER);
+        Whitebox.invokeMethod(reqRow, "initRowtimeIndex");
+
+        TemporalAllSideCache cache = TemporalAllSideCache.builder(new String[]{"id", "name", "valid_from"}, "valid_from", null, 10)
+                .addRow(SideCacheKey.of(1), new Object[]{1, "v1", Timestamp.valueOf("2020-01-01 00:00:00")})
+                .addRow(SideCacheKey.of(1), new Object[]{1, "v2", Timestamp.valueOf("2020-06-01 00:00:00")})
+                .build();
+        Whitebox.setInternalState(reqRow, "cacheRef", new AtomicReference<>(cache), AbstractRdbAllReqRow.class);
+
+        Assert.assertEquals("v1", joinAt(Timestamp.valueOf("2020-03-01 00:00:00")));
+        Assert.assertEquals("v2", joinAt(Timestamp.valueOf("2020-06-01 00:00:00")));
+        Assert.assertNull(joinAt(Timestamp.valueOf("2019-12-31 23:59:59")));
+    }
+
+    /**
+     * @return name of the side row joined, null if no row joined
+     */
+    private Object joinAt(Timestamp rowtime) throws Exception {
+        Row row = new Row(2);
+        row.setField(0, 1);
+        row.setField(1, rowtime);
+        BaseRow input = RowDataConvert.convertToBaseRow(Tuple2.of(true, row));
+        List<BaseRow> joined = Lists.newArrayList();
+        reqRow.flatMap(input, new Collector<BaseRow>() {
+            @Override
+            public void collect(BaseRow record) {
+                joined.add(record);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return joined.isEmpty() ? null : ((GenericRow) joined.get(0)).getField(1);
+    }
+}
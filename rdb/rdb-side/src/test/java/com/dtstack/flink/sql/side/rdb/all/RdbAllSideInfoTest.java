@@ -76,6 +76,35 @@ public class RdbAllSideInfoTest {
 //        Assert.assertTrue(normal.equals(stmt));
     }
 
+    @Test
+    public void testBuildIncrementSql() {
+        RdbSideTableInfo tableInfo = new RdbSideTableInfo();
+        tableInfo.setTableName("TEST_ods");
+        tableInfo.getPhysicalFields().put("id", null);
+        tableInfo.getPhysicalFields().put("update_time", "gmt_modified");
+        tableInfo.setIncrementColumn("update_time");
+        sideInfo.buildEqualInfo(null, tableInfo);
+
+        Assert.assertEquals("SELECT  id ,  gmt_modified  AS  update_time  FROM TEST_ods", sideInfo.getSqlCondition());
+        Assert.assertEquals("SELECT  id ,  gmt_modified  AS  update_time  FROM TEST_ods WHERE  gmt_modified  >= ?",
+            sideInfo.getIncrementSqlCondition());
+    }
+
+    @Test
+    public void testBuildSplitSql() {
+        RdbSideTableInfo tableInfo = new RdbSideTableInfo();
+        tableInfo.setTableName("TEST_ods");
+        tableInfo.getPhysicalFields().put("id", "user_id");
+        tableInfo.setLoadParallelism(4);
+        tableInfo.setSplitColumn("id");
+        sideInfo.buildEqualInfo(null, tableInfo);
+
+        Assert.assertEquals("SELECT MIN( user_id ), MAX( user_id ) FROM TEST_ods", sideInfo.getSplitBoundSqlCondition());
+        Assert.assertEquals("SELECT  user_id  AS  id  FROM TEST_ods WHERE  user_id  >= ? AND  user_id  < ?",
+            sideInfo.getSplitSqlCondition());
+        Assert.assertEquals("SELECT  user_id  AS  id  FROM TEST_ods WHERE  user_id  IS NULL", sideInfo.getSplitNullSqlCondition());
+    }
+
 //    @Test
     public void testParseSelectFields() throws SqlParseException {
         JoinInfo joinInfo = new JoinInfo();
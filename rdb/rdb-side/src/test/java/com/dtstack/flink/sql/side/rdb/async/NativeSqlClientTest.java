@@ -0,0 +1,41 @@
+package com.dtstack.flink.sql.side.rdb.async;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class NativeSqlClientTest {
+
+    @Test
+    public void testToNumberedPlaceholder() {
+        String sql = "SELECT \"a?\", b FROM t WHERE c = ? AND d = '?' AND e IN ( ? , ? )";
+        Assert.assertEquals("SELECT \"a?\", b FROM t WHERE c = $1 AND d = '?' AND e IN ( $2 , $3 )",
+                NativeSqlClient.toNumberedPlaceholder(sql));
+        Assert.assertEquals("SELECT 'it''s?' FROM t WHERE a = $1",
+                NativeSqlClient.toNumberedPlaceholder("SELECT 'it''s?' FROM t WHERE a = ?"));
+    }
+
+    @Test
+    public void testToNativeUri() {
+        Assert.assertEquals("mysql://localhost:3306/test",
+                NativeSqlClient.toNativeUri("jdbc:mysql://localhost:3306/test?useSSL=false&charset=utf8"));
+        Assert.assertEquals("postgresql://localhost:5432/test",
+                NativeSqlClient.toNativeUri("jdbc:postgresql://localhost:5432/test"));
+    }
+
+    @Test
+    public void testToJdbcValue() {
+        LocalDateTime time = LocalDateTime.of(2020, 1, 2, 3, 4, 5);
+        Assert.assertEquals(Timestamp.valueOf(time), NativeSqlClient.toJdbcValue(time));
+        Assert.assertEquals(java.sql.Date.valueOf("2020-01-02"), NativeSqlClient.toJdbcValue(LocalDate.of(2020, 1, 2)));
+        Assert.assertArrayEquals(new byte[]{1, 2}, (byte[]) NativeSqlClient.toJdbcValue(Buffer.buffer(new byte[]{1, 2})));
+        Assert.assertEquals(1L, NativeSqlClient.toJdbcValue(1L));
+        Assert.assertEquals(new BigDecimal("1.5"), NativeSqlClient.toJdbcValue(new BigDecimal("1.5")));
+        Assert.assertEquals("a", NativeSqlClient.toJdbcValue("a"));
+    }
+}
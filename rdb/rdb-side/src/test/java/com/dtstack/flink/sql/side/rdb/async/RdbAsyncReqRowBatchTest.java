@@ -0,0 +1,195 @@
+package com.dtstack.flink.sql.side.rdb.async;
+
+import com.dtstack.flink.sql.side.CacheMissVal;
+import com.dtstack.flink.sql.side.cache.AbstractSideCache;
+import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
+import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * the stub connection answers the batch sql and the hot set sql with batchRows, the single sql with singleRows
+ */
+public class RdbAsyncReqRowBatchTest {
+
+    private static final String BATCH_SQL = "batch sql";
+
+    private static final String SINGLE_SQL = "single sql";
+
+    private static final String HOT_SET_SQL = "hot set sql";
+
+    private RdbSideTableInfo sideTableInfo;
+
+    private RdbAsyncSideInfo sideInfo;
+
+    private AbstractSideCache sideCache;
+
+    private SQLClient sqlClient;
+
+    private SQLConnection connection;
+
+    private List<JsonArray> batchRows;
+
+    private Map<Object, List<JsonArray>> singleRows;
+
+    @Before
+    public void setUp() {
+        sideTableInfo = new RdbSideTableInfo();
+        sideTableInfo.setName("TEST_dim");
+        sideTableInfo.setLookupBatchSize(2);
+        sideInfo = mock(RdbAsyncSideInfo.class);
+        sideCache = mock(AbstractSideCache.class);
+        when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
+        when(sideInfo.getSideCache()).thenReturn(sideCache);
+        when(sideInfo.getEqualFieldList()).thenReturn(Lists.newArrayList("id"));
+        when(sideInfo.isBatchLookupSupported()).thenReturn(true);
+        when(sideInfo.getBatchSqlCondition(anyInt())).thenReturn(BATCH_SQL);
+        when(sideInfo.getSqlCondition()).thenReturn(SINGLE_SQL);
+        when(sideInfo.getHotSetSql()).thenReturn(HOT_SET_SQL);
+
+        batchRows = Lists.newArrayList();
+        singleRows = Maps.newHashMap();
+        connection = mock(SQLConnection.class);
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            JsonArray params = invocation.getArgument(1);
+            List<JsonArray> rows = BATCH_SQL.equals(sql) ? batchRows
+                    : singleRows.getOrDefault(params.getValue(0), Collections.emptyList());
+            Handler<AsyncResult<ResultSet>> handler = invocation.getArgument(2);
+            handler.handle(Future.succeededFuture(new ResultSet().setResults(rows)));
+            return connection;
+        }).when(connection).queryWithParams(any(), any(), any());
+        doAnswer(invocation -> {
+            Handler<AsyncResult<ResultSet>> handler = invocation.getArgument(1);
+            handler.handle(Future.succeededFuture(new ResultSet().setResults(batchRows)));
+            return connection;
+        }).when(connection).query(eq(HOT_SET_SQL), any());
+
+        sqlClient = mock(SQLClient.class);
+        doAnswer(invocation -> {
+            Handler<AsyncResult<SQLConnection>> handler = invocation.getArgument(0);
+            handler.handle(Future.succeededFuture(connection));
+            return sqlClient;
+        }).when(sqlClient).getConnection(any());
+    }
+
+    @Test
+    public void matchNumericKeysOfOtherTypes() throws Exception {
+        sideTableInfo.addField("id");
+        sideTableInfo.addFieldType("decimal");
+        batchRows.add(new JsonArray().add("five").add(5.0D));
+        batchRows.add(new JsonArray().add("six").add("6.00"));
+        RdbAsyncReqRow reqRow = buildReqRow();
+        ResultFuture<BaseRow> first = mock(ResultFuture.class);
+        ResultFuture<BaseRow> second = mock(ResultFuture.class);
+
+        reqRow.handleAsyncInvoke(buildInputParams(5), buildInput(5), first);
+        reqRow.handleAsyncInvoke(buildInputParams(6), buildInput(6), second);
+
+        verify(connection, never()).queryWithParams(eq(SINGLE_SQL), any(), any());
+        verify(first, times(1)).complete(anyCollection());
+        verify(second, times(1)).complete(anyCollection());
+        verify(sideCache, never()).putCache(any(), same(CacheMissVal.getMissKeyObj()));
+    }
+
+    @Test
+    public void unmatchedKeysFallBackToSingleLookup() throws Exception {
+        sideTableInfo.addField("id");
+        sideTableInfo.addFieldType("varchar");
+        // 不区分大小写的排序规则下, 数据库返回的关联字段和流上的值不同
+        batchRows.add(new JsonArray().add("dtstack").add("ABC"));
+        singleRows.put("abc", Lists.newArrayList(new JsonArray().add("dtstack")));
+        RdbAsyncReqRow reqRow = buildReqRow();
+        ResultFuture<BaseRow> first = mock(ResultFuture.class);
+        ResultFuture<BaseRow> second = mock(ResultFuture.class);
+
+        reqRow.handleAsyncInvoke(buildInputParams("abc"), buildInput("abc"), first);
+        reqRow.handleAsyncInvoke(buildInputParams("null"), buildInput("null"), second);
+
+        verify(connection, times(2)).queryWithParams(eq(SINGLE_SQL), any(), any());
+        verify(sideCache, never()).putCache(eq(SideCacheKey.of("abc")), same(CacheMissVal.getMissKeyObj()));
+        verify(sideCache, times(1)).putCache(eq(SideCacheKey.of("null")), same(CacheMissVal.getMissKeyObj()));
+        verify(first, times(1)).complete(anyCollection());
+        verify(second, times(1)).complete(anyCollection());
+    }
+
+    @Test
+    public void hotSetKeysMatchStreamKeys() throws Exception {
+        when(sideInfo.getEqualFieldList()).thenReturn(Lists.newArrayList("id", "code"));
+        sideTableInfo.addField("id");
+        sideTableInfo.addFieldType("decimal");
+        sideTableInfo.addField("code");
+        sideTableInfo.addFieldType("char");
+        // oracle NUMBER 和 char 补齐的空格
+        batchRows.add(new JsonArray(Lists.newArrayList("five", new BigDecimal("5.00"), "abc  ")));
+        batchRows.add(new JsonArray(Lists.newArrayList("seven", BigInteger.valueOf(7), "abc")));
+        batchRows.add(new JsonArray(Lists.newArrayList("eight", 8.0D, "abc")));
+        RdbAsyncReqRow reqRow = buildReqRow();
+
+        Map<SideCacheKey, CacheObj> hotRows = Whitebox.invokeMethod(reqRow, "loadHotSet");
+
+        Assert.assertEquals(3, hotRows.size());
+        for (int id : new int[]{5, 7, 8}) {
+            Map<String, Object> inputParams = buildInputParams(id);
+            inputParams.put("code", "abc");
+            Assert.assertTrue(hotRows.containsKey(reqRow.buildCacheKey(inputParams)));
+        }
+    }
+
+    private RdbAsyncReqRow buildReqRow() {
+        RdbAsyncReqRow reqRow = new RdbAsyncReqRow(sideInfo) {
+            @Override
+            protected void registerTimerAndAddToHandler(BaseRow input, ResultFuture<BaseRow> resultFuture) {
+            }
+        };
+        Whitebox.setInternalState(reqRow, "rdbSqlClient", sqlClient);
+        Whitebox.setInternalState(reqRow, "batchLock", new Object());
+        Whitebox.setInternalState(reqRow, "pendingLookups", Maps.newLinkedHashMap());
+        return reqRow;
+    }
+
+    private static Map<String, Object> buildInputParams(Object id) {
+        Map<String, Object> inputParams = Maps.newLinkedHashMap();
+        inputParams.put("id", id);
+        return inputParams;
+    }
+
+    private static GenericRow buildInput(Object id) {
+        GenericRow input = new GenericRow(1);
+        input.setField(0, id);
+        return input;
+    }
+}
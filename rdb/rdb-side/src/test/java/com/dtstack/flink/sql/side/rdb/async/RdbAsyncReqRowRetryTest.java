@@ -0,0 +1,129 @@
+package com.dtstack.flink.sql.side.rdb.async;
+
+import com.dtstack.flink.sql.side.rdb.table.RdbSideTableInfo;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.sql.SQLClient;
+import io.vertx.ext.sql.SQLConnection;
+import org.apache.flink.runtime.execution.SuppressRestartsException;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.table.dataformat.BaseRow;
+import org.apache.flink.table.dataformat.GenericRow;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * getConnection of the stub SQLClient always fails, retries are run at once by the stub vertx timer
+ */
+public class RdbAsyncReqRowRetryTest {
+
+    private RdbSideTableInfo sideTableInfo;
+
+    private RdbAsyncSideInfo sideInfo;
+
+    private Vertx vertx;
+
+    private SQLClient sqlClient;
+
+    private AtomicInteger connectionRequests;
+
+    @Before
+    public void setUp() {
+        sideTableInfo = new RdbSideTableInfo();
+        sideTableInfo.setName("TEST_dim");
+        sideTableInfo.setConnectRetryMaxNum(3);
+        sideInfo = mock(RdbAsyncSideInfo.class);
+        when(sideInfo.getSideTableInfo()).thenReturn(sideTableInfo);
+        when(sideInfo.getEqualFieldList()).thenReturn(Lists.newArrayList("id"));
+        when(sideInfo.isBatchLookupSupported()).thenReturn(true);
+
+        vertx = mock(Vertx.class);
+        when(vertx.setTimer(anyLong(), any())).thenAnswer(invocation -> {
+            Handler<Long> handler = invocation.getArgument(1);
+            handler.handle(1L);
+            return 1L;
+        });
+
+        connectionRequests = new AtomicInteger();
+        sqlClient = mock(SQLClient.class);
+        doAnswer(invocation -> {
+            connectionRequests.incrementAndGet();
+            Handler<AsyncResult<SQLConnection>> handler = invocation.getArgument(0);
+            handler.handle(Future.failedFuture(new SQLException("connection refused")));
+            return sqlClient;
+        }).when(sqlClient).getConnection(any());
+    }
+
+    @Test
+    public void failAfterConnectRetryMaxNum() throws Exception {
+        RdbAsyncReqRow reqRow = buildReqRow();
+        ResultFuture<BaseRow> resultFuture = mock(ResultFuture.class);
+
+        reqRow.handleAsyncInvoke(buildInputParams(1), buildInput(1), resultFuture);
+
+        Assert.assertEquals(3, connectionRequests.get());
+        verify(vertx, times(2)).setTimer(eq(TimeUnit.SECONDS.toMillis(10L)), any());
+        verify(resultFuture, times(1)).completeExceptionally(any(SuppressRestartsException.class));
+        verify(resultFuture, never()).complete(anyCollection());
+    }
+
+    @Test
+    public void batchFallsBackToSingleRetry() throws Exception {
+        sideTableInfo.setLookupBatchSize(2);
+        RdbAsyncReqRow reqRow = buildReqRow();
+        Whitebox.setInternalState(reqRow, "batchLock", new Object());
+        Whitebox.setInternalState(reqRow, "pendingLookups", Maps.newLinkedHashMap());
+        ResultFuture<BaseRow> first = mock(ResultFuture.class);
+        ResultFuture<BaseRow> second = mock(ResultFuture.class);
+
+        reqRow.handleAsyncInvoke(buildInputParams(1), buildInput(1), first);
+        Assert.assertEquals(0, connectionRequests.get());
+        reqRow.handleAsyncInvoke(buildInputParams(2), buildInput(2), second);
+
+        // 批量查询取连接失败算作第一次失败, 之后每条数据单独重试到connectRetryMaxNum
+        Assert.assertEquals(1 + 2 * 2, connectionRequests.get());
+        verify(first, times(1)).completeExceptionally(any(SuppressRestartsException.class));
+        verify(second, times(1)).completeExceptionally(any(SuppressRestartsException.class));
+    }
+
+    private RdbAsyncReqRow buildReqRow() {
+        RdbAsyncReqRow reqRow = new RdbAsyncReqRow(sideInfo);
+        Whitebox.setInternalState(reqRow, "vertx", vertx);
+        Whitebox.setInternalState(reqRow, "rdbSqlClient", sqlClient);
+        return reqRow;
+    }
+
+    private static Map<String, Object> buildInputParams(int id) {
+        Map<String, Object> inputParams = Maps.newLinkedHashMap();
+        inputParams.put("id", id);
+        return inputParams;
+    }
+
+    private static GenericRow buildInput(int id) {
+        GenericRow input = new GenericRow(1);
+        input.setField(0, id);
+        return input;
+    }
+}
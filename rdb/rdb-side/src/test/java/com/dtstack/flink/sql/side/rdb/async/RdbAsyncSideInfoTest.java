@@ -7,6 +7,8 @@ import com.dtstack.flink.sql.side.rdb.testutil.ArgFactory;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.typeutils.RowTypeInfo;
 import org.apache.flink.table.api.Types;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.powermock.reflect.Whitebox;
@@ -62,4 +64,42 @@ public class RdbAsyncSideInfoTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetBatchSelectFromStatement() {
+        RdbAsyncSideInfo batchSideInfo = Whitebox.newInstance(RdbAsyncSideInfo.class);
+        Whitebox.setInternalState(batchSideInfo, "sideTableInfo", ArgFactory.genSideTableInfo());
+
+        String singleKeySql = batchSideInfo.getBatchSelectFromStatement("TEST_dim", Lists.newArrayList("name"),
+                Lists.newArrayList("id"), Lists.newArrayList(), 3);
+        Assert.assertEquals("SELECT  name ,  id  FROM TEST_dim WHERE ( id  IN ( ? , ? , ? ))", singleKeySql);
+
+        String compositeKeySql = batchSideInfo.getBatchSelectFromStatement("TEST_dim", Lists.newArrayList("name"),
+                Lists.newArrayList("id", "name"), Lists.newArrayList(), 2);
+        Assert.assertEquals("SELECT  name ,  id ,  name  FROM TEST_dim WHERE (( id = ?  AND  name = ? ) OR ( id = ?  AND  name = ? ))",
+                compositeKeySql);
+    }
+
+    @Test
+    public void testGetKeyScanSql() {
+        RdbAsyncSideInfo keySideInfo = Whitebox.newInstance(RdbAsyncSideInfo.class);
+        Whitebox.setInternalState(keySideInfo, "sideTableInfo", ArgFactory.genSideTableInfo());
+        Whitebox.setInternalState(keySideInfo, "equalFieldList", Lists.newArrayList("id", "name"));
+
+        Assert.assertEquals("SELECT DISTINCT  id ,  name  FROM TEST_dim WHERE 1 = 1", keySideInfo.getKeyScanSql());
+    }
+
+    @Test
+    public void testGetHotSetSql() {
+        RdbSideTableInfo sideTableInfo = ArgFactory.genSideTableInfo();
+        sideTableInfo.setHotSetCondition("name like 'a%'");
+        sideTableInfo.setHotSetOrderBy("id DESC");
+        RdbAsyncSideInfo hotSideInfo = Whitebox.newInstance(RdbAsyncSideInfo.class);
+        Whitebox.setInternalState(hotSideInfo, "sideTableInfo", sideTableInfo);
+        Whitebox.setInternalState(hotSideInfo, "equalFieldList", Lists.newArrayList("id"));
+        Whitebox.setInternalState(hotSideInfo, "sideSelectFields", "name");
+
+        Assert.assertEquals("SELECT  name ,  id  FROM TEST_dim WHERE 1 = 1 AND (name like 'a%') ORDER BY id DESC",
+                hotSideInfo.getHotSetSql());
+    }
+
+}
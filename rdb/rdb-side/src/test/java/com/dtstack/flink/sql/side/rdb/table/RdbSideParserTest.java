@@ -43,4 +43,18 @@ public class RdbSideParserTest extends RdbParserTestBase {
         }
     }
 
+    @Test
+    public void testIncrementColumnRequiresPrimaryKey() {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("url", "jdbc:mysql://foo:3306/db_foo");
+        props.put("tablename", "table_foo");
+        props.put("incrementcolumn", "update_time");
+        try {
+            parser.getTableInfo("table_foo", "id INT, name VARCHAR, update_time TIMESTAMP", props);
+            Assert.fail("incrementColumn without primary key");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("primary key"));
+        }
+    }
+
 }
@@ -78,13 +78,14 @@ public class RedisAllReqRow extends BaseAllReqRow {
 
     private RedisSideTableInfo tableInfo;
 
-    private final AtomicReference<Map<String, Map<String, String>>> cacheRef = new AtomicReference<>();
+    private AtomicReference<Map<String, Map<String, String>>> cacheRef = new AtomicReference<>();
 
     private final RedisSideReqRow redisSideReqRow;
 
     public RedisAllReqRow(RowTypeInfo rowTypeInfo, JoinInfo joinInfo, List<FieldInfo> outFieldInfoList, AbstractSideTableInfo sideTableInfo) {
         super(new RedisAllSideInfo(rowTypeInfo, joinInfo, outFieldInfoList, sideTableInfo));
         this.redisSideReqRow = new RedisSideReqRow(super.sideInfo, (RedisSideTableInfo) sideTableInfo);
+        this.tableInfo = (RedisSideTableInfo) sideTableInfo;
     }
 
     @Override
@@ -92,9 +93,19 @@ public class RedisAllReqRow extends BaseAllReqRow {
         return redisSideReqRow.fillData(input, sideInput);
     }
 
+    @Override
+    protected AtomicReference<?> getCacheRef() {
+        return cacheRef;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setCacheRef(AtomicReference<?> cacheRef) {
+        this.cacheRef = (AtomicReference<Map<String, Map<String, String>>>) cacheRef;
+    }
+
     @Override
     protected void initCache() throws SQLException {
-        tableInfo = (RedisSideTableInfo) sideInfo.getSideTableInfo();
         Map<String, Map<String, String>> newCache = Maps.newConcurrentMap();
         cacheRef.set(newCache);
         loadData(newCache);
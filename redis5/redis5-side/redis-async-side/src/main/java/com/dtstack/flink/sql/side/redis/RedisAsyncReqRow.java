@@ -25,6 +25,7 @@ import com.dtstack.flink.sql.side.CacheMissVal;
 import com.dtstack.flink.sql.side.FieldInfo;
 import com.dtstack.flink.sql.side.JoinInfo;
 import com.dtstack.flink.sql.side.cache.CacheObj;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.redis.enums.RedisType;
 import com.dtstack.flink.sql.side.redis.table.RedisSideReqRow;
 import com.dtstack.flink.sql.side.redis.table.RedisSideTableInfo;
@@ -181,30 +182,36 @@ public class RedisAsyncReqRow extends BaseAsyncReqRow {
 
     @Override
     public void handleAsyncInvoke(Map<String, Object> inputParams, BaseRow input, ResultFuture<BaseRow> resultFuture) throws Exception {
-        String key = buildCacheKey(inputParams);
+        String key = redisSideReqRow.buildCacheKey(inputParams);
         if(StringUtils.isBlank(key)){
             return;
         }
+        SideCacheKey cacheKey = SideCacheKey.of(key);
         RedisFuture<Map<String, String>> future = ((RedisHashAsyncCommands) async).hgetall(key);
         future.thenAccept(values -> {
             if (MapUtils.isNotEmpty(values)) {
                 try {
                     BaseRow row = fillData(input, values);
-                    dealCacheData(key, CacheObj.buildCacheObj(ECacheContentType.SingleLine, values));
+                    dealCacheData(cacheKey, CacheObj.buildCacheObj(ECacheContentType.SingleLine, values));
                     RowDataComplete.completeBaseRow(resultFuture, row);
                 } catch (Exception e) {
                     dealFillDataError(input, resultFuture, e);
                 }
             } else {
+                dealCacheData(cacheKey, CacheMissVal.getMissKeyObj());
                 dealMissKey(input, resultFuture);
-                dealCacheData(key, CacheMissVal.getMissKeyObj());
             }
         });
     }
 
     @Override
-    public String buildCacheKey(Map<String, Object> refData) {
-        return redisSideReqRow.buildCacheKey(refData);
+    public SideCacheKey buildCacheKey(Map<String, Object> refData) {
+        return SideCacheKey.of(redisSideReqRow.buildCacheKey(refData));
+    }
+
+    @Override
+    protected SideCacheKey buildCacheKey(BaseRow input) {
+        return buildCacheKey(parseInputParam(input));
     }
 
     @Override
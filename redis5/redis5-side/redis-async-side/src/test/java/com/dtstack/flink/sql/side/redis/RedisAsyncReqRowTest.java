@@ -19,6 +19,7 @@
 package com.dtstack.flink.sql.side.redis;
 
 import com.dtstack.flink.sql.side.*;
+import com.dtstack.flink.sql.side.cache.SideCacheKey;
 import com.dtstack.flink.sql.side.redis.table.RedisSideTableInfo;
 import com.google.common.collect.Maps;
 import io.lettuce.core.RedisAsyncCommandsImpl;
@@ -143,7 +144,7 @@ public class RedisAsyncReqRowTest {
         when(redisSideTableInfo.getTableName()).thenReturn("sideTable");
         when(redisSideTableInfo.getPrimaryKeys()).thenReturn(primaryKeys);
 
-        Assert.assertEquals("sideTable_1", redisAsyncReqRow.buildCacheKey(inputParams));
+        Assert.assertEquals(SideCacheKey.of("sideTable_1"), redisAsyncReqRow.buildCacheKey(inputParams));
     }
 
     @Test